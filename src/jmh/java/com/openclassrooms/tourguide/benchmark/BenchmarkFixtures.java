@@ -0,0 +1,57 @@
+package com.openclassrooms.tourguide.benchmark;
+
+import com.openclassrooms.tourguide.user.HistoryRetention;
+import com.openclassrooms.tourguide.user.User;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Seeded test data shared by the benchmarks.
+ */
+final class BenchmarkFixtures {
+
+	/** Fixed id, so reward lookups hit the cache once warmed up. */
+	static final UUID USER_ID = new UUID(42, 42);
+
+	private BenchmarkFixtures() {
+	}
+
+	/**
+	 * Builds a location history where every other point lies within a few miles
+	 * of an attraction, so reward matching finds real matches.
+	 */
+	static List<VisitedLocation> history(List<Attraction> attractions, int points, long seed) {
+		SplittableRandom random = new SplittableRandom(seed);
+		List<VisitedLocation> history = new ArrayList<>(points);
+		for (int i = 0; i < points; i++) {
+			Location location;
+			if (i % 2 == 0) {
+				Attraction attraction = attractions.get(random.nextInt(attractions.size()));
+				location = new Location(attraction.latitude + random.nextDouble(-0.05, 0.05),
+						attraction.longitude + random.nextDouble(-0.05, 0.05));
+			} else {
+				location = new Location(random.nextDouble(-85, 85), random.nextDouble(-180, 180));
+			}
+			history.add(new VisitedLocation(USER_ID, location, new Date(i)));
+		}
+		return history;
+	}
+
+	/**
+	 * Creates a user holding the given history in full.
+	 */
+	static User user(List<VisitedLocation> history) {
+		User user = new User(USER_ID, "benchmark", "000", "benchmark@tourGuide.com",
+				new HistoryRetention(Math.max(1, history.size()), Duration.ZERO));
+		history.forEach(user::addToVisitedLocations);
+		return user;
+	}
+}
@@ -0,0 +1,112 @@
+package com.openclassrooms.tourguide.benchmark;
+
+import com.openclassrooms.tourguide.benchmark.stub.StubGpsUtil;
+import com.openclassrooms.tourguide.benchmark.stub.StubRewardCentral;
+import com.openclassrooms.tourguide.distance.DistanceFormula;
+import com.openclassrooms.tourguide.distance.Distances;
+import com.openclassrooms.tourguide.distance.GeoPoint;
+import com.openclassrooms.tourguide.service.RewardsService;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one (location, attraction) distance evaluation: the original formula
+ * against the distance module's formulas on precomputed points, the
+ * squared-chord threshold check used by reward matching, and
+ * {@link RewardsService#getDistance(Location, Location)} on catalog attractions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DistanceBenchmark {
+
+	private static final int PAIRS = 1024;
+
+	private final Location[] locations = new Location[PAIRS];
+	private final Attraction[] attractions = new Attraction[PAIRS];
+	private final GeoPoint[] locationPoints = new GeoPoint[PAIRS];
+	private final GeoPoint[] attractionPoints = new GeoPoint[PAIRS];
+	private final double thresholdChordSquared = Distances.chordSquaredForMiles(10);
+	private RewardsService rewardsService;
+
+	@Setup
+	public void setUp() {
+		StubGpsUtil gpsUtil = new StubGpsUtil(PAIRS, 42);
+		rewardsService = new RewardsService(gpsUtil, new StubRewardCentral());
+		List<Attraction> catalog = gpsUtil.getAttractions();
+		Random random = new Random(42);
+		for (int i = 0; i < PAIRS; i++) {
+			locations[i] = new Location(-85 + random.nextDouble() * 170, -180 + random.nextDouble() * 360);
+			attractions[i] = catalog.get(i);
+			locationPoints[i] = GeoPoint.of(locations[i]);
+			attractionPoints[i] = GeoPoint.of(attractions[i]);
+		}
+	}
+
+	@Benchmark
+	public void originalFormula(Blackhole blackhole) {
+		for (int i = 0; i < PAIRS; i++) {
+			blackhole.consume(originalDistance(locations[i], attractions[i]));
+		}
+	}
+
+	@Benchmark
+	public void lawOfCosinesPrecomputed(Blackhole blackhole) {
+		for (int i = 0; i < PAIRS; i++) {
+			blackhole.consume(DistanceFormula.SPHERICAL_LAW_OF_COSINES.miles(locationPoints[i], attractionPoints[i]));
+		}
+	}
+
+	@Benchmark
+	public void haversinePrecomputed(Blackhole blackhole) {
+		for (int i = 0; i < PAIRS; i++) {
+			blackhole.consume(DistanceFormula.HAVERSINE.miles(locationPoints[i], attractionPoints[i]));
+		}
+	}
+
+	@Benchmark
+	public void chordThreshold(Blackhole blackhole) {
+		for (int i = 0; i < PAIRS; i++) {
+			blackhole.consume(locationPoints[i].chordSquaredTo(attractionPoints[i]) <= thresholdChordSquared);
+		}
+	}
+
+	@Benchmark
+	public void rewardsServiceGetDistance(Blackhole blackhole) {
+		for (int i = 0; i < PAIRS; i++) {
+			blackhole.consume(rewardsService.getDistance(locations[i], attractions[i]));
+		}
+	}
+
+	/** The formula RewardsService.getDistance used before the distance module. */
+	private static double originalDistance(Location loc1, Location loc2) {
+		double lat1 = Math.toRadians(loc1.latitude);
+		double lon1 = Math.toRadians(loc1.longitude);
+		double lat2 = Math.toRadians(loc2.latitude);
+		double lon2 = Math.toRadians(loc2.longitude);
+
+		double angle = Math.acos(Math.sin(lat1) * Math.sin(lat2)
+				+ Math.cos(lat1) * Math.cos(lat2) * Math.cos(lon1 - lon2));
+
+		double nauticalMiles = 60 * Math.toDegrees(angle);
+		return Distances.STATUTE_MILES_PER_NAUTICAL_MILE * nauticalMiles;
+	}
+}
@@ -0,0 +1,97 @@
+package com.openclassrooms.tourguide.benchmark;
+
+import com.openclassrooms.tourguide.benchmark.stub.StubGpsUtil;
+import com.openclassrooms.tourguide.benchmark.stub.StubRewardCentral;
+import com.openclassrooms.tourguide.cache.RewardPointsCache;
+import com.openclassrooms.tourguide.dto.NearbyAttractionDTO;
+import com.openclassrooms.tourguide.execution.ExecutionStrategy;
+import com.openclassrooms.tourguide.gateway.RewardCentralGateway;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.NearbyAttractionService;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.spatial.AttractionIndex;
+import com.openclassrooms.tourguide.tracker.TrackerSettings;
+import com.openclassrooms.tourguide.user.User;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The nearby-attractions path: the five-nearest query on its own, and the DTO
+ * assembly behind {@code /getNearbyAttractions} (location, nearest attractions,
+ * distances and cached reward points).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NearbyAttractionsBenchmark {
+
+	@Param({ "26", "1000", "100000" })
+	public int catalogSize;
+
+	private ExecutionStrategy executionStrategy;
+	private TourGuideService tourGuideService;
+	private NearbyAttractionService nearbyAttractionService;
+	private User user;
+	private VisitedLocation visitedLocation;
+
+	@Setup
+	public void setUp() {
+		StubGpsUtil gpsUtil = new StubGpsUtil(catalogSize, 42);
+		List<Attraction> attractions = gpsUtil.getAttractions();
+		AttractionIndex attractionIndex = new AttractionIndex(attractions);
+		executionStrategy = ExecutionStrategy.platform();
+		RewardPointsCache rewardPointsCache = new RewardPointsCache(new RewardCentralGateway(new StubRewardCentral()),
+				Duration.ofHours(1), 1_000_000, executionStrategy);
+		RewardsService rewardsService = new RewardsService(rewardPointsCache, attractionIndex, executionStrategy);
+
+		TrackerSettings trackerSettings = new TrackerSettings();
+		trackerSettings.setInterval(Duration.ofDays(1));
+		InternalTestHelper.setInternalUserNumber(0);
+		tourGuideService = TourGuideService.builder(gpsUtil, rewardsService)
+				.attractionIndex(attractionIndex)
+				.executionStrategy(executionStrategy)
+				.trackerSettings(trackerSettings)
+				.build();
+		tourGuideService.tracker.stopTracking();
+
+		nearbyAttractionService = new NearbyAttractionService(tourGuideService, rewardsService, rewardPointsCache,
+				executionStrategy.taskExecutor(), Duration.ofSeconds(2));
+		user = BenchmarkFixtures.user(BenchmarkFixtures.history(attractions, 10, 7));
+		visitedLocation = user.getLastVisitedLocation();
+	}
+
+	@TearDown
+	public void tearDown() {
+		executionStrategy.close();
+	}
+
+	@Benchmark
+	public List<Attraction> getNearByAttractions() {
+		return tourGuideService.getNearByAttractions(visitedLocation);
+	}
+
+	@Benchmark
+	public List<NearbyAttractionDTO> nearbyAttractionDtos() {
+		return nearbyAttractionService.getNearbyAttractions(user).join();
+	}
+}
@@ -0,0 +1,83 @@
+package com.openclassrooms.tourguide.benchmark;
+
+import com.openclassrooms.tourguide.benchmark.stub.StubGpsUtil;
+import com.openclassrooms.tourguide.benchmark.stub.StubRewardCentral;
+import com.openclassrooms.tourguide.cache.RewardPointsCache;
+import com.openclassrooms.tourguide.execution.ExecutionStrategy;
+import com.openclassrooms.tourguide.gateway.RewardCentralGateway;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.spatial.AttractionIndex;
+import com.openclassrooms.tourguide.user.User;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full reward calculation of one user, across history and catalog sizes.
+ *
+ * <p>Each invocation starts from a fresh user holding the whole history, so the
+ * watermark never short-circuits the work. Reward points come from a warmed
+ * cache in front of a stub {@code RewardCentral}.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RewardsBenchmark {
+
+	@Param({ "26", "1000", "10000" })
+	public int catalogSize;
+
+	@Param({ "10", "100", "1000" })
+	public int historySize;
+
+	private ExecutionStrategy executionStrategy;
+	private RewardsService rewardsService;
+	private List<VisitedLocation> history;
+	private User user;
+
+	@Setup(Level.Trial)
+	public void setUpTrial() {
+		StubGpsUtil gpsUtil = new StubGpsUtil(catalogSize, 42);
+		List<Attraction> attractions = gpsUtil.getAttractions();
+		executionStrategy = ExecutionStrategy.platform();
+		RewardPointsCache rewardPointsCache = new RewardPointsCache(new RewardCentralGateway(new StubRewardCentral()),
+				Duration.ofHours(1), 1_000_000, executionStrategy);
+		rewardsService = new RewardsService(rewardPointsCache, new AttractionIndex(attractions), executionStrategy);
+		history = BenchmarkFixtures.history(attractions, historySize, 7);
+	}
+
+	@Setup(Level.Invocation)
+	public void setUpUser() {
+		user = BenchmarkFixtures.user(history);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		executionStrategy.close();
+	}
+
+	@Benchmark
+	public User calculateRewards() {
+		rewardsService.calculateRewards(user);
+		return user;
+	}
+}
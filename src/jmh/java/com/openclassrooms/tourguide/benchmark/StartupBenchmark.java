@@ -0,0 +1,134 @@
+package com.openclassrooms.tourguide.benchmark;
+
+import com.openclassrooms.tourguide.benchmark.stub.StubGpsUtil;
+import com.openclassrooms.tourguide.helper.PopulationGenerator;
+import com.openclassrooms.tourguide.helper.PopulationSettings;
+import com.openclassrooms.tourguide.journal.SnapshotSettings;
+import com.openclassrooms.tourguide.journal.SnapshotStore;
+import com.openclassrooms.tourguide.journal.UserJournal;
+import com.openclassrooms.tourguide.user.ConcurrentUserRepository;
+import com.openclassrooms.tourguide.user.HistoryRetention;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserRepository;
+import gpsUtil.location.Attraction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Startup time of a user store of a given size: generating it, the way test mode
+ * does (see {@link PopulationGenerator}), against loading it back from a snapshot, either
+ * in full or just until the first user can be served.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StartupBenchmark {
+
+	private static final HistoryRetention RETENTION = new HistoryRetention(1000, Duration.ZERO);
+	/** No user has this id, so looking it up waits for the whole snapshot. */
+	private static final UUID UNKNOWN_USER = new UUID(0, 0);
+
+	@Param({ "10000", "100000", "1000000" })
+	public int userCount;
+
+	/** Locations per user; test mode generates three. */
+	@Param({ "3" })
+	public int historyLength;
+
+	private final List<Attraction> attractions = new StubGpsUtil(26, 42).getAttractions();
+	private Path directory;
+	private SnapshotStore store;
+	private UserRepository loading;
+
+	@Setup(Level.Trial)
+	public void writeSnapshot() throws IOException {
+		directory = Files.createTempDirectory("startup-benchmark");
+		try (SnapshotStore writer = newStore()) {
+			writer.snapshot(generate());
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void openStore() {
+		store = newStore();
+	}
+
+	@TearDown(Level.Invocation)
+	public void closeStore() {
+		if (loading != null) {
+			// Let the remaining shards finish outside of the measured time
+			loading.findByUserId(UNKNOWN_USER);
+			loading = null;
+		}
+		store.close();
+		store = null;
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteSnapshot() throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+				Files.delete(path);
+			}
+		}
+	}
+
+	@Benchmark
+	public UserRepository generate() {
+		PopulationSettings settings = new PopulationSettings();
+		settings.setHistoryLength(historyLength);
+		UserRepository userRepository = new ConcurrentUserRepository();
+		new PopulationGenerator(settings, attractions, RETENTION).generate(userCount)
+				.parallelStream()
+				.forEach(userRepository::add);
+		return userRepository;
+	}
+
+	@Benchmark
+	public UserRepository loadAll() {
+		UserRepository userRepository = store.load(new ConcurrentUserRepository()).orElseThrow();
+		userRepository.findByUserId(UNKNOWN_USER);
+		return userRepository;
+	}
+
+	@Benchmark
+	public User firstLookup() {
+		UserRepository userRepository = store.load(new ConcurrentUserRepository()).orElseThrow();
+		loading = userRepository;
+		return userRepository.findByUserName("internalUser" + (userCount / 2));
+	}
+
+	private SnapshotStore newStore() {
+		SnapshotSettings settings = new SnapshotSettings();
+		settings.setEnabled(true);
+		settings.setDirectory(directory);
+		settings.setInterval(Duration.ZERO);
+		settings.setSnapshotOnShutdown(false);
+		return new SnapshotStore(settings, RETENTION, UserJournal.NONE, new SimpleMeterRegistry());
+	}
+}
@@ -0,0 +1,70 @@
+package com.openclassrooms.tourguide.benchmark;
+
+import com.openclassrooms.tourguide.benchmark.stub.StubGpsUtil;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserReward;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link User#addUserReward(UserReward)}: rewarding a fresh user for every
+ * attraction once, then offering each reward a second time (all rejected as
+ * duplicates), with a snapshot read after each pass.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserBenchmark {
+
+	@Param({ "26", "1000" })
+	public int attractionCount;
+
+	private List<UserReward> rewards;
+	private User user;
+
+	@Setup(Level.Trial)
+	public void setUpTrial() {
+		List<Attraction> attractions = new StubGpsUtil(attractionCount, 42).getAttractions();
+		List<VisitedLocation> history = BenchmarkFixtures.history(attractions, 1, 7);
+		rewards = new ArrayList<>(attractions.size());
+		for (Attraction attraction : attractions) {
+			rewards.add(new UserReward(history.get(0), attraction, 10));
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void setUpUser() {
+		user = BenchmarkFixtures.user(List.of());
+	}
+
+	@Benchmark
+	public int addUserRewards() {
+		for (UserReward reward : rewards) {
+			user.addUserReward(reward);
+		}
+		int size = user.getUserRewards().size();
+		for (UserReward reward : rewards) {
+			user.addUserReward(reward);
+		}
+		return size + user.getUserRewards().size();
+	}
+}
@@ -0,0 +1,50 @@
+package com.openclassrooms.tourguide.benchmark.stub;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link GpsUtil} without sleeps or randomness: a fixed, seeded attraction
+ * catalog whose objects (and ids) stay the same across calls, and user locations
+ * derived from the user id and a call counter.
+ */
+public class StubGpsUtil extends GpsUtil {
+
+	private final List<Attraction> attractions;
+	private final AtomicLong calls = new AtomicLong();
+
+	/**
+	 * @param attractionCount number of attractions in the catalog
+	 * @param seed            seed of the catalog coordinates
+	 */
+	public StubGpsUtil(int attractionCount, long seed) {
+		SplittableRandom random = new SplittableRandom(seed);
+		List<Attraction> catalog = new ArrayList<>(attractionCount);
+		for (int i = 0; i < attractionCount; i++) {
+			catalog.add(new Attraction("Attraction" + i, "City" + i, "ST",
+					random.nextDouble(-85, 85), random.nextDouble(-180, 180)));
+		}
+		this.attractions = List.copyOf(catalog);
+	}
+
+	@Override
+	public List<Attraction> getAttractions() {
+		return new ArrayList<>(attractions);
+	}
+
+	@Override
+	public VisitedLocation getUserLocation(UUID userId) {
+		SplittableRandom random = new SplittableRandom(userId.getLeastSignificantBits() ^ calls.getAndIncrement());
+		return new VisitedLocation(userId,
+				new Location(random.nextDouble(-85, 85), random.nextDouble(-180, 180)), new Date(0));
+	}
+}
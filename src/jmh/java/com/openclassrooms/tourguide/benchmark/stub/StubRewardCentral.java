@@ -0,0 +1,16 @@
+package com.openclassrooms.tourguide.benchmark.stub;
+
+import rewardCentral.RewardCentral;
+
+import java.util.UUID;
+
+/**
+ * {@link RewardCentral} answering immediately with points derived from the ids.
+ */
+public class StubRewardCentral extends RewardCentral {
+
+	@Override
+	public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+		return 1 + Math.floorMod(attractionId.hashCode() * 31 + userId.hashCode(), 1000);
+	}
+}
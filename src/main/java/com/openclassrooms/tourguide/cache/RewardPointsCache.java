@@ -0,0 +1,132 @@
+package com.openclassrooms.tourguide.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.openclassrooms.tourguide.execution.Downstream;
+import com.openclassrooms.tourguide.execution.ExecutionStrategy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import com.openclassrooms.tourguide.gateway.RewardCentralGateway;
+import com.openclassrooms.tourguide.gateway.RewardsGateway;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import rewardCentral.RewardCentral;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Bounded, expiring cache in front of {@link RewardsGateway#getAttractionRewardPoints(UUID, UUID)}.
+ *
+ * <p>Entries are keyed by (attraction id, user id). Concurrent requests for a key
+ * that is still loading share the same pending future, so the gateway
+ * is called at most once per key and TTL period. Hit, miss, eviction and load
+ * time statistics are published to Micrometer under the {@code rewardPoints} cache name.</p>
+ */
+public class RewardPointsCache implements MeterBinder {
+
+	private static final Duration DEFAULT_TTL = Duration.ofMinutes(10);
+	private static final long DEFAULT_MAXIMUM_SIZE = 100_000;
+
+	private final AsyncLoadingCache<Key, Integer> cache;
+
+	/**
+	 * Constructs a cache with default TTL and size, loading on the strategy's
+	 * lookup executor within its {@link Downstream#REWARDS} concurrency limit.
+	 *
+	 * @param rewardCentral     the RewardCentral service used to fetch reward points
+	 * @param executionStrategy strategy providing the executor and concurrency limit
+	 */
+	public RewardPointsCache(RewardCentral rewardCentral, ExecutionStrategy executionStrategy) {
+		this(new RewardCentralGateway(rewardCentral), DEFAULT_TTL, DEFAULT_MAXIMUM_SIZE, executionStrategy);
+	}
+
+	/**
+	 * Constructs a {@code RewardPointsCache}.
+	 *
+	 * @param rewardCentral the RewardCentral service used to fetch reward points
+	 * @param ttl           how long a loaded value stays valid
+	 * @param maximumSize   maximum number of cached entries
+	 * @param executor      executor running the {@code RewardCentral} lookups
+	 */
+	public RewardPointsCache(RewardCentral rewardCentral, Duration ttl, long maximumSize, Executor executor) {
+		this(new RewardCentralGateway(rewardCentral), ttl, maximumSize, executor);
+	}
+
+	/**
+	 * Constructs a {@code RewardPointsCache}.
+	 *
+	 * @param rewardsGateway the gateway used to fetch reward points
+	 * @param ttl            how long a loaded value stays valid
+	 * @param maximumSize    maximum number of cached entries
+	 * @param executor       executor running the lookups
+	 */
+	public RewardPointsCache(RewardsGateway rewardsGateway, Duration ttl, long maximumSize, Executor executor) {
+		this(key -> rewardsGateway.getAttractionRewardPoints(key.attractionId(), key.userId()),
+				ttl, maximumSize, executor);
+	}
+
+	/**
+	 * Constructs a {@code RewardPointsCache} whose lookups run on the strategy's
+	 * lookup executor, within its {@link Downstream#REWARDS} concurrency limit.
+	 *
+	 * @param rewardsGateway    the gateway used to fetch reward points
+	 * @param ttl               how long a loaded value stays valid
+	 * @param maximumSize       maximum number of cached entries
+	 * @param executionStrategy strategy providing the executor and concurrency limit
+	 */
+	public RewardPointsCache(RewardsGateway rewardsGateway, Duration ttl, long maximumSize,
+			ExecutionStrategy executionStrategy) {
+		this(key -> executionStrategy.call(Downstream.REWARDS,
+						() -> rewardsGateway.getAttractionRewardPoints(key.attractionId(), key.userId())),
+				ttl, maximumSize, executionStrategy.lookupExecutor());
+	}
+
+	private RewardPointsCache(CacheLoader<Key, Integer> loader, Duration ttl, long maximumSize, Executor executor) {
+		this.cache = Caffeine.newBuilder()
+				.expireAfterWrite(ttl)
+				.maximumSize(maximumSize)
+				.executor(executor)
+				.recordStats()
+				.buildAsync(loader);
+	}
+
+	/**
+	 * Looks up reward points without blocking. Callers asking for the same key
+	 * while it is loading receive the same future. A lookup the executor rejects
+	 * fails the future rather than throwing.
+	 *
+	 * @param attractionId the attraction being rewarded
+	 * @param userId       the user receiving the reward
+	 * @return a future completed with the reward points
+	 */
+	public CompletableFuture<Integer> getRewardPointsAsync(UUID attractionId, UUID userId) {
+		try {
+			return cache.get(new Key(attractionId, userId));
+		} catch (RejectedExecutionException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	/**
+	 * Looks up reward points, waiting for the value if it is not cached yet.
+	 *
+	 * @param attractionId the attraction being rewarded
+	 * @param userId       the user receiving the reward
+	 * @return the reward points
+	 */
+	public int getRewardPoints(UUID attractionId, UUID userId) {
+		return getRewardPointsAsync(attractionId, userId).join();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, cache, "rewardPoints");
+	}
+
+	private record Key(UUID attractionId, UUID userId) {
+	}
+}
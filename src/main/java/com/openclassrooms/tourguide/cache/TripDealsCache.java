@@ -0,0 +1,125 @@
+package com.openclassrooms.tourguide.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.openclassrooms.tourguide.execution.Downstream;
+import com.openclassrooms.tourguide.execution.ExecutionStrategy;
+import com.openclassrooms.tourguide.gateway.PricingGateway;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserPreferences;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import tripPricer.Provider;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Cache of trip deals in front of a {@link PricingGateway}, serving stale deals
+ * while they are refreshed.
+ *
+ * <p>Entries are keyed by every input of the price: the user, their party size
+ * and trip duration, and their total reward points. Changing the preferences or
+ * earning a reward therefore changes the key, so outdated deals are never
+ * served; the user's previous entry is dropped at that point. An entry older
+ * than {@code refreshAfter} is still returned at once, while a single background
+ * reload replaces it; one older than {@code expireAfter} is reloaded before
+ * answering. Loads run on the strategy's lookup executor within its
+ * {@link Downstream#PRICER} concurrency limit. Statistics are published to
+ * Micrometer under the {@code tripDeals} cache name.</p>
+ */
+public class TripDealsCache implements MeterBinder {
+
+	private static final String TRIP_PRICER_API_KEY = "test-server-api-key";
+	private static final Duration DEFAULT_REFRESH_AFTER = Duration.ofMinutes(1);
+	private static final Duration DEFAULT_EXPIRE_AFTER = Duration.ofMinutes(10);
+	private static final long DEFAULT_MAXIMUM_SIZE = 100_000;
+
+	private final AsyncLoadingCache<Key, List<Provider>> cache;
+
+	/** Key of each user's latest entry, to drop it once their pricing inputs change. */
+	private final Cache<UUID, Key> latestKeys;
+
+	/**
+	 * Constructs a cache with default refresh, expiry and size.
+	 *
+	 * @param pricingGateway    the gateway pricing the trips
+	 * @param executionStrategy strategy providing the executor and concurrency limit
+	 */
+	public TripDealsCache(PricingGateway pricingGateway, ExecutionStrategy executionStrategy) {
+		this(pricingGateway, DEFAULT_REFRESH_AFTER, DEFAULT_EXPIRE_AFTER, DEFAULT_MAXIMUM_SIZE, executionStrategy);
+	}
+
+	/**
+	 * Constructs a {@code TripDealsCache}.
+	 *
+	 * @param pricingGateway    the gateway pricing the trips
+	 * @param refreshAfter      age after which deals are refreshed in the background
+	 * @param expireAfter       age after which deals are no longer served
+	 * @param maximumSize       maximum number of cached entries
+	 * @param executionStrategy strategy providing the executor and concurrency limit
+	 */
+	public TripDealsCache(PricingGateway pricingGateway, Duration refreshAfter, Duration expireAfter,
+			long maximumSize, ExecutionStrategy executionStrategy) {
+		this.cache = Caffeine.newBuilder()
+				.refreshAfterWrite(refreshAfter)
+				.expireAfterWrite(expireAfter)
+				.maximumSize(maximumSize)
+				.executor(executionStrategy.lookupExecutor())
+				.recordStats()
+				.buildAsync(key -> executionStrategy.call(Downstream.PRICER, () -> pricingGateway.getPrice(
+						TRIP_PRICER_API_KEY, key.userId(), key.adults(), key.children(), key.nightsStay(),
+						key.rewardPoints())));
+		this.latestKeys = Caffeine.newBuilder()
+				.expireAfterWrite(expireAfter)
+				.maximumSize(maximumSize)
+				.build();
+	}
+
+	/**
+	 * Returns the trip deals matching the user's current preferences and reward points,
+	 * waiting only if none are cached or the cached ones expired.
+	 *
+	 * @param user the user requesting trip deals
+	 * @return the offers, one per provider
+	 */
+	public List<Provider> getTripDeals(User user) {
+		return getTripDealsAsync(user).join();
+	}
+
+	/**
+	 * Looks up trip deals without blocking. Callers asking for the same inputs
+	 * while they are loading receive the same future. A lookup the executor
+	 * rejects fails the future rather than throwing.
+	 *
+	 * @param user the user requesting trip deals
+	 * @return a future completed with the offers
+	 */
+	public CompletableFuture<List<Provider>> getTripDealsAsync(User user) {
+		UserPreferences preferences = user.getUserPreferences();
+		Key key = new Key(user.getUserId(), preferences.getNumberOfAdults(), preferences.getNumberOfChildren(),
+				preferences.getTripDuration(), user.getRewardPointsTotal());
+		Key previous = latestKeys.asMap().put(user.getUserId(), key);
+		if (previous != null && !previous.equals(key)) {
+			cache.synchronous().invalidate(previous);
+		}
+		try {
+			return cache.get(key);
+		} catch (RejectedExecutionException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, cache, "tripDeals");
+	}
+
+	private record Key(UUID userId, int adults, int children, int nightsStay, int rewardPoints) {
+	}
+}
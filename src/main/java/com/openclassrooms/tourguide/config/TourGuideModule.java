@@ -1,28 +1,192 @@
 package com.openclassrooms.tourguide.config;
 
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 
 import gpsUtil.GpsUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 import rewardCentral.RewardCentral;
+import tripPricer.TripPricer;
+import com.openclassrooms.tourguide.cache.RewardPointsCache;
+import com.openclassrooms.tourguide.cache.TripDealsCache;
+import com.openclassrooms.tourguide.execution.ExecutionStrategy;
+import com.openclassrooms.tourguide.gateway.GpsGateway;
+import com.openclassrooms.tourguide.gateway.GpsUtilGateway;
+import com.openclassrooms.tourguide.gateway.PricingGateway;
+import com.openclassrooms.tourguide.gateway.RewardCentralGateway;
+import com.openclassrooms.tourguide.gateway.RewardsGateway;
+import com.openclassrooms.tourguide.gateway.SimulatedGpsGateway;
+import com.openclassrooms.tourguide.gateway.SimulatedPricingGateway;
+import com.openclassrooms.tourguide.gateway.SimulatedRewardsGateway;
+import com.openclassrooms.tourguide.gateway.TripPricerGateway;
+import com.openclassrooms.tourguide.geofence.GeofenceEngine;
+import com.openclassrooms.tourguide.geofence.GeofenceMonitor;
+import com.openclassrooms.tourguide.geofence.GeofenceSettings;
+import com.openclassrooms.tourguide.journal.JournalSettings;
+import com.openclassrooms.tourguide.journal.SegmentedJournal;
+import com.openclassrooms.tourguide.journal.SnapshotSettings;
+import com.openclassrooms.tourguide.journal.SnapshotStore;
+import com.openclassrooms.tourguide.journal.UserJournal;
+import com.openclassrooms.tourguide.journal.UserSnapshots;
+import com.openclassrooms.tourguide.service.NearbyAttractionService;
 import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.shard.FileShardCoordinator;
+import com.openclassrooms.tourguide.shard.InMemoryShardCoordinator;
+import com.openclassrooms.tourguide.shard.ShardCoordinator;
+import com.openclassrooms.tourguide.shard.ShardMembership;
+import com.openclassrooms.tourguide.spatial.AttractionIndex;
+import com.openclassrooms.tourguide.tracker.TrackerSettings;
+import com.openclassrooms.tourguide.user.HistorySettings;
 
 @Configuration
+@EnableConfigurationProperties(TourGuideProperties.class)
 public class TourGuideModule {
+
+	private final TourGuideProperties properties;
+	private final MeterRegistry meterRegistry;
+
+	public TourGuideModule(TourGuideProperties properties, MeterRegistry meterRegistry) {
+		this.properties = properties;
+		this.meterRegistry = meterRegistry;
+	}
+	
+	@Bean
+	public GpsGateway getGpsGateway() {
+		TourGuideProperties.Gateways gateways = properties.getGateways();
+		GpsUtil gpsUtil = new GpsUtil();
+		if (gateways.getMode() == TourGuideProperties.Gateways.Mode.SIMULATED) {
+			TourGuideProperties.Gateways.Simulated gps = gateways.getGps();
+			return new SimulatedGpsGateway(gpsUtil.getAttractions(), gps.toLatencyProfile(), gps.getErrorRate(),
+					gateways.getSeed(), gps.isBatchEndpoint());
+		}
+		return new GpsUtilGateway(gpsUtil);
+	}
 	
 	@Bean
-	public GpsUtil getGpsUtil() {
-		return new GpsUtil();
+	public RewardsGateway getRewardsGateway() {
+		TourGuideProperties.Gateways gateways = properties.getGateways();
+		if (gateways.getMode() == TourGuideProperties.Gateways.Mode.SIMULATED) {
+			TourGuideProperties.Gateways.Simulated rewards = gateways.getRewards();
+			return new SimulatedRewardsGateway(rewards.toLatencyProfile(), rewards.getErrorRate(),
+					gateways.getSeed() + 1);
+		}
+		return new RewardCentralGateway(new RewardCentral());
+	}
+	
+	@Bean
+	public PricingGateway getPricingGateway() {
+		TourGuideProperties.Gateways gateways = properties.getGateways();
+		if (gateways.getMode() == TourGuideProperties.Gateways.Mode.SIMULATED) {
+			TourGuideProperties.Gateways.Simulated pricer = gateways.getPricer();
+			return new SimulatedPricingGateway(pricer.toLatencyProfile(), pricer.getErrorRate(),
+					gateways.getSeed() + 2);
+		}
+		return new TripPricerGateway(new TripPricer());
 	}
 	
 	@Bean
 	public RewardsService getRewardsService() {
-		return new RewardsService(getGpsUtil(), getRewardCentral());
+		return new RewardsService(getRewardPointsCache(), getAttractionIndex(), getExecutionStrategy());
+	}
+	
+	@Bean
+	public AttractionIndex getAttractionIndex() {
+		return new AttractionIndex(getGpsGateway().getAttractions());
+	}
+	
+	@Bean
+	public RewardPointsCache getRewardPointsCache() {
+		TourGuideProperties.RewardPointsCache cache = properties.getRewardPointsCache();
+		return new RewardPointsCache(getRewardsGateway(), cache.getTtl(), cache.getMaximumSize(),
+				getExecutionStrategy());
+	}
+	
+	@Bean
+	public TripDealsCache getTripDealsCache() {
+		TourGuideProperties.TripDealsCache cache = properties.getTripDealsCache();
+		return new TripDealsCache(getPricingGateway(), cache.getRefreshAfter(), cache.getExpireAfter(),
+				cache.getMaximumSize(), getExecutionStrategy());
+	}
+	
+	@Bean(destroyMethod = "close")
+	public ExecutionStrategy getExecutionStrategy() {
+		TourGuideProperties.Execution execution = properties.getExecution();
+		return new ExecutionStrategy(execution.getMode(), execution.getPlatformThreads(),
+				execution.getQueueCapacity(), execution.getDrainTimeout(), execution.getPermits(), meterRegistry);
+	}
+	
+	@Bean
+	public TrackerSettings getTrackerSettings() {
+		return properties.getTracker();
+	}
+	
+	@Bean
+	public HistorySettings getHistorySettings() {
+		return properties.getLocationHistory();
+	}
+	
+	@Bean
+	public ShardCoordinator getShardCoordinator() {
+		TourGuideProperties.Sharding sharding = properties.getSharding();
+		if (sharding.getCoordinator() == TourGuideProperties.Sharding.Coordinator.FILE) {
+			return new FileShardCoordinator(sharding.getDirectory(), sharding.getMemberTtl());
+		}
+		return new InMemoryShardCoordinator();
+	}
+	
+	@Bean(destroyMethod = "leave")
+	public ShardMembership getShardMembership() {
+		TourGuideProperties.Sharding sharding = properties.getSharding();
+		return new ShardMembership(sharding.getInstanceId(), getShardCoordinator(), sharding.getVirtualNodes());
+	}
+	
+	@Bean(destroyMethod = "close")
+	public UserJournal getUserJournal() {
+		JournalSettings journal = properties.getJournal();
+		if (!journal.isEnabled()) {
+			return UserJournal.NONE;
+		}
+		HistorySettings history = getHistorySettings();
+		return new SegmentedJournal(journal, history.toRetention(), history.getLayout(), meterRegistry);
+	}
+	
+	@Bean(destroyMethod = "close")
+	public UserSnapshots getUserSnapshots() {
+		SnapshotSettings snapshot = properties.getSnapshot();
+		if (!snapshot.isEnabled()) {
+			return UserSnapshots.NONE;
+		}
+		HistorySettings history = getHistorySettings();
+		return new SnapshotStore(snapshot, history.toRetention(), history.getLayout(), getUserJournal(),
+				meterRegistry);
+	}
+	
+	@Bean(destroyMethod = "close")
+	public GeofenceMonitor getGeofenceMonitor() {
+		GeofenceSettings geofence = properties.getGeofence();
+		if (!geofence.isEnabled()) {
+			return GeofenceMonitor.NONE;
+		}
+		return new GeofenceEngine(getAttractionIndex(), geofence, meterRegistry);
+	}
+	
+	@Bean(destroyMethod = "dispose")
+	@Profile("reactive")
+	public Scheduler getBlockingScheduler() {
+		TourGuideProperties.Reactive reactive = properties.getReactive();
+		return Schedulers.newBoundedElastic(reactive.getBlockingThreads(), reactive.getBlockingQueueCapacity(),
+				"tourguide-blocking");
 	}
 	
 	@Bean
-	public RewardCentral getRewardCentral() {
-		return new RewardCentral();
+	public NearbyAttractionService getNearbyAttractionService(TourGuideService tourGuideService) {
+		return new NearbyAttractionService(tourGuideService, getRewardsService(), getRewardPointsCache(),
+				getExecutionStrategy().taskExecutor(), properties.getNearbyAttractions().getDeadline());
 	}
 	
 }
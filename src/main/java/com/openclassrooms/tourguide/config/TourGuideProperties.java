@@ -0,0 +1,483 @@
+package com.openclassrooms.tourguide.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import com.openclassrooms.tourguide.execution.Downstream;
+import com.openclassrooms.tourguide.execution.ExecutionMode;
+import com.openclassrooms.tourguide.execution.ExecutionStrategy;
+import com.openclassrooms.tourguide.gateway.LatencyProfile;
+import com.openclassrooms.tourguide.geofence.GeofenceSettings;
+import com.openclassrooms.tourguide.journal.JournalSettings;
+import com.openclassrooms.tourguide.journal.SnapshotSettings;
+import com.openclassrooms.tourguide.tracker.TrackerSettings;
+import com.openclassrooms.tourguide.user.HistorySettings;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Tunable settings of the TourGuide application, bound from the {@code tourguide.*}
+ * keys of {@code application.properties}.
+ */
+@ConfigurationProperties(prefix = "tourguide")
+public class TourGuideProperties {
+
+	private final RewardPointsCache rewardPointsCache = new RewardPointsCache();
+	private final TripDealsCache tripDealsCache = new TripDealsCache();
+	private final NearbyAttractions nearbyAttractions = new NearbyAttractions();
+	private final Execution execution = new Execution();
+	private final TrackerSettings tracker = new TrackerSettings();
+	private final Sharding sharding = new Sharding();
+	private final HistorySettings locationHistory = new HistorySettings();
+	private final Gateways gateways = new Gateways();
+	private final Reactive reactive = new Reactive();
+	private final JournalSettings journal = new JournalSettings();
+	private final SnapshotSettings snapshot = new SnapshotSettings();
+	private final GeofenceSettings geofence = new GeofenceSettings();
+
+	public RewardPointsCache getRewardPointsCache() {
+		return rewardPointsCache;
+	}
+
+	public TripDealsCache getTripDealsCache() {
+		return tripDealsCache;
+	}
+
+	public NearbyAttractions getNearbyAttractions() {
+		return nearbyAttractions;
+	}
+
+	public Execution getExecution() {
+		return execution;
+	}
+
+	public TrackerSettings getTracker() {
+		return tracker;
+	}
+
+	public Sharding getSharding() {
+		return sharding;
+	}
+
+	public HistorySettings getLocationHistory() {
+		return locationHistory;
+	}
+
+	public Gateways getGateways() {
+		return gateways;
+	}
+
+	public Reactive getReactive() {
+		return reactive;
+	}
+
+	public JournalSettings getJournal() {
+		return journal;
+	}
+
+	public SnapshotSettings getSnapshot() {
+		return snapshot;
+	}
+
+	public GeofenceSettings getGeofence() {
+		return geofence;
+	}
+
+	/**
+	 * Settings of the cache in front of {@code RewardCentral}.
+	 */
+	public static class RewardPointsCache {
+
+		/** How long a looked-up reward value stays valid. */
+		private Duration ttl = Duration.ofMinutes(10);
+
+		/** Maximum number of (attraction, user) entries kept in memory. */
+		private long maximumSize = 100_000;
+
+		public Duration getTtl() {
+			return ttl;
+		}
+
+		public void setTtl(Duration ttl) {
+			this.ttl = ttl;
+		}
+
+		public long getMaximumSize() {
+			return maximumSize;
+		}
+
+		public void setMaximumSize(long maximumSize) {
+			this.maximumSize = maximumSize;
+		}
+	}
+
+	/**
+	 * Settings of the cache in front of {@code TripPricer}.
+	 */
+	public static class TripDealsCache {
+
+		/** Age after which cached deals are still served but refreshed in the background. */
+		private Duration refreshAfter = Duration.ofMinutes(1);
+
+		/** Age after which cached deals are no longer served. */
+		private Duration expireAfter = Duration.ofMinutes(10);
+
+		/** Maximum number of cached entries. */
+		private long maximumSize = 100_000;
+
+		public Duration getRefreshAfter() {
+			return refreshAfter;
+		}
+
+		public void setRefreshAfter(Duration refreshAfter) {
+			this.refreshAfter = refreshAfter;
+		}
+
+		public Duration getExpireAfter() {
+			return expireAfter;
+		}
+
+		public void setExpireAfter(Duration expireAfter) {
+			this.expireAfter = expireAfter;
+		}
+
+		public long getMaximumSize() {
+			return maximumSize;
+		}
+
+		public void setMaximumSize(long maximumSize) {
+			this.maximumSize = maximumSize;
+		}
+	}
+
+	/**
+	 * Settings of the {@code /getNearbyAttractions} reward lookups.
+	 */
+	public static class NearbyAttractions {
+
+		/** Maximum time a request waits for reward points before reporting them as unknown. */
+		private Duration deadline = Duration.ofSeconds(2);
+
+		public Duration getDeadline() {
+			return deadline;
+		}
+
+		public void setDeadline(Duration deadline) {
+			this.deadline = deadline;
+		}
+	}
+
+	/**
+	 * Settings of the threads running tracking, rewards and downstream lookups.
+	 */
+	public static class Execution {
+
+		/** Platform thread pools or one virtual thread per task. */
+		private ExecutionMode mode = ExecutionMode.PLATFORM;
+
+		/** Size of each thread pool in platform mode. */
+		private int platformThreads = ExecutionStrategy.DEFAULT_PLATFORM_THREADS;
+
+		/** Number of tasks each pool queues before the submitting thread runs them itself. */
+		private int queueCapacity = ExecutionStrategy.DEFAULT_QUEUE_CAPACITY;
+
+		/** Time allowed for queued tasks to finish on shutdown. */
+		private Duration drainTimeout = ExecutionStrategy.DEFAULT_DRAIN_TIMEOUT;
+
+		/** Maximum concurrent calls per downstream service. */
+		private Map<Downstream, Integer> permits = new EnumMap<>(Downstream.class);
+
+		public ExecutionMode getMode() {
+			return mode;
+		}
+
+		public void setMode(ExecutionMode mode) {
+			this.mode = mode;
+		}
+
+		public int getPlatformThreads() {
+			return platformThreads;
+		}
+
+		public void setPlatformThreads(int platformThreads) {
+			this.platformThreads = platformThreads;
+		}
+
+		public int getQueueCapacity() {
+			return queueCapacity;
+		}
+
+		public void setQueueCapacity(int queueCapacity) {
+			this.queueCapacity = queueCapacity;
+		}
+
+		public Duration getDrainTimeout() {
+			return drainTimeout;
+		}
+
+		public void setDrainTimeout(Duration drainTimeout) {
+			this.drainTimeout = drainTimeout;
+		}
+
+		public Map<Downstream, Integer> getPermits() {
+			return permits;
+		}
+
+		public void setPermits(Map<Downstream, Integer> permits) {
+			this.permits = permits;
+		}
+	}
+
+	/**
+	 * Settings splitting the tracked users between several instances.
+	 */
+	public static class Sharding {
+
+		/** Where live instances are registered. */
+		private Coordinator coordinator = Coordinator.STANDALONE;
+
+		/** Id of this instance; must be unique across the deployment. */
+		private String instanceId = UUID.randomUUID().toString();
+
+		/** Membership directory shared by all instances, used by the {@code file} coordinator. */
+		private Path directory = Path.of("shards");
+
+		/** How long an instance stays a member without re-registering; keep above the tracker interval. */
+		private Duration memberTtl = Duration.ofMinutes(15);
+
+		/** Number of points each instance occupies on the hash ring. */
+		private int virtualNodes = 128;
+
+		public Coordinator getCoordinator() {
+			return coordinator;
+		}
+
+		public void setCoordinator(Coordinator coordinator) {
+			this.coordinator = coordinator;
+		}
+
+		public String getInstanceId() {
+			return instanceId;
+		}
+
+		public void setInstanceId(String instanceId) {
+			this.instanceId = instanceId;
+		}
+
+		public Path getDirectory() {
+			return directory;
+		}
+
+		public void setDirectory(Path directory) {
+			this.directory = directory;
+		}
+
+		public Duration getMemberTtl() {
+			return memberTtl;
+		}
+
+		public void setMemberTtl(Duration memberTtl) {
+			this.memberTtl = memberTtl;
+		}
+
+		public int getVirtualNodes() {
+			return virtualNodes;
+		}
+
+		public void setVirtualNodes(int virtualNodes) {
+			this.virtualNodes = virtualNodes;
+		}
+
+		/**
+		 * Registry of live instances.
+		 */
+		public enum Coordinator {
+			/** Single instance tracking every user. */
+			STANDALONE,
+			/** Instances register in a shared directory. */
+			FILE
+		}
+	}
+
+	/**
+	 * Settings of the reactive API, served under the {@code reactive} profile.
+	 */
+	public static class Reactive {
+
+		/** Maximum number of threads running blocking calls for reactive requests. */
+		private int blockingThreads = 200;
+
+		/** Number of blocking calls that may wait for a thread before requests are rejected. */
+		private int blockingQueueCapacity = 100_000;
+
+		public int getBlockingThreads() {
+			return blockingThreads;
+		}
+
+		public void setBlockingThreads(int blockingThreads) {
+			this.blockingThreads = blockingThreads;
+		}
+
+		public int getBlockingQueueCapacity() {
+			return blockingQueueCapacity;
+		}
+
+		public void setBlockingQueueCapacity(int blockingQueueCapacity) {
+			this.blockingQueueCapacity = blockingQueueCapacity;
+		}
+	}
+
+	/**
+	 * Implementations of the external services.
+	 */
+	public static class Gateways {
+
+		/** The real libraries, or local simulations for offline capacity tests. */
+		private Mode mode = Mode.JAR;
+
+		/** Seed of the simulations; each service derives its own from it. */
+		private long seed = 42;
+
+		private final Simulated gps = new Simulated();
+		private final Simulated rewards = new Simulated();
+		private final Simulated pricer = new Simulated();
+
+		public Mode getMode() {
+			return mode;
+		}
+
+		public void setMode(Mode mode) {
+			this.mode = mode;
+		}
+
+		public long getSeed() {
+			return seed;
+		}
+
+		public void setSeed(long seed) {
+			this.seed = seed;
+		}
+
+		public Simulated getGps() {
+			return gps;
+		}
+
+		public Simulated getRewards() {
+			return rewards;
+		}
+
+		public Simulated getPricer() {
+			return pricer;
+		}
+
+		/**
+		 * Where external calls go.
+		 */
+		public enum Mode {
+			/** {@code GpsUtil}, {@code RewardCentral} and {@code TripPricer}. */
+			JAR,
+			/** In-process simulations with configurable latency and failures. */
+			SIMULATED
+		}
+
+		/**
+		 * Behaviour of one simulated service; see {@link LatencyProfile}.
+		 */
+		public static class Simulated {
+
+			private LatencyProfile.Distribution distribution = LatencyProfile.Distribution.FIXED;
+
+			/** Fixed latency, lower bound of a uniform latency, or median of a log-normal one. */
+			private Duration latency = Duration.ZERO;
+
+			/** Upper bound of a uniform latency, or cap of a log-normal one (zero for none). */
+			private Duration maxLatency = Duration.ZERO;
+
+			/** Spread of a log-normal latency. */
+			private double sigma = 0.5;
+
+			/** Fraction of calls delayed by a latency spike. */
+			private double spikeProbability;
+
+			/** Extra latency of a spiking call. */
+			private Duration spikeLatency = Duration.ZERO;
+
+			/** Fraction of calls failing. */
+			private double errorRate;
+
+			/** Whether the service answers a whole batch in one call; only the GPS has such an endpoint. */
+			private boolean batchEndpoint;
+
+			public LatencyProfile.Distribution getDistribution() {
+				return distribution;
+			}
+
+			public void setDistribution(LatencyProfile.Distribution distribution) {
+				this.distribution = distribution;
+			}
+
+			public Duration getLatency() {
+				return latency;
+			}
+
+			public void setLatency(Duration latency) {
+				this.latency = latency;
+			}
+
+			public Duration getMaxLatency() {
+				return maxLatency;
+			}
+
+			public void setMaxLatency(Duration maxLatency) {
+				this.maxLatency = maxLatency;
+			}
+
+			public double getSigma() {
+				return sigma;
+			}
+
+			public void setSigma(double sigma) {
+				this.sigma = sigma;
+			}
+
+			public double getSpikeProbability() {
+				return spikeProbability;
+			}
+
+			public void setSpikeProbability(double spikeProbability) {
+				this.spikeProbability = spikeProbability;
+			}
+
+			public Duration getSpikeLatency() {
+				return spikeLatency;
+			}
+
+			public void setSpikeLatency(Duration spikeLatency) {
+				this.spikeLatency = spikeLatency;
+			}
+
+			public double getErrorRate() {
+				return errorRate;
+			}
+
+			public void setErrorRate(double errorRate) {
+				this.errorRate = errorRate;
+			}
+
+			public boolean isBatchEndpoint() {
+				return batchEndpoint;
+			}
+
+			public void setBatchEndpoint(boolean batchEndpoint) {
+				this.batchEndpoint = batchEndpoint;
+			}
+
+			public LatencyProfile toLatencyProfile() {
+				return new LatencyProfile(distribution, latency, maxLatency, sigma, spikeProbability, spikeLatency);
+			}
+		}
+	}
+}
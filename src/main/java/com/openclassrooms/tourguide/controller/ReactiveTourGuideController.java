@@ -0,0 +1,193 @@
+package com.openclassrooms.tourguide.controller;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import com.openclassrooms.tourguide.dto.NearbyAttractionDTO;
+import com.openclassrooms.tourguide.geofence.GeofenceEvent;
+import com.openclassrooms.tourguide.geofence.GeofenceMonitor;
+import com.openclassrooms.tourguide.service.NearbyAttractionService;
+import gpsUtil.location.VisitedLocation;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserReward;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import tripPricer.Provider;
+
+/**
+ * Non-blocking variant of {@link TourGuideController}, served by WebFlux under
+ * the {@code reactive} profile.
+ *
+ * <p>Event-loop threads never wait on a downstream service: the blocking calls,
+ * the GPS lookup of a user without any known location and user lookups while a
+ * snapshot is still loading, run on a bounded elastic scheduler, while reward
+ * points and trip deals are awaited through the futures of their caches. Unknown
+ * users are answered with {@code 404}.</p>
+ */
+@RestController
+@Profile("reactive")
+public class ReactiveTourGuideController {
+
+    private static final Logger logger = LogManager.getLogger(ReactiveTourGuideController.class);
+
+    private final TourGuideService tourGuideService;
+    private final NearbyAttractionService nearbyAttractionService;
+    private final Scheduler blockingScheduler;
+    private final GeofenceMonitor geofenceMonitor;
+
+    /**
+     * Constructs a {@code ReactiveTourGuideController} without geofence events.
+     *
+     * @param tourGuideService        service providing users, locations, rewards and trip deals
+     * @param nearbyAttractionService service assembling the nearby attractions
+     * @param blockingScheduler       bounded scheduler running blocking GPS lookups
+     */
+    public ReactiveTourGuideController(TourGuideService tourGuideService,
+            NearbyAttractionService nearbyAttractionService, Scheduler blockingScheduler) {
+        this(tourGuideService, nearbyAttractionService, blockingScheduler, GeofenceMonitor.NONE);
+    }
+
+    /**
+     * Constructs a {@code ReactiveTourGuideController}.
+     *
+     * @param tourGuideService        service providing users, locations, rewards and trip deals
+     * @param nearbyAttractionService service assembling the nearby attractions
+     * @param blockingScheduler       bounded scheduler running blocking GPS lookups
+     * @param geofenceMonitor         source of the streamed geofence events
+     */
+    @Autowired
+    public ReactiveTourGuideController(TourGuideService tourGuideService,
+            NearbyAttractionService nearbyAttractionService, Scheduler blockingScheduler,
+            GeofenceMonitor geofenceMonitor) {
+        this.tourGuideService = tourGuideService;
+        this.nearbyAttractionService = nearbyAttractionService;
+        this.blockingScheduler = blockingScheduler;
+        this.geofenceMonitor = geofenceMonitor;
+    }
+
+    /**
+     * Default endpoint to check if the application is running.
+     *
+     * @return a greeting string
+     */
+    @RequestMapping("/")
+    public Mono<String> index() {
+        return Mono.just("Greetings from TourGuide!");
+    }
+
+    /**
+     * Retrieves the current location of the specified user. The last known
+     * location is returned at once; a user without one is located on the
+     * blocking scheduler.
+     *
+     * @param userName the username of the user
+     * @return the user's current location
+     */
+    @RequestMapping("/getLocation")
+    public Mono<VisitedLocation> getLocation(@RequestParam String userName) {
+        logger.info("Request to /getLocation for user: {}", userName);
+        return getUser(userName).flatMap(user -> {
+            VisitedLocation lastVisitedLocation = user.getLastVisitedLocation();
+            if (lastVisitedLocation != null) {
+                return Mono.just(lastVisitedLocation);
+            }
+            return Mono.fromCallable(() -> tourGuideService.getUserLocation(user))
+                    .subscribeOn(blockingScheduler);
+        });
+    }
+
+    /**
+     * Retrieves nearby attractions for a user, including reward points and distance.
+     * Points that are not available before the request deadline are returned as {@code null}.
+     *
+     * @param userName the username of the user
+     * @return the nearby attractions, or 404 if none found
+     */
+    @RequestMapping("/getNearbyAttractions")
+    public Mono<ResponseEntity<List<NearbyAttractionDTO>>> getNearbyAttractions(@RequestParam String userName) {
+        logger.info("Request to /getNearbyAttractions for user: {}", userName);
+        return getUser(userName)
+                .flatMap(user -> Mono.fromFuture(() -> nearbyAttractionService.getNearbyAttractions(user)))
+                .map(nearbyAttractions -> nearbyAttractions.isEmpty()
+                        ? new ResponseEntity<List<NearbyAttractionDTO>>(HttpStatus.NOT_FOUND)
+                        : new ResponseEntity<>(nearbyAttractions, HttpStatus.OK));
+    }
+
+    /**
+     * Retrieves the rewards of the specified user.
+     *
+     * @param userName the username of the user
+     * @return the user's rewards
+     */
+    @RequestMapping("/getRewards")
+    public Flux<UserReward> getRewards(@RequestParam String userName) {
+        logger.info("Request to /getRewards for user: {}", userName);
+        return getUser(userName).flatMapIterable(tourGuideService::getUserRewards);
+    }
+
+    /**
+     * Retrieves trip deals available for the specified user.
+     *
+     * @param userName the username of the user
+     * @return the trip deals
+     */
+    @RequestMapping("/getTripDeals")
+    public Flux<Provider> getTripDeals(@RequestParam String userName) {
+        logger.info("Request to /getTripDeals for user: {}", userName);
+        return getUser(userName)
+                .flatMap(user -> Mono.fromFuture(() -> tourGuideService.getTripDealsAsync(user)))
+                .flatMapIterable(providers -> providers);
+    }
+
+    /**
+     * Streams geofence events as Server-Sent Events, named {@code enter},
+     * {@code exit} or {@code dwell}, until the client disconnects. Events arriving
+     * while the client is not ready for them are dropped, so a slow client never
+     * holds up the geofence dispatcher.
+     *
+     * @param userName the username to follow, or none for every user
+     * @return the event stream, or 404 if the user is unknown
+     */
+    @RequestMapping(path = "/geofenceEvents", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<GeofenceEvent>> getGeofenceEvents(@RequestParam(required = false) String userName) {
+        logger.info("Request to /geofenceEvents for user: {}", userName);
+        Mono<Optional<UUID>> followedUserId = userName == null
+                ? Mono.just(Optional.empty())
+                : getUser(userName).map(user -> Optional.of(user.getUserId()));
+        return followedUserId.flatMapMany(userId -> Flux.<GeofenceEvent>create(sink -> {
+                    GeofenceMonitor.Subscription subscription = geofenceMonitor.subscribe(sink::next);
+                    sink.onDispose(subscription::close);
+                }, FluxSink.OverflowStrategy.DROP)
+                .filter(event -> userId.map(event.userId()::equals).orElse(true))
+                .map(event -> ServerSentEvent.builder(event).event(event.type().name().toLowerCase()).build()));
+    }
+
+    private Mono<User> getUser(String userName) {
+        Mono<User> user = tourGuideService.isLoadingUsers()
+                ? Mono.fromCallable(() -> tourGuideService.getUser(userName)).subscribeOn(blockingScheduler)
+                : Mono.justOrEmpty(tourGuideService.getUser(userName));
+        return user
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Unknown user: " + userName)));
+    }
+}
@@ -1,48 +1,62 @@
 package com.openclassrooms.tourguide.controller;
 
-import java.util.ArrayList;
+import java.io.IOException;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 
 import com.openclassrooms.tourguide.dto.NearbyAttractionDTO;
-import com.openclassrooms.tourguide.service.RewardsService;
-import gpsUtil.location.Location;
-import gpsUtil.location.Attraction;
+import com.openclassrooms.tourguide.geofence.GeofenceEvent;
+import com.openclassrooms.tourguide.geofence.GeofenceMonitor;
+import com.openclassrooms.tourguide.service.NearbyAttractionService;
 import gpsUtil.location.VisitedLocation;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.openclassrooms.tourguide.service.TourGuideService;
 import com.openclassrooms.tourguide.user.User;
 import com.openclassrooms.tourguide.user.UserReward;
 
-import rewardCentral.RewardCentral;
 import tripPricer.Provider;
 
 /**
  * TourGuideController handles HTTP requests related to user location,
  * nearby attractions, rewards, and trip deals.
+ *
+ * <p>Active on the servlet stack, that is unless the {@code reactive} profile is
+ * selected, in which case {@link ReactiveTourGuideController} serves the API.</p>
  */
 @RestController
+@Profile("!reactive")
 public class TourGuideController {
 
     private static final Logger logger = LogManager.getLogger(TourGuideController.class);
 
+    /** Geofence events buffered per client; further events are dropped for that client until it catches up. */
+    private static final int GEOFENCE_CLIENT_BUFFER = 256;
+
     @Autowired
     TourGuideService tourGuideService;
 
     @Autowired
-    RewardsService rewardsService;
+    NearbyAttractionService nearbyAttractionService;
 
     @Autowired
-    RewardCentral rewardCentral;
+    GeofenceMonitor geofenceMonitor;
 
     /**
      * Default endpoint to check if the application is running.
@@ -70,50 +84,27 @@ public class TourGuideController {
     /**
      * Retrieves nearby attractions for a user, including reward points and distance.
      *
+     * <p>The request is processed asynchronously: the servlet thread is released while
+     * reward points are looked up. Points that are not available before the request
+     * deadline are returned as {@code null}.</p>
+     *
      * @param userName the username of the user
-     * @return List of NearbyAttractionDTOs or 404 if none found
+     * @return future List of NearbyAttractionDTOs or 404 if none found
      */
     @RequestMapping("/getNearbyAttractions")
-    public ResponseEntity<List<NearbyAttractionDTO>> getNearbyAttractions(@RequestParam String userName) {
+    public CompletableFuture<ResponseEntity<List<NearbyAttractionDTO>>> getNearbyAttractions(@RequestParam String userName) {
         logger.info("Request to /getNearbyAttractions for user: {}", userName);
 
-        // Get user and their current location
-        User user = getUser(userName);
-        VisitedLocation visitedLocation = tourGuideService.getUserLocation(user);
-        Location userLocation = visitedLocation.location;
-
-        // Get nearby attractions
-        List<Attraction> attractions = tourGuideService.getNearByAttractions(visitedLocation);
-        List<NearbyAttractionDTO> nearbyAttractions = new ArrayList<>();
-
-        for (Attraction attraction : attractions) {
-            // Calculate distance between user and attraction
-            double distance = rewardsService.getDistance(userLocation, attraction);
-
-            // Get reward points from RewardCentral
-            int rewardPoints = rewardCentral.getAttractionRewardPoints(attraction.attractionId, user.getUserId());
-
-            // Create DTO for frontend/API
-            NearbyAttractionDTO dto = new NearbyAttractionDTO(
-                    attraction.attractionName,
-                    attraction.latitude,
-                    attraction.longitude,
-                    userLocation.latitude,
-                    userLocation.longitude,
-                    distance,
-                    rewardPoints
-            );
-
-            nearbyAttractions.add(dto);
-        }
-
-        if (!nearbyAttractions.isEmpty()) {
-            logger.info("Found {} nearby attractions for user: {}", nearbyAttractions.size(), userName);
-            return new ResponseEntity<>(nearbyAttractions, HttpStatus.OK);
-        } else {
-            logger.warn("No nearby attractions found for user: {}", userName);
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
-        }
+        return nearbyAttractionService.getNearbyAttractions(getUser(userName))
+                .thenApply(nearbyAttractions -> {
+                    if (!nearbyAttractions.isEmpty()) {
+                        logger.info("Found {} nearby attractions for user: {}", nearbyAttractions.size(), userName);
+                        return new ResponseEntity<>(nearbyAttractions, HttpStatus.OK);
+                    } else {
+                        logger.warn("No nearby attractions found for user: {}", userName);
+                        return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+                    }
+                });
     }
 
     /**
@@ -140,6 +131,68 @@ public class TourGuideController {
         return tourGuideService.getTripDeals(getUser(userName));
     }
 
+    /**
+     * Streams geofence events as Server-Sent Events, named {@code enter},
+     * {@code exit} or {@code dwell}, until the client disconnects.
+     *
+     * <p>Each client has its own bounded buffer, drained by its own virtual
+     * thread. A client that stops reading only fills its buffer, after which its
+     * events are dropped, like the {@code DROP} overflow strategy of the reactive
+     * variant; the geofence dispatcher and the other clients never wait on it.</p>
+     *
+     * @param userName the username to follow, or none for every user
+     * @return the event stream, or 404 if the user is unknown
+     */
+    @RequestMapping(path = "/geofenceEvents", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter getGeofenceEvents(@RequestParam(required = false) String userName) {
+        logger.info("Request to /geofenceEvents for user: {}", userName);
+        UUID userId = null;
+        if (userName != null) {
+            User user = getUser(userName);
+            if (user == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown user: " + userName);
+            }
+            userId = user.getUserId();
+        }
+        UUID followedUserId = userId;
+        SseEmitter emitter = new SseEmitter(0L);
+        BlockingQueue<GeofenceEvent> buffer = new ArrayBlockingQueue<>(GEOFENCE_CLIENT_BUFFER);
+        GeofenceMonitor.Subscription subscription = geofenceMonitor.subscribe(event -> {
+            if (followedUserId == null || followedUserId.equals(event.userId())) {
+                buffer.offer(event);
+            }
+        });
+        Thread sender = Thread.ofVirtual().name("tourguide-geofence-sse")
+                .start(() -> sendGeofenceEvents(emitter, buffer, subscription));
+        Runnable close = () -> {
+            subscription.close();
+            sender.interrupt();
+        };
+        emitter.onCompletion(close);
+        emitter.onTimeout(close);
+        emitter.onError(e -> close.run());
+        return emitter;
+    }
+
+    /**
+     * Writes a client's buffered events until its stream is closed or a write fails.
+     */
+    private static void sendGeofenceEvents(SseEmitter emitter, BlockingQueue<GeofenceEvent> buffer,
+            GeofenceMonitor.Subscription subscription) {
+        try {
+            while (true) {
+                GeofenceEvent event = buffer.take();
+                emitter.send(SseEmitter.event().name(event.type().name().toLowerCase()).data(event));
+            }
+        } catch (InterruptedException e) {
+            // The stream was closed
+        } catch (IOException | IllegalStateException e) {
+            // The client went away
+            subscription.close();
+            emitter.completeWithError(e);
+        }
+    }
+
     /**
      * Internal method to get a User object by username.
      *
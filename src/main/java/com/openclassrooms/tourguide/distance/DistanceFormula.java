@@ -0,0 +1,80 @@
+package com.openclassrooms.tourguide.distance;
+
+import gpsUtil.location.Location;
+
+/**
+ * Great-circle distance formulas on a spherical Earth.
+ *
+ * <p>Each formula works on angles in radians plus the sine and cosine of both
+ * latitudes, so callers holding {@link GeoPoint}s skip those trigonometric calls,
+ * and plain {@link Location}s cost only what the formula itself needs.</p>
+ */
+public enum DistanceFormula {
+
+	/**
+	 * Spherical law of cosines, the formula TourGuide has always used. Loses
+	 * precision below a few hundred metres, where the cosine is close to 1.
+	 */
+	SPHERICAL_LAW_OF_COSINES {
+		@Override
+		double angle(double latitude1, double longitude1, double sinLatitude1, double cosLatitude1,
+				double latitude2, double longitude2, double sinLatitude2, double cosLatitude2) {
+			double cosAngle = sinLatitude1 * sinLatitude2
+					+ cosLatitude1 * cosLatitude2 * Math.cos(longitude1 - longitude2);
+			return Math.acos(Math.max(-1, Math.min(1, cosAngle)));
+		}
+	},
+
+	/**
+	 * Haversine formula, numerically stable at short distances.
+	 */
+	HAVERSINE {
+		@Override
+		double angle(double latitude1, double longitude1, double sinLatitude1, double cosLatitude1,
+				double latitude2, double longitude2, double sinLatitude2, double cosLatitude2) {
+			double sinHalfLatitude = Math.sin((latitude2 - latitude1) / 2);
+			double sinHalfLongitude = Math.sin((longitude2 - longitude1) / 2);
+			double h = sinHalfLatitude * sinHalfLatitude
+					+ cosLatitude1 * cosLatitude2 * sinHalfLongitude * sinHalfLongitude;
+			return 2 * Math.asin(Math.min(1, Math.sqrt(h)));
+		}
+	};
+
+	abstract double angle(double latitude1, double longitude1, double sinLatitude1, double cosLatitude1,
+			double latitude2, double longitude2, double sinLatitude2, double cosLatitude2);
+
+	/**
+	 * @return the central angle between two points, in radians
+	 */
+	public double angle(GeoPoint a, GeoPoint b) {
+		return angle(a.latitude, a.longitude, a.sinLatitude, a.cosLatitude,
+				b.latitude, b.longitude, b.sinLatitude, b.cosLatitude);
+	}
+
+	/**
+	 * @return the great-circle distance between two points, in statute miles
+	 */
+	public double miles(GeoPoint a, GeoPoint b) {
+		return Distances.MILES_PER_RADIAN * angle(a, b);
+	}
+
+	/**
+	 * @return the great-circle distance between a point and a location, in statute miles
+	 */
+	public double miles(GeoPoint a, Location b) {
+		double latitude = Math.toRadians(b.latitude);
+		return Distances.MILES_PER_RADIAN * angle(a.latitude, a.longitude, a.sinLatitude, a.cosLatitude,
+				latitude, Math.toRadians(b.longitude), Math.sin(latitude), Math.cos(latitude));
+	}
+
+	/**
+	 * @return the great-circle distance between two locations, in statute miles
+	 */
+	public double miles(Location a, Location b) {
+		double latitude1 = Math.toRadians(a.latitude);
+		double latitude2 = Math.toRadians(b.latitude);
+		return Distances.MILES_PER_RADIAN * angle(latitude1, Math.toRadians(a.longitude),
+				Math.sin(latitude1), Math.cos(latitude1),
+				latitude2, Math.toRadians(b.longitude), Math.sin(latitude2), Math.cos(latitude2));
+	}
+}
@@ -0,0 +1,53 @@
+package com.openclassrooms.tourguide.distance;
+
+import java.util.Comparator;
+
+/**
+ * Conversions between miles and squared chords, and chord-based ranking.
+ */
+public final class Distances {
+
+	public static final double STATUTE_MILES_PER_NAUTICAL_MILE = 1.15077945;
+
+	/** Statute miles covered by one radian of arc on the Earth's surface (one nautical mile per arc minute). */
+	public static final double MILES_PER_RADIAN = STATUTE_MILES_PER_NAUTICAL_MILE * 60 * Math.toDegrees(1);
+
+	private Distances() {
+	}
+
+	/**
+	 * Converts a great-circle distance to the squared chord between the two
+	 * points on the unit sphere, for use as a threshold with {@link GeoPoint#chordSquaredTo(GeoPoint)}.
+	 *
+	 * @param miles a distance in statute miles
+	 * @return the matching squared chord, capped at 4 (antipodal points)
+	 */
+	public static double chordSquaredForMiles(double miles) {
+		double angle = miles / MILES_PER_RADIAN;
+		if (angle >= Math.PI) {
+			return 4.0;
+		}
+		double halfChord = Math.sin(angle / 2);
+		return 4 * halfChord * halfChord;
+	}
+
+	/**
+	 * Converts a squared chord back to a great-circle distance.
+	 *
+	 * @param chordSquared a squared chord between 0 and 4
+	 * @return the distance in statute miles
+	 */
+	public static double milesForChordSquared(double chordSquared) {
+		return MILES_PER_RADIAN * 2 * Math.asin(Math.min(1, Math.sqrt(chordSquared) / 2));
+	}
+
+	/**
+	 * Orders points from the closest to the farthest from an origin, using squared chords.
+	 *
+	 * @param origin the reference point
+	 * @return a comparator by increasing distance from {@code origin}
+	 */
+	public static Comparator<GeoPoint> byDistanceFrom(GeoPoint origin) {
+		return Comparator.comparingDouble(origin::chordSquaredTo);
+	}
+}
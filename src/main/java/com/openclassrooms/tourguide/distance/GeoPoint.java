@@ -0,0 +1,74 @@
+package com.openclassrooms.tourguide.distance;
+
+import gpsUtil.location.Location;
+
+/**
+ * A latitude/longitude pair with the trigonometric values every distance
+ * formula needs, computed once.
+ *
+ * <p>Besides the angles in radians and the sine and cosine of the latitude, the
+ * point keeps its projection on the unit sphere, so the squared chord to another
+ * point is three subtractions and three multiplications.</p>
+ */
+public final class GeoPoint {
+
+	final double latitude;
+	final double longitude;
+	final double sinLatitude;
+	final double cosLatitude;
+	private final double x;
+	private final double y;
+	private final double z;
+
+	private GeoPoint(double latitudeDegrees, double longitudeDegrees) {
+		this.latitude = Math.toRadians(latitudeDegrees);
+		this.longitude = Math.toRadians(longitudeDegrees);
+		this.sinLatitude = Math.sin(latitude);
+		this.cosLatitude = Math.cos(latitude);
+		this.x = cosLatitude * Math.cos(longitude);
+		this.y = cosLatitude * Math.sin(longitude);
+		this.z = sinLatitude;
+	}
+
+	/**
+	 * @param location a location in degrees
+	 * @return the precomputed point
+	 */
+	public static GeoPoint of(Location location) {
+		return new GeoPoint(location.latitude, location.longitude);
+	}
+
+	/**
+	 * @param latitude  latitude in degrees
+	 * @param longitude longitude in degrees
+	 * @return the precomputed point
+	 */
+	public static GeoPoint of(double latitude, double longitude) {
+		return new GeoPoint(latitude, longitude);
+	}
+
+	/**
+	 * Squared straight-line distance between the two points on the unit sphere.
+	 * It grows monotonically with the great-circle distance, so it ranks and
+	 * compares against thresholds exactly like miles do, without any inverse trig.
+	 *
+	 * @param other the other point
+	 * @return the squared chord, between 0 and 4
+	 */
+	public double chordSquaredTo(GeoPoint other) {
+		double dx = x - other.x;
+		double dy = y - other.y;
+		double dz = z - other.z;
+		return dx * dx + dy * dy + dz * dz;
+	}
+
+	/**
+	 * Coordinate of the unit-sphere projection along an axis.
+	 *
+	 * @param axis 0 for x, 1 for y, 2 for z
+	 * @return the coordinate
+	 */
+	public double coordinate(int axis) {
+		return axis == 0 ? x : axis == 1 ? y : z;
+	}
+}
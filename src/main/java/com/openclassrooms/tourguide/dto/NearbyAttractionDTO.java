@@ -1,5 +1,9 @@
 package com.openclassrooms.tourguide.dto;
 
+/**
+ * Attraction near a user, with its distance and the reward points it is worth.
+ * Reward points are {@code null} when they could not be looked up in time.
+ */
 public class NearbyAttractionDTO {
     private String attractionName;
     private double attractionLatitude;
@@ -7,10 +11,10 @@ public class NearbyAttractionDTO {
     private double userLatitude;
     private double userLongitude;
     private double distanceInMiles;
-    private int rewardPoints;
+    private Integer rewardPoints;
 
     public NearbyAttractionDTO(String attractionName, double attractionLatitude, double attractionLongitude,
-                               double userLatitude, double userLongitude, double distanceInMiles, int rewardPoints) {
+                               double userLatitude, double userLongitude, double distanceInMiles, Integer rewardPoints) {
         this.attractionName = attractionName;
         this.attractionLatitude = attractionLatitude;
         this.attractionLongitude = attractionLongitude;
@@ -68,11 +72,11 @@ public class NearbyAttractionDTO {
         this.distanceInMiles = distanceInMiles;
     }
 
-    public int getRewardPoints() {
+    public Integer getRewardPoints() {
         return rewardPoints;
     }
 
-    public void setRewardPoints(int rewardPoints) {
+    public void setRewardPoints(Integer rewardPoints) {
         this.rewardPoints = rewardPoints;
     }
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.openclassrooms.tourguide.execution;
+
+/**
+ * External services TourGuide calls, each with its own concurrency limit.
+ */
+public enum Downstream {
+
+	/** {@code GpsUtil} user location lookups. */
+	GPS,
+
+	/** {@code RewardCentral} reward point lookups. */
+	REWARDS,
+
+	/** {@code TripPricer} trip deal lookups. */
+	PRICER
+}
@@ -0,0 +1,13 @@
+package com.openclassrooms.tourguide.execution;
+
+/**
+ * How tracking and reward tasks are mapped onto threads.
+ */
+public enum ExecutionMode {
+
+	/** Tasks share fixed-size pools of platform threads. */
+	PLATFORM,
+
+	/** Every task runs on its own virtual thread. */
+	VIRTUAL
+}
@@ -0,0 +1,305 @@
+package com.openclassrooms.tourguide.execution;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Decides which threads run TourGuide's background work and how many calls may
+ * be in flight against each downstream service.
+ *
+ * <p>In {@link ExecutionMode#PLATFORM} mode, bulk tasks and asynchronous lookups
+ * run on two separate fixed pools, so a bulk task waiting on a lookup can never
+ * starve the lookup of a thread. Each pool has a bounded queue. Once the task
+ * queue is full, the submitting thread runs the task itself, which slows
+ * producers down instead of rejecting work. Once the lookup queue is full, lookups
+ * are rejected instead: they are started from request threads that must not block
+ * on them, and {@link #supplyAsync(Supplier, Executor)} turns the rejection into a
+ * failed future. Both pools reject every task once the strategy is closed, so no
+ * task is silently dropped. In {@link ExecutionMode#VIRTUAL} mode, every task gets its
+ * own virtual thread and throughput is bounded only by the per-downstream
+ * semaphores.</p>
+ *
+ * <p>A single instance is meant to live as long as the application: it is never
+ * shut down by the work it runs, and {@link #close()} drains queued tasks before
+ * stopping. Both executors are instrumented with Micrometer under the
+ * {@code tourguide.tasks} and {@code tourguide.lookups} names (queue depth, active
+ * threads, task duration and time spent queued). Every downstream call is timed
+ * under {@code tourguide.downstream.calls}, tagged by downstream and outcome, the
+ * wait for its permit under {@code tourguide.downstream.permit.wait}, and the calls
+ * in flight are gauged under {@code tourguide.downstream.active}.</p>
+ */
+public class ExecutionStrategy implements AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger(ExecutionStrategy.class);
+
+	/** Default number of platform threads per pool. */
+	public static final int DEFAULT_PLATFORM_THREADS = 100;
+
+	/** Default number of tasks each platform pool can hold before pushing back on producers. */
+	public static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+
+	/** Default time allowed for queued tasks to finish when the strategy is closed. */
+	public static final Duration DEFAULT_DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+	/** Default number of concurrent calls allowed against each downstream service. */
+	public static final int DEFAULT_PERMITS = 1000;
+
+	/** Runs a task on the submitting thread while the pool is full, and rejects it once the pool is shut down. */
+	private static final RejectedExecutionHandler CALLER_RUNS_UNTIL_SHUTDOWN = (task, pool) -> {
+		if (pool.isShutdown()) {
+			throw new RejectedExecutionException("Executor is shut down");
+		}
+		task.run();
+	};
+
+	private final ExecutionMode mode;
+	private final Duration drainTimeout;
+	private final MeterRegistry meterRegistry;
+	private final ExecutorService taskExecutor;
+	private final ExecutorService lookupExecutor;
+	private final Map<Downstream, Semaphore> permits = new EnumMap<>(Downstream.class);
+	private final Map<Downstream, Timer> succeededCalls = new EnumMap<>(Downstream.class);
+	private final Map<Downstream, Timer> failedCalls = new EnumMap<>(Downstream.class);
+	private final Map<Downstream, Timer> permitWaits = new EnumMap<>(Downstream.class);
+
+	/**
+	 * Constructs an {@code ExecutionStrategy}.
+	 *
+	 * @param mode              the thread model to use
+	 * @param platformThreads   pool size used in {@link ExecutionMode#PLATFORM} mode
+	 * @param queueCapacity     queue bound of each pool in {@link ExecutionMode#PLATFORM} mode
+	 * @param drainTimeout      time allowed for queued tasks to finish on {@link #close()}
+	 * @param downstreamPermits maximum concurrent calls per downstream; missing entries use {@link #DEFAULT_PERMITS}
+	 * @param meterRegistry     registry receiving the executor metrics
+	 */
+	public ExecutionStrategy(ExecutionMode mode, int platformThreads, int queueCapacity, Duration drainTimeout,
+			Map<Downstream, Integer> downstreamPermits, MeterRegistry meterRegistry) {
+		this(mode, platformThreads, queueCapacity, drainTimeout, downstreamPermits, meterRegistry,
+				Executors.defaultThreadFactory());
+	}
+
+	private ExecutionStrategy(ExecutionMode mode, int platformThreads, int queueCapacity, Duration drainTimeout,
+			Map<Downstream, Integer> downstreamPermits, MeterRegistry meterRegistry, ThreadFactory threadFactory) {
+		this.mode = mode;
+		this.drainTimeout = drainTimeout;
+		this.meterRegistry = meterRegistry;
+		if (mode == ExecutionMode.VIRTUAL) {
+			this.taskExecutor = ExecutorServiceMetrics.monitor(meterRegistry,
+					Executors.newVirtualThreadPerTaskExecutor(), "tourguide.tasks");
+			this.lookupExecutor = taskExecutor;
+		} else {
+			this.taskExecutor = ExecutorServiceMetrics.monitor(meterRegistry,
+					boundedPool(platformThreads, queueCapacity, threadFactory, CALLER_RUNS_UNTIL_SHUTDOWN),
+					"tourguide.tasks");
+			this.lookupExecutor = ExecutorServiceMetrics.monitor(meterRegistry,
+					boundedPool(platformThreads, queueCapacity, threadFactory, new ThreadPoolExecutor.AbortPolicy()),
+					"tourguide.lookups");
+		}
+		for (Downstream downstream : Downstream.values()) {
+			int maxPermits = downstreamPermits.getOrDefault(downstream, DEFAULT_PERMITS);
+			Semaphore semaphore = new Semaphore(maxPermits, true);
+			String tag = downstream.name().toLowerCase();
+			permits.put(downstream, semaphore);
+			succeededCalls.put(downstream, callTimer(tag, "success", meterRegistry));
+			failedCalls.put(downstream, callTimer(tag, "error", meterRegistry));
+			permitWaits.put(downstream, Timer.builder("tourguide.downstream.permit.wait")
+					.description("Time spent waiting for a permit to call a downstream service")
+					.tag("downstream", tag)
+					.publishPercentileHistogram()
+					.register(meterRegistry));
+			Gauge.builder("tourguide.downstream.active", semaphore, s -> maxPermits - s.availablePermits())
+					.description("Calls in flight against a downstream service")
+					.tag("downstream", tag)
+					.register(meterRegistry);
+		}
+	}
+
+	private static Timer callTimer(String downstream, String outcome, MeterRegistry meterRegistry) {
+		return Timer.builder("tourguide.downstream.calls")
+				.description("Calls to a downstream service")
+				.tags("downstream", downstream, "outcome", outcome)
+				.publishPercentileHistogram()
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Creates a platform-thread strategy with default settings, reporting to a
+	 * registry of its own. The caller closes it.
+	 *
+	 * @return a new {@code ExecutionStrategy}
+	 */
+	public static ExecutionStrategy platform() {
+		return new ExecutionStrategy(ExecutionMode.PLATFORM, DEFAULT_PLATFORM_THREADS, DEFAULT_QUEUE_CAPACITY,
+				DEFAULT_DRAIN_TIMEOUT, Map.of(), new SimpleMeterRegistry());
+	}
+
+	/**
+	 * Creates a virtual-thread strategy with default settings, reporting to a
+	 * registry of its own. The caller closes it.
+	 *
+	 * @return a new {@code ExecutionStrategy}
+	 */
+	public static ExecutionStrategy virtual() {
+		return new ExecutionStrategy(ExecutionMode.VIRTUAL, DEFAULT_PLATFORM_THREADS, DEFAULT_QUEUE_CAPACITY,
+				DEFAULT_DRAIN_TIMEOUT, Map.of(), new SimpleMeterRegistry());
+	}
+
+	/**
+	 * Returns the platform-thread strategy with default settings that services
+	 * built without one share, created on first use.
+	 *
+	 * <p>It reports to a registry of its own, never to the global one, so
+	 * services built this way do not claim application meter names. Callers that
+	 * read metrics build their own strategy instead. Its threads are daemon
+	 * threads and it must never be closed: it lives as long as the process.</p>
+	 *
+	 * @return the shared {@code ExecutionStrategy}
+	 */
+	public static ExecutionStrategy shared() {
+		return Shared.INSTANCE;
+	}
+
+	private static final class Shared {
+
+		static final ExecutionStrategy INSTANCE = new ExecutionStrategy(ExecutionMode.PLATFORM,
+				DEFAULT_PLATFORM_THREADS, DEFAULT_QUEUE_CAPACITY, DEFAULT_DRAIN_TIMEOUT, Map.of(),
+				new SimpleMeterRegistry(), Thread.ofPlatform().name("tourguide-shared-", 0).daemon().factory());
+	}
+
+	private static ThreadPoolExecutor boundedPool(int threads, int queueCapacity, ThreadFactory threadFactory,
+			RejectedExecutionHandler handler) {
+		return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), threadFactory, handler);
+	}
+
+	/**
+	 * Runs a task like {@link CompletableFuture#supplyAsync(Supplier, Executor)},
+	 * except that a task the executor rejects fails the returned future instead of
+	 * throwing at the caller.
+	 *
+	 * @param task     the task to run
+	 * @param executor the executor to run it on
+	 * @return a future completed with the task's result
+	 */
+	public static <T> CompletableFuture<T> supplyAsync(Supplier<T> task, Executor executor) {
+		try {
+			return CompletableFuture.supplyAsync(task, executor);
+		} catch (RejectedExecutionException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	/**
+	 * Runs a task like {@link CompletableFuture#runAsync(Runnable, Executor)},
+	 * except that a task the executor rejects fails the returned future instead of
+	 * throwing at the caller.
+	 *
+	 * @param task     the task to run
+	 * @param executor the executor to run it on
+	 * @return a future completed once the task ran
+	 */
+	public static CompletableFuture<Void> runAsync(Runnable task, Executor executor) {
+		try {
+			return CompletableFuture.runAsync(task, executor);
+		} catch (RejectedExecutionException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	public ExecutionMode getMode() {
+		return mode;
+	}
+
+	/**
+	 * @return the registry receiving the metrics of the work run by this strategy
+	 */
+	public MeterRegistry meterRegistry() {
+		return meterRegistry;
+	}
+
+	/**
+	 * @return the executor running bulk per-user tasks (tracking, reward calculation)
+	 */
+	public ExecutorService taskExecutor() {
+		return taskExecutor;
+	}
+
+	/**
+	 * @return the executor running asynchronous downstream lookups
+	 */
+	public ExecutorService lookupExecutor() {
+		return lookupExecutor;
+	}
+
+	/**
+	 * Runs a blocking call against a downstream service, waiting for a permit first.
+	 *
+	 * @param downstream the service being called
+	 * @param call       the blocking call
+	 * @return the call's result
+	 */
+	public <T> T call(Downstream downstream, Supplier<T> call) {
+		Semaphore semaphore = permits.get(downstream);
+		long waitStart = System.nanoTime();
+		semaphore.acquireUninterruptibly();
+		long start = System.nanoTime();
+		permitWaits.get(downstream).record(start - waitStart, TimeUnit.NANOSECONDS);
+		boolean succeeded = false;
+		try {
+			T result = call.get();
+			succeeded = true;
+			return result;
+		} finally {
+			semaphore.release();
+			(succeeded ? succeededCalls : failedCalls).get(downstream)
+					.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	/**
+	 * Stops accepting tasks and waits up to the drain timeout for queued and
+	 * running tasks to finish, then interrupts whatever is left.
+	 */
+	@Override
+	public void close() {
+		taskExecutor.shutdown();
+		lookupExecutor.shutdown();
+		try {
+			long deadline = System.nanoTime() + drainTimeout.toNanos();
+			drain(taskExecutor, deadline);
+			drain(lookupExecutor, deadline);
+		} catch (InterruptedException e) {
+			taskExecutor.shutdownNow();
+			lookupExecutor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void drain(ExecutorService executor, long deadline) throws InterruptedException {
+		if (!executor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+			logger.warn("Executor did not drain within {}, dropping {} queued tasks",
+					drainTimeout, executor.shutdownNow().size());
+		}
+	}
+}
@@ -0,0 +1,15 @@
+package com.openclassrooms.tourguide.gateway;
+
+/**
+ * Thrown when a call to an external service fails.
+ */
+public class GatewayException extends RuntimeException {
+
+	public GatewayException(String message) {
+		super(message);
+	}
+
+	public GatewayException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
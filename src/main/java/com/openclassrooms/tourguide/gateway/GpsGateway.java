@@ -0,0 +1,52 @@
+package com.openclassrooms.tourguide.gateway;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Source of user locations and of the attraction catalog.
+ */
+public interface GpsGateway {
+
+	/**
+	 * Locates a user now.
+	 *
+	 * @param userId the user to locate
+	 * @return the user's current location
+	 */
+	VisitedLocation getUserLocation(UUID userId);
+
+	/**
+	 * Locates several users at once.
+	 *
+	 * <p>The default implementation calls {@link #getUserLocation(UUID)} for each
+	 * user in turn; gateways with a real batch endpoint override it and report so
+	 * through {@link #supportsBatchLookup()}.</p>
+	 *
+	 * @param userIds the users to locate
+	 * @return the users' current locations, in the same order
+	 */
+	default List<VisitedLocation> getUserLocations(List<UUID> userIds) {
+		List<VisitedLocation> locations = new ArrayList<>(userIds.size());
+		for (UUID userId : userIds) {
+			locations.add(getUserLocation(userId));
+		}
+		return locations;
+	}
+
+	/**
+	 * @return {@code true} if {@link #getUserLocations(List)} costs a single round trip
+	 */
+	default boolean supportsBatchLookup() {
+		return false;
+	}
+
+	/**
+	 * @return every attraction TourGuide knows of
+	 */
+	List<Attraction> getAttractions();
+}
@@ -0,0 +1,30 @@
+package com.openclassrooms.tourguide.gateway;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * {@link GpsGateway} backed by the {@code GpsUtil} library.
+ */
+public class GpsUtilGateway implements GpsGateway {
+
+	private final GpsUtil gpsUtil;
+
+	public GpsUtilGateway(GpsUtil gpsUtil) {
+		this.gpsUtil = gpsUtil;
+	}
+
+	@Override
+	public VisitedLocation getUserLocation(UUID userId) {
+		return gpsUtil.getUserLocation(userId);
+	}
+
+	@Override
+	public List<Attraction> getAttractions() {
+		return gpsUtil.getAttractions();
+	}
+}
@@ -0,0 +1,93 @@
+package com.openclassrooms.tourguide.gateway;
+
+import java.time.Duration;
+import java.util.random.RandomGenerator;
+
+/**
+ * How long a simulated call takes.
+ *
+ * <p>A base latency is drawn from the {@link Distribution}, then, with
+ * probability {@code spikeProbability}, {@code spikeLatency} is added to it to
+ * model the occasional very slow call that dominates tail percentiles.</p>
+ *
+ * @param distribution     shape of the base latency
+ * @param latency          the fixed latency, the lower bound of a uniform one, or the median of a log-normal one
+ * @param maxLatency       the upper bound of a uniform latency, or the cap of a log-normal one; zero for no cap
+ * @param sigma            standard deviation of the logarithm of a log-normal latency
+ * @param spikeProbability probability that a call is delayed by a spike, between 0 and 1
+ * @param spikeLatency     extra latency of a spiking call
+ */
+public record LatencyProfile(Distribution distribution, Duration latency, Duration maxLatency, double sigma,
+		double spikeProbability, Duration spikeLatency) {
+
+	/** Calls return at once. */
+	public static final LatencyProfile NONE = fixed(Duration.ZERO);
+
+	public LatencyProfile {
+		if (latency.isNegative() || maxLatency.isNegative() || spikeLatency.isNegative()) {
+			throw new IllegalArgumentException("Latencies must not be negative");
+		}
+		if (distribution == Distribution.UNIFORM && maxLatency.compareTo(latency) < 0) {
+			throw new IllegalArgumentException("maxLatency must not be below latency: " + maxLatency);
+		}
+		if (sigma < 0) {
+			throw new IllegalArgumentException("sigma must not be negative: " + sigma);
+		}
+		if (spikeProbability < 0 || spikeProbability > 1) {
+			throw new IllegalArgumentException("spikeProbability must be between 0 and 1: " + spikeProbability);
+		}
+	}
+
+	public static LatencyProfile fixed(Duration latency) {
+		return new LatencyProfile(Distribution.FIXED, latency, Duration.ZERO, 0, 0, Duration.ZERO);
+	}
+
+	public static LatencyProfile uniform(Duration min, Duration max) {
+		return new LatencyProfile(Distribution.UNIFORM, min, max, 0, 0, Duration.ZERO);
+	}
+
+	public static LatencyProfile logNormal(Duration median, double sigma) {
+		return new LatencyProfile(Distribution.LOG_NORMAL, median, Duration.ZERO, sigma, 0, Duration.ZERO);
+	}
+
+	/**
+	 * @return a copy of this profile where a fraction of the calls take {@code spikeLatency} longer
+	 */
+	public LatencyProfile withSpikes(double spikeProbability, Duration spikeLatency) {
+		return new LatencyProfile(distribution, latency, maxLatency, sigma, spikeProbability, spikeLatency);
+	}
+
+	/**
+	 * Draws the latency of one call.
+	 *
+	 * @param random the source of randomness
+	 * @return the latency in nanoseconds
+	 */
+	public long sampleNanos(RandomGenerator random) {
+		long nanos = switch (distribution) {
+			case FIXED -> latency.toNanos();
+			case UNIFORM -> latency.equals(maxLatency) ? latency.toNanos()
+					: random.nextLong(latency.toNanos(), maxLatency.toNanos() + 1);
+			case LOG_NORMAL -> {
+				long drawn = (long) (latency.toNanos() * Math.exp(sigma * random.nextGaussian()));
+				yield maxLatency.isZero() ? drawn : Math.min(drawn, maxLatency.toNanos());
+			}
+		};
+		if (spikeProbability > 0 && random.nextDouble() < spikeProbability) {
+			nanos += spikeLatency.toNanos();
+		}
+		return nanos;
+	}
+
+	/**
+	 * Shape of the base latency.
+	 */
+	public enum Distribution {
+		/** Every call takes {@code latency}. */
+		FIXED,
+		/** Calls take between {@code latency} and {@code maxLatency}, all values equally likely. */
+		UNIFORM,
+		/** Calls take around {@code latency}, with a long right tail widening with {@code sigma}. */
+		LOG_NORMAL
+	}
+}
@@ -0,0 +1,26 @@
+package com.openclassrooms.tourguide.gateway;
+
+import tripPricer.Provider;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Source of trip deals.
+ */
+public interface PricingGateway {
+
+	/**
+	 * Prices a trip with every provider.
+	 *
+	 * @param apiKey        the key identifying TourGuide to the pricing service
+	 * @param attractionId  the id the trip is priced for
+	 * @param adults        number of adults travelling
+	 * @param children      number of children travelling
+	 * @param nightsStay    length of the stay in nights
+	 * @param rewardsPoints reward points deducted from the price
+	 * @return one offer per provider
+	 */
+	List<Provider> getPrice(String apiKey, UUID attractionId, int adults, int children, int nightsStay,
+			int rewardsPoints);
+}
@@ -0,0 +1,22 @@
+package com.openclassrooms.tourguide.gateway;
+
+import rewardCentral.RewardCentral;
+
+import java.util.UUID;
+
+/**
+ * {@link RewardsGateway} backed by the {@code RewardCentral} library.
+ */
+public class RewardCentralGateway implements RewardsGateway {
+
+	private final RewardCentral rewardCentral;
+
+	public RewardCentralGateway(RewardCentral rewardCentral) {
+		this.rewardCentral = rewardCentral;
+	}
+
+	@Override
+	public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+		return rewardCentral.getAttractionRewardPoints(attractionId, userId);
+	}
+}
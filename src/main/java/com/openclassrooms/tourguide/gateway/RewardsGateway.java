@@ -0,0 +1,16 @@
+package com.openclassrooms.tourguide.gateway;
+
+import java.util.UUID;
+
+/**
+ * Source of the reward points a user earns for visiting an attraction.
+ */
+public interface RewardsGateway {
+
+	/**
+	 * @param attractionId the attraction being rewarded
+	 * @param userId       the user receiving the reward
+	 * @return the reward points
+	 */
+	int getAttractionRewardPoints(UUID attractionId, UUID userId);
+}
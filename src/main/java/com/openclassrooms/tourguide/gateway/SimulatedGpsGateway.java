@@ -0,0 +1,95 @@
+package com.openclassrooms.tourguide.gateway;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * {@link GpsGateway} that places users at random, with the latency and error
+ * rate of a {@link LatencyProfile}, for capacity tests without the real service.
+ *
+ * <p>Locations are spread over the same range as {@code GpsUtil}'s. The
+ * attraction catalog is fixed at construction and returned without delay.
+ * When built with a batch endpoint, a batch lookup costs the latency of a
+ * single call and fails as a whole.</p>
+ */
+public class SimulatedGpsGateway implements GpsGateway {
+
+	private static final double MAX_LATITUDE = 85.05112878;
+	private static final double MAX_LONGITUDE = 180;
+
+	private final List<Attraction> attractions;
+	private final Simulation simulation;
+	private final boolean batchEndpoint;
+
+	/**
+	 * Constructs a {@code SimulatedGpsGateway} without a batch endpoint.
+	 *
+	 * @param attractions    the attraction catalog to serve
+	 * @param latencyProfile latency of each location lookup
+	 * @param errorRate      fraction of location lookups failing with a {@link GatewayException}
+	 * @param seed           seed of the latencies, failures and locations
+	 */
+	public SimulatedGpsGateway(List<Attraction> attractions, LatencyProfile latencyProfile, double errorRate,
+			long seed) {
+		this(attractions, latencyProfile, errorRate, seed, false);
+	}
+
+	/**
+	 * Constructs a {@code SimulatedGpsGateway}.
+	 *
+	 * @param attractions    the attraction catalog to serve
+	 * @param latencyProfile latency of each location lookup
+	 * @param errorRate      fraction of location lookups failing with a {@link GatewayException}
+	 * @param seed           seed of the latencies, failures and locations
+	 * @param batchEndpoint  whether batch lookups take a single round trip
+	 */
+	public SimulatedGpsGateway(List<Attraction> attractions, LatencyProfile latencyProfile, double errorRate,
+			long seed, boolean batchEndpoint) {
+		this.attractions = List.copyOf(attractions);
+		this.simulation = new Simulation("GPS", latencyProfile, errorRate, seed);
+		this.batchEndpoint = batchEndpoint;
+	}
+
+	@Override
+	public VisitedLocation getUserLocation(UUID userId) {
+		return simulation.call(random -> randomLocation(userId, random));
+	}
+
+	@Override
+	public List<VisitedLocation> getUserLocations(List<UUID> userIds) {
+		if (!batchEndpoint) {
+			return GpsGateway.super.getUserLocations(userIds);
+		}
+		return simulation.call(random -> {
+			List<VisitedLocation> locations = new ArrayList<>(userIds.size());
+			for (UUID userId : userIds) {
+				locations.add(randomLocation(userId, random));
+			}
+			return locations;
+		});
+	}
+
+	@Override
+	public boolean supportsBatchLookup() {
+		return batchEndpoint;
+	}
+
+	private static VisitedLocation randomLocation(UUID userId, SplittableRandom random) {
+		return new VisitedLocation(userId,
+				new Location(random.nextDouble(-MAX_LATITUDE, MAX_LATITUDE),
+						random.nextDouble(-MAX_LONGITUDE, MAX_LONGITUDE)),
+				new Date());
+	}
+
+	@Override
+	public List<Attraction> getAttractions() {
+		return attractions;
+	}
+}
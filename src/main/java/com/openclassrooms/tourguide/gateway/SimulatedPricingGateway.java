@@ -0,0 +1,49 @@
+package com.openclassrooms.tourguide.gateway;
+
+import tripPricer.Provider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * {@link PricingGateway} answering random offers, with the latency and error
+ * rate of a {@link LatencyProfile}, for capacity tests without the real service.
+ *
+ * <p>Like {@code TripPricer}, each call returns five offers whose price grows
+ * with the party size and the length of the stay, minus the reward points.</p>
+ */
+public class SimulatedPricingGateway implements PricingGateway {
+
+	private static final List<String> PROVIDERS = List.of("Holiday Travels", "Enterprize Ventures Limited",
+			"Sunny Days", "FlyAway Trips", "United Partners Vacations", "Dream Trips", "Live Free",
+			"Dancing Waves Cruselines and Partners", "AdventureCo", "Cure-Your-Blues");
+	private static final int OFFERS = 5;
+
+	private final Simulation simulation;
+
+	/**
+	 * Constructs a {@code SimulatedPricingGateway}.
+	 *
+	 * @param latencyProfile latency of each pricing call
+	 * @param errorRate      fraction of pricing calls failing with a {@link GatewayException}
+	 * @param seed           seed of the latencies, failures and offers
+	 */
+	public SimulatedPricingGateway(LatencyProfile latencyProfile, double errorRate, long seed) {
+		this.simulation = new Simulation("TripPricer", latencyProfile, errorRate, seed);
+	}
+
+	@Override
+	public List<Provider> getPrice(String apiKey, UUID attractionId, int adults, int children, int nightsStay,
+			int rewardsPoints) {
+		return simulation.call(random -> {
+			List<Provider> offers = new ArrayList<>(OFFERS);
+			for (int i = 0; i < OFFERS; i++) {
+				int nightlyRate = random.nextInt(100, 700);
+				double price = Math.max(0, nightlyRate * (adults + children / 2.0) * nightsStay + 0.99 - rewardsPoints);
+				offers.add(new Provider(attractionId, PROVIDERS.get(random.nextInt(PROVIDERS.size())), price));
+			}
+			return offers;
+		});
+	}
+}
@@ -0,0 +1,30 @@
+package com.openclassrooms.tourguide.gateway;
+
+import java.util.UUID;
+
+/**
+ * {@link RewardsGateway} answering random points, with the latency and error
+ * rate of a {@link LatencyProfile}, for capacity tests without the real service.
+ */
+public class SimulatedRewardsGateway implements RewardsGateway {
+
+	private static final int MAX_POINTS = 1000;
+
+	private final Simulation simulation;
+
+	/**
+	 * Constructs a {@code SimulatedRewardsGateway}.
+	 *
+	 * @param latencyProfile latency of each lookup
+	 * @param errorRate      fraction of lookups failing with a {@link GatewayException}
+	 * @param seed           seed of the latencies, failures and points
+	 */
+	public SimulatedRewardsGateway(LatencyProfile latencyProfile, double errorRate, long seed) {
+		this.simulation = new Simulation("RewardCentral", latencyProfile, errorRate, seed);
+	}
+
+	@Override
+	public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+		return simulation.call(random -> random.nextInt(1, MAX_POINTS + 1));
+	}
+}
@@ -0,0 +1,62 @@
+package com.openclassrooms.tourguide.gateway;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+/**
+ * Latency, failures and randomness shared by the simulated gateways.
+ *
+ * <p>All draws come from one seeded {@link SplittableRandom}, so a run with a
+ * single caller is exactly reproducible. Concurrent callers interleave their
+ * draws in scheduling order, which keeps the distributions but not the exact
+ * sequence.</p>
+ */
+class Simulation {
+
+	private final String service;
+	private final LatencyProfile latencyProfile;
+	private final double errorRate;
+	private final SplittableRandom random;
+
+	Simulation(String service, LatencyProfile latencyProfile, double errorRate, long seed) {
+		if (errorRate < 0 || errorRate > 1) {
+			throw new IllegalArgumentException("errorRate must be between 0 and 1: " + errorRate);
+		}
+		this.service = service;
+		this.latencyProfile = latencyProfile;
+		this.errorRate = errorRate;
+		this.random = new SplittableRandom(seed);
+	}
+
+	/**
+	 * Simulates one call: draws its latency, outcome and result, then sleeps for
+	 * the latency outside of any lock.
+	 *
+	 * @param result builds the call's result from a generator private to this call
+	 * @return the result
+	 * @throws GatewayException if the call is drawn to fail, or the caller is interrupted while waiting
+	 */
+	<T> T call(Function<SplittableRandom, T> result) {
+		long latencyNanos;
+		boolean failed;
+		SplittableRandom callRandom;
+		synchronized (random) {
+			latencyNanos = latencyProfile.sampleNanos(random);
+			failed = errorRate > 0 && random.nextDouble() < errorRate;
+			callRandom = random.split();
+		}
+		if (latencyNanos > 0) {
+			try {
+				Thread.sleep(Duration.ofNanos(latencyNanos));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new GatewayException("Interrupted while calling simulated " + service, e);
+			}
+		}
+		if (failed) {
+			throw new GatewayException("Simulated " + service + " failure");
+		}
+		return result.apply(callRandom);
+	}
+}
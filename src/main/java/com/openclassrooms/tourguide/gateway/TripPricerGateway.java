@@ -0,0 +1,25 @@
+package com.openclassrooms.tourguide.gateway;
+
+import tripPricer.Provider;
+import tripPricer.TripPricer;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * {@link PricingGateway} backed by the {@code TripPricer} library.
+ */
+public class TripPricerGateway implements PricingGateway {
+
+	private final TripPricer tripPricer;
+
+	public TripPricerGateway(TripPricer tripPricer) {
+		this.tripPricer = tripPricer;
+	}
+
+	@Override
+	public List<Provider> getPrice(String apiKey, UUID attractionId, int adults, int children, int nightsStay,
+			int rewardsPoints) {
+		return tripPricer.getPrice(apiKey, attractionId, adults, children, nightsStay, rewardsPoints);
+	}
+}
@@ -0,0 +1,211 @@
+package com.openclassrooms.tourguide.geofence;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openclassrooms.tourguide.spatial.AttractionIndex;
+import com.openclassrooms.tourguide.user.User;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * {@link GeofenceMonitor} giving every attraction of an {@link AttractionIndex} a
+ * circular geofence of the same radius.
+ *
+ * <p>Each appended location costs one within-radius query against the index.
+ * Only users currently inside at least one geofence have any state, the
+ * attractions they are in and since when, so a location far from every
+ * attraction, for a user who was already far from them, stops right there. Exits
+ * are checked against the radius plus an exit margin, and dwell times are measured
+ * between location timestamps, not on the wall clock.</p>
+ *
+ * <p>Events are queued and delivered to subscribers by a single dispatcher thread,
+ * so subscribers never slow tracking down; when the queue is full, events are
+ * dropped rather than blocking the tracking thread. Events are counted under
+ * {@code tourguide.geofence.events}, tagged by type, dropped events under
+ * {@code tourguide.geofence.dropped}, and the users inside a geofence are gauged
+ * under {@code tourguide.geofence.presences}.</p>
+ */
+public class GeofenceEngine implements GeofenceMonitor {
+
+	private static final Logger logger = LoggerFactory.getLogger(GeofenceEngine.class);
+
+	private final AttractionIndex attractionIndex;
+	private final double radiusMiles;
+	private final double exitRadiusMiles;
+	private final long dwellMillis;
+	private final Map<UUID, Map<String, Visit>> presences = new ConcurrentHashMap<>();
+	private final List<GeofenceListener> listeners = new CopyOnWriteArrayList<>();
+	private final BlockingQueue<GeofenceEvent> queue;
+	private final Map<GeofenceEvent.Type, Counter> publishedEvents = new EnumMap<>(GeofenceEvent.Type.class);
+	private final Counter droppedEvents;
+	private final Thread dispatcher;
+
+	/**
+	 * Constructs a {@code GeofenceEngine} and starts its dispatcher thread.
+	 *
+	 * @param attractionIndex the attractions to put geofences around
+	 * @param settings        radius, exit margin, dwell time and queue capacity
+	 * @param meterRegistry   registry receiving the geofence metrics
+	 */
+	public GeofenceEngine(AttractionIndex attractionIndex, GeofenceSettings settings, MeterRegistry meterRegistry) {
+		this.attractionIndex = attractionIndex;
+		this.radiusMiles = settings.getRadiusMiles();
+		this.exitRadiusMiles = settings.getRadiusMiles() + Math.max(0, settings.getExitMarginMiles());
+		this.dwellMillis = settings.getDwellTime().toMillis();
+		this.queue = new ArrayBlockingQueue<>(Math.max(1, settings.getQueueCapacity()));
+		for (GeofenceEvent.Type type : GeofenceEvent.Type.values()) {
+			publishedEvents.put(type, Counter.builder("tourguide.geofence.events")
+					.description("Geofence events published")
+					.tag("type", type.name().toLowerCase())
+					.register(meterRegistry));
+		}
+		this.droppedEvents = Counter.builder("tourguide.geofence.dropped")
+				.description("Geofence events dropped because the dispatch queue was full")
+				.register(meterRegistry);
+		Gauge.builder("tourguide.geofence.presences", presences, Map::size)
+				.description("Users inside at least one geofence")
+				.register(meterRegistry);
+		this.dispatcher = Thread.ofPlatform().name("tourguide-geofence-dispatcher").daemon().start(this::dispatch);
+	}
+
+	@Override
+	public void locationAdded(User user, VisitedLocation visitedLocation) {
+		UUID userId = user.getUserId();
+		List<Attraction> inside = attractionIndex.withinRadius(visitedLocation.location, radiusMiles);
+		boolean present = presences.containsKey(userId);
+		if (inside.isEmpty() && !present) {
+			return;
+		}
+		List<Attraction> kept = present && exitRadiusMiles > radiusMiles
+				? attractionIndex.withinRadius(visitedLocation.location, exitRadiusMiles)
+				: inside;
+		presences.compute(userId, (id, visits) -> update(id, visits, inside, kept, visitedLocation));
+	}
+
+	/**
+	 * Works out the events caused by one location and the visits left after it.
+	 *
+	 * @return the visits in progress, or {@code null} if there are none left
+	 */
+	private Map<String, Visit> update(UUID userId, Map<String, Visit> visits, List<Attraction> inside,
+			List<Attraction> kept, VisitedLocation visitedLocation) {
+		long time = visitedLocation.timeVisited.getTime();
+		Map<String, Visit> current = visits != null ? visits : new HashMap<>();
+		if (!current.isEmpty()) {
+			Set<String> keptNames = new HashSet<>();
+			kept.forEach(attraction -> keptNames.add(attraction.attractionName));
+			for (Iterator<Map.Entry<String, Visit>> it = current.entrySet().iterator(); it.hasNext();) {
+				Map.Entry<String, Visit> entry = it.next();
+				Visit visit = entry.getValue();
+				if (!keptNames.contains(entry.getKey())) {
+					it.remove();
+					publish(GeofenceEvent.Type.EXIT, userId, entry.getKey(), visitedLocation, time - visit.enteredAt);
+				} else if (!visit.dwelled && time - visit.enteredAt >= dwellMillis) {
+					visit.dwelled = true;
+					publish(GeofenceEvent.Type.DWELL, userId, entry.getKey(), visitedLocation, time - visit.enteredAt);
+				}
+			}
+		}
+		for (Attraction attraction : inside) {
+			if (!current.containsKey(attraction.attractionName)) {
+				current.put(attraction.attractionName, new Visit(time));
+				publish(GeofenceEvent.Type.ENTER, userId, attraction.attractionName, visitedLocation, 0);
+			}
+		}
+		return current.isEmpty() ? null : current;
+	}
+
+	private void publish(GeofenceEvent.Type type, UUID userId, String attractionName,
+			VisitedLocation visitedLocation, long dwellMillis) {
+		publishedEvents.get(type).increment();
+		if (listeners.isEmpty()) {
+			return;
+		}
+		GeofenceEvent event = new GeofenceEvent(type, userId, attractionName, visitedLocation.location.latitude,
+				visitedLocation.location.longitude, visitedLocation.timeVisited,
+				Duration.ofMillis(Math.max(0, dwellMillis)));
+		if (!queue.offer(event)) {
+			droppedEvents.increment();
+		}
+	}
+
+	@Override
+	public Subscription subscribe(GeofenceListener listener) {
+		listeners.add(listener);
+		return () -> listeners.remove(listener);
+	}
+
+	/**
+	 * @return the names of the attractions whose geofence the user is in
+	 */
+	public Set<String> attractionsAround(UUID userId) {
+		Set<String> names = new HashSet<>();
+		// Visits are only changed under the map's per-key lock, so read them under it too
+		presences.computeIfPresent(userId, (id, visits) -> {
+			names.addAll(visits.keySet());
+			return visits;
+		});
+		return Set.copyOf(names);
+	}
+
+	/**
+	 * Stops the dispatcher thread; events still queued are dropped.
+	 */
+	@Override
+	public void close() {
+		dispatcher.interrupt();
+		try {
+			dispatcher.join(1000);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void dispatch() {
+		try {
+			while (true) {
+				GeofenceEvent event = queue.take();
+				for (GeofenceListener listener : listeners) {
+					try {
+						listener.onEvent(event);
+					} catch (RuntimeException e) {
+						logger.error("Geofence listener failed on {}", event, e);
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			logger.debug("Geofence dispatcher stopped, dropping {} events", queue.size());
+		}
+	}
+
+	/**
+	 * A stay inside one geofence.
+	 */
+	private static final class Visit {
+
+		private final long enteredAt;
+		private boolean dwelled;
+
+		private Visit(long enteredAt) {
+			this.enteredAt = enteredAt;
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package com.openclassrooms.tourguide.geofence;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * A user crossing, or lingering in, the geofence of an attraction.
+ *
+ * @param type           what happened
+ * @param userId         the user
+ * @param attractionName the attraction whose geofence is concerned
+ * @param latitude       latitude of the tracked location that caused the event
+ * @param longitude      longitude of that location
+ * @param time           the time of that location
+ * @param dwell          time spent inside the geofence so far; zero on {@link Type#ENTER}
+ */
+public record GeofenceEvent(Type type, UUID userId, String attractionName, double latitude, double longitude,
+		Date time, Duration dwell) {
+
+	/**
+	 * Kind of geofence event.
+	 */
+	public enum Type {
+
+		/** First location inside the geofence. */
+		ENTER,
+
+		/** First location out of the geofence, past its exit margin. */
+		EXIT,
+
+		/** First location inside the geofence once the user has been there for the dwell time. */
+		DWELL
+	}
+}
@@ -0,0 +1,16 @@
+package com.openclassrooms.tourguide.geofence;
+
+/**
+ * Receives geofence events, in order for any given user.
+ */
+@FunctionalInterface
+public interface GeofenceListener {
+
+	/**
+	 * Called on the dispatcher thread of the monitor; implementations should hand
+	 * slow work over to their own threads, or they delay every other subscriber.
+	 *
+	 * @param event the event
+	 */
+	void onEvent(GeofenceEvent event);
+}
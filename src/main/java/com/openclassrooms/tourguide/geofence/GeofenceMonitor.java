@@ -0,0 +1,75 @@
+package com.openclassrooms.tourguide.geofence;
+
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserChangeListener;
+import com.openclassrooms.tourguide.user.UserReward;
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Watches the locations appended to users' histories and publishes geofence
+ * events to subscribers.
+ *
+ * <p>It is plugged into the user repository as a {@link UserChangeListener}, so
+ * every location tracked, whichever path it takes, is checked once, as it is
+ * appended.</p>
+ *
+ * <p>Events notify subscribers such as the {@code /geofenceEvents} stream; they
+ * do not award rewards. {@link com.openclassrooms.tourguide.service.RewardsService}
+ * keeps evaluating the locations appended since its last run, because events are
+ * dropped when a monitor falls behind, and geofences do not follow changes to the
+ * reward proximity buffer. A missed event must never cost a user a reward.</p>
+ */
+public interface GeofenceMonitor extends UserChangeListener, AutoCloseable {
+
+	/** No geofences: locations are not checked and subscribers never receive anything. */
+	GeofenceMonitor NONE = new GeofenceMonitor() {
+		@Override
+		public void locationAdded(User user, VisitedLocation visitedLocation) {
+		}
+
+		@Override
+		public Subscription subscribe(GeofenceListener listener) {
+			return () -> {
+			};
+		}
+
+		@Override
+		public void close() {
+		}
+	};
+
+	@Override
+	default void userAdded(User user) {
+	}
+
+	@Override
+	default void rewardAdded(User user, UserReward userReward) {
+	}
+
+	/**
+	 * Starts delivering events to a listener.
+	 *
+	 * @param listener the listener
+	 * @return the subscription, closed to stop delivering events
+	 */
+	Subscription subscribe(GeofenceListener listener);
+
+	/**
+	 * Stops the dispatch of events.
+	 */
+	@Override
+	void close();
+
+	/**
+	 * A listener registered with {@link #subscribe(GeofenceListener)}.
+	 */
+	@FunctionalInterface
+	interface Subscription extends AutoCloseable {
+
+		/**
+		 * Stops delivering events to the listener; events already queued may still arrive.
+		 */
+		@Override
+		void close();
+	}
+}
@@ -0,0 +1,64 @@
+package com.openclassrooms.tourguide.geofence;
+
+import java.time.Duration;
+
+/**
+ * Settings of the {@link GeofenceEngine}, bound from {@code tourguide.geofence.*}.
+ */
+public class GeofenceSettings {
+
+	/** Whether tracked locations are checked against attraction geofences. */
+	private boolean enabled;
+
+	/** Radius of every attraction's geofence; the default matches the reward proximity buffer. */
+	private double radiusMiles = 10;
+
+	/** Extra distance to leave before an exit is reported, so GPS jitter at the edge does not flap. */
+	private double exitMarginMiles = 1;
+
+	/** Time inside a geofence after which a dwell event is reported, once per visit. */
+	private Duration dwellTime = Duration.ofMinutes(15);
+
+	/** Events waiting for dispatch; further events are dropped, and counted, while it is full. */
+	private int queueCapacity = 10_000;
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public double getRadiusMiles() {
+		return radiusMiles;
+	}
+
+	public void setRadiusMiles(double radiusMiles) {
+		this.radiusMiles = radiusMiles;
+	}
+
+	public double getExitMarginMiles() {
+		return exitMarginMiles;
+	}
+
+	public void setExitMarginMiles(double exitMarginMiles) {
+		this.exitMarginMiles = exitMarginMiles;
+	}
+
+	public Duration getDwellTime() {
+		return dwellTime;
+	}
+
+	public void setDwellTime(Duration dwellTime) {
+		this.dwellTime = dwellTime;
+	}
+
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	public void setQueueCapacity(int queueCapacity) {
+		this.queueCapacity = queueCapacity;
+	}
+}
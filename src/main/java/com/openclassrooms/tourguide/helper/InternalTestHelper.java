@@ -4,6 +4,8 @@ public class InternalTestHelper {
 
 	// Set this default up to 100,000 for testing
 	private static int internalUserNumber = 100;
+
+	private static PopulationSettings populationSettings = new PopulationSettings();
 	
 	public static void setInternalUserNumber(int internalUserNumber) {
 		InternalTestHelper.internalUserNumber = internalUserNumber;
@@ -12,4 +14,16 @@ public class InternalTestHelper {
 	public static int getInternalUserNumber() {
 		return internalUserNumber;
 	}
+
+	/**
+	 * Sets the shape of the internal users generated from now on: seed, history
+	 * length, clustering and preferences.
+	 */
+	public static void setPopulationSettings(PopulationSettings populationSettings) {
+		InternalTestHelper.populationSettings = populationSettings;
+	}
+
+	public static PopulationSettings getPopulationSettings() {
+		return populationSettings;
+	}
 }
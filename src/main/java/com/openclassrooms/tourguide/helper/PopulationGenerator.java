@@ -0,0 +1,158 @@
+package com.openclassrooms.tourguide.helper;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import com.openclassrooms.tourguide.user.HistoryLayout;
+import com.openclassrooms.tourguide.user.HistoryRetention;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserPreferences;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Builds reproducible synthetic users for test mode, load tests and benchmarks.
+ *
+ * <p>Every user is derived from the population seed and its own index alone,
+ * through a {@link SplittableRandom} seeded for that index, so users can be
+ * generated in any order and on any number of threads and still come out the
+ * same. User {@code i} is named {@code internalUser<i>}, like the users test mode
+ * always generated.</p>
+ *
+ * <p>A share of the locations lies within the cluster radius of a random
+ * attraction, so that reward matching finds real matches; the others are spread
+ * uniformly over the map. Timestamps are spread over the history span and sorted,
+ * oldest first.</p>
+ */
+public class PopulationGenerator {
+
+	private static final double MILES_PER_DEGREE = 69.0;
+	private static final double MAX_LATITUDE = 85.05112878;
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private final PopulationSettings settings;
+	private final List<Attraction> attractions;
+	private final HistoryRetention retention;
+	private final HistoryLayout layout;
+
+	/**
+	 * Constructs a {@code PopulationGenerator} giving users the default history retention.
+	 *
+	 * @param settings    the shape of the population
+	 * @param attractions the attractions locations are clustered around
+	 */
+	public PopulationGenerator(PopulationSettings settings, List<Attraction> attractions) {
+		this(settings, attractions, HistoryRetention.DEFAULT);
+	}
+
+	/**
+	 * Constructs a {@code PopulationGenerator} giving users the object history layout.
+	 *
+	 * @param settings    the shape of the population
+	 * @param attractions the attractions locations are clustered around
+	 * @param retention   the history retention of generated users
+	 */
+	public PopulationGenerator(PopulationSettings settings, List<Attraction> attractions, HistoryRetention retention) {
+		this(settings, attractions, retention, HistoryLayout.OBJECTS);
+	}
+
+	/**
+	 * Constructs a {@code PopulationGenerator}.
+	 *
+	 * @param settings    the shape of the population
+	 * @param attractions the attractions locations are clustered around
+	 * @param retention   the history retention of generated users
+	 * @param layout      the history layout of generated users
+	 */
+	public PopulationGenerator(PopulationSettings settings, List<Attraction> attractions, HistoryRetention retention,
+			HistoryLayout layout) {
+		this.settings = settings;
+		this.attractions = List.copyOf(attractions);
+		this.retention = retention;
+		this.layout = layout;
+	}
+
+	/**
+	 * Generates users {@code 0} to {@code count - 1} in parallel.
+	 *
+	 * @param count the number of users
+	 * @return the users, in index order
+	 */
+	public List<User> generate(int count) {
+		return IntStream.range(0, count).parallel().mapToObj(this::user).toList();
+	}
+
+	/**
+	 * Generates one user.
+	 *
+	 * @param index the index of the user in the population
+	 * @return the same user for the same index, seed and settings
+	 */
+	public User user(int index) {
+		SplittableRandom random = new SplittableRandom(mix64(settings.getSeed() + GOLDEN_GAMMA * (index + 1L)));
+		String userName = "internalUser" + index;
+		UUID userId = new UUID((random.nextLong() & ~0xf000L) | 0x4000L,
+				(random.nextLong() & ~(0x3L << 62)) | (0x2L << 62));
+		User user = new User(userId, userName, "000", userName + "@tourGuide.com", retention, layout);
+		user.setUserPreferences(preferences(random));
+		int historyLength = settings.getHistoryLength();
+		long spanMillis = Math.max(1, settings.getHistorySpan().toMillis());
+		long end = settings.getReferenceTime().toEpochMilli();
+		long[] times = new long[historyLength];
+		for (int i = 0; i < historyLength; i++) {
+			times[i] = end - random.nextLong(spanMillis);
+		}
+		Arrays.sort(times);
+		for (long time : times) {
+			user.addToVisitedLocations(new VisitedLocation(userId, location(random), new Date(time)));
+		}
+		return user;
+	}
+
+	private UserPreferences preferences(SplittableRandom random) {
+		UserPreferences preferences = new UserPreferences();
+		int adults = 1 + random.nextInt(Math.max(1, settings.getMaxAdults()));
+		int children = random.nextDouble() < settings.getChildrenProbability()
+				? 1 + random.nextInt(Math.max(1, settings.getMaxChildren()))
+				: 0;
+		preferences.setTripDuration(1 + random.nextInt(Math.max(1, settings.getMaxTripDuration())));
+		preferences.setNumberOfAdults(adults);
+		preferences.setNumberOfChildren(children);
+		preferences.setTicketQuantity(adults + children);
+		return preferences;
+	}
+
+	private Location location(SplittableRandom random) {
+		if (attractions.isEmpty() || random.nextDouble() >= settings.getClusteredFraction()) {
+			return new Location(random.nextDouble(-MAX_LATITUDE, MAX_LATITUDE), random.nextDouble(-180, 180));
+		}
+		Attraction attraction = attractions.get(random.nextInt(attractions.size()));
+		// Uniform over the disc: the square root keeps points from piling up at the centre
+		double distance = settings.getClusterRadiusMiles() * Math.sqrt(random.nextDouble()) / MILES_PER_DEGREE;
+		double bearing = random.nextDouble(2 * Math.PI);
+		double latitude = Math.clamp(attraction.latitude + distance * Math.cos(bearing), -MAX_LATITUDE,
+				MAX_LATITUDE);
+		double longitude = attraction.longitude
+				+ distance * Math.sin(bearing) / Math.max(0.01, Math.cos(Math.toRadians(latitude)));
+		return new Location(latitude, wrapLongitude(longitude));
+	}
+
+	private static double wrapLongitude(double longitude) {
+		return longitude >= 180 ? longitude - 360 : longitude < -180 ? longitude + 360 : longitude;
+	}
+
+	/**
+	 * The finalizer of {@link SplittableRandom}, turning consecutive seeds into
+	 * unrelated ones.
+	 */
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
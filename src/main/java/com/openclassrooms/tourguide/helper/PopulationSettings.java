@@ -0,0 +1,120 @@
+package com.openclassrooms.tourguide.helper;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Shape of the synthetic population built by the {@link PopulationGenerator}.
+ */
+public class PopulationSettings {
+
+	/** Seed of the whole population; the same seed and settings always give the same users. */
+	private long seed = 42;
+
+	/** Number of locations generated per user. */
+	private int historyLength = 3;
+
+	/** Locations are spread over this period, ending at the reference time. */
+	private Duration historySpan = Duration.ofDays(30);
+
+	/** End of the history period; fixed, so the generated timestamps are the same from one run to the next. */
+	private Instant referenceTime = Instant.parse("2024-01-01T00:00:00Z");
+
+	/** Fraction of locations placed near an attraction rather than anywhere on the map. */
+	private double clusteredFraction = 0.5;
+
+	/** Maximum distance between a clustered location and its attraction. */
+	private double clusterRadiusMiles = 10;
+
+	/** Trip durations are drawn uniformly from 1 to this many days. */
+	private int maxTripDuration = 14;
+
+	/** Number of adults, drawn uniformly from 1 to this. */
+	private int maxAdults = 4;
+
+	/** Probability that a user travels with children. */
+	private double childrenProbability = 0.4;
+
+	/** Number of children of users travelling with some, drawn uniformly from 1 to this. */
+	private int maxChildren = 3;
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	public int getHistoryLength() {
+		return historyLength;
+	}
+
+	public void setHistoryLength(int historyLength) {
+		this.historyLength = historyLength;
+	}
+
+	public Duration getHistorySpan() {
+		return historySpan;
+	}
+
+	public void setHistorySpan(Duration historySpan) {
+		this.historySpan = historySpan;
+	}
+
+	public Instant getReferenceTime() {
+		return referenceTime;
+	}
+
+	public void setReferenceTime(Instant referenceTime) {
+		this.referenceTime = referenceTime;
+	}
+
+	public double getClusteredFraction() {
+		return clusteredFraction;
+	}
+
+	public void setClusteredFraction(double clusteredFraction) {
+		this.clusteredFraction = clusteredFraction;
+	}
+
+	public double getClusterRadiusMiles() {
+		return clusterRadiusMiles;
+	}
+
+	public void setClusterRadiusMiles(double clusterRadiusMiles) {
+		this.clusterRadiusMiles = clusterRadiusMiles;
+	}
+
+	public int getMaxTripDuration() {
+		return maxTripDuration;
+	}
+
+	public void setMaxTripDuration(int maxTripDuration) {
+		this.maxTripDuration = maxTripDuration;
+	}
+
+	public int getMaxAdults() {
+		return maxAdults;
+	}
+
+	public void setMaxAdults(int maxAdults) {
+		this.maxAdults = maxAdults;
+	}
+
+	public double getChildrenProbability() {
+		return childrenProbability;
+	}
+
+	public void setChildrenProbability(double childrenProbability) {
+		this.childrenProbability = childrenProbability;
+	}
+
+	public int getMaxChildren() {
+		return maxChildren;
+	}
+
+	public void setMaxChildren(int maxChildren) {
+		this.maxChildren = maxChildren;
+	}
+}
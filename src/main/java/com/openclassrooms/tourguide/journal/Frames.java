@@ -0,0 +1,77 @@
+package com.openclassrooms.tourguide.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Reads the {@code [int length][int crc32c][body]} frames of a journal segment or
+ * snapshot shard.
+ *
+ * <p>Files are read through read-only memory mappings of at most
+ * {@link #MAX_WINDOW} bytes, remapped whenever a frame crosses the end of the
+ * current one, so files of any size can be read. Frames are checked and handed
+ * over in place, as slices of the mapping, without copying.</p>
+ */
+final class Frames {
+
+	private static final long MAX_WINDOW = 256L * 1024 * 1024;
+
+	private Frames() {
+	}
+
+	/**
+	 * Hands every intact frame body of a file to a consumer, in order, stopping at
+	 * the first frame that is incomplete or fails its checksum.
+	 *
+	 * @param path     the file
+	 * @param start    offset of the first frame, past any file header
+	 * @param consumer receives each body positioned at its type byte; the buffer is
+	 *                 only valid during the call
+	 * @return the offset just past the last intact frame
+	 */
+	static long scan(Path path, long start, Consumer<ByteBuffer> consumer) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			long position = start;
+			long windowStart = position;
+			MappedByteBuffer window = map(channel, windowStart, size);
+			CRC32C crc32c = new CRC32C();
+			while (size - position >= JournalRecords.FRAME_HEADER_SIZE) {
+				int offset = (int) (position - windowStart);
+				if (offset + JournalRecords.FRAME_HEADER_SIZE > window.limit()) {
+					windowStart = position;
+					window = map(channel, windowStart, size);
+					offset = 0;
+				}
+				int length = window.getInt(offset);
+				int crc = window.getInt(offset + Integer.BYTES);
+				long frameSize = JournalRecords.FRAME_HEADER_SIZE + (long) length;
+				if (length <= 0 || frameSize > MAX_WINDOW || position + frameSize > size) {
+					break;
+				}
+				if (offset + frameSize > window.limit()) {
+					windowStart = position;
+					window = map(channel, windowStart, size);
+					offset = 0;
+				}
+				ByteBuffer body = window.slice(offset + JournalRecords.FRAME_HEADER_SIZE, length);
+				if (!JournalRecords.isIntact(body, crc, crc32c)) {
+					break;
+				}
+				consumer.accept(body);
+				position += frameSize;
+			}
+			return position;
+		}
+	}
+
+	private static MappedByteBuffer map(FileChannel channel, long start, long size) throws IOException {
+		return channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(MAX_WINDOW, size - start));
+	}
+}
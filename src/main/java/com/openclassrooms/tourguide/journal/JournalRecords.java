@@ -0,0 +1,360 @@
+package com.openclassrooms.tourguide.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.zip.CRC32C;
+
+import com.openclassrooms.tourguide.user.HistoryLayout;
+import com.openclassrooms.tourguide.user.HistoryRetention;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserReward;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Binary encoding of the journal records.
+ *
+ * <p>Every record is framed as {@code [int length][int crc32c][body]}, where the
+ * CRC covers the body and the body starts with a one-byte type. Numbers are
+ * big-endian; strings are a signed {@code short} byte count (-1 for
+ * {@code null}) followed by UTF-8 bytes. Bodies are:</p>
+ * <ul>
+ *   <li>{@code USER}: user id, user name, phone number, email address</li>
+ *   <li>{@code LOCATION}: user id, latitude, longitude, visit time in epoch milliseconds</li>
+ *   <li>{@code REWARD}: user id, reward points, the rewarded location (latitude,
+ *   longitude, time), then the attraction (name, city, state, latitude, longitude)</li>
+ * </ul>
+ *
+ * <p>Attractions are stored by value rather than by id, because {@code GpsUtil}
+ * regenerates attraction ids every time it lists its catalog.</p>
+ */
+final class JournalRecords {
+
+	/** Bytes of the {@code length} and {@code crc32c} fields preceding each body. */
+	static final int FRAME_HEADER_SIZE = 8;
+
+	private static final byte USER = 1;
+	private static final byte LOCATION = 2;
+	private static final byte REWARD = 3;
+	static final int UUID_SIZE = 16;
+	static final int LOCATION_SIZE = 24;
+
+	private JournalRecords() {
+	}
+
+	/**
+	 * @return whether a body of the given type holds a user's identity
+	 */
+	static boolean isUser(byte type) {
+		return type == USER;
+	}
+
+	/**
+	 * @return the frame of the user's identity
+	 */
+	static byte[] user(User user) {
+		byte[] userName = utf8(user.getUserName());
+		byte[] phoneNumber = utf8(user.getPhoneNumber());
+		byte[] emailAddress = utf8(user.getEmailAddress());
+		ByteBuffer frame = frame(USER, UUID_SIZE + sizeOf(userName) + sizeOf(phoneNumber) + sizeOf(emailAddress));
+		putUuid(frame, user.getUserId());
+		putString(frame, userName);
+		putString(frame, phoneNumber);
+		putString(frame, emailAddress);
+		return seal(frame);
+	}
+
+	/**
+	 * @return the frame of one location appended to the user's history
+	 */
+	static byte[] location(UUID userId, VisitedLocation visitedLocation) {
+		ByteBuffer frame = frame(LOCATION, UUID_SIZE + LOCATION_SIZE);
+		putUuid(frame, userId);
+		putLocation(frame, visitedLocation);
+		return seal(frame);
+	}
+
+	/**
+	 * @return the frame of one reward earned by the user
+	 */
+	static byte[] reward(UUID userId, UserReward userReward) {
+		Attraction attraction = userReward.getAttraction();
+		ByteBuffer frame = frame(REWARD, UUID_SIZE + Integer.BYTES + LOCATION_SIZE
+				+ sizeOf(utf8(attraction.attractionName)) + sizeOf(utf8(attraction.city))
+				+ sizeOf(utf8(attraction.state)) + 2 * Double.BYTES);
+		putUuid(frame, userId);
+		putReward(frame, userReward);
+		return seal(frame);
+	}
+
+	/**
+	 * @return the frames recreating the user as it is now: identity, retained locations, then rewards
+	 */
+	static List<byte[]> state(User user) {
+		List<VisitedLocation> visitedLocations = user.getVisitedLocations();
+		List<UserReward> userRewards = user.getUserRewards();
+		List<byte[]> frames = new ArrayList<>(1 + visitedLocations.size() + userRewards.size());
+		frames.add(user(user));
+		visitedLocations.forEach(visitedLocation -> frames.add(location(user.getUserId(), visitedLocation)));
+		userRewards.forEach(userReward -> frames.add(reward(user.getUserId(), userReward)));
+		return frames;
+	}
+
+	/**
+	 * @return a new frame around a copy of the body
+	 */
+	static byte[] reframe(ByteBuffer body) {
+		ByteBuffer frame = ByteBuffer.wrap(new byte[FRAME_HEADER_SIZE + body.remaining()]);
+		frame.putInt(body.remaining()).putInt(0).put(body.duplicate());
+		return seal(frame);
+	}
+
+	/**
+	 * Checks a body against the CRC stored in its frame.
+	 *
+	 * @param body the body, positioned at its type byte; its position is left unchanged
+	 * @param crc  the stored checksum
+	 * @param crc32c a checksum instance to reuse
+	 */
+	static boolean isIntact(ByteBuffer body, int crc, CRC32C crc32c) {
+		crc32c.reset();
+		crc32c.update(body.duplicate());
+		return (int) crc32c.getValue() == crc;
+	}
+
+	static ByteBuffer frame(byte type, int payloadSize) {
+		ByteBuffer frame = ByteBuffer.wrap(new byte[FRAME_HEADER_SIZE + 1 + payloadSize]);
+		frame.putInt(1 + payloadSize).putInt(0).put(type);
+		return frame;
+	}
+
+	static byte[] seal(ByteBuffer frame) {
+		CRC32C crc32c = new CRC32C();
+		crc32c.update(frame.array(), FRAME_HEADER_SIZE, frame.capacity() - FRAME_HEADER_SIZE);
+		frame.putInt(Integer.BYTES, (int) crc32c.getValue());
+		return frame.array();
+	}
+
+	static byte[] utf8(String value) {
+		if (value == null) {
+			return null;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > Short.MAX_VALUE) {
+			throw new IllegalArgumentException("String too long to journal: " + bytes.length + " bytes");
+		}
+		return bytes;
+	}
+
+	static int sizeOf(byte[] string) {
+		return Short.BYTES + (string == null ? 0 : string.length);
+	}
+
+	static void putString(ByteBuffer frame, byte[] string) {
+		if (string == null) {
+			frame.putShort((short) -1);
+		} else {
+			frame.putShort((short) string.length).put(string);
+		}
+	}
+
+	static String getString(ByteBuffer body) {
+		short length = body.getShort();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		body.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	static void putUuid(ByteBuffer frame, UUID uuid) {
+		frame.putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits());
+	}
+
+	static UUID getUuid(ByteBuffer body) {
+		return new UUID(body.getLong(), body.getLong());
+	}
+
+	static void putLocation(ByteBuffer frame, VisitedLocation visitedLocation) {
+		frame.putDouble(visitedLocation.location.latitude)
+				.putDouble(visitedLocation.location.longitude)
+				.putLong(visitedLocation.timeVisited.getTime());
+	}
+
+	static VisitedLocation getLocation(ByteBuffer body, UUID userId) {
+		Location location = new Location(body.getDouble(), body.getDouble());
+		return new VisitedLocation(userId, location, new Date(body.getLong()));
+	}
+
+	static void putReward(ByteBuffer buffer, UserReward userReward) {
+		Attraction attraction = userReward.getAttraction();
+		buffer.putInt(userReward.getRewardPoints());
+		putLocation(buffer, userReward.getVisitedLocation());
+		putString(buffer, utf8(attraction.attractionName));
+		putString(buffer, utf8(attraction.city));
+		putString(buffer, utf8(attraction.state));
+		buffer.putDouble(attraction.latitude);
+		buffer.putDouble(attraction.longitude);
+	}
+
+	static UserReward getReward(ByteBuffer body, UUID userId) {
+		int rewardPoints = body.getInt();
+		VisitedLocation visitedLocation = getLocation(body, userId);
+		Attraction attraction = new Attraction(getString(body), getString(body), getString(body),
+				body.getDouble(), body.getDouble());
+		return new UserReward(visitedLocation, attraction, rewardPoints);
+	}
+
+	/**
+	 * Rebuilds users by applying record bodies in journal order.
+	 *
+	 * <p>A user record seen again replaces nothing: the first identity wins. User
+	 * records whose user name is not accepted are skipped, as are the locations and
+	 * rewards of users not rebuilt by this replay, so that several replays over the
+	 * same records can rebuild disjoint sets of users in parallel.</p>
+	 *
+	 * <p>A replay can also start from users restored from a snapshot, and replay the
+	 * records written after it was taken. Since the snapshot may already hold the
+	 * first of them, locations are then only appended when newer than the user's
+	 * last one; rewards and identities are idempotent anyway.</p>
+	 *
+	 * <p>A replay for compaction keeps the locations and rewards of users whose
+	 * identity it never sees, as they are: once a snapshot discarded the segments
+	 * holding a user's identity, those records only make sense next to the
+	 * snapshot, and dropping them would lose them.</p>
+	 */
+	static final class Replay {
+
+		private final Map<UUID, User> users;
+		private final HistoryRetention retention;
+		private final HistoryLayout layout;
+		private final Predicate<String> acceptsUserName;
+		private final boolean deduplicate;
+		private final List<byte[]> orphans;
+		private long records;
+
+		/**
+		 * Rebuilds every user from scratch for compaction, keeping the records of
+		 * users without an identity as they are.
+		 *
+		 * @param retention the history retention of the rebuilt users
+		 * @param layout    the history layout of the rebuilt users
+		 */
+		Replay(HistoryRetention retention, HistoryLayout layout) {
+			this(retention, layout, new LinkedHashMap<>(), userName -> true, false, new ArrayList<>());
+		}
+
+		/**
+		 * Rebuilds from scratch the users of one partition, by user name.
+		 *
+		 * @param retention  the history retention of the rebuilt users
+		 * @param layout     the history layout of the rebuilt users
+		 * @param partition  the partition of users rebuilt by this replay
+		 * @param partitions the number of partitions users are spread over
+		 */
+		Replay(HistoryRetention retention, HistoryLayout layout, int partition, int partitions) {
+			this(retention, layout, new LinkedHashMap<>(),
+					userName -> Math.floorMod(userName.hashCode(), partitions) == partition, false);
+		}
+
+		/**
+		 * @param retention       the history retention of users first seen by this replay
+		 * @param layout          the history layout of users first seen by this replay
+		 * @param users           users already restored, by id; updated in place
+		 * @param acceptsUserName whether a user first seen by this replay is rebuilt
+		 * @param deduplicate     whether locations already held by a user may be replayed
+		 */
+		Replay(HistoryRetention retention, HistoryLayout layout, Map<UUID, User> users,
+				Predicate<String> acceptsUserName, boolean deduplicate) {
+			this(retention, layout, users, acceptsUserName, deduplicate, null);
+		}
+
+		private Replay(HistoryRetention retention, HistoryLayout layout, Map<UUID, User> users,
+				Predicate<String> acceptsUserName, boolean deduplicate, List<byte[]> orphans) {
+			this.retention = retention;
+			this.layout = layout;
+			this.users = users;
+			this.acceptsUserName = acceptsUserName;
+			this.deduplicate = deduplicate;
+			this.orphans = orphans;
+		}
+
+		/**
+		 * Applies one record body, unless it concerns a user this replay does not rebuild.
+		 *
+		 * @param body the body, positioned at its type byte
+		 */
+		void apply(ByteBuffer body) {
+			byte type = body.get();
+			UUID userId = getUuid(body);
+			if (type == USER) {
+				if (!users.containsKey(userId)) {
+					String userName = getString(body);
+					if (acceptsUserName.test(userName)) {
+						users.put(userId, new User(userId, userName, getString(body), getString(body), retention,
+								layout));
+						records++;
+					}
+				}
+				return;
+			}
+			User user = users.get(userId);
+			if (user == null) {
+				if (orphans != null) {
+					orphans.add(reframe(body.position(0)));
+				}
+				return;
+			}
+			records++;
+			if (type == LOCATION) {
+				VisitedLocation visitedLocation = getLocation(body, userId);
+				if (!deduplicate || isNewer(visitedLocation, user.getLastVisitedLocation())) {
+					user.addToVisitedLocations(visitedLocation);
+				}
+			} else if (type == REWARD) {
+				user.addUserReward(getReward(body, userId));
+			}
+		}
+
+		private static boolean isNewer(VisitedLocation visitedLocation, VisitedLocation last) {
+			if (last == null) {
+				return true;
+			}
+			long time = visitedLocation.timeVisited.getTime();
+			long lastTime = last.timeVisited.getTime();
+			return time > lastTime || (time == lastTime
+					&& (visitedLocation.location.latitude != last.location.latitude
+							|| visitedLocation.location.longitude != last.location.longitude));
+		}
+
+		/**
+		 * @return the number of records applied to the users of this replay so far
+		 */
+		long records() {
+			return records;
+		}
+
+		/**
+		 * @return the frames of the records kept for users without an identity, in journal order
+		 */
+		List<byte[]> orphans() {
+			return orphans == null ? List.of() : orphans;
+		}
+
+		/**
+		 * @return the rebuilt users, in the order their identity was first seen
+		 */
+		List<User> users() {
+			return new ArrayList<>(users.values());
+		}
+	}
+}
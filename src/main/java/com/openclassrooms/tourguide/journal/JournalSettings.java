@@ -0,0 +1,88 @@
+package com.openclassrooms.tourguide.journal;
+
+import java.nio.file.Path;
+
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Settings of the {@link SegmentedJournal}, bound from {@code tourguide.journal.*}.
+ */
+public class JournalSettings {
+
+	/** Whether users, locations and rewards are journaled and restored on startup. */
+	private boolean enabled;
+
+	/** Directory holding the segment files, created if missing. */
+	private Path directory = Path.of("journal");
+
+	/** Size after which the active segment is sealed and a new one started. */
+	private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+	/** Records buffered for the next group commit before appenders have to wait. */
+	private DataSize bufferSize = DataSize.ofMegabytes(1);
+
+	/** Whether every group commit is forced to the storage device. */
+	private boolean fsync = true;
+
+	/** Whether appenders wait for the group commit holding their record. */
+	private boolean awaitCommit;
+
+	/** Number of sealed segments that triggers a background compaction; 0 disables it. */
+	private int compactAfterSegments = 8;
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Path getDirectory() {
+		return directory;
+	}
+
+	public void setDirectory(Path directory) {
+		this.directory = directory;
+	}
+
+	public DataSize getSegmentSize() {
+		return segmentSize;
+	}
+
+	public void setSegmentSize(DataSize segmentSize) {
+		this.segmentSize = segmentSize;
+	}
+
+	public DataSize getBufferSize() {
+		return bufferSize;
+	}
+
+	public void setBufferSize(DataSize bufferSize) {
+		this.bufferSize = bufferSize;
+	}
+
+	public boolean isFsync() {
+		return fsync;
+	}
+
+	public void setFsync(boolean fsync) {
+		this.fsync = fsync;
+	}
+
+	public boolean isAwaitCommit() {
+		return awaitCommit;
+	}
+
+	public void setAwaitCommit(boolean awaitCommit) {
+		this.awaitCommit = awaitCommit;
+	}
+
+	public int getCompactAfterSegments() {
+		return compactAfterSegments;
+	}
+
+	public void setCompactAfterSegments(int compactAfterSegments) {
+		this.compactAfterSegments = compactAfterSegments;
+	}
+}
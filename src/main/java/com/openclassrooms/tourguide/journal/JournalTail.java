@@ -0,0 +1,81 @@
+package com.openclassrooms.tourguide.journal;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+import com.openclassrooms.tourguide.user.HistoryLayout;
+import com.openclassrooms.tourguide.user.HistoryRetention;
+import com.openclassrooms.tourguide.user.User;
+
+/**
+ * The records journaled from a checkpoint on, read once and indexed by user so
+ * that each snapshot shard replays only the records of its own users.
+ *
+ * <p>Without the index, every shard would scan and decode the whole tail of the
+ * journal to pick out its users. Instances are immutable once built and may be
+ * replayed from several threads at once.</p>
+ */
+public final class JournalTail {
+
+	/** Tail of a journal that stores nothing. */
+	static final JournalTail EMPTY = new JournalTail(HistoryRetention.DEFAULT, HistoryLayout.OBJECTS);
+
+	private final HistoryRetention retention;
+	private final HistoryLayout layout;
+	private final Map<UUID, List<byte[]>> recordsByUser = new HashMap<>();
+	private final Map<UUID, String> userNames = new LinkedHashMap<>();
+
+	/**
+	 * @param retention the history retention of users first seen in the tail
+	 * @param layout    the history layout of users first seen in the tail
+	 */
+	JournalTail(HistoryRetention retention, HistoryLayout layout) {
+		this.retention = retention;
+		this.layout = layout;
+	}
+
+	/**
+	 * Indexes one record body; bodies must be added in journal order.
+	 *
+	 * @param body the body, positioned at its type byte; copied
+	 */
+	void add(ByteBuffer body) {
+		byte[] bytes = new byte[body.remaining()];
+		body.get(bytes);
+		ByteBuffer record = ByteBuffer.wrap(bytes);
+		byte type = record.get();
+		UUID userId = JournalRecords.getUuid(record);
+		if (JournalRecords.isUser(type)) {
+			userNames.putIfAbsent(userId, JournalRecords.getString(record));
+		}
+		recordsByUser.computeIfAbsent(userId, id -> new ArrayList<>()).add(bytes);
+	}
+
+	/**
+	 * Replays the tail onto users restored from a snapshot taken at its
+	 * checkpoint. Locations the users already hold are not appended twice.
+	 *
+	 * @param users           the restored users, by id; new users are added to it
+	 * @param acceptsUserName whether a user first journaled in the tail belongs in {@code users}
+	 */
+	public void replayOnto(Map<UUID, User> users, Predicate<String> acceptsUserName) {
+		List<UUID> userIds = new ArrayList<>(users.keySet());
+		userNames.forEach((userId, userName) -> {
+			if (!users.containsKey(userId) && acceptsUserName.test(userName)) {
+				userIds.add(userId);
+			}
+		});
+		JournalRecords.Replay replay = new JournalRecords.Replay(retention, layout, users, acceptsUserName, true);
+		for (UUID userId : userIds) {
+			for (byte[] record : recordsByUser.getOrDefault(userId, List.of())) {
+				replay.apply(ByteBuffer.wrap(record));
+			}
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package com.openclassrooms.tourguide.journal;
+
+import java.util.Spliterator;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserRepository;
+
+/**
+ * {@link UserRepository} that serves requests while a snapshot is still being
+ * loaded into it.
+ *
+ * <p>A lookup by user name that misses waits for the shard holding that name,
+ * and only that shard; a lookup by id that misses waits for the whole snapshot,
+ * since ids do not tell which shard holds them. Adding a user waits for its
+ * shard too, so a restored user always wins over a new one with the same name.
+ * Counting and iterating do not wait: they see the users loaded so far.</p>
+ */
+public class LoadingUserRepository implements UserRepository {
+
+	private final UserRepository delegate;
+	private final SnapshotLoader loader;
+
+	/**
+	 * Constructs a {@code LoadingUserRepository}.
+	 *
+	 * @param delegate the repository the snapshot is being loaded into
+	 * @param loader   the loader filling it
+	 */
+	public LoadingUserRepository(UserRepository delegate, SnapshotLoader loader) {
+		this.delegate = delegate;
+		this.loader = loader;
+	}
+
+	@Override
+	public User findByUserName(String userName) {
+		User user = delegate.findByUserName(userName);
+		if (user != null || loader.isComplete()) {
+			return user;
+		}
+		loader.awaitUserName(userName);
+		return delegate.findByUserName(userName);
+	}
+
+	@Override
+	public User findByUserId(UUID userId) {
+		User user = delegate.findByUserId(userId);
+		if (user != null || loader.isComplete()) {
+			return user;
+		}
+		loader.awaitAll();
+		return delegate.findByUserId(userId);
+	}
+
+	@Override
+	public boolean add(User user) {
+		if (!loader.isComplete()) {
+			loader.awaitUserName(user.getUserName());
+		}
+		return delegate.add(user);
+	}
+
+	@Override
+	public boolean restore(User user) {
+		return delegate.restore(user);
+	}
+
+	@Override
+	public boolean isLoading() {
+		return !loader.isComplete();
+	}
+
+	@Override
+	public int size() {
+		return delegate.size();
+	}
+
+	@Override
+	public Spliterator<User> spliterator() {
+		return delegate.spliterator();
+	}
+
+	@Override
+	public Stream<User> stream() {
+		return delegate.stream();
+	}
+}
@@ -0,0 +1,98 @@
+package com.openclassrooms.tourguide.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * One file of the journal, named after its zero-padded segment number.
+ *
+ * <p>A segment starts with a 24-byte header: magic, format version, segment
+ * number, and the number of the first segment it covers. A segment written by
+ * compaction covers every segment from that number up to its own, which makes
+ * those older files obsolete even if a crash left them behind.</p>
+ *
+ * <p>Segments are read through memory mappings (see {@link Frames}). Reading
+ * stops at the first frame that is incomplete or fails its checksum, which is
+ * what a crash in the middle of a write leaves.</p>
+ *
+ * @param number     the segment number
+ * @param coversFrom the first segment number this segment stands for
+ * @param path       the segment file
+ */
+record Segment(long number, long coversFrom, Path path) {
+
+	static final String SUFFIX = ".seg";
+	static final int HEADER_SIZE = 24;
+
+	private static final int MAGIC = 0x54474A31;
+	private static final int VERSION = 1;
+
+	/**
+	 * @return the path of the given segment number in the journal directory
+	 */
+	static Path path(Path directory, long number) {
+		return directory.resolve(String.format("%020d%s", number, SUFFIX));
+	}
+
+	/**
+	 * Lists the segments of a journal directory, ordered by number. Files too short
+	 * to hold a header or with a foreign header are ignored.
+	 */
+	static List<Segment> list(Path directory) throws IOException {
+		List<Path> paths;
+		try (Stream<Path> files = Files.list(directory)) {
+			paths = files.filter(Segment::isSegmentFile).toList();
+		}
+		List<Segment> segments = new ArrayList<>();
+		for (Path path : paths) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+				while (header.hasRemaining() && channel.read(header) >= 0) {
+					// keep reading until the header is complete or the file ends
+				}
+			}
+			header.flip();
+			if (header.remaining() == HEADER_SIZE && header.getInt() == MAGIC && header.getInt() == VERSION) {
+				segments.add(new Segment(header.getLong(), header.getLong(), path));
+			}
+		}
+		segments.sort(Comparator.comparingLong(Segment::number));
+		return segments;
+	}
+
+	/**
+	 * Writes a segment header at the channel's current position.
+	 */
+	static void writeHeader(FileChannel channel, long number, long coversFrom) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+				.putInt(MAGIC).putInt(VERSION).putLong(number).putLong(coversFrom)
+				.flip();
+		while (header.hasRemaining()) {
+			channel.write(header);
+		}
+	}
+
+	/**
+	 * Hands every intact record body of the segment to a consumer, in order.
+	 *
+	 * @param consumer receives each body positioned at its type byte; the buffer is
+	 *                 only valid during the call
+	 * @return the number of bytes of intact frames, header included
+	 */
+	long scan(Consumer<ByteBuffer> consumer) throws IOException {
+		return Frames.scan(path, HEADER_SIZE, consumer);
+	}
+
+	private static boolean isSegmentFile(Path path) {
+		return path.getFileName().toString().endsWith(SUFFIX) && Files.isRegularFile(path);
+	}
+}
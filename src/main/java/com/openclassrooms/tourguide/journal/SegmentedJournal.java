@@ -0,0 +1,541 @@
+package com.openclassrooms.tourguide.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openclassrooms.tourguide.user.HistoryLayout;
+import com.openclassrooms.tourguide.user.HistoryRetention;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserReward;
+import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * {@link UserJournal} kept as a directory of append-only binary segments.
+ *
+ * <p>Appenders encode their record on their own thread and copy it into a shared
+ * buffer; a single committer thread swaps that buffer for an empty one, writes it
+ * to the active segment through a {@link FileChannel} and, if configured, forces
+ * it to disk. Every record appended while a commit is in progress therefore goes
+ * out with the next one, so one write and one {@code fsync} are shared by however
+ * many changes arrived meanwhile. Appenders only wait when the buffer is full, or
+ * for their own commit when {@link JournalSettings#isAwaitCommit()} is set.</p>
+ *
+ * <p>Once the active segment reaches the segment size, it is sealed and a new one
+ * started. Every run starts a new segment, so segments written by previous runs
+ * are never appended to and {@link #restore()} reads them through memory mappings
+ * (see {@link Segment}). Compaction replays the sealed segments under the history
+ * retention and rewrites what is left, one user at a time, as a single segment
+ * that replaces them; it runs in the background once enough segments are sealed.
+ * A {@linkplain #checkpoint() checkpoint} seals the active segment on demand, so a
+ * snapshot can tell which segments it covers and have them discarded.</p>
+ *
+ * <p>Commit latency and size are published under {@code tourguide.journal.commit}
+ * and {@code tourguide.journal.commit.size}, failed commits under
+ * {@code tourguide.journal.failures}.</p>
+ */
+public class SegmentedJournal implements UserJournal {
+
+	private static final Logger logger = LoggerFactory.getLogger(SegmentedJournal.class);
+
+	/** Smallest commit buffer, large enough for any single record. */
+	private static final int MIN_BUFFER_SIZE = 128 * 1024;
+	private static final String COMPACTING_SUFFIX = ".compacting";
+
+	private final Path directory;
+	private final long segmentSize;
+	private final boolean fsync;
+	private final boolean awaitCommit;
+	private final int compactAfterSegments;
+	private final HistoryRetention retention;
+	private final HistoryLayout layout;
+	private final long firstSegmentOfRun;
+	private final Timer commitTimer;
+	private final DistributionSummary commitSize;
+	private final Counter failures;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+	private final Condition notFull = lock.newCondition();
+	private final Condition committed = lock.newCondition();
+	private ByteBuffer pending;
+	private ByteBuffer writing;
+	private long appendedBytes;
+	private long committedBytes;
+	private boolean rollRequested;
+	private long rolls;
+	private boolean closed;
+
+	private final Thread committer;
+	private FileChannel channel;
+	private volatile long activeSegment;
+
+	private final ReentrantLock compactionLock = new ReentrantLock();
+	private final ExecutorService compactor = Executors.newSingleThreadExecutor(
+			runnable -> Thread.ofPlatform().name("tourguide-journal-compactor").daemon().unstarted(runnable));
+	private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+
+	/**
+	 * Opens the journal in the configured directory and starts a new segment,
+	 * restoring users with the object history layout.
+	 *
+	 * @param settings      location, segment size and commit settings
+	 * @param retention     history retention applied when restoring and compacting
+	 * @param meterRegistry registry receiving the commit metrics
+	 */
+	public SegmentedJournal(JournalSettings settings, HistoryRetention retention, MeterRegistry meterRegistry) {
+		this(settings, retention, HistoryLayout.OBJECTS, meterRegistry);
+	}
+
+	/**
+	 * Opens the journal in the configured directory and starts a new segment.
+	 *
+	 * @param settings      location, segment size and commit settings
+	 * @param retention     history retention applied when restoring and compacting
+	 * @param layout        history layout of restored users
+	 * @param meterRegistry registry receiving the commit metrics
+	 */
+	public SegmentedJournal(JournalSettings settings, HistoryRetention retention, HistoryLayout layout,
+			MeterRegistry meterRegistry) {
+		this.directory = settings.getDirectory();
+		this.segmentSize = settings.getSegmentSize().toBytes();
+		this.fsync = settings.isFsync();
+		this.awaitCommit = settings.isAwaitCommit();
+		this.compactAfterSegments = settings.getCompactAfterSegments();
+		this.retention = retention;
+		this.layout = layout;
+		int bufferSize = (int) Math.max(MIN_BUFFER_SIZE, settings.getBufferSize().toBytes());
+		this.pending = ByteBuffer.allocateDirect(bufferSize);
+		this.writing = ByteBuffer.allocateDirect(bufferSize);
+		this.commitTimer = Timer.builder("tourguide.journal.commit")
+				.description("Time to write, and force if configured, one group of journal records")
+				.publishPercentileHistogram()
+				.register(meterRegistry);
+		this.commitSize = DistributionSummary.builder("tourguide.journal.commit.size")
+				.description("Bytes written by one group commit")
+				.baseUnit("bytes")
+				.register(meterRegistry);
+		this.failures = Counter.builder("tourguide.journal.failures")
+				.description("Group commits that could not be written")
+				.register(meterRegistry);
+		try {
+			Files.createDirectories(directory);
+			removeObsoleteFiles();
+			List<Segment> segments = Segment.list(directory);
+			this.firstSegmentOfRun = segments.isEmpty() ? 1 : segments.get(segments.size() - 1).number() + 1;
+			openSegment(firstSegmentOfRun);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot open journal in " + directory, e);
+		}
+		this.committer = Thread.ofPlatform().name("tourguide-journal-committer").daemon().start(this::commitLoop);
+	}
+
+	@Override
+	public void userAdded(User user) {
+		append(JournalRecords.state(user));
+	}
+
+	@Override
+	public void locationAdded(User user, VisitedLocation visitedLocation) {
+		append(List.of(JournalRecords.location(user.getUserId(), visitedLocation)));
+	}
+
+	@Override
+	public void rewardAdded(User user, UserReward userReward) {
+		append(List.of(JournalRecords.reward(user.getUserId(), userReward)));
+	}
+
+	/**
+	 * Replays the segments written before this journal was opened. Meant to be
+	 * called once, on startup, before users are changed.
+	 *
+	 * <p>Users are split into one partition per processor, each rebuilt by its own
+	 * task scanning the shared mappings, so decoding and rebuilding histories runs
+	 * in parallel while every user still sees its records in journal order.</p>
+	 */
+	@Override
+	public List<User> restore() {
+		compactionLock.lock();
+		try {
+			long start = System.nanoTime();
+			List<Segment> segments = Segment.list(directory).stream()
+					.filter(segment -> segment.number() < firstSegmentOfRun)
+					.toList();
+			int partitions = Runtime.getRuntime().availableProcessors();
+			List<JournalRecords.Replay> replays = IntStream.range(0, partitions).parallel()
+					.mapToObj(partition -> replay(segments, new JournalRecords.Replay(retention, layout, partition, partitions)))
+					.toList();
+			List<User> users = replays.stream().flatMap(replay -> replay.users().stream()).toList();
+			logger.info("Restored {} users from {} journal records in {} segments in {} ms", users.size(),
+					replays.stream().mapToLong(JournalRecords.Replay::records).sum(), segments.size(),
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+			return users;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot read journal in " + directory, e);
+		} finally {
+			compactionLock.unlock();
+		}
+	}
+
+	private static JournalRecords.Replay replay(List<Segment> segments, JournalRecords.Replay replay) {
+		try {
+			for (Segment segment : segments) {
+				segment.scan(replay::apply);
+			}
+			return replay;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot read journal segment", e);
+		}
+	}
+
+	/**
+	 * Reads the segments holding records from the checkpoint on, written before
+	 * this journal was opened, in a single pass. Compacted segments that cover both
+	 * earlier runs and this one are read whole: replaying deduplicates what the
+	 * snapshot already holds.
+	 */
+	@Override
+	public JournalTail readTail(long fromCheckpoint) {
+		compactionLock.lock();
+		try {
+			List<Segment> segments = Segment.list(directory).stream()
+					.filter(segment -> segment.number() >= fromCheckpoint && segment.coversFrom() < firstSegmentOfRun)
+					.toList();
+			JournalTail tail = new JournalTail(retention, layout);
+			for (Segment segment : segments) {
+				segment.scan(tail::add);
+			}
+			return tail;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot read journal in " + directory, e);
+		} finally {
+			compactionLock.unlock();
+		}
+	}
+
+	/**
+	 * Seals the active segment once everything appended so far is committed; the
+	 * checkpoint is the number of the segment started in its place.
+	 */
+	@Override
+	public long checkpoint() {
+		lock.lock();
+		try {
+			if (closed) {
+				throw new IllegalStateException("Journal is closed");
+			}
+			long rollsBefore = rolls;
+			rollRequested = true;
+			notEmpty.signal();
+			while (rolls == rollsBefore) {
+				committed.awaitUninterruptibly();
+			}
+			return activeSegment;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void discardBefore(long checkpoint) {
+		compactionLock.lock();
+		try {
+			for (Segment segment : Segment.list(directory)) {
+				if (segment.number() < checkpoint && segment.number() < activeSegment) {
+					Files.deleteIfExists(segment.path());
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot discard journal segments in " + directory, e);
+		} finally {
+			compactionLock.unlock();
+		}
+	}
+
+	@Override
+	public void flush() {
+		lock.lock();
+		try {
+			long target = appendedBytes;
+			while (committedBytes < target) {
+				committed.awaitUninterruptibly();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Rewrites every sealed segment as one. The users are replayed under the history
+	 * retention, so only the retained locations of each user, and its rewards, are
+	 * written back. Locations and rewards of users whose identity was discarded
+	 * after a snapshot are copied through unchanged. The compacted segment takes the number of the newest sealed
+	 * segment and is moved into place atomically before the older ones are deleted.
+	 */
+	@Override
+	public void compact() {
+		compactionLock.lock();
+		try {
+			List<Segment> sealed = Segment.list(directory).stream()
+					.filter(segment -> segment.number() < activeSegment)
+					.toList();
+			if (sealed.isEmpty()) {
+				return;
+			}
+			long start = System.nanoTime();
+			JournalRecords.Replay replay = replay(sealed, new JournalRecords.Replay(retention, layout));
+			long bytesBefore = 0;
+			for (Segment segment : sealed) {
+				bytesBefore += Files.size(segment.path());
+			}
+			Segment newest = sealed.get(sealed.size() - 1);
+			Path compacting = directory.resolve(newest.path().getFileName() + COMPACTING_SUFFIX);
+			long bytesAfter = writeCompacted(compacting, newest.number(), sealed.get(0).coversFrom(), replay.users(),
+					replay.orphans());
+			Files.move(compacting, newest.path(), StandardCopyOption.ATOMIC_MOVE,
+					StandardCopyOption.REPLACE_EXISTING);
+			for (Segment segment : sealed.subList(0, sealed.size() - 1)) {
+				Files.deleteIfExists(segment.path());
+			}
+			logger.info("Compacted {} journal segments from {} to {} bytes in {} ms", sealed.size(), bytesBefore,
+					bytesAfter, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot compact journal in " + directory, e);
+		} finally {
+			compactionLock.unlock();
+		}
+	}
+
+	/**
+	 * Commits whatever is still buffered, waits for a running compaction, then
+	 * closes the active segment. Changes reported afterwards are dropped.
+	 */
+	@Override
+	public void close() {
+		lock.lock();
+		try {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			notEmpty.signalAll();
+			notFull.signalAll();
+		} finally {
+			lock.unlock();
+		}
+		try {
+			committer.join();
+			compactor.shutdown();
+			compactor.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		try {
+			channel.force(true);
+			channel.close();
+		} catch (IOException e) {
+			logger.error("Cannot close journal segment {}", activeSegment, e);
+		}
+	}
+
+	private void append(List<byte[]> frames) {
+		lock.lock();
+		try {
+			for (byte[] frame : frames) {
+				while (!closed && pending.remaining() < frame.length) {
+					notFull.awaitUninterruptibly();
+				}
+				if (closed) {
+					logger.debug("Journal closed, dropping {} records", frames.size());
+					return;
+				}
+				pending.put(frame);
+				appendedBytes += frame.length;
+			}
+			notEmpty.signal();
+			if (awaitCommit) {
+				long target = appendedBytes;
+				while (committedBytes < target) {
+					committed.awaitUninterruptibly();
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void commitLoop() {
+		while (true) {
+			long target;
+			boolean rollNow;
+			lock.lock();
+			try {
+				while (pending.position() == 0 && !rollRequested && !closed) {
+					notEmpty.awaitUninterruptibly();
+				}
+				if (pending.position() == 0 && !rollRequested) {
+					return;
+				}
+				ByteBuffer full = pending;
+				pending = writing;
+				writing = full;
+				target = appendedBytes;
+				rollNow = rollRequested;
+				rollRequested = false;
+				notFull.signalAll();
+			} finally {
+				lock.unlock();
+			}
+			if (writing.position() > 0) {
+				commit(writing.flip());
+				writing.clear();
+			}
+			if (rollNow) {
+				try {
+					roll();
+				} catch (IOException e) {
+					logger.error("Cannot start a new journal segment", e);
+				}
+			}
+			lock.lock();
+			try {
+				committedBytes = target;
+				if (rollNow) {
+					rolls++;
+				}
+				committed.signalAll();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	private void commit(ByteBuffer records) {
+		long start = System.nanoTime();
+		int bytes = records.remaining();
+		try {
+			while (records.hasRemaining()) {
+				channel.write(records);
+			}
+			if (fsync) {
+				channel.force(false);
+			}
+			if (channel.position() >= segmentSize) {
+				roll();
+			}
+		} catch (IOException e) {
+			failures.increment();
+			logger.error("Journal commit of {} bytes to segment {} failed", bytes, activeSegment, e);
+			try {
+				// A partial write ends the segment for readers; later records go to a fresh one
+				roll();
+			} catch (IOException rollFailure) {
+				logger.error("Cannot start a new journal segment", rollFailure);
+			}
+		}
+		commitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		commitSize.record(bytes);
+	}
+
+	private void roll() throws IOException {
+		channel.force(true);
+		channel.close();
+		openSegment(activeSegment + 1);
+		if (compactAfterSegments > 0 && Segment.list(directory).size() > compactAfterSegments
+				&& compactionScheduled.compareAndSet(false, true)) {
+			compactor.execute(() -> {
+				try {
+					compact();
+				} catch (UncheckedIOException e) {
+					logger.error("Journal compaction failed", e);
+				} finally {
+					compactionScheduled.set(false);
+				}
+			});
+		}
+	}
+
+	private void openSegment(long number) throws IOException {
+		channel = FileChannel.open(Segment.path(directory, number), StandardOpenOption.CREATE_NEW,
+				StandardOpenOption.WRITE);
+		Segment.writeHeader(channel, number, number);
+		activeSegment = number;
+	}
+
+	private long writeCompacted(Path path, long number, long coversFrom, List<User> users, List<byte[]> orphans)
+			throws IOException {
+		try (FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			Segment.writeHeader(out, number, coversFrom);
+			ByteBuffer buffer = ByteBuffer.allocateDirect(MIN_BUFFER_SIZE * 8);
+			for (User user : users) {
+				for (byte[] frame : JournalRecords.state(user)) {
+					if (buffer.remaining() < frame.length) {
+						drain(out, buffer);
+					}
+					buffer.put(frame);
+				}
+			}
+			for (byte[] frame : orphans) {
+				if (buffer.remaining() < frame.length) {
+					drain(out, buffer);
+				}
+				buffer.put(frame);
+			}
+			drain(out, buffer);
+			out.force(true);
+			return out.size();
+		}
+	}
+
+	private static void drain(FileChannel out, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			out.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Deletes the segments a compacted segment stands for, and unfinished
+	 * compaction output, both left behind by a crash during compaction.
+	 */
+	private void removeObsoleteFiles() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			for (Path path : files.filter(file -> file.toString().endsWith(COMPACTING_SUFFIX)).toList()) {
+				Files.delete(path);
+			}
+		}
+		List<Segment> segments = Segment.list(directory);
+		for (Segment compacted : segments) {
+			for (Segment segment : segments) {
+				if (segment.number() >= compacted.coversFrom() && segment.number() < compacted.number()) {
+					logger.info("Removing journal segment {}, superseded by compacted segment {}",
+							segment.number(), compacted.number());
+					Files.deleteIfExists(segment.path());
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,174 @@
+package com.openclassrooms.tourguide.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Consumer;
+
+import com.openclassrooms.tourguide.user.HistoryLayout;
+import com.openclassrooms.tourguide.user.HistoryRetention;
+import com.openclassrooms.tourguide.user.User;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Loads the shards of one snapshot, in parallel and in the background, while
+ * letting callers jump the queue for the shard they need.
+ *
+ * <p>Each shard is claimed by whichever thread gets to it first: a loader thread
+ * working through the shards in order, or a caller waiting for a user of a shard
+ * nobody has started yet, which then loads it itself. Loading a shard decodes its
+ * users from a memory mapping, replays the journal written since the snapshot onto
+ * them, then hands them over to the sink, so a shard's users appear all at once
+ * and up to date. The journal is read only once, by the first shard to load, and
+ * each shard replays only the records of its own users.</p>
+ */
+public class SnapshotLoader {
+
+	private final Path directory;
+	private final int shardCount;
+	private final long checkpoint;
+	private final HistoryRetention retention;
+	private final HistoryLayout layout;
+	private final UserJournal userJournal;
+	private final Consumer<User> sink;
+	private final Timer shardTimer;
+	private final AtomicIntegerArray claimed;
+	private final List<CompletableFuture<Void>> shards;
+	private final CompletableFuture<Void> completion;
+	private JournalTail journalTail;
+
+	SnapshotLoader(Path directory, int shardCount, long checkpoint, HistoryRetention retention, HistoryLayout layout,
+			UserJournal userJournal, Consumer<User> sink, Timer shardTimer) {
+		this.directory = directory;
+		this.shardCount = shardCount;
+		this.checkpoint = checkpoint;
+		this.retention = retention;
+		this.layout = layout;
+		this.userJournal = userJournal;
+		this.sink = sink;
+		this.shardTimer = shardTimer;
+		this.claimed = new AtomicIntegerArray(shardCount);
+		this.shards = new ArrayList<>(shardCount);
+		for (int shard = 0; shard < shardCount; shard++) {
+			shards.add(new CompletableFuture<>());
+		}
+		this.completion = CompletableFuture.allOf(shards.toArray(CompletableFuture[]::new));
+	}
+
+	/**
+	 * Queues every shard on the executor, in shard order.
+	 */
+	void start(Executor executor) {
+		for (int shard = 0; shard < shardCount; shard++) {
+			int claimedShard = shard;
+			executor.execute(() -> loadIfUnclaimed(claimedShard));
+		}
+	}
+
+	/**
+	 * @return {@code true} once every shard is loaded, or failed to load
+	 */
+	public boolean isComplete() {
+		return completion.isDone();
+	}
+
+	/**
+	 * @return a future completed once every shard is loaded
+	 */
+	public CompletableFuture<Void> completion() {
+		return completion;
+	}
+
+	/**
+	 * @return the number of shards not loaded yet
+	 */
+	public int pendingShards() {
+		return (int) shards.stream().filter(shard -> !shard.isDone()).count();
+	}
+
+	/**
+	 * Waits until the shard holding the given user name is loaded, loading it on
+	 * the calling thread if no one has started it yet.
+	 *
+	 * @param userName the user name
+	 * @throws UncheckedIOException if the shard cannot be read
+	 */
+	public void awaitUserName(String userName) {
+		await(shardOf(userName, shardCount));
+	}
+
+	/**
+	 * Waits until every shard is loaded, helping with the shards no one has started yet.
+	 *
+	 * @throws UncheckedIOException if a shard cannot be read
+	 */
+	public void awaitAll() {
+		for (int shard = 0; shard < shardCount; shard++) {
+			await(shard);
+		}
+	}
+
+	/**
+	 * @return the shard of a user name, among the given number of shards
+	 */
+	static int shardOf(String userName, int shardCount) {
+		return Math.floorMod(userName.hashCode(), shardCount);
+	}
+
+	private void await(int shard) {
+		loadIfUnclaimed(shard);
+		try {
+			shards.get(shard).join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof UncheckedIOException cause) {
+				throw cause;
+			}
+			throw e;
+		}
+	}
+
+	private void loadIfUnclaimed(int shard) {
+		if (!claimed.compareAndSet(shard, 0, 1)) {
+			return;
+		}
+		try {
+			load(shard);
+			shards.get(shard).complete(null);
+		} catch (IOException e) {
+			shards.get(shard).completeExceptionally(
+					new UncheckedIOException("Cannot load snapshot shard " + shard + " of " + directory, e));
+		} catch (RuntimeException e) {
+			shards.get(shard).completeExceptionally(e);
+		}
+	}
+
+	/**
+	 * @return the journal written since the snapshot, read by the first shard to need it
+	 */
+	private synchronized JournalTail journalTail() {
+		if (journalTail == null) {
+			journalTail = userJournal.readTail(checkpoint);
+		}
+		return journalTail;
+	}
+
+	private void load(int shard) throws IOException {
+		long start = System.nanoTime();
+		Map<UUID, User> users = new LinkedHashMap<>();
+		SnapshotStore.readShard(directory, shard, shardCount, retention, layout,
+				user -> users.put(user.getUserId(), user));
+		journalTail().replayOnto(users, userName -> shardOf(userName, shardCount) == shard);
+		users.values().forEach(sink);
+		shardTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+	}
+}
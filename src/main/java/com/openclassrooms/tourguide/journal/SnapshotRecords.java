@@ -0,0 +1,95 @@
+package com.openclassrooms.tourguide.journal;
+
+import java.nio.ByteBuffer;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import com.openclassrooms.tourguide.user.HistoryLayout;
+import com.openclassrooms.tourguide.user.HistoryRetention;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserPreferences;
+import com.openclassrooms.tourguide.user.UserReward;
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Binary encoding of one user in a snapshot shard, framed like journal records
+ * (see {@link JournalRecords}).
+ *
+ * <p>The body holds the user id, user name, phone number and email address, the
+ * latest location timestamp (-1 for none), the five preference values, the count
+ * and values (latitude, longitude, time) of the retained locations, oldest first,
+ * then the count and values of the rewards.</p>
+ */
+final class SnapshotRecords {
+
+	private static final byte USER_STATE = 16;
+
+	private SnapshotRecords() {
+	}
+
+	/**
+	 * Encodes the user's body into a buffer, from its position.
+	 *
+	 * @throws java.nio.BufferOverflowException if the buffer is too small, leaving it partly written
+	 */
+	static void put(ByteBuffer buffer, User user) {
+		buffer.put(USER_STATE);
+		JournalRecords.putUuid(buffer, user.getUserId());
+		JournalRecords.putString(buffer, JournalRecords.utf8(user.getUserName()));
+		JournalRecords.putString(buffer, JournalRecords.utf8(user.getPhoneNumber()));
+		JournalRecords.putString(buffer, JournalRecords.utf8(user.getEmailAddress()));
+		Date latestLocationTimestamp = user.getLatestLocationTimestamp();
+		buffer.putLong(latestLocationTimestamp == null ? -1 : latestLocationTimestamp.getTime());
+		UserPreferences preferences = user.getUserPreferences();
+		buffer.putInt(preferences.getAttractionProximity())
+				.putInt(preferences.getTripDuration())
+				.putInt(preferences.getTicketQuantity())
+				.putInt(preferences.getNumberOfAdults())
+				.putInt(preferences.getNumberOfChildren());
+		List<VisitedLocation> visitedLocations = user.getVisitedLocations();
+		buffer.putInt(visitedLocations.size());
+		for (VisitedLocation visitedLocation : visitedLocations) {
+			JournalRecords.putLocation(buffer, visitedLocation);
+		}
+		List<UserReward> userRewards = user.getUserRewards();
+		buffer.putInt(userRewards.size());
+		for (UserReward userReward : userRewards) {
+			JournalRecords.putReward(buffer, userReward);
+		}
+	}
+
+	/**
+	 * Decodes a user.
+	 *
+	 * @param body      the body, positioned at its type byte
+	 * @param retention the history retention of the decoded user
+	 * @param layout    the history layout of the decoded user
+	 */
+	static User get(ByteBuffer body, HistoryRetention retention, HistoryLayout layout) {
+		if (body.get() != USER_STATE) {
+			throw new IllegalArgumentException("Not a snapshot record");
+		}
+		UUID userId = JournalRecords.getUuid(body);
+		User user = new User(userId, JournalRecords.getString(body), JournalRecords.getString(body),
+				JournalRecords.getString(body), retention, layout);
+		long latestLocationTimestamp = body.getLong();
+		if (latestLocationTimestamp >= 0) {
+			user.setLatestLocationTimestamp(new Date(latestLocationTimestamp));
+		}
+		UserPreferences preferences = new UserPreferences();
+		preferences.setAttractionProximity(body.getInt());
+		preferences.setTripDuration(body.getInt());
+		preferences.setTicketQuantity(body.getInt());
+		preferences.setNumberOfAdults(body.getInt());
+		preferences.setNumberOfChildren(body.getInt());
+		user.setUserPreferences(preferences);
+		for (int i = body.getInt(); i > 0; i--) {
+			user.addToVisitedLocations(JournalRecords.getLocation(body, userId));
+		}
+		for (int i = body.getInt(); i > 0; i--) {
+			user.addUserReward(JournalRecords.getReward(body, userId));
+		}
+		return user;
+	}
+}
@@ -0,0 +1,87 @@
+package com.openclassrooms.tourguide.journal;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings of the {@link SnapshotStore}, bound from {@code tourguide.snapshot.*}.
+ */
+public class SnapshotSettings {
+
+	/** Whether the user store is snapshotted and loaded back from the latest snapshot on startup. */
+	private boolean enabled;
+
+	/** Directory holding one sub-directory per snapshot, created if missing. */
+	private Path directory = Path.of("snapshots");
+
+	/** Time between two snapshots; zero only snapshots on shutdown. */
+	private Duration interval = Duration.ofMinutes(15);
+
+	/** Whether a last snapshot is taken when the application stops. */
+	private boolean snapshotOnShutdown = true;
+
+	/** Number of shard files users are spread over, by user name. */
+	private int shards = 64;
+
+	/** Number of threads loading shards on startup; 0 uses one per processor. */
+	private int loaderThreads;
+
+	/** Number of snapshots kept; older ones are deleted once a new one is stored. */
+	private int retained = 2;
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Path getDirectory() {
+		return directory;
+	}
+
+	public void setDirectory(Path directory) {
+		this.directory = directory;
+	}
+
+	public Duration getInterval() {
+		return interval;
+	}
+
+	public void setInterval(Duration interval) {
+		this.interval = interval;
+	}
+
+	public boolean isSnapshotOnShutdown() {
+		return snapshotOnShutdown;
+	}
+
+	public void setSnapshotOnShutdown(boolean snapshotOnShutdown) {
+		this.snapshotOnShutdown = snapshotOnShutdown;
+	}
+
+	public int getShards() {
+		return shards;
+	}
+
+	public void setShards(int shards) {
+		this.shards = shards;
+	}
+
+	public int getLoaderThreads() {
+		return loaderThreads;
+	}
+
+	public void setLoaderThreads(int loaderThreads) {
+		this.loaderThreads = loaderThreads;
+	}
+
+	public int getRetained() {
+		return retained;
+	}
+
+	public void setRetained(int retained) {
+		this.retained = retained;
+	}
+}
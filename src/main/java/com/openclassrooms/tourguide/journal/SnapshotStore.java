@@ -0,0 +1,444 @@
+package com.openclassrooms.tourguide.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openclassrooms.tourguide.user.HistoryLayout;
+import com.openclassrooms.tourguide.user.HistoryRetention;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * {@link UserSnapshots} kept as a directory of numbered snapshots, each one a
+ * manifest and a fixed number of shard files.
+ *
+ * <p>Users are spread over the shards by user name and each shard is written by
+ * its own task, as a header followed by one checksummed frame per user (see
+ * {@link SnapshotRecords}). A snapshot is written under a temporary name and
+ * renamed once every file is on disk, so a crash never leaves a partial snapshot
+ * behind to load. It records the {@linkplain UserJournal#checkpoint() journal
+ * checkpoint} taken just before it: loading replays the journal from there on top
+ * of it, and the segments before it are deleted once it is stored.</p>
+ *
+ * <p>Loading is done by a {@link SnapshotLoader}, shard by shard on a pool of
+ * threads, while the application already serves requests. Snapshot writes are
+ * timed under {@code tourguide.snapshot.write}, shard loads under
+ * {@code tourguide.snapshot.shard.load}, and the shards still loading are gauged
+ * under {@code tourguide.snapshot.shards.pending}.</p>
+ */
+public class SnapshotStore implements UserSnapshots {
+
+	private static final Logger logger = LoggerFactory.getLogger(SnapshotStore.class);
+
+	private static final int MAGIC = 0x54475331;
+	private static final int VERSION = 1;
+	/** Magic, version, shard, shard count and user count. */
+	private static final int SHARD_HEADER_SIZE = 24;
+	private static final String MANIFEST = "manifest";
+	private static final String TEMPORARY_SUFFIX = ".tmp";
+	private static final String SEQUENCE_PATTERN = "\\d{20}";
+	private static final int OUTPUT_BUFFER_SIZE = 1024 * 1024;
+
+	private final Path directory;
+	private final int shards;
+	private final int loaderThreads;
+	private final int retained;
+	private final long intervalMillis;
+	private final boolean snapshotOnShutdown;
+	private final HistoryRetention retention;
+	private final HistoryLayout layout;
+	private final UserJournal userJournal;
+	private final MeterRegistry meterRegistry;
+	private final Timer writeTimer;
+	private final Timer shardLoadTimer;
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+			runnable -> Thread.ofPlatform().name("tourguide-snapshot").daemon().unstarted(runnable));
+
+	private volatile SnapshotLoader loader;
+	private volatile UserRepository scheduled;
+
+	/**
+	 * Constructs a {@code SnapshotStore} loading users with the object history layout.
+	 *
+	 * @param settings      the snapshot settings
+	 * @param retention     the history retention of loaded users
+	 * @param userJournal   the journal replayed on top of loaded snapshots
+	 * @param meterRegistry registry receiving the snapshot metrics
+	 * @throws UncheckedIOException if the directory cannot be prepared
+	 */
+	public SnapshotStore(SnapshotSettings settings, HistoryRetention retention, UserJournal userJournal,
+			MeterRegistry meterRegistry) {
+		this(settings, retention, HistoryLayout.OBJECTS, userJournal, meterRegistry);
+	}
+
+	/**
+	 * Constructs a {@code SnapshotStore}, creating its directory if needed and
+	 * removing snapshots left unfinished by a crash.
+	 *
+	 * @param settings      the snapshot settings
+	 * @param retention     the history retention of loaded users
+	 * @param layout        the history layout of loaded users
+	 * @param userJournal   the journal replayed on top of loaded snapshots
+	 * @param meterRegistry registry receiving the snapshot metrics
+	 * @throws UncheckedIOException if the directory cannot be prepared
+	 */
+	public SnapshotStore(SnapshotSettings settings, HistoryRetention retention, HistoryLayout layout,
+			UserJournal userJournal, MeterRegistry meterRegistry) {
+		this.directory = settings.getDirectory();
+		this.shards = Math.max(1, settings.getShards());
+		this.loaderThreads = settings.getLoaderThreads() > 0 ? settings.getLoaderThreads()
+				: Runtime.getRuntime().availableProcessors();
+		this.retained = Math.max(1, settings.getRetained());
+		this.intervalMillis = settings.getInterval().toMillis();
+		this.snapshotOnShutdown = settings.isSnapshotOnShutdown();
+		this.retention = retention;
+		this.layout = layout;
+		this.userJournal = userJournal;
+		this.meterRegistry = meterRegistry;
+		this.writeTimer = Timer.builder("tourguide.snapshot.write")
+				.description("Time to write a snapshot of the user store")
+				.register(meterRegistry);
+		this.shardLoadTimer = Timer.builder("tourguide.snapshot.shard.load")
+				.description("Time to load one snapshot shard, journal replay included")
+				.register(meterRegistry);
+		try {
+			Files.createDirectories(directory);
+			try (Stream<Path> files = Files.list(directory)) {
+				for (Path path : files.filter(file -> file.toString().endsWith(TEMPORARY_SUFFIX)).toList()) {
+					deleteSnapshot(path);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot prepare snapshot directory " + directory, e);
+		}
+	}
+
+	@Override
+	public Optional<UserRepository> load(UserRepository repository) {
+		Optional<Manifest> latest = latest();
+		if (latest.isEmpty()) {
+			return Optional.empty();
+		}
+		Manifest manifest = latest.get();
+		SnapshotLoader snapshotLoader = new SnapshotLoader(manifest.path(), manifest.shards(),
+				manifest.journalCheckpoint(), retention, layout, userJournal, repository::restore, shardLoadTimer);
+		Gauge.builder("tourguide.snapshot.shards.pending", snapshotLoader, SnapshotLoader::pendingShards)
+				.description("Snapshot shards not loaded yet")
+				.register(meterRegistry);
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(loaderThreads, manifest.shards()),
+				runnable -> Thread.ofPlatform().name("tourguide-snapshot-loader").daemon().unstarted(runnable));
+		long start = System.nanoTime();
+		snapshotLoader.start(executor);
+		executor.shutdown();
+		snapshotLoader.completion().whenComplete((done, failure) -> {
+			if (failure != null) {
+				logger.error("Loading snapshot {} failed", manifest.path(), failure);
+			} else {
+				logger.info("Loaded {} users from snapshot {} in {} ms", manifest.users(), manifest.path(),
+						TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+			}
+		});
+		loader = snapshotLoader;
+		return Optional.of(new LoadingUserRepository(repository, snapshotLoader));
+	}
+
+	@Override
+	public void schedule(UserRepository repository) {
+		scheduled = repository;
+		if (intervalMillis > 0) {
+			scheduler.scheduleWithFixedDelay(this::snapshotIfLoaded, intervalMillis, intervalMillis,
+					TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Writes a snapshot of a repository, then deletes the journal segments and
+	 * snapshots it makes obsolete.
+	 *
+	 * @param repository the repository to snapshot
+	 * @return the directory of the new snapshot
+	 * @throws UncheckedIOException if the snapshot cannot be written
+	 */
+	public Path snapshot(UserRepository repository) {
+		long start = System.nanoTime();
+		long journalCheckpoint = userJournal.checkpoint();
+		try {
+			Path target = directory.resolve(String.format("%020d", nextSequence()));
+			Path temporary = directory.resolve(target.getFileName() + TEMPORARY_SUFFIX);
+			Files.createDirectories(temporary);
+			List<List<User>> usersByShard = partition(repository);
+			long users = IntStream.range(0, shards).parallel()
+					.mapToLong(shard -> writeShard(temporary, shard, usersByShard.get(shard)))
+					.sum();
+			writeManifest(temporary, users, journalCheckpoint);
+			Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+			userJournal.discardBefore(journalCheckpoint);
+			prune();
+			long elapsed = System.nanoTime() - start;
+			writeTimer.record(elapsed, TimeUnit.NANOSECONDS);
+			logger.info("Wrote snapshot {} of {} users in {} ms", target, users, TimeUnit.NANOSECONDS.toMillis(elapsed));
+			return target;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot write snapshot to " + directory, e);
+		}
+	}
+
+	/**
+	 * Stops the periodic snapshots, then takes a last one if configured and the
+	 * latest snapshot was fully loaded.
+	 */
+	@Override
+	public void close() {
+		scheduler.shutdown();
+		try {
+			scheduler.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+		if (snapshotOnShutdown) {
+			snapshotIfLoaded();
+		}
+	}
+
+	private void snapshotIfLoaded() {
+		UserRepository repository = scheduled;
+		SnapshotLoader current = loader;
+		if (repository == null || (current != null && !current.isComplete())) {
+			return;
+		}
+		if (current != null && current.completion().isCompletedExceptionally()) {
+			// Users of the shards that failed to load would be missing from the snapshot
+			logger.warn("Not taking a snapshot, the previous one failed to load");
+			return;
+		}
+		try {
+			snapshot(repository);
+		} catch (UncheckedIOException e) {
+			logger.error("Snapshot failed", e);
+		}
+	}
+
+	/**
+	 * Spreads the users over the shards in a single pass, rather than have every
+	 * shard task go through the whole repository.
+	 */
+	private List<List<User>> partition(UserRepository repository) {
+		List<List<User>> usersByShard = new ArrayList<>(shards);
+		int expected = repository.size() / shards + 1;
+		for (int shard = 0; shard < shards; shard++) {
+			usersByShard.add(new ArrayList<>(expected));
+		}
+		repository.stream()
+				.forEach(user -> usersByShard.get(SnapshotLoader.shardOf(user.getUserName(), shards)).add(user));
+		return usersByShard;
+	}
+
+	private long writeShard(Path snapshot, int shard, List<User> shardUsers) {
+		try (FileChannel out = FileChannel.open(shardPath(snapshot, shard), StandardOpenOption.CREATE_NEW,
+				StandardOpenOption.WRITE)) {
+			ByteBuffer output = ByteBuffer.allocateDirect(OUTPUT_BUFFER_SIZE);
+			ByteBuffer body = ByteBuffer.allocate(64 * 1024);
+			CRC32C crc32c = new CRC32C();
+			output.position(SHARD_HEADER_SIZE);
+			long users = 0;
+			for (User user : shardUsers) {
+				body = encode(body, user);
+				crc32c.reset();
+				crc32c.update(body.duplicate());
+				int frameSize = JournalRecords.FRAME_HEADER_SIZE + body.remaining();
+				if (output.remaining() < frameSize) {
+					drain(out, output);
+				}
+				if (output.remaining() < frameSize) {
+					output.putInt(body.remaining()).putInt((int) crc32c.getValue());
+					drain(out, output);
+					while (body.hasRemaining()) {
+						out.write(body);
+					}
+				} else {
+					output.putInt(body.remaining()).putInt((int) crc32c.getValue()).put(body);
+				}
+				users++;
+			}
+			drain(out, output);
+			ByteBuffer header = ByteBuffer.allocate(SHARD_HEADER_SIZE)
+					.putInt(MAGIC).putInt(VERSION).putInt(shard).putInt(shards).putLong(users)
+					.flip();
+			while (header.hasRemaining()) {
+				out.write(header, header.position());
+			}
+			out.force(true);
+			return users;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot write snapshot shard " + shard, e);
+		}
+	}
+
+	/**
+	 * Encodes a user into the scratch buffer, replacing it by a larger one as
+	 * long as it is too small.
+	 *
+	 * @return the buffer holding the body, flipped for reading
+	 */
+	private static ByteBuffer encode(ByteBuffer scratch, User user) {
+		ByteBuffer buffer = scratch;
+		while (true) {
+			buffer.clear();
+			try {
+				SnapshotRecords.put(buffer, user);
+				return buffer.flip();
+			} catch (BufferOverflowException e) {
+				buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+			}
+		}
+	}
+
+	/**
+	 * Hands every user of a shard to a consumer, after checking the shard belongs
+	 * to the snapshot and holds as many users as it was written with.
+	 */
+	static void readShard(Path snapshot, int shard, int shardCount, HistoryRetention retention,
+			HistoryLayout layout, Consumer<User> consumer) throws IOException {
+		Path path = shardPath(snapshot, shard);
+		ByteBuffer header = ByteBuffer.allocate(SHARD_HEADER_SIZE);
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			while (header.hasRemaining() && channel.read(header) >= 0) {
+				// read the whole header
+			}
+		}
+		header.flip();
+		if (header.remaining() < SHARD_HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION
+				|| header.getInt() != shard || header.getInt() != shardCount) {
+			throw new IOException("Not shard " + shard + " of " + shardCount + ": " + path);
+		}
+		long expected = header.getLong();
+		long[] found = new long[1];
+		Frames.scan(path, SHARD_HEADER_SIZE, body -> {
+			consumer.accept(SnapshotRecords.get(body, retention, layout));
+			found[0]++;
+		});
+		if (found[0] != expected) {
+			throw new IOException("Snapshot shard " + path + " holds " + found[0] + " intact users out of "
+					+ expected);
+		}
+	}
+
+	private static Path shardPath(Path snapshot, int shard) {
+		return snapshot.resolve(String.format("shard-%04d.bin", shard));
+	}
+
+	private void writeManifest(Path snapshot, long users, long journalCheckpoint) throws IOException {
+		ByteBuffer manifest = ByteBuffer.allocate(40)
+				.putInt(MAGIC).putInt(VERSION).putInt(shards).putInt(0)
+				.putLong(users).putLong(journalCheckpoint).putLong(System.currentTimeMillis())
+				.flip();
+		try (FileChannel out = FileChannel.open(snapshot.resolve(MANIFEST), StandardOpenOption.CREATE_NEW,
+				StandardOpenOption.WRITE)) {
+			while (manifest.hasRemaining()) {
+				out.write(manifest);
+			}
+			out.force(true);
+		}
+	}
+
+	private long nextSequence() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.map(path -> path.getFileName().toString())
+					.filter(name -> name.matches(SEQUENCE_PATTERN))
+					.mapToLong(Long::parseLong)
+					.max()
+					.orElse(0) + 1;
+		}
+	}
+
+	private Optional<Manifest> latest() {
+		List<Manifest> snapshots = listSnapshots();
+		return snapshots.isEmpty() ? Optional.empty() : Optional.of(snapshots.get(snapshots.size() - 1));
+	}
+
+	/**
+	 * @return the stored snapshots with a readable manifest, oldest first
+	 */
+	private List<Manifest> listSnapshots() {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(Files::isDirectory)
+					.filter(path -> path.getFileName().toString().matches(SEQUENCE_PATTERN))
+					.map(SnapshotStore::readManifest)
+					.flatMap(Optional::stream)
+					.sorted(Comparator.comparingLong(Manifest::sequence))
+					.toList();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot list snapshots in " + directory, e);
+		}
+	}
+
+	private static Optional<Manifest> readManifest(Path snapshot) {
+		try {
+			ByteBuffer manifest = ByteBuffer.wrap(Files.readAllBytes(snapshot.resolve(MANIFEST)));
+			if (manifest.remaining() < 40 || manifest.getInt() != MAGIC || manifest.getInt() != VERSION) {
+				logger.warn("Ignoring snapshot {}, its manifest is not readable", snapshot);
+				return Optional.empty();
+			}
+			int shards = manifest.getInt();
+			manifest.getInt();
+			return Optional.of(new Manifest(snapshot, Long.parseLong(snapshot.getFileName().toString()), shards,
+					manifest.getLong(), manifest.getLong()));
+		} catch (IOException e) {
+			logger.warn("Ignoring snapshot {}, its manifest is not readable", snapshot, e);
+			return Optional.empty();
+		}
+	}
+
+	private void prune() throws IOException {
+		List<Manifest> snapshots = listSnapshots();
+		for (Manifest manifest : snapshots.subList(0, Math.max(0, snapshots.size() - retained))) {
+			deleteSnapshot(manifest.path());
+		}
+	}
+
+	private static void deleteSnapshot(Path snapshot) throws IOException {
+		try (Stream<Path> files = Files.list(snapshot)) {
+			for (Path file : files.toList()) {
+				Files.delete(file);
+			}
+		}
+		Files.delete(snapshot);
+	}
+
+	private static void drain(FileChannel out, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			out.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	private record Manifest(Path path, long sequence, int shards, long users, long journalCheckpoint) {
+	}
+}
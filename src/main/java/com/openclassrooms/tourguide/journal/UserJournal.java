@@ -0,0 +1,112 @@
+package com.openclassrooms.tourguide.journal;
+
+import java.util.List;
+
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserChangeListener;
+import com.openclassrooms.tourguide.user.UserReward;
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Durable record of the users, locations and rewards of this instance, fed as a
+ * {@link UserChangeListener} and read back on startup.
+ */
+public interface UserJournal extends UserChangeListener, AutoCloseable {
+
+	/** Journal that stores nothing: nothing survives a restart. */
+	UserJournal NONE = new UserJournal() {
+		@Override
+		public void userAdded(User user) {
+		}
+
+		@Override
+		public void locationAdded(User user, VisitedLocation visitedLocation) {
+		}
+
+		@Override
+		public void rewardAdded(User user, UserReward userReward) {
+		}
+
+		@Override
+		public List<User> restore() {
+			return List.of();
+		}
+
+		@Override
+		public JournalTail readTail(long fromCheckpoint) {
+			return JournalTail.EMPTY;
+		}
+
+		@Override
+		public long checkpoint() {
+			return 0;
+		}
+
+		@Override
+		public void discardBefore(long checkpoint) {
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void compact() {
+		}
+
+		@Override
+		public void close() {
+		}
+	};
+
+	/**
+	 * Rebuilds the users from everything journaled before this journal was opened.
+	 *
+	 * @return the users, in the order they were first journaled
+	 */
+	List<User> restore();
+
+	/**
+	 * Reads what was journaled from a checkpoint on, before this journal was
+	 * opened, to replay it onto users restored from a snapshot taken at that
+	 * checkpoint.
+	 *
+	 * @param fromCheckpoint the checkpoint the snapshot was taken at
+	 * @return the records, indexed by user
+	 */
+	JournalTail readTail(long fromCheckpoint);
+
+	/**
+	 * Marks the point from which changes must be replayed on top of a snapshot
+	 * taken from now on. Every change reported before this call is written before it returns.
+	 *
+	 * @return the checkpoint, to hand to {@link #readTail} and {@link #discardBefore}
+	 */
+	long checkpoint();
+
+	/**
+	 * Deletes what was journaled before a checkpoint, once a snapshot taken at
+	 * that checkpoint is safely stored.
+	 *
+	 * @param checkpoint a checkpoint returned by {@link #checkpoint()}
+	 */
+	void discardBefore(long checkpoint);
+
+	/**
+	 * Waits until every change reported so far is written, and forced to disk if
+	 * the journal is configured to.
+	 */
+	void flush();
+
+	/**
+	 * Rewrites the sealed part of the journal so it only holds what the history
+	 * retention still keeps.
+	 */
+	void compact();
+
+	/**
+	 * Flushes pending changes and releases the journal's files and threads.
+	 */
+	@Override
+	void close();
+}
@@ -0,0 +1,50 @@
+package com.openclassrooms.tourguide.journal;
+
+import java.util.Optional;
+
+import com.openclassrooms.tourguide.user.UserRepository;
+
+/**
+ * Periodic snapshots of the whole user store, loaded back on startup.
+ */
+public interface UserSnapshots extends AutoCloseable {
+
+	/** No snapshots: users come from the journal or are generated. */
+	UserSnapshots NONE = new UserSnapshots() {
+		@Override
+		public Optional<UserRepository> load(UserRepository repository) {
+			return Optional.empty();
+		}
+
+		@Override
+		public void schedule(UserRepository repository) {
+		}
+
+		@Override
+		public void close() {
+		}
+	};
+
+	/**
+	 * Starts loading the latest snapshot into a repository, in the background.
+	 *
+	 * @param repository the empty repository receiving the users, through {@link UserRepository#restore}
+	 * @return a view of the repository that waits for the users it is asked for to
+	 *         be loaded, or empty if there is no snapshot
+	 */
+	Optional<UserRepository> load(UserRepository repository);
+
+	/**
+	 * Starts taking snapshots of a repository periodically, and on {@link #close()}
+	 * if configured. Snapshots are only taken once loading is over.
+	 *
+	 * @param repository the repository to snapshot
+	 */
+	void schedule(UserRepository repository);
+
+	/**
+	 * Stops taking snapshots, taking a last one if configured.
+	 */
+	@Override
+	void close();
+}
@@ -0,0 +1,132 @@
+package com.openclassrooms.tourguide.service;
+
+import com.openclassrooms.tourguide.cache.RewardPointsCache;
+import com.openclassrooms.tourguide.dto.NearbyAttractionDTO;
+import com.openclassrooms.tourguide.execution.ExecutionStrategy;
+import com.openclassrooms.tourguide.service.contracts.INearbyAttractionService;
+import com.openclassrooms.tourguide.user.User;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Assembles the nearby-attraction view of a user without blocking the caller.
+ *
+ * <p>The reward points of the nearest attractions are looked up concurrently
+ * through the {@link RewardPointsCache}. Every lookup shares the same per-request
+ * deadline: a lookup that has not completed by then is reported with unknown
+ * ({@code null}) reward points instead of delaying the whole response.</p>
+ *
+ * <p>The user's last known location is used as is. A user without one is
+ * located on the task executor, never on the lookup executor: locating a user
+ * also calculates its rewards, which waits on reward point lookups running on the
+ * lookup executor, and a lookup thread waiting for another lookup thread could
+ * leave the pool with none free.</p>
+ */
+public class NearbyAttractionService implements INearbyAttractionService {
+
+	private final Logger logger = LoggerFactory.getLogger(NearbyAttractionService.class);
+
+	private final TourGuideService tourGuideService;
+	private final RewardsService rewardsService;
+	private final RewardPointsCache rewardPointsCache;
+	private final Executor executor;
+	private final Duration deadline;
+
+	/**
+	 * Constructs a {@code NearbyAttractionService}.
+	 *
+	 * @param tourGuideService  service providing user locations and nearest attractions
+	 * @param rewardsService    service providing distances
+	 * @param rewardPointsCache cache used to look up reward points
+	 * @param executor          executor locating users without a known location; not the lookup executor
+	 * @param deadline          maximum time to wait for reward points
+	 */
+	public NearbyAttractionService(TourGuideService tourGuideService, RewardsService rewardsService,
+			RewardPointsCache rewardPointsCache, Executor executor, Duration deadline) {
+		this.tourGuideService = tourGuideService;
+		this.rewardsService = rewardsService;
+		this.rewardPointsCache = rewardPointsCache;
+		this.executor = executor;
+		this.deadline = deadline;
+	}
+
+	/**
+	 * Builds the nearby-attraction DTOs of a user.
+	 *
+	 * <p>The returned future completes once every reward lookup has either
+	 * finished or reached the deadline.</p>
+	 *
+	 * @param user the user whose nearby attractions are requested
+	 * @return a future list of DTOs, closest attraction first
+	 */
+	@Override
+	public CompletableFuture<List<NearbyAttractionDTO>> getNearbyAttractions(User user) {
+		VisitedLocation lastVisitedLocation = user.getLastVisitedLocation();
+		CompletableFuture<VisitedLocation> visitedLocation = lastVisitedLocation != null
+				? CompletableFuture.completedFuture(lastVisitedLocation)
+				: ExecutionStrategy.supplyAsync(() -> tourGuideService.getUserLocation(user), executor);
+		return visitedLocation.thenCompose(location -> assemble(user, location));
+	}
+
+	private CompletableFuture<List<NearbyAttractionDTO>> assemble(User user, VisitedLocation visitedLocation) {
+		Location userLocation = visitedLocation.location;
+		List<Attraction> attractions = tourGuideService.getNearByAttractions(visitedLocation);
+
+		// Issue every lookup before waiting on any of them
+		List<CompletableFuture<Integer>> rewardPoints = new ArrayList<>(attractions.size());
+		for (Attraction attraction : attractions) {
+			rewardPoints.add(lookupRewardPoints(attraction, user));
+		}
+
+		return CompletableFuture.allOf(rewardPoints.toArray(new CompletableFuture[0]))
+				.thenApply(ignored -> {
+					List<NearbyAttractionDTO> nearbyAttractions = new ArrayList<>(attractions.size());
+					for (int i = 0; i < attractions.size(); i++) {
+						Attraction attraction = attractions.get(i);
+						nearbyAttractions.add(new NearbyAttractionDTO(
+								attraction.attractionName,
+								attraction.latitude,
+								attraction.longitude,
+								userLocation.latitude,
+								userLocation.longitude,
+								rewardsService.getDistance(userLocation, attraction),
+								rewardPoints.get(i).join()
+						));
+					}
+					return nearbyAttractions;
+				});
+	}
+
+	/**
+	 * Starts a reward lookup bounded by the request deadline.
+	 *
+	 * @return a future completed with the points, or with {@code null} if they
+	 *         are not available before the deadline
+	 */
+	private CompletableFuture<Integer> lookupRewardPoints(Attraction attraction, User user) {
+		CompletableFuture<Integer> lookup;
+		try {
+			// Copy so the deadline never completes the future shared through the cache
+			lookup = rewardPointsCache.getRewardPointsAsync(attraction.attractionId, user.getUserId()).copy();
+		} catch (RuntimeException e) {
+			logger.warn("Reward lookup rejected for attraction: {}", attraction.attractionName, e);
+			return CompletableFuture.completedFuture(null);
+		}
+		return lookup
+				.exceptionally(e -> {
+					logger.warn("Reward lookup failed for attraction: {}", attraction.attractionName, e);
+					return null;
+				})
+				.completeOnTimeout(null, deadline.toMillis(), TimeUnit.MILLISECONDS);
+	}
+}
@@ -0,0 +1,110 @@
+package com.openclassrooms.tourguide.service;
+
+import com.openclassrooms.tourguide.spatial.AttractionIndex;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.ToDoubleBiFunction;
+
+/**
+ * Finds the (visited location, attraction) pairs that earn a reward, without
+ * testing every location against every attraction.
+ *
+ * <p>For each visited location, the {@link AttractionIndex} supplies the
+ * attractions within the proximity buffer, compared as squared chords so no
+ * inverse trigonometry is involved. Attractions the user has already been
+ * rewarded for are then discarded. When an exact distance function is supplied,
+ * the index is queried with a small slack and each candidate is confirmed with
+ * that function, so the result is the same as the full nested loop over locations
+ * and attractions with that function, in the same order. Without one, the chord
+ * test decides alone and may disagree with a distance formula for locations
+ * within rounding error of the proximity buffer.</p>
+ */
+public class RewardMatcher {
+
+	/**
+	 * Extra radius (in miles) added to the index query so that rounding in the
+	 * chord approximation never drops an attraction the exact check would accept.
+	 */
+	private static final double PREFILTER_SLACK_MILES = 1e-3;
+
+	private final AttractionIndex attractionIndex;
+	private final ToDoubleBiFunction<Location, Location> distance;
+
+	/**
+	 * Constructs a {@code RewardMatcher} that relies on the index's squared-chord
+	 * test alone, exact up to rounding at the edge of the proximity buffer.
+	 *
+	 * @param attractionIndex the spatial index over the attraction catalog
+	 */
+	public RewardMatcher(AttractionIndex attractionIndex) {
+		this(attractionIndex, null);
+	}
+
+	/**
+	 * Constructs a {@code RewardMatcher} that confirms candidates with a distance function.
+	 *
+	 * @param attractionIndex the spatial index over the attraction catalog
+	 * @param distance        the exact distance function, in miles, used to confirm candidates;
+	 *                        {@code null} to trust the index's squared-chord test
+	 */
+	public RewardMatcher(AttractionIndex attractionIndex, ToDoubleBiFunction<Location, Location> distance) {
+		this.attractionIndex = attractionIndex;
+		this.distance = distance;
+	}
+
+	/**
+	 * Returns the rewards earned by the given locations, at most one per attraction.
+	 *
+	 * <p>Locations are examined in order, and for each location the matching
+	 * attractions are reported in catalog order; an attraction is credited to the
+	 * first location that comes within range of it.</p>
+	 *
+	 * @param visitedLocations      the locations to evaluate
+	 * @param rewardedAttractions   names of attractions the user has already been rewarded for
+	 * @param proximityBuffer       the maximum distance in miles for a location to earn a reward
+	 * @return the newly earned rewards
+	 */
+	public List<Match> match(List<VisitedLocation> visitedLocations, Set<String> rewardedAttractions,
+			double proximityBuffer) {
+		List<Match> matches = new ArrayList<>();
+		if (visitedLocations.isEmpty()) {
+			return matches;
+		}
+
+		Set<String> rewarded = new HashSet<>(rewardedAttractions);
+		long remaining = attractionIndex.getAttractions().stream()
+				.filter(attraction -> !rewarded.contains(attraction.attractionName))
+				.count();
+
+		double searchRadius = distance == null ? proximityBuffer : proximityBuffer + PREFILTER_SLACK_MILES;
+		for (VisitedLocation visitedLocation : visitedLocations) {
+			if (remaining == 0) {
+				break;
+			}
+			for (Attraction attraction : attractionIndex.withinRadius(visitedLocation.location, searchRadius)) {
+				if (!rewarded.contains(attraction.attractionName) && (distance == null
+						|| distance.applyAsDouble(attraction, visitedLocation.location) <= proximityBuffer)) {
+					matches.add(new Match(visitedLocation, attraction));
+					rewarded.add(attraction.attractionName);
+					remaining--;
+				}
+			}
+		}
+		return matches;
+	}
+
+	/**
+	 * A visited location that earned a reward for an attraction.
+	 *
+	 * @param visitedLocation the location that came within range
+	 * @param attraction      the attraction being rewarded
+	 */
+	public record Match(VisitedLocation visitedLocation, Attraction attraction) {
+	}
+}
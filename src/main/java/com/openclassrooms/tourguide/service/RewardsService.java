@@ -1,35 +1,41 @@
 package com.openclassrooms.tourguide.service;
 
+import com.openclassrooms.tourguide.cache.RewardPointsCache;
+import com.openclassrooms.tourguide.distance.DistanceFormula;
+import com.openclassrooms.tourguide.distance.GeoPoint;
+import com.openclassrooms.tourguide.execution.ExecutionStrategy;
 import com.openclassrooms.tourguide.service.contracts.IRewardsService;
+import com.openclassrooms.tourguide.spatial.AttractionIndex;
 import com.openclassrooms.tourguide.user.User;
 import com.openclassrooms.tourguide.user.UserReward;
 import gpsUtil.GpsUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
 import gpsUtil.location.Attraction;
 import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import rewardCentral.RewardCentral;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Service responsible for calculating and assigning rewards to users
  * based on their visited locations and proximity to known attractions.
+ *
+ * <p>Rewards are calculated from the locations appended since a user's previous
+ * calculation, not from geofence events, which may be dropped.</p>
  */
 @Service
 public class RewardsService implements IRewardsService {
 
 	private static final Logger logger = LogManager.getLogger(RewardsService.class);
-	private static final double STATUTE_MILES_PER_NAUTICAL_MILE = 1.15077945;
 
 	/** Default proximity distance in miles used to check if a user is near an attraction. */
 	private final int defaultProximityBuffer = 10;
@@ -40,21 +46,65 @@ public class RewardsService implements IRewardsService {
 	/** Maximum attraction proximity range in miles. */
 	private final int attractionProximityRange = 200;
 
-	private final GpsUtil gpsUtil;
-	private final RewardCentral rewardsCentral;
+	/**
+	 * Version of the reward rules. Bumped whenever a change (such as a new proximity
+	 * buffer) invalidates earlier evaluations, so every user is fully re-evaluated once.
+	 */
+	private final AtomicLong rewardsEpoch = new AtomicLong();
+
+	private final RewardPointsCache rewardPointsCache;
+	private final AttractionIndex attractionIndex;
+	private final RewardMatcher rewardMatcher;
+
+	/** Formula used by {@link #getDistance(Location, Location)}. */
+	private volatile DistanceFormula distanceFormula = DistanceFormula.SPHERICAL_LAW_OF_COSINES;
 
-	/** Thread pool for parallel reward calculations across multiple users. */
-	private final ExecutorService executorService = Executors.newFixedThreadPool(100);
+	/** Strategy providing the threads for parallel reward calculations across multiple users. */
+	private final ExecutionStrategy executionStrategy;
+
+	private final Timer calculationTimer;
+	private final Counter awardedRewards;
 
 	/**
 	 * Constructs a {@code RewardsService} with the given GPS and reward providers.
 	 *
+	 * <p>The attraction index is built from the current {@link GpsUtil} catalog.
+	 * Bulk calculations and reward point lookups run on the
+	 * {@link ExecutionStrategy#shared() shared} strategy.</p>
+	 *
 	 * @param gpsUtil         the GPS utility service used to access attractions
 	 * @param rewardCentral   the RewardCentral service used to fetch reward points
 	 */
 	public RewardsService(GpsUtil gpsUtil, RewardCentral rewardCentral) {
-		this.gpsUtil = gpsUtil;
-		this.rewardsCentral = rewardCentral;
+		this(gpsUtil, rewardCentral, ExecutionStrategy.shared());
+	}
+
+	private RewardsService(GpsUtil gpsUtil, RewardCentral rewardCentral, ExecutionStrategy executionStrategy) {
+		this(new RewardPointsCache(rewardCentral, executionStrategy), new AttractionIndex(gpsUtil.getAttractions()),
+				executionStrategy);
+	}
+
+	/**
+	 * Constructs a {@code RewardsService} over an existing attraction index.
+	 *
+	 * @param rewardPointsCache the cache used to fetch reward points from RewardCentral
+	 * @param attractionIndex   the spatial index over the attraction catalog
+	 * @param executionStrategy the strategy running bulk reward calculations
+	 */
+	@Autowired
+	public RewardsService(RewardPointsCache rewardPointsCache, AttractionIndex attractionIndex,
+			ExecutionStrategy executionStrategy) {
+		this.rewardPointsCache = rewardPointsCache;
+		this.executionStrategy = executionStrategy;
+		this.attractionIndex = attractionIndex;
+		this.rewardMatcher = new RewardMatcher(attractionIndex, this::getDistance);
+		this.calculationTimer = Timer.builder("tourguide.rewards.calculation")
+				.description("Time to calculate the rewards of one user")
+				.publishPercentileHistogram()
+				.register(executionStrategy.meterRegistry());
+		this.awardedRewards = Counter.builder("tourguide.rewards.awarded")
+				.description("Rewards added to users")
+				.register(executionStrategy.meterRegistry());
 	}
 
 	/**
@@ -64,6 +114,17 @@ public class RewardsService implements IRewardsService {
 	 */
 	public void setProximityBuffer(int proximityBuffer) {
 		this.proximityBuffer = proximityBuffer;
+		invalidateRewardWatermarks();
+	}
+
+	/**
+	 * Selects the formula used by {@link #getDistance(Location, Location)}, which
+	 * also confirms the candidates of reward matching.
+	 *
+	 * @param distanceFormula the formula to use
+	 */
+	public void setDistanceFormula(DistanceFormula distanceFormula) {
+		this.distanceFormula = distanceFormula;
 	}
 
 	/**
@@ -71,50 +132,104 @@ public class RewardsService implements IRewardsService {
 	 */
 	public void setDefaultProximityBuffer() {
 		this.proximityBuffer = defaultProximityBuffer;
+		invalidateRewardWatermarks();
 	}
 
 	/**
-	 * Calculates rewards for a single user based on their visited locations
-	 * and proximity to attractions.
+	 * Forces the next reward calculation of every user to re-evaluate their whole
+	 * location history instead of only the locations added since the last run.
+	 */
+	public void invalidateRewardWatermarks() {
+		long epoch = rewardsEpoch.incrementAndGet();
+		logger.debug("Reward watermarks invalidated, epoch is now {}", epoch);
+	}
+
+	/**
+	 * Calculates rewards for a single user based on the locations they visited
+	 * since the last calculation.
 	 *
 	 * <p>If the user has visited a location within the proximity buffer of an attraction
-	 * and has not already been rewarded for it, a new {@link UserReward} is added.</p>
+	 * and has not already been rewarded for it, a new {@link UserReward} is added.
+	 * Each user carries a watermark of the locations already evaluated, so the cost
+	 * of a call is proportional to the number of new locations rather than to the
+	 * whole history. Candidate attractions are pruned by the {@link RewardMatcher}
+	 * before any exact distance is computed.</p>
 	 *
 	 * @param user the user whose rewards should be calculated
 	 */
 	@Override
 	public void calculateRewards(User user) {
-		List<VisitedLocation> visitedLocations = new ArrayList<>(user.getVisitedLocations());
-		List<Attraction> attractions = new ArrayList<>(gpsUtil.getAttractions());
+		calculateRewards(user, false);
+	}
 
-		// Track already rewarded attractions to avoid duplicate rewards
-		Set<String> rewardedAttractions = user.getUserRewards().stream()
-				.map(reward -> reward.getAttraction().attractionName)
-				.collect(Collectors.toSet());
+	/**
+	 * Re-evaluates the whole location history of a user, ignoring their watermark.
+	 *
+	 * @param user the user whose rewards should be recalculated
+	 */
+	@Override
+	public void recalculateRewards(User user) {
+		calculateRewards(user, true);
+	}
 
-		for (VisitedLocation visitedLocation : visitedLocations) {
-			for (Attraction attraction : attractions) {
-				String attractionName = attraction.attractionName;
+	private void calculateRewards(User user, boolean fullRecompute) {
+		calculationTimer.record(() -> awardRewards(user, evaluateRewards(user, fullRecompute)));
+	}
 
-				if (!rewardedAttractions.contains(attractionName)
-						&& nearAttraction(visitedLocation, attraction)) {
+	/**
+	 * Finds the attractions a user earned a reward for since the last evaluation,
+	 * without looking up their points. This is the first half of
+	 * {@link #calculateRewards(User)}, for callers running the two halves on
+	 * different threads; the locations returned are marked as evaluated.
+	 *
+	 * @param user the user whose rewards should be evaluated
+	 * @return the newly earned rewards, to be passed to {@link #awardRewards(User, List)}
+	 */
+	public List<RewardMatcher.Match> evaluateRewards(User user) {
+		return evaluateRewards(user, false);
+	}
 
-					int rewardPoints = getRewardPoints(attraction, user);
+	private List<RewardMatcher.Match> evaluateRewards(User user, boolean fullRecompute) {
+		List<VisitedLocation> visitedLocations = user.claimLocationsForRewards(rewardsEpoch.get(), fullRecompute);
+		if (visitedLocations.isEmpty()) {
+			return List.of();
+		}
+		try {
+			return rewardMatcher.match(visitedLocations, user.getRewardedAttractionNames(), proximityBuffer);
+		} catch (RuntimeException e) {
+			// Leave no watermark behind a failed evaluation: the next call starts over
+			user.resetRewardsWatermark();
+			throw e;
+		}
+	}
 
-					// Synchronize to prevent concurrent modifications of the user's reward list
-					synchronized (user) {
-						user.addUserReward(new UserReward(visitedLocation, attraction, rewardPoints));
-						logger.debug("Added reward for user: {}, attraction: {}, points: {}",
-								user.getUserName(), attractionName, rewardPoints);
-					}
-					rewardedAttractions.add(attractionName);
+	/**
+	 * Looks up the points of rewards found by {@link #evaluateRewards(User)} and
+	 * adds them to the user. If a lookup fails, the user's next evaluation covers
+	 * their whole history again, so no reward is lost.
+	 *
+	 * @param user    the user being rewarded
+	 * @param matches the rewards to add
+	 */
+	public void awardRewards(User user, List<RewardMatcher.Match> matches) {
+		try {
+			for (RewardMatcher.Match match : matches) {
+				Attraction attraction = match.attraction();
+				int rewardPoints = getRewardPoints(attraction, user);
+				if (user.addUserReward(new UserReward(match.visitedLocation(), attraction, rewardPoints))) {
+					awardedRewards.increment();
+					logger.debug("Added reward for user: {}, attraction: {}, points: {}",
+							user.getUserName(), attraction.attractionName, rewardPoints);
 				}
 			}
+		} catch (RuntimeException e) {
+			user.resetRewardsWatermark();
+			throw e;
 		}
 	}
 
 	/**
-	 * Calculates rewards for all users asynchronously using a fixed thread pool.
+	 * Calculates rewards for all users asynchronously on the execution strategy's task executor.
 	 *
 	 * <p>Each user’s rewards are processed in parallel via {@link CompletableFuture}.</p>
 	 *
@@ -123,13 +238,13 @@ public class RewardsService implements IRewardsService {
 	@Override
 	public void calculateAllUsersRewardsAsync(List<User> users) {
 		List<CompletableFuture<Void>> futures = users.stream()
-				.map(user -> CompletableFuture.runAsync(() -> {
+				.map(user -> ExecutionStrategy.runAsync(() -> {
 					try {
 						calculateRewards(user);
 					} catch (Exception e) {
 						logger.error("Error calculating rewards for user: {}", user.getUserName(), e);
 					}
-				}, executorService))
+				}, executionStrategy.taskExecutor()))
 				.toList();
 
 		// Wait for all reward calculations to complete
@@ -156,17 +271,6 @@ public class RewardsService implements IRewardsService {
 		return getDistance(attraction, location) <= attractionProximityRange;
 	}
 
-	/**
-	 * Determines if a visited location is near a specific attraction.
-	 *
-	 * @param visitedLocation the user's visited location
-	 * @param attraction      the attraction to check
-	 * @return {@code true} if the visited location is within the proximity buffer, otherwise {@code false}
-	 */
-	private boolean nearAttraction(VisitedLocation visitedLocation, Attraction attraction) {
-		return getDistance(attraction, visitedLocation.location) <= proximityBuffer;
-	}
-
 	/**
 	 * Retrieves the reward points for a given attraction and user.
 	 *
@@ -175,13 +279,15 @@ public class RewardsService implements IRewardsService {
 	 * @return the reward points earned
 	 */
 	private int getRewardPoints(Attraction attraction, User user) {
-		return rewardsCentral.getAttractionRewardPoints(attraction.attractionId, user.getUserId());
+		return rewardPointsCache.getRewardPoints(attraction.attractionId, user.getUserId());
 	}
 
 	/**
 	 * Calculates the distance between two geographical locations in statute miles.
 	 *
-	 * <p>This method uses the great-circle distance formula (based on the spherical law of cosines).</p>
+	 * <p>Uses the spherical law of cosines by default, or the haversine formula if
+	 * selected with {@link #setDistanceFormula(DistanceFormula)}. Attractions of the
+	 * indexed catalog reuse the trigonometric values computed when it was loaded.</p>
 	 *
 	 * @param loc1 the first location
 	 * @param loc2 the second location
@@ -189,15 +295,19 @@ public class RewardsService implements IRewardsService {
 	 */
 	@Override
 	public double getDistance(Location loc1, Location loc2) {
-		double lat1 = Math.toRadians(loc1.latitude);
-		double lon1 = Math.toRadians(loc1.longitude);
-		double lat2 = Math.toRadians(loc2.latitude);
-		double lon2 = Math.toRadians(loc2.longitude);
-
-		double angle = Math.acos(Math.sin(lat1) * Math.sin(lat2)
-				+ Math.cos(lat1) * Math.cos(lat2) * Math.cos(lon1 - lon2));
+		DistanceFormula formula = distanceFormula;
+		GeoPoint point1 = cachedPointOf(loc1);
+		GeoPoint point2 = cachedPointOf(loc2);
+		if (point1 != null) {
+			return point2 != null ? formula.miles(point1, point2) : formula.miles(point1, loc2);
+		}
+		return point2 != null ? formula.miles(point2, loc1) : formula.miles(loc1, loc2);
+	}
 
-		double nauticalMiles = 60 * Math.toDegrees(angle);
-		return STATUTE_MILES_PER_NAUTICAL_MILE * nauticalMiles;
+	/**
+	 * @return the point precomputed for a catalog attraction, or {@code null} for any other location
+	 */
+	private GeoPoint cachedPointOf(Location location) {
+		return location instanceof Attraction attraction ? attractionIndex.pointOf(attraction) : null;
 	}
 }
@@ -1,28 +1,50 @@
 package com.openclassrooms.tourguide.service;
 
+import com.openclassrooms.tourguide.cache.TripDealsCache;
+import com.openclassrooms.tourguide.execution.Downstream;
+import com.openclassrooms.tourguide.execution.ExecutionStrategy;
+import com.openclassrooms.tourguide.gateway.GpsGateway;
+import com.openclassrooms.tourguide.gateway.GpsUtilGateway;
+import com.openclassrooms.tourguide.gateway.TripPricerGateway;
+import com.openclassrooms.tourguide.geofence.GeofenceMonitor;
 import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.helper.PopulationGenerator;
+import com.openclassrooms.tourguide.journal.UserJournal;
+import com.openclassrooms.tourguide.journal.UserSnapshots;
 import com.openclassrooms.tourguide.service.contracts.ITourGuideService;
+import com.openclassrooms.tourguide.shard.ShardMembership;
+import com.openclassrooms.tourguide.spatial.AttractionIndex;
 import com.openclassrooms.tourguide.tracker.Tracker;
+import com.openclassrooms.tourguide.tracker.TrackerSettings;
+import com.openclassrooms.tourguide.tracker.TrackingPipeline;
+import com.openclassrooms.tourguide.user.ConcurrentUserRepository;
+import com.openclassrooms.tourguide.user.HistorySettings;
 import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserRepository;
 import com.openclassrooms.tourguide.user.UserReward;
 import gpsUtil.GpsUtil;
 import gpsUtil.location.Attraction;
 import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import tripPricer.Provider;
 import tripPricer.TripPricer;
 
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * Main service responsible for user tracking, location management,
@@ -32,39 +54,134 @@ import java.util.stream.IntStream;
 public class TourGuideService implements ITourGuideService {
 
 	private final Logger logger = LoggerFactory.getLogger(TourGuideService.class);
-	private final GpsUtil gpsUtil;
+	private final GpsGateway gpsGateway;
+	private final TripDealsCache tripDealsCache;
 	private final RewardsService rewardsService;
-	private final TripPricer tripPricer = new TripPricer();
+	private final AttractionIndex attractionIndex;
 	public final Tracker tracker;
-	private final ExecutorService executorService = Executors.newFixedThreadPool(100);
-	private final Map<String, User> internalUserMap = new HashMap<>();
+	private final ExecutionStrategy executionStrategy;
+	private final TrackerSettings trackerSettings;
+	private final ShardMembership shardMembership;
+	private final Timer batchTimer;
+	private final Timer trackTimer;
+	private final Timer nearbyAttractionsTimer;
+	private final Timer tripDealsTimer;
+	private final Counter trackedUsers;
+	private final Counter failedUsers;
+	private final TrackingPipeline trackingPipeline;
+	private final UserRepository userRepository;
 
-	private static final String tripPricerApiKey = "test-server-api-key";
+	private static final int NEARBY_ATTRACTIONS_COUNT = 5;
 	private boolean testMode = true;
 
 	/**
 	 * Constructs a {@code TourGuideService} with required dependencies.
 	 *
-	 * @param gpsUtil         GPS utility for retrieving user locations and attractions
-	 * @param rewardsService  reward service for calculating user rewards
+	 * <p>If there is a snapshot, users are loaded from it in the background while the
+	 * service already answers requests; otherwise users found in the journal are
+	 * restored, and internal test users are only generated when there are none.
+	 * Every location appended from then on is checked by the geofence monitor.</p>
+	 *
+	 * @param gpsGateway        source of user locations
+	 * @param tripDealsCache    cached source of trip deals
+	 * @param rewardsService    reward service for calculating user rewards
+	 * @param attractionIndex   spatial index over the attraction catalog
+	 * @param executionStrategy strategy running bulk tracking and limiting downstream calls
+	 * @param trackerSettings   scheduling settings of the background tracker
+	 * @param shardMembership   decides which users the background tracker of this instance tracks
+	 * @param userJournal       journal persisting users, locations and rewards across restarts
+	 * @param userSnapshots     periodic snapshots of the users, loaded back on startup
+	 * @param geofenceMonitor   checks appended locations against attraction geofences
+	 * @param historySettings   retention and layout of the internal test users' location history
+	 * @see #builder(GpsUtil, RewardsService)
 	 */
-	public TourGuideService(GpsUtil gpsUtil, RewardsService rewardsService) {
-		this.gpsUtil = gpsUtil;
+	@Autowired
+	public TourGuideService(GpsGateway gpsGateway, TripDealsCache tripDealsCache, RewardsService rewardsService,
+			AttractionIndex attractionIndex, ExecutionStrategy executionStrategy, TrackerSettings trackerSettings,
+			ShardMembership shardMembership, UserJournal userJournal, UserSnapshots userSnapshots,
+			GeofenceMonitor geofenceMonitor, HistorySettings historySettings) {
+		ConcurrentUserRepository users = new ConcurrentUserRepository(userJournal.andThen(geofenceMonitor));
+		Optional<UserRepository> loading = userSnapshots.load(users);
+		this.userRepository = loading.orElse(users);
+		this.gpsGateway = gpsGateway;
+		this.tripDealsCache = tripDealsCache;
 		this.rewardsService = rewardsService;
+		this.attractionIndex = attractionIndex;
+		this.executionStrategy = executionStrategy;
+		this.trackerSettings = trackerSettings;
+		this.shardMembership = shardMembership;
+		MeterRegistry meterRegistry = executionStrategy.meterRegistry();
+		this.batchTimer = timer("tourguide.tracking.batch",
+				"Time to locate, append and reward one batch of users", meterRegistry);
+		this.trackTimer = timer("tourguide.tracking.user",
+				"Time to locate, append and reward one user", meterRegistry);
+		this.nearbyAttractionsTimer = timer("tourguide.nearby.attractions",
+				"Time to find the attractions closest to a location", meterRegistry);
+		this.tripDealsTimer = timer("tourguide.trip.deals",
+				"Time to price the trip deals of a user", meterRegistry);
+		this.trackedUsers = Counter.builder("tourguide.tracking.users")
+				.description("Users located and rewarded by batch tracking")
+				.tag("outcome", "tracked")
+				.register(meterRegistry);
+		this.failedUsers = Counter.builder("tourguide.tracking.users")
+				.description("Users located and rewarded by batch tracking")
+				.tag("outcome", "failed")
+				.register(meterRegistry);
+		Gauge.builder("tourguide.users", userRepository, UserRepository::size)
+				.description("Users known to this instance")
+				.register(meterRegistry);
+		Gauge.builder("tourguide.users.history.points", this, TourGuideService::countHistoryPoints)
+				.description("Locations retained across every user's history")
+				.register(meterRegistry);
 
 		Locale.setDefault(Locale.US);
 
-		if (testMode) {
-			logger.info("TestMode enabled");
-			logger.debug("Initializing internal users...");
-			initializeInternalUsers();
-			logger.debug("Finished initializing internal users.");
+		if (loading.isPresent()) {
+			logger.info("Loading users from the latest snapshot");
+		} else {
+			List<User> restoredUsers = userJournal.restore();
+			if (!restoredUsers.isEmpty()) {
+				restoredUsers.forEach(userRepository::restore);
+				logger.info("Restored {} users from the journal", restoredUsers.size());
+			} else if (testMode) {
+				logger.info("TestMode enabled");
+				logger.debug("Initializing internal users...");
+				initializeInternalUsers(historySettings);
+				logger.debug("Finished initializing internal users.");
+			}
 		}
+		userSnapshots.schedule(userRepository);
 
-		tracker = new Tracker(this);
+		trackingPipeline = trackerSettings.getPipeline().isEnabled()
+				? new TrackingPipeline(gpsGateway, rewardsService, executionStrategy, trackerSettings.getPipeline())
+				: null;
+		tracker = new Tracker(this, executionStrategy.taskExecutor(), trackerSettings, shardMembership,
+				attractionIndex, meterRegistry);
 		addShutDownHook();
 	}
 
+	/**
+	 * Starts building a {@code TourGuideService} outside Spring, locating users with {@link GpsUtil}.
+	 *
+	 * @param gpsUtil        GPS utility for retrieving user locations and attractions
+	 * @param rewardsService reward service for calculating user rewards
+	 * @return a builder whose other collaborators have their defaults
+	 */
+	public static Builder builder(GpsUtil gpsUtil, RewardsService rewardsService) {
+		return new Builder(new GpsUtilGateway(gpsUtil), rewardsService);
+	}
+
+	/**
+	 * Starts building a {@code TourGuideService} outside Spring.
+	 *
+	 * @param gpsGateway     source of user locations and of the attraction catalog
+	 * @param rewardsService reward service for calculating user rewards
+	 * @return a builder whose other collaborators have their defaults
+	 */
+	public static Builder builder(GpsGateway gpsGateway, RewardsService rewardsService) {
+		return new Builder(gpsGateway, rewardsService);
+	}
+
 	/**
 	 * Retrieves the list of rewards earned by a given user.
 	 *
@@ -84,9 +201,8 @@ public class TourGuideService implements ITourGuideService {
 	 */
 	@Override
 	public VisitedLocation getUserLocation(User user) {
-		return (user.getVisitedLocations().size() > 0)
-				? user.getLastVisitedLocation()
-				: trackUserLocation(user);
+		VisitedLocation lastVisitedLocation = user.getLastVisitedLocation();
+		return lastVisitedLocation != null ? lastVisitedLocation : trackUserLocation(user);
 	}
 
 	/**
@@ -97,75 +213,209 @@ public class TourGuideService implements ITourGuideService {
 	 */
 	@Override
 	public User getUser(String userName) {
-		return internalUserMap.get(userName);
+		return userRepository.findByUserName(userName);
 	}
 
 	/**
-	 * Returns all users currently stored in the system.
+	 * Tells whether users are still being loaded from a snapshot, in which case
+	 * {@link #getUser(String)} and {@link #getUser(UUID)} may block until the
+	 * user looked up is loaded.
+	 *
+	 * @return {@code true} while the latest snapshot is loading
+	 */
+	public boolean isLoadingUsers() {
+		return userRepository.isLoading();
+	}
+
+	/**
+	 * Finds a user by id.
+	 *
+	 * @param userId the user's id
+	 * @return the {@link User}, or {@code null} if not found
+	 */
+	@Override
+	public User getUser(UUID userId) {
+		return userRepository.findByUserId(userId);
+	}
+
+	/**
+	 * Returns a copy of all users currently stored in the system.
+	 * <p>Bulk work should prefer {@link #streamAllUsers()}, which does not copy.</p>
 	 *
 	 * @return list of all {@link User}
 	 */
 	@Override
 	public List<User> getAllUsers() {
-		return new ArrayList<>(internalUserMap.values());
+		return userRepository.stream().toList();
+	}
+
+	/**
+	 * Streams all users currently stored in the system without copying them.
+	 *
+	 * @return a sequential stream of {@link User}; call {@code parallel()} to split the traversal
+	 */
+	@Override
+	public Stream<User> streamAllUsers() {
+		return userRepository.stream();
 	}
 
 	/**
-	 * Adds a user to the internal map if they don't already exist.
+	 * Adds a user to the repository if they don't already exist.
+	 *
+	 * <p>Only the instance owning a user tracks it, and instances do not forward
+	 * users to each other, so a user added on another instance is only tracked if
+	 * its owner gets it too; see {@link ShardMembership}.</p>
 	 *
 	 * @param user the {@link User} to add
 	 */
 	@Override
 	public void addUser(User user) {
-		if (!internalUserMap.containsKey(user.getUserName())) {
-			internalUserMap.put(user.getUserName(), user);
+		userRepository.add(user);
+		if (!shardMembership.owns(user.getUserId())) {
+			logger.warn("User {} added on instance {}, which does not own it; only its owner tracks it",
+					user.getUserName(), shardMembership.getInstanceId());
 		}
 	}
 
 	/**
 	 * Retrieves trip deals for a user based on preferences and reward points.
 	 *
+	 * <p>Deals come from the {@link TripDealsCache}, which answers at once with the
+	 * last deals priced for the same inputs, refreshing them in the background
+	 * once they get old.</p>
+	 *
 	 * @param user the user requesting trip deals
 	 * @return a list of available {@link Provider} offers
 	 */
 	@Override
 	public List<Provider> getTripDeals(User user) {
-		int totalRewardPoints = user.getUserRewards().stream()
-				.mapToInt(i -> i.getRewardPoints())
-				.sum();
-
-		List<Provider> providers = tripPricer.getPrice(
-				tripPricerApiKey,
-				user.getUserId(),
-				user.getUserPreferences().getNumberOfAdults(),
-				user.getUserPreferences().getNumberOfChildren(),
-				user.getUserPreferences().getTripDuration(),
-				totalRewardPoints
-		);
-
-		user.setTripDeals(providers);
-		return providers;
+		return tripDealsTimer.record(() -> {
+			List<Provider> providers = tripDealsCache.getTripDeals(user);
+			user.setTripDeals(providers);
+			return providers;
+		});
+	}
+
+	/**
+	 * Retrieves trip deals for a user without blocking the calling thread.
+	 *
+	 * @param user the user requesting trip deals
+	 * @return a future list of available {@link Provider} offers
+	 * @see #getTripDeals(User)
+	 */
+	public CompletableFuture<List<Provider>> getTripDealsAsync(User user) {
+		Timer.Sample sample = Timer.start();
+		return tripDealsCache.getTripDealsAsync(user)
+				.thenApply(providers -> {
+					user.setTripDeals(providers);
+					return providers;
+				})
+				.whenComplete((providers, e) -> sample.stop(tripDealsTimer));
 	}
 
 	/**
-	 * Asynchronously tracks the location of all users using a thread pool.
+	 * Asynchronously tracks the location of all users on the execution strategy's task executor,
+	 * one {@link #trackUserLocations(List) batch} per task.
+	 *
+	 * <p>The executor is shared and stays open, so this method can be called repeatedly.</p>
 	 *
 	 * @param users list of users to track
 	 * @throws InterruptedException if the execution is interrupted
 	 */
 	@Override
 	public void calculateAllTrackUserLocationAsync(List<User> users) throws InterruptedException {
+		int batchSize = Math.max(1, trackerSettings.getBatchSize());
+		List<CompletableFuture<Map<User, VisitedLocation>>> futures = new ArrayList<>();
+		for (int from = 0; from < users.size(); from += batchSize) {
+			List<User> batch = users.subList(from, Math.min(from + batchSize, users.size()));
+			futures.add(ExecutionStrategy.supplyAsync(() -> trackUserLocations(batch),
+					executionStrategy.taskExecutor()));
+		}
 
-		List<CompletableFuture<VisitedLocation>> futures = users.stream()
-				.map(user -> CompletableFuture.supplyAsync(() -> trackUserLocation(user), executorService))
-				.toList();
+		// Wait for all tracking tasks to complete; unlike join(), get() can be interrupted
+		try {
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+		} catch (ExecutionException e) {
+			logger.error("Error while tracking user locations", e.getCause());
+		}
+	}
 
-		// Wait for all tracking tasks to complete
-		List<VisitedLocation> visitedLocations = futures.stream()
-				.map(CompletableFuture::join)
-				.collect(Collectors.toList());
+	/**
+	 * Tracks the current location of several users and calculates their rewards.
+	 *
+	 * <p>The batch is located in a single call when the GPS gateway has a batch
+	 * endpoint, and otherwise through concurrent lookups on the execution
+	 * strategy's lookup executor, each within the GPS concurrency limit. The
+	 * locations are then appended and rewarded in one pass on the calling thread.
+	 * A user whose lookup or reward calculation fails is logged and left out of the
+	 * result without affecting the rest of the batch. Each batch is timed under
+	 * {@code tourguide.tracking.batch}, and users are counted under
+	 * {@code tourguide.tracking.users} by outcome.</p>
+	 *
+	 * @param users the users to track
+	 * @return the new location of each user tracked successfully, in the order of {@code users}
+	 */
+	@Override
+	public Map<User, VisitedLocation> trackUserLocations(List<User> users) {
+		Timer.Sample sample = Timer.start();
+		Map<User, VisitedLocation> tracked = new LinkedHashMap<>();
+		fetchUserLocations(users).forEach((user, visitedLocation) -> {
+			try {
+				user.addToVisitedLocations(visitedLocation);
+				rewardsService.calculateRewards(user);
+				tracked.put(user, visitedLocation);
+			} catch (RuntimeException e) {
+				logger.error("Error rewarding user: {}", user.getUserName(), e);
+			}
+		});
+		sample.stop(batchTimer);
+		trackedUsers.increment(tracked.size());
+		failedUsers.increment(users.size() - tracked.size());
+		return tracked;
+	}
+
+	private Map<User, VisitedLocation> fetchUserLocations(List<User> users) {
+		Map<User, VisitedLocation> locations = new LinkedHashMap<>();
+		if (gpsGateway.supportsBatchLookup()) {
+			List<UUID> userIds = users.stream().map(User::getUserId).toList();
+			try {
+				List<VisitedLocation> fetched = executionStrategy.call(Downstream.GPS,
+						() -> gpsGateway.getUserLocations(userIds));
+				for (int i = 0; i < users.size(); i++) {
+					locations.put(users.get(i), fetched.get(i));
+				}
+			} catch (RuntimeException e) {
+				logger.error("Error locating a batch of {} users", users.size(), e);
+			}
+			return locations;
+		}
 
-		executorService.shutdown();
+		List<CompletableFuture<VisitedLocation>> lookups = users.stream()
+				.map(this::lookUpUserLocation)
+				.toList();
+		for (int i = 0; i < users.size(); i++) {
+			try {
+				locations.put(users.get(i), lookups.get(i).join());
+			} catch (CompletionException e) {
+				logger.error("Error locating user: {}", users.get(i).getUserName(), e.getCause());
+			}
+		}
+		return locations;
+	}
+
+	/**
+	 * Starts a location lookup on the lookup executor, or runs it on the calling
+	 * bulk thread when the lookup queue is full, so batches slow down instead of
+	 * losing users.
+	 */
+	private CompletableFuture<VisitedLocation> lookUpUserLocation(User user) {
+		Supplier<VisitedLocation> lookup = () -> executionStrategy.call(Downstream.GPS,
+				() -> gpsGateway.getUserLocation(user.getUserId()));
+		try {
+			return CompletableFuture.supplyAsync(lookup, executionStrategy.lookupExecutor());
+		} catch (RejectedExecutionException e) {
+			return CompletableFuture.supplyAsync(lookup, Runnable::run);
+		}
 	}
 
 	/**
@@ -176,28 +426,65 @@ public class TourGuideService implements ITourGuideService {
 	 */
 	@Override
 	public VisitedLocation trackUserLocation(User user) {
-		VisitedLocation visitedLocation = gpsUtil.getUserLocation(user.getUserId());
-		user.addToVisitedLocations(visitedLocation);
-		rewardsService.calculateRewards(user);
-		return visitedLocation;
+		return trackTimer.record(() -> {
+			VisitedLocation visitedLocation = executionStrategy.call(Downstream.GPS,
+					() -> gpsGateway.getUserLocation(user.getUserId()));
+			user.addToVisitedLocations(visitedLocation);
+			rewardsService.calculateRewards(user);
+			return visitedLocation;
+		});
+	}
+
+	/**
+	 * Tracks a user without waiting for the result.
+	 *
+	 * <p>With the staged pipeline enabled, the user is queued for its fetch stage,
+	 * waiting while that stage is full; otherwise {@link #trackUserLocation(User)}
+	 * runs on the task executor.</p>
+	 *
+	 * @param user the user to track
+	 * @return a future completed with the new location once the user's rewards are calculated
+	 * @throws InterruptedException if interrupted while waiting for room in the pipeline
+	 */
+	public CompletableFuture<VisitedLocation> trackUserLocationAsync(User user) throws InterruptedException {
+		if (trackingPipeline != null) {
+			return trackingPipeline.submit(user);
+		}
+		return ExecutionStrategy.supplyAsync(() -> trackUserLocation(user), executionStrategy.taskExecutor());
 	}
 
 	/**
 	 * Finds the five closest attractions to the given user location.
 	 *
 	 * @param visitedLocation the user's current location
-	 * @return a list of up to five nearby {@link Attraction}
+	 * @return a list of up to five nearby {@link Attraction}, closest first
 	 */
 	@Override
 	public List<Attraction> getNearByAttractions(VisitedLocation visitedLocation) {
-		Location userLocation = visitedLocation.location;
-
-		// Sort attractions by proximity to the user's current location
-		return gpsUtil.getAttractions().stream()
-				.sorted(Comparator.comparingDouble(a ->
-						rewardsService.getDistance(userLocation, a)))
-				.limit(5)
-				.collect(Collectors.toList());
+		return nearbyAttractionsTimer.record(
+				() -> attractionIndex.nearest(visitedLocation.location, NEARBY_ATTRACTIONS_COUNT));
+	}
+
+	/**
+	 * Stops the tracker, then lets users already in the tracking pipeline go through it.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		tracker.stopTracking();
+		if (trackingPipeline != null) {
+			trackingPipeline.close();
+		}
+	}
+
+	private static Timer timer(String name, String description, MeterRegistry meterRegistry) {
+		return Timer.builder(name)
+				.description(description)
+				.publishPercentileHistogram()
+				.register(meterRegistry);
+	}
+
+	private double countHistoryPoints() {
+		return userRepository.stream().mapToLong(User::getVisitedLocationCount).sum();
 	}
 
 	/**
@@ -212,55 +499,101 @@ public class TourGuideService implements ITourGuideService {
 	// ---------------------------------------------------------------------------
 
 	/**
-	 * Initializes a predefined number of internal users for testing purposes.
+	 * Initializes a predefined number of internal users for testing purposes,
+	 * shaped by {@link InternalTestHelper#getPopulationSettings()}.
+	 *
+	 * @param historySettings retention and layout of the users' location history
 	 */
-	private void initializeInternalUsers() {
-		IntStream.range(0, InternalTestHelper.getInternalUserNumber()).forEach(i -> {
-			String userName = "internalUser" + i;
-			String phone = "000";
-			String email = userName + "@tourGuide.com";
-			User user = new User(UUID.randomUUID(), userName, phone, email);
-			generateUserLocationHistory(user);
-			internalUserMap.put(userName, user);
-		});
+	private void initializeInternalUsers(HistorySettings historySettings) {
+		PopulationGenerator generator = new PopulationGenerator(InternalTestHelper.getPopulationSettings(),
+				attractionIndex.getAttractions(), historySettings.toRetention(), historySettings.getLayout());
+		generator.generate(InternalTestHelper.getInternalUserNumber()).parallelStream().forEach(userRepository::add);
 		logger.debug("Created {} internal test users.", InternalTestHelper.getInternalUserNumber());
 	}
 
 	/**
-	 * Generates a small random location history for internal test users.
+	 * Wires a {@code TourGuideService} outside Spring, for tests and benchmarks.
 	 *
-	 * @param user the internal user to populate with locations
+	 * <p>Unless set, the attraction index is built from the gateway's catalog,
+	 * work runs on the {@link ExecutionStrategy#shared() shared} strategy, trip
+	 * deals are priced by {@link TripPricer}, the instance tracks every user, and
+	 * there is no journal, snapshot or geofence monitor.</p>
 	 */
-	private void generateUserLocationHistory(User user) {
-		IntStream.range(0, 3).forEach(i -> user.addToVisitedLocations(
-				new VisitedLocation(user.getUserId(),
-						new Location(generateRandomLatitude(), generateRandomLongitude()),
-						getRandomTime())));
-	}
+	public static final class Builder {
 
-	/**
-	 * Generates a random longitude value between -180 and 180 degrees.
-	 */
-	private double generateRandomLongitude() {
-		double leftLimit = -180;
-		double rightLimit = 180;
-		return leftLimit + new Random().nextDouble() * (rightLimit - leftLimit);
-	}
+		private final GpsGateway gpsGateway;
+		private final RewardsService rewardsService;
+		private TripDealsCache tripDealsCache;
+		private AttractionIndex attractionIndex;
+		private ExecutionStrategy executionStrategy = ExecutionStrategy.shared();
+		private TrackerSettings trackerSettings = new TrackerSettings();
+		private ShardMembership shardMembership = ShardMembership.standalone();
+		private UserJournal userJournal = UserJournal.NONE;
+		private UserSnapshots userSnapshots = UserSnapshots.NONE;
+		private GeofenceMonitor geofenceMonitor = GeofenceMonitor.NONE;
+		private HistorySettings historySettings = new HistorySettings();
 
-	/**
-	 * Generates a random latitude value between -85.05 and 85.05 degrees.
-	 */
-	private double generateRandomLatitude() {
-		double leftLimit = -85.05112878;
-		double rightLimit = 85.05112878;
-		return leftLimit + new Random().nextDouble() * (rightLimit - leftLimit);
-	}
+		private Builder(GpsGateway gpsGateway, RewardsService rewardsService) {
+			this.gpsGateway = gpsGateway;
+			this.rewardsService = rewardsService;
+		}
 
-	/**
-	 * Generates a random timestamp within the last 30 days.
-	 */
-	private Date getRandomTime() {
-		LocalDateTime localDateTime = LocalDateTime.now().minusDays(new Random().nextInt(30));
-		return Date.from(localDateTime.toInstant(ZoneOffset.UTC));
+		public Builder tripDealsCache(TripDealsCache tripDealsCache) {
+			this.tripDealsCache = tripDealsCache;
+			return this;
+		}
+
+		public Builder attractionIndex(AttractionIndex attractionIndex) {
+			this.attractionIndex = attractionIndex;
+			return this;
+		}
+
+		public Builder executionStrategy(ExecutionStrategy executionStrategy) {
+			this.executionStrategy = executionStrategy;
+			return this;
+		}
+
+		public Builder trackerSettings(TrackerSettings trackerSettings) {
+			this.trackerSettings = trackerSettings;
+			return this;
+		}
+
+		public Builder shardMembership(ShardMembership shardMembership) {
+			this.shardMembership = shardMembership;
+			return this;
+		}
+
+		public Builder userJournal(UserJournal userJournal) {
+			this.userJournal = userJournal;
+			return this;
+		}
+
+		public Builder userSnapshots(UserSnapshots userSnapshots) {
+			this.userSnapshots = userSnapshots;
+			return this;
+		}
+
+		public Builder geofenceMonitor(GeofenceMonitor geofenceMonitor) {
+			this.geofenceMonitor = geofenceMonitor;
+			return this;
+		}
+
+		public Builder historySettings(HistorySettings historySettings) {
+			this.historySettings = historySettings;
+			return this;
+		}
+
+		/**
+		 * @return a new {@code TourGuideService}, already tracking in the background
+		 */
+		public TourGuideService build() {
+			return new TourGuideService(gpsGateway,
+					tripDealsCache != null ? tripDealsCache
+							: new TripDealsCache(new TripPricerGateway(new TripPricer()), executionStrategy),
+					rewardsService,
+					attractionIndex != null ? attractionIndex : new AttractionIndex(gpsGateway.getAttractions()),
+					executionStrategy, trackerSettings, shardMembership, userJournal, userSnapshots, geofenceMonitor,
+					historySettings);
+		}
 	}
 }
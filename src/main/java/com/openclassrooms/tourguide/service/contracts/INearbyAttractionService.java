@@ -0,0 +1,12 @@
+package com.openclassrooms.tourguide.service.contracts;
+
+import com.openclassrooms.tourguide.dto.NearbyAttractionDTO;
+import com.openclassrooms.tourguide.user.User;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public interface INearbyAttractionService {
+
+    CompletableFuture<List<NearbyAttractionDTO>> getNearbyAttractions(User user);
+}
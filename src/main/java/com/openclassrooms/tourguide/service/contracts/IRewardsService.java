@@ -9,6 +9,7 @@ import java.util.List;
 public interface IRewardsService {
 
     void calculateRewards(User user);
+    void recalculateRewards(User user);
     void calculateAllUsersRewardsAsync(List<User> users) throws InterruptedException;
     boolean isWithinAttractionProximity(Attraction attraction, Location location);
     double getDistance(Location loc1, Location loc2);
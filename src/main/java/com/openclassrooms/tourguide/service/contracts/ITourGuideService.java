@@ -7,16 +7,22 @@ import gpsUtil.location.VisitedLocation;
 import tripPricer.Provider;
 
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface ITourGuideService {
 
     List<UserReward> getUserRewards(User user);
     VisitedLocation getUserLocation(User user);
     User getUser(String userName);
+    User getUser(UUID userId);
     List<User> getAllUsers();
+    Stream<User> streamAllUsers();
     void addUser(User user);
     List<Provider> getTripDeals(User user);
     void calculateAllTrackUserLocationAsync(List<User> users) throws InterruptedException;
     VisitedLocation trackUserLocation(User user);
+    Map<User, VisitedLocation> trackUserLocations(List<User> users);
     List<Attraction> getNearByAttractions(VisitedLocation visitedLocation);
 }
\ No newline at end of file
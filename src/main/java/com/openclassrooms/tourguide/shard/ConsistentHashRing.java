@@ -0,0 +1,72 @@
+package com.openclassrooms.tourguide.shard;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Immutable consistent-hash ring mapping user ids to instance ids.
+ *
+ * <p>Each instance is placed on the ring at several pseudo-random points
+ * ("virtual nodes") to even out the share of users it receives. A user belongs
+ * to the first instance point found clockwise from the user's own hash, so when
+ * an instance joins or leaves only the users next to its points change owner.</p>
+ */
+public class ConsistentHashRing {
+
+	private final TreeMap<Long, String> ring = new TreeMap<>();
+
+	/**
+	 * Builds a ring over the given instances.
+	 *
+	 * @param members      the instance ids
+	 * @param virtualNodes number of ring points per instance
+	 */
+	public ConsistentHashRing(Collection<String> members, int virtualNodes) {
+		for (String member : members) {
+			for (int i = 0; i < virtualNodes; i++) {
+				ring.put(hash(member + "#" + i), member);
+			}
+		}
+	}
+
+	/**
+	 * Finds the instance responsible for a user.
+	 *
+	 * @param userId the user id
+	 * @return the owning instance id, or {@code null} if the ring is empty
+	 */
+	public String ownerOf(UUID userId) {
+		if (ring.isEmpty()) {
+			return null;
+		}
+		Map.Entry<Long, String> entry = ring.ceilingEntry(mix(userId.getMostSignificantBits() ^ userId.getLeastSignificantBits()));
+		return (entry != null ? entry : ring.firstEntry()).getValue();
+	}
+
+	/**
+	 * 64-bit FNV-1a hash of a string, finished with {@link #mix(long)}.
+	 */
+	private static long hash(String value) {
+		long hash = 0xcbf29ce484222325L;
+		for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+			hash ^= b;
+			hash *= 0x100000001b3L;
+		}
+		return mix(hash);
+	}
+
+	/**
+	 * Finalizer from MurmurHash3, spreading every input bit over the whole output.
+	 */
+	private static long mix(long value) {
+		value ^= value >>> 33;
+		value *= 0xff51afd7ed558ccdL;
+		value ^= value >>> 33;
+		value *= 0xc4ceb9fe1a85ec53L;
+		value ^= value >>> 33;
+		return value;
+	}
+}
@@ -0,0 +1,92 @@
+package com.openclassrooms.tourguide.shard;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * {@link ShardCoordinator} backed by a directory shared by every instance, such
+ * as a mounted volume.
+ *
+ * <p>Each live instance owns a {@code <instanceId>.member} file whose modification
+ * time is refreshed on every {@link #register(String)}. An instance whose file has
+ * not been touched within the member TTL is considered gone, so a crashed instance
+ * drops out of the ring without an explicit {@link #deregister(String)}.</p>
+ */
+public class FileShardCoordinator implements ShardCoordinator {
+
+	private static final Logger logger = LoggerFactory.getLogger(FileShardCoordinator.class);
+	private static final String MEMBER_SUFFIX = ".member";
+
+	private final Path directory;
+	private final Duration memberTtl;
+
+	/**
+	 * Constructs a {@code FileShardCoordinator}.
+	 *
+	 * @param directory the shared membership directory, created if missing
+	 * @param memberTtl how long an instance stays a member without re-registering
+	 */
+	public FileShardCoordinator(Path directory, Duration memberTtl) {
+		this.directory = directory;
+		this.memberTtl = memberTtl;
+		try {
+			Files.createDirectories(directory);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot create shard directory " + directory, e);
+		}
+	}
+
+	@Override
+	public void register(String instanceId) {
+		Path memberFile = memberFile(instanceId);
+		try {
+			if (Files.notExists(memberFile)) {
+				Files.createFile(memberFile);
+			}
+			Files.setLastModifiedTime(memberFile, FileTime.from(Instant.now()));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot register shard member " + instanceId, e);
+		}
+	}
+
+	@Override
+	public void deregister(String instanceId) {
+		try {
+			Files.deleteIfExists(memberFile(instanceId));
+		} catch (IOException e) {
+			logger.warn("Cannot deregister shard member {}", instanceId, e);
+		}
+	}
+
+	@Override
+	public Set<String> getMembers() {
+		Instant oldest = Instant.now().minus(memberTtl);
+		Set<String> members = new HashSet<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + MEMBER_SUFFIX)) {
+			for (Path file : files) {
+				if (Files.getLastModifiedTime(file).toInstant().isAfter(oldest)) {
+					String name = file.getFileName().toString();
+					members.add(name.substring(0, name.length() - MEMBER_SUFFIX.length()));
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot list shard members in " + directory, e);
+		}
+		return members;
+	}
+
+	private Path memberFile(String instanceId) {
+		return directory.resolve(instanceId + MEMBER_SUFFIX);
+	}
+}
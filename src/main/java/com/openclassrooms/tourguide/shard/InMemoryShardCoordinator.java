@@ -0,0 +1,28 @@
+package com.openclassrooms.tourguide.shard;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link ShardCoordinator} for instances running in the same JVM, mainly for
+ * single-instance deployments and tests.
+ */
+public class InMemoryShardCoordinator implements ShardCoordinator {
+
+	private final Set<String> members = ConcurrentHashMap.newKeySet();
+
+	@Override
+	public void register(String instanceId) {
+		members.add(instanceId);
+	}
+
+	@Override
+	public void deregister(String instanceId) {
+		members.remove(instanceId);
+	}
+
+	@Override
+	public Set<String> getMembers() {
+		return Set.copyOf(members);
+	}
+}
@@ -0,0 +1,29 @@
+package com.openclassrooms.tourguide.shard;
+
+import java.util.Set;
+
+/**
+ * Registry of the TourGuide instances currently sharing the tracking work.
+ */
+public interface ShardCoordinator {
+
+	/**
+	 * Announces that an instance is alive. Called when it joins and on every
+	 * tracking cycle afterwards, so implementations may expire silent instances.
+	 *
+	 * @param instanceId the instance announcing itself
+	 */
+	void register(String instanceId);
+
+	/**
+	 * Removes an instance, handing its users over to the remaining instances.
+	 *
+	 * @param instanceId the instance leaving
+	 */
+	void deregister(String instanceId);
+
+	/**
+	 * @return the ids of every live instance
+	 */
+	Set<String> getMembers();
+}
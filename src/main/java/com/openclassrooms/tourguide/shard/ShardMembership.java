@@ -0,0 +1,96 @@
+package com.openclassrooms.tourguide.shard;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * This instance's view of the shard ring: which users it is responsible for tracking.
+ *
+ * <p>{@link #refresh()} re-announces the instance to the {@link ShardCoordinator}
+ * and rebuilds the ring whenever the set of live instances has changed, which
+ * rebalances ownership as instances join or leave.</p>
+ *
+ * <p>Ownership only decides who tracks a user; it does not move users between
+ * instances. Every instance must therefore know the same users, with the same
+ * ids: generated from the same seed, loaded from a shared journal or snapshot,
+ * or added on every instance. A user only known to an instance that does not own
+ * it is tracked by nobody, which is logged when such a user is added.</p>
+ */
+public class ShardMembership {
+
+	private static final Logger logger = LoggerFactory.getLogger(ShardMembership.class);
+
+	private final String instanceId;
+	private final ShardCoordinator coordinator;
+	private final int virtualNodes;
+
+	private volatile Set<String> members = Set.of();
+	private volatile ConsistentHashRing ring;
+
+	/**
+	 * Constructs a {@code ShardMembership} and joins the ring.
+	 *
+	 * @param instanceId   the id of this instance, unique across the deployment
+	 * @param coordinator  the registry of live instances
+	 * @param virtualNodes number of ring points per instance
+	 */
+	public ShardMembership(String instanceId, ShardCoordinator coordinator, int virtualNodes) {
+		this.instanceId = instanceId;
+		this.coordinator = coordinator;
+		this.virtualNodes = virtualNodes;
+		refresh();
+	}
+
+	/**
+	 * Creates the membership of a single instance that owns every user.
+	 *
+	 * @return a new {@code ShardMembership}
+	 */
+	public static ShardMembership standalone() {
+		return new ShardMembership("standalone", new InMemoryShardCoordinator(), 1);
+	}
+
+	public String getInstanceId() {
+		return instanceId;
+	}
+
+	/**
+	 * @return the live instances as of the last {@link #refresh()}
+	 */
+	public Set<String> getMembers() {
+		return members;
+	}
+
+	/**
+	 * Re-registers this instance and rebuilds the ring if membership changed.
+	 */
+	public void refresh() {
+		coordinator.register(instanceId);
+		Set<String> current = coordinator.getMembers();
+		if (!current.equals(members)) {
+			ring = new ConsistentHashRing(current, virtualNodes);
+			logger.info("Shard membership changed: {} -> {} (this instance: {})", members, current, instanceId);
+			members = current;
+		}
+	}
+
+	/**
+	 * Tells whether this instance is responsible for a user.
+	 *
+	 * @param userId the user id
+	 * @return {@code true} if this instance should track the user
+	 */
+	public boolean owns(UUID userId) {
+		return instanceId.equals(ring.ownerOf(userId));
+	}
+
+	/**
+	 * Leaves the ring, handing this instance's users over to the others.
+	 */
+	public void leave() {
+		coordinator.deregister(instanceId);
+	}
+}
@@ -0,0 +1,351 @@
+package com.openclassrooms.tourguide.spatial;
+
+import com.openclassrooms.tourguide.distance.Distances;
+import com.openclassrooms.tourguide.distance.GeoPoint;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spatial index over the attraction catalog, used to answer nearest-neighbour
+ * and within-radius queries without scanning and sorting every attraction.
+ *
+ * <p>Attractions are projected onto the unit sphere and stored in a 3-d tree.
+ * The straight-line (chord) distance between two points on the sphere grows
+ * monotonically with their great-circle distance, so ranking by chord distance
+ * gives exactly the same order as ranking by distance in miles. Each attraction's
+ * {@link GeoPoint} (its trigonometric values and unit-sphere projection) is
+ * computed once per catalog load and reused by every query.</p>
+ *
+ * <p>The tree is immutable once built. {@link #rebuild(List)} builds a new tree
+ * and publishes it in a single volatile write, so queries running concurrently
+ * always see either the old catalog or the new one, never a mix.</p>
+ */
+public class AttractionIndex {
+
+	private volatile Tree tree;
+
+	/**
+	 * Builds an index over the given attraction catalog.
+	 *
+	 * @param attractions the attractions to index
+	 */
+	public AttractionIndex(List<Attraction> attractions) {
+		this.tree = new Tree(attractions);
+	}
+
+	/**
+	 * Replaces the indexed catalog. Concurrent queries keep using the previous
+	 * tree until the new one is fully built.
+	 *
+	 * @param attractions the new attraction catalog
+	 */
+	public void rebuild(List<Attraction> attractions) {
+		this.tree = new Tree(attractions);
+	}
+
+	/**
+	 * Returns the indexed attractions, in the order they were supplied.
+	 *
+	 * @return an unmodifiable view of the catalog
+	 */
+	public List<Attraction> getAttractions() {
+		return tree.catalog;
+	}
+
+	/**
+	 * @return the number of indexed attractions
+	 */
+	public int size() {
+		return tree.catalog.size();
+	}
+
+	/**
+	 * Returns the precomputed point of an indexed attraction.
+	 *
+	 * @param attraction an attraction of the current catalog
+	 * @return its point, or {@code null} if the attraction is not indexed
+	 */
+	public GeoPoint pointOf(Attraction attraction) {
+		return tree.points.get(attraction);
+	}
+
+	/**
+	 * Finds the {@code k} attractions closest to a location.
+	 *
+	 * @param location the reference location
+	 * @param k        the maximum number of attractions to return
+	 * @return up to {@code k} attractions, closest first
+	 */
+	public List<Attraction> nearest(Location location, int k) {
+		Tree current = tree;
+		int limit = Math.min(k, current.size);
+		if (limit <= 0) {
+			return Collections.emptyList();
+		}
+
+		GeoPoint point = GeoPoint.of(location);
+		BoundedHeap heap = new BoundedHeap(limit);
+		current.nearest(0, current.size, 0, point, heap);
+		return heap.drainAscending(current.items);
+	}
+
+	/**
+	 * Finds every attraction within the given great-circle distance of a location.
+	 *
+	 * @param location the reference location
+	 * @param miles    the search radius in statute miles
+	 * @return the matching attractions, in catalog order
+	 */
+	public List<Attraction> withinRadius(Location location, double miles) {
+		Tree current = tree;
+		if (miles < 0 || current.size == 0) {
+			return Collections.emptyList();
+		}
+
+		double maxChordSquared = Distances.chordSquaredForMiles(miles);
+		GeoPoint point = GeoPoint.of(location);
+		List<Integer> hits = new ArrayList<>();
+		current.withinRadius(0, current.size, 0, point, maxChordSquared, hits);
+
+		int[] ordinals = new int[hits.size()];
+		for (int i = 0; i < ordinals.length; i++) {
+			ordinals[i] = current.ordinals[hits.get(i)];
+		}
+		Arrays.sort(ordinals);
+
+		List<Attraction> result = new ArrayList<>(ordinals.length);
+		for (int ordinal : ordinals) {
+			result.add(current.catalog.get(ordinal));
+		}
+		return result;
+	}
+
+	// ---------------------------------------------------------------------------
+	// Tree storage
+	// ---------------------------------------------------------------------------
+
+	/**
+	 * Implicit 3-d tree: the node for the range {@code [from, to)} is stored at
+	 * the middle of the range, with its left subtree before it and its right
+	 * subtree after it. Splitting axes cycle x, y, z by depth.
+	 */
+	private static final class Tree {
+
+		private final List<Attraction> catalog;
+		private final int size;
+		private final Attraction[] items;
+		private final int[] ordinals;
+		private final GeoPoint[] coords;
+		private final Map<Attraction, GeoPoint> points;
+
+		private Tree(List<Attraction> attractions) {
+			this.catalog = Collections.unmodifiableList(new ArrayList<>(attractions));
+			this.size = catalog.size();
+			this.items = new Attraction[size];
+			this.ordinals = new int[size];
+			this.coords = new GeoPoint[size];
+			this.points = new IdentityHashMap<>(size);
+
+			for (int i = 0; i < size; i++) {
+				items[i] = catalog.get(i);
+				ordinals[i] = i;
+				coords[i] = GeoPoint.of(items[i]);
+				points.put(items[i], coords[i]);
+			}
+			build(0, size, 0);
+		}
+
+		private void build(int from, int to, int depth) {
+			if (to - from <= 1) {
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			select(from, to - 1, mid, depth % 3);
+			build(from, mid, depth + 1);
+			build(mid + 1, to, depth + 1);
+		}
+
+		/**
+		 * Quickselect: reorders {@code [left, right]} so that position {@code k}
+		 * holds the median along {@code axis}, with smaller values before it.
+		 */
+		private void select(int left, int right, int k, int axis) {
+			while (right > left) {
+				double pivot = coords[(left + right) >>> 1].coordinate(axis);
+				int i = left;
+				int j = right;
+				while (i <= j) {
+					while (coords[i].coordinate(axis) < pivot) {
+						i++;
+					}
+					while (coords[j].coordinate(axis) > pivot) {
+						j--;
+					}
+					if (i <= j) {
+						swap(i++, j--);
+					}
+				}
+				if (k <= j) {
+					right = j;
+				} else if (k >= i) {
+					left = i;
+				} else {
+					return;
+				}
+			}
+		}
+
+		private void swap(int i, int j) {
+			Attraction item = items[i];
+			items[i] = items[j];
+			items[j] = item;
+
+			int ordinal = ordinals[i];
+			ordinals[i] = ordinals[j];
+			ordinals[j] = ordinal;
+
+			GeoPoint coord = coords[i];
+			coords[i] = coords[j];
+			coords[j] = coord;
+		}
+
+		private void nearest(int from, int to, int depth, GeoPoint point, BoundedHeap heap) {
+			if (from >= to) {
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			heap.offer(mid, coords[mid].chordSquaredTo(point));
+
+			int axis = depth % 3;
+			double delta = point.coordinate(axis) - coords[mid].coordinate(axis);
+			if (delta < 0) {
+				nearest(from, mid, depth + 1, point, heap);
+				if (!heap.isFull() || delta * delta <= heap.worst()) {
+					nearest(mid + 1, to, depth + 1, point, heap);
+				}
+			} else {
+				nearest(mid + 1, to, depth + 1, point, heap);
+				if (!heap.isFull() || delta * delta <= heap.worst()) {
+					nearest(from, mid, depth + 1, point, heap);
+				}
+			}
+		}
+
+		private void withinRadius(int from, int to, int depth, GeoPoint point, double maxChordSquared,
+				List<Integer> hits) {
+			if (from >= to) {
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			if (coords[mid].chordSquaredTo(point) <= maxChordSquared) {
+				hits.add(mid);
+			}
+
+			int axis = depth % 3;
+			double delta = point.coordinate(axis) - coords[mid].coordinate(axis);
+			if (delta <= 0 || delta * delta <= maxChordSquared) {
+				withinRadius(from, mid, depth + 1, point, maxChordSquared, hits);
+			}
+			if (delta >= 0 || delta * delta <= maxChordSquared) {
+				withinRadius(mid + 1, to, depth + 1, point, maxChordSquared, hits);
+			}
+		}
+	}
+
+	/**
+	 * Fixed-capacity max-heap of tree positions keyed by distance, keeping the
+	 * {@code capacity} closest entries seen so far.
+	 */
+	private static final class BoundedHeap {
+
+		private final int[] positions;
+		private final double[] distances;
+		private int count;
+
+		private BoundedHeap(int capacity) {
+			this.positions = new int[capacity];
+			this.distances = new double[capacity];
+		}
+
+		private boolean isFull() {
+			return count == positions.length;
+		}
+
+		private double worst() {
+			return distances[0];
+		}
+
+		private void offer(int position, double distance) {
+			if (!isFull()) {
+				positions[count] = position;
+				distances[count] = distance;
+				siftUp(count++);
+			} else if (distance < distances[0]) {
+				positions[0] = position;
+				distances[0] = distance;
+				siftDown(0, count);
+			}
+		}
+
+		/**
+		 * Empties the heap, returning its entries closest first.
+		 */
+		private List<Attraction> drainAscending(Attraction[] items) {
+			Attraction[] sorted = new Attraction[count];
+			for (int last = count - 1; last >= 0; last--) {
+				sorted[last] = items[positions[0]];
+				swap(0, last);
+				siftDown(0, last);
+			}
+			count = 0;
+			return Arrays.asList(sorted);
+		}
+
+		private void siftUp(int i) {
+			while (i > 0) {
+				int parent = (i - 1) >>> 1;
+				if (distances[parent] >= distances[i]) {
+					return;
+				}
+				swap(i, parent);
+				i = parent;
+			}
+		}
+
+		private void siftDown(int i, int length) {
+			while (true) {
+				int largest = i;
+				int left = 2 * i + 1;
+				int right = left + 1;
+				if (left < length && distances[left] > distances[largest]) {
+					largest = left;
+				}
+				if (right < length && distances[right] > distances[largest]) {
+					largest = right;
+				}
+				if (largest == i) {
+					return;
+				}
+				swap(i, largest);
+				i = largest;
+			}
+		}
+
+		private void swap(int i, int j) {
+			int position = positions[i];
+			positions[i] = positions[j];
+			positions[j] = position;
+
+			double distance = distances[i];
+			distances[i] = distances[j];
+			distances[j] = distance;
+		}
+	}
+}
@@ -0,0 +1,207 @@
+package com.openclassrooms.tourguide.tracker;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.openclassrooms.tourguide.user.User;
+
+import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Decides which users the {@link Tracker} polls on each tick when adaptive
+ * tracking is enabled.
+ *
+ * <p>Every user is parked in a {@link TimingWheel} until its next poll, the
+ * delay being chosen by the {@link TrackingCadence} from the user's last two
+ * locations. Users coming off the wheel join a backlog, oldest first, and are
+ * handed out within a budget of {@link AdaptiveSettings#getMaxCallsPerSecond()}
+ * GPS lookups per second. The budget refills continuously and holds at most one
+ * second's worth, so a tick that comes late never releases a burst.</p>
+ *
+ * <p>Polls are counted under {@code tourguide.tracker.polls}, tagged
+ * {@code schedule=adaptive}, next to the polls uniform tracking would have made
+ * over the same time, one per user and {@link TrackerSettings#getInterval()
+ * interval}, tagged {@code schedule=uniform}. Their difference is gauged under
+ * {@code tourguide.tracker.polls.saved}, the users on the schedule under
+ * {@code tourguide.tracker.scheduled} and the users held back by the budget under
+ * {@code tourguide.tracker.backlog}.</p>
+ *
+ * <p>Only {@link #getScheduledUsers()} and the metrics may be read from other
+ * threads; everything else belongs to the tracker thread.</p>
+ */
+public class AdaptiveScheduler {
+
+	private final TrackingCadence cadence;
+	private final long tickNanos;
+	private final long uniformIntervalNanos;
+	private final double callsPerSecond;
+	private final TimingWheel<User> wheel;
+	private final ArrayDeque<User> backlog = new ArrayDeque<>();
+	private final Set<UUID> scheduled = ConcurrentHashMap.newKeySet();
+	private final AtomicLong polls = new AtomicLong();
+
+	private volatile double uniformPolls;
+	private volatile int backlogSize;
+	private boolean started;
+	private long startTime;
+	private long lastTime;
+	private long ticks;
+	private double permits;
+
+	/**
+	 * @param cadence         chooses the delay before each user's next poll
+	 * @param settings        tick, interval bounds and call budget
+	 * @param uniformInterval the interval of uniform tracking, which savings are measured against
+	 * @param meterRegistry   registry receiving the scheduling metrics
+	 */
+	public AdaptiveScheduler(TrackingCadence cadence, AdaptiveSettings settings, Duration uniformInterval,
+			MeterRegistry meterRegistry) {
+		this.cadence = cadence;
+		this.tickNanos = Math.max(1, settings.getTick().toNanos());
+		this.uniformIntervalNanos = Math.max(1, uniformInterval.toNanos());
+		this.callsPerSecond = Math.max(1, settings.getMaxCallsPerSecond());
+		this.wheel = new TimingWheel<>((int) ticksFor(settings.getMaxInterval()));
+		this.permits = callsPerSecond;
+		FunctionCounter.builder("tourguide.tracker.polls", polls, AtomicLong::get)
+				.description("GPS polls made by the tracker, and those uniform tracking would have made")
+				.tag("schedule", "adaptive")
+				.register(meterRegistry);
+		FunctionCounter.builder("tourguide.tracker.polls", this, AdaptiveScheduler::getUniformPolls)
+				.description("GPS polls made by the tracker, and those uniform tracking would have made")
+				.tag("schedule", "uniform")
+				.register(meterRegistry);
+		Gauge.builder("tourguide.tracker.polls.saved", this, AdaptiveScheduler::getSavedPolls)
+				.description("GPS polls avoided compared with polling every user every interval")
+				.register(meterRegistry);
+		Gauge.builder("tourguide.tracker.scheduled", scheduled, Set::size)
+				.description("Users on the adaptive tracking schedule")
+				.register(meterRegistry);
+		Gauge.builder("tourguide.tracker.backlog", this, scheduler -> scheduler.backlogSize)
+				.description("Users due for a poll but held back by the GPS call budget")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Puts the users not on the schedule yet on it, due right away.
+	 *
+	 * @param users the users to track
+	 * @return the number of users added
+	 */
+	public int enroll(Iterator<User> users) {
+		int added = 0;
+		while (users.hasNext()) {
+			User user = users.next();
+			if (scheduled.add(user.getUserId())) {
+				backlog.addLast(user);
+				added++;
+			}
+		}
+		backlogSize = backlog.size();
+		return added;
+	}
+
+	/**
+	 * Advances the schedule to the given time and takes the users due by then,
+	 * as many as the GPS call budget allows.
+	 *
+	 * @param now the current {@link System#nanoTime()}
+	 * @return the users to poll now, oldest due first
+	 */
+	public List<User> due(long now) {
+		if (!started) {
+			started = true;
+			startTime = now;
+			lastTime = now;
+		}
+		long elapsed = Math.max(0, now - lastTime);
+		lastTime = now;
+		uniformPolls += (double) scheduled.size() * elapsed / uniformIntervalNanos;
+		permits = Math.min(callsPerSecond, permits + callsPerSecond * elapsed / 1e9);
+
+		long targetTick = (now - startTime) / tickNanos;
+		while (ticks < targetTick) {
+			wheel.advance(backlog);
+			ticks++;
+		}
+
+		int count = (int) Math.min(permits, backlog.size());
+		permits -= count;
+		List<User> due = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			due.add(backlog.pollFirst());
+		}
+		backlogSize = backlog.size();
+		return due;
+	}
+
+	/**
+	 * Records the poll of a user and puts it back on the schedule. A poll that
+	 * added no location failed, and is retried at the cadence of a user without one.
+	 *
+	 * <p>Whether a location was added is told by the history's sequence number,
+	 * not by the last location: a columnar history builds a new object for it on
+	 * every call, and a full history keeps the same size.</p>
+	 *
+	 * @param user             a user returned by {@link #due(long)} and polled since
+	 * @param previous         the user's location before the poll, or {@code null}
+	 * @param previousSequence the user's {@link User#getVisitedLocationSequence() sequence} before the poll
+	 */
+	public void reschedule(User user, VisitedLocation previous, long previousSequence) {
+		polls.incrementAndGet();
+		VisitedLocation current = user.getVisitedLocationSequence() == previousSequence ? null
+				: user.getLastVisitedLocation();
+		wheel.schedule(user, ticksFor(cadence.nextInterval(previous, current)));
+	}
+
+	/**
+	 * Takes a user returned by {@link #due(long)} off the schedule, for instance
+	 * because another instance tracks it now. It is enrolled again if it comes back.
+	 *
+	 * @param user the user to forget
+	 */
+	public void forget(User user) {
+		scheduled.remove(user.getUserId());
+	}
+
+	/**
+	 * @return the number of users on the schedule
+	 */
+	public int getScheduledUsers() {
+		return scheduled.size();
+	}
+
+	/**
+	 * @return the number of polls made so far
+	 */
+	public long getPolls() {
+		return polls.get();
+	}
+
+	/**
+	 * @return the number of polls uniform tracking would have made so far
+	 */
+	public double getUniformPolls() {
+		return uniformPolls;
+	}
+
+	/**
+	 * @return the polls avoided so far compared with uniform tracking; negative if adaptive tracking polled more
+	 */
+	public double getSavedPolls() {
+		return uniformPolls - polls.get();
+	}
+
+	private long ticksFor(Duration interval) {
+		return Math.ceilDiv(interval.toNanos(), tickNanos);
+	}
+}
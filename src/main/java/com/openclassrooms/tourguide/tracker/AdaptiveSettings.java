@@ -0,0 +1,112 @@
+package com.openclassrooms.tourguide.tracker;
+
+import java.time.Duration;
+
+/**
+ * Settings of adaptive tracking, bound from {@code tourguide.tracker.adaptive.*}.
+ *
+ * <p>When enabled, each user is polled at its own {@link TrackingCadence cadence}
+ * instead of once per {@link TrackerSettings#getInterval() interval}, which remains
+ * the uniform rate savings are measured against.</p>
+ */
+public class AdaptiveSettings {
+
+	/** Whether users are polled at their own cadence instead of all together every interval. */
+	private boolean enabled;
+
+	/** Resolution of the scheduler: due users are collected once per tick. */
+	private Duration tick = Duration.ofSeconds(1);
+
+	/** Time between two polls of a user close to an attraction or moving fast. */
+	private Duration minInterval = Duration.ofMinutes(1);
+
+	/** Time between two polls of a stationary user, or of one far from every attraction. */
+	private Duration maxInterval = Duration.ofMinutes(30);
+
+	/** Distance to the nearest attraction within which a user is polled at the minimum interval. */
+	private double nearMiles = 10;
+
+	/** Distance to the nearest attraction beyond which a user is polled at the maximum interval. */
+	private double farMiles = 100;
+
+	/** Speed between the last two locations above which a user is polled at the minimum interval. */
+	private double fastMilesPerHour = 30;
+
+	/** Displacement between the last two locations below which a user counts as stationary. */
+	private double stationaryMiles = 0.1;
+
+	/** Maximum number of GPS lookups started per second; due users beyond it wait for the next tick. */
+	private int maxCallsPerSecond = 1000;
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Duration getTick() {
+		return tick;
+	}
+
+	public void setTick(Duration tick) {
+		this.tick = tick;
+	}
+
+	public Duration getMinInterval() {
+		return minInterval;
+	}
+
+	public void setMinInterval(Duration minInterval) {
+		this.minInterval = minInterval;
+	}
+
+	public Duration getMaxInterval() {
+		return maxInterval;
+	}
+
+	public void setMaxInterval(Duration maxInterval) {
+		this.maxInterval = maxInterval;
+	}
+
+	public double getNearMiles() {
+		return nearMiles;
+	}
+
+	public void setNearMiles(double nearMiles) {
+		this.nearMiles = nearMiles;
+	}
+
+	public double getFarMiles() {
+		return farMiles;
+	}
+
+	public void setFarMiles(double farMiles) {
+		this.farMiles = farMiles;
+	}
+
+	public double getFastMilesPerHour() {
+		return fastMilesPerHour;
+	}
+
+	public void setFastMilesPerHour(double fastMilesPerHour) {
+		this.fastMilesPerHour = fastMilesPerHour;
+	}
+
+	public double getStationaryMiles() {
+		return stationaryMiles;
+	}
+
+	public void setStationaryMiles(double stationaryMiles) {
+		this.stationaryMiles = stationaryMiles;
+	}
+
+	public int getMaxCallsPerSecond() {
+		return maxCallsPerSecond;
+	}
+
+	public void setMaxCallsPerSecond(int maxCallsPerSecond) {
+		this.maxCallsPerSecond = maxCallsPerSecond;
+	}
+}
@@ -0,0 +1,13 @@
+package com.openclassrooms.tourguide.tracker;
+
+/**
+ * What the {@link Tracker} does when a cycle takes longer than the tracking interval.
+ */
+public enum OverrunPolicy {
+
+	/** Drop the ticks that were missed and wait for the next one on the original schedule. */
+	SKIP,
+
+	/** Start one catch-up cycle immediately, standing in for every missed tick. */
+	MERGE
+}
@@ -0,0 +1,97 @@
+package com.openclassrooms.tourguide.tracker;
+
+import java.time.Duration;
+
+/**
+ * Settings of the {@link TrackingPipeline}, bound from {@code tourguide.tracker.pipeline.*}.
+ */
+public class PipelineSettings {
+
+	/** Whether the tracker feeds users through the staged pipeline instead of batch tasks. */
+	private boolean enabled;
+
+	/** Time allowed for queued users to go through the remaining stages on shutdown. */
+	private Duration drainTimeout = Duration.ofSeconds(30);
+
+	private final StageSettings fetch = new StageSettings(100, 1000);
+	private final StageSettings append = new StageSettings(2, 1000);
+	private final StageSettings evaluate = new StageSettings(4, 1000);
+	private final StageSettings lookup = new StageSettings(100, 1000);
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Duration getDrainTimeout() {
+		return drainTimeout;
+	}
+
+	public void setDrainTimeout(Duration drainTimeout) {
+		this.drainTimeout = drainTimeout;
+	}
+
+	/**
+	 * @return settings of the GPS location lookups
+	 */
+	public StageSettings getFetch() {
+		return fetch;
+	}
+
+	/**
+	 * @return settings of the location history appends
+	 */
+	public StageSettings getAppend() {
+		return append;
+	}
+
+	/**
+	 * @return settings of the reward matching
+	 */
+	public StageSettings getEvaluate() {
+		return evaluate;
+	}
+
+	/**
+	 * @return settings of the reward points lookups
+	 */
+	public StageSettings getLookup() {
+		return lookup;
+	}
+
+	/**
+	 * Capacity of one stage.
+	 */
+	public static class StageSettings {
+
+		/** Number of threads working the stage. */
+		private int parallelism;
+
+		/** Number of users waiting for the stage before upstream stages block. */
+		private int queueCapacity;
+
+		public StageSettings(int parallelism, int queueCapacity) {
+			this.parallelism = parallelism;
+			this.queueCapacity = queueCapacity;
+		}
+
+		public int getParallelism() {
+			return parallelism;
+		}
+
+		public void setParallelism(int parallelism) {
+			this.parallelism = parallelism;
+		}
+
+		public int getQueueCapacity() {
+			return queueCapacity;
+		}
+
+		public void setQueueCapacity(int queueCapacity) {
+			this.queueCapacity = queueCapacity;
+		}
+	}
+}
@@ -0,0 +1,178 @@
+package com.openclassrooms.tourguide.tracker;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * One stage of a pipeline: a bounded queue worked by a fixed number of threads.
+ *
+ * <p>{@link #submit(Object)} blocks while the queue is full, so a slow stage
+ * holds back the stages feeding it instead of buffering without limit. The
+ * handler usually ends by submitting the item to the next stage. Items whose
+ * handler throws are passed to the failure callback and go no further.</p>
+ *
+ * <p>Published to Micrometer with a {@code stage} tag: the time each item spends
+ * in the handler ({@code tourguide.pipeline.stage.latency}, whose count is the
+ * stage's throughput), the queue depth ({@code tourguide.pipeline.stage.queue})
+ * and the failures ({@code tourguide.pipeline.stage.failures}).</p>
+ *
+ * @param <T> the type of the items flowing through the stage
+ */
+class PipelineStage<T> {
+
+	private static final Logger logger = LoggerFactory.getLogger(PipelineStage.class);
+
+	/** How often idle workers check whether the stage was closed. */
+	private static final long POLL_INTERVAL_MILLIS = 100;
+
+	private final String name;
+	private final BlockingQueue<T> queue;
+	private final Handler<T> handler;
+	private final BiConsumer<T, Throwable> onFailure;
+	private final List<Thread> workers = new ArrayList<>();
+	private final MeterRegistry meterRegistry;
+	private final Timer latency;
+	private final Counter failures;
+	private final Gauge queueDepth;
+	private volatile boolean closed;
+
+	/**
+	 * Constructs a {@code PipelineStage} and starts its workers.
+	 *
+	 * @param name          the stage name, used for threads and metrics
+	 * @param settings      the stage's parallelism and queue capacity
+	 * @param threadFactory factory of the worker threads
+	 * @param handler       the work done on each item
+	 * @param onFailure     called with each item whose handler failed, and with items dropped on close
+	 * @param meterRegistry registry receiving the stage metrics
+	 */
+	PipelineStage(String name, PipelineSettings.StageSettings settings, ThreadFactory threadFactory,
+			Handler<T> handler, BiConsumer<T, Throwable> onFailure, MeterRegistry meterRegistry) {
+		this.name = name;
+		this.queue = new ArrayBlockingQueue<>(Math.max(1, settings.getQueueCapacity()));
+		this.handler = handler;
+		this.onFailure = onFailure;
+		this.meterRegistry = meterRegistry;
+		this.latency = Timer.builder("tourguide.pipeline.stage.latency")
+				.description("Time spent processing one item in a tracking pipeline stage")
+				.tag("stage", name)
+				.publishPercentileHistogram()
+				.register(meterRegistry);
+		this.failures = Counter.builder("tourguide.pipeline.stage.failures")
+				.description("Items that failed in a tracking pipeline stage")
+				.tag("stage", name)
+				.register(meterRegistry);
+		this.queueDepth = Gauge.builder("tourguide.pipeline.stage.queue", queue, BlockingQueue::size)
+				.description("Items waiting for a tracking pipeline stage")
+				.tag("stage", name)
+				.register(meterRegistry);
+		for (int i = 0; i < Math.max(1, settings.getParallelism()); i++) {
+			Thread worker = threadFactory.newThread(this::work);
+			worker.setName("tourguide-" + name + "-" + i);
+			workers.add(worker);
+			worker.start();
+		}
+	}
+
+	/**
+	 * Queues an item, waiting while the stage is full.
+	 *
+	 * @param item the item to process
+	 * @throws InterruptedException       if interrupted while waiting for room
+	 * @throws RejectedExecutionException if the stage was closed
+	 */
+	void submit(T item) throws InterruptedException {
+		if (closed) {
+			throw new RejectedExecutionException("Pipeline stage " + name + " is closed");
+		}
+		queue.put(item);
+	}
+
+	/**
+	 * @return the number of items waiting in the queue
+	 */
+	int queueDepth() {
+		return queue.size();
+	}
+
+	private void work() {
+		try {
+			while (true) {
+				T item = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+				if (item == null) {
+					if (closed) {
+						return;
+					}
+					continue;
+				}
+				long start = System.nanoTime();
+				try {
+					handler.handle(item);
+				} catch (InterruptedException e) {
+					onFailure.accept(item, e);
+					throw e;
+				} catch (RuntimeException e) {
+					failures.increment();
+					onFailure.accept(item, e);
+				} finally {
+					latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Stops accepting items and lets the workers finish the queue, up to the
+	 * deadline. Workers still busy at the deadline are interrupted, and items
+	 * left in the queue are failed with a {@link CancellationException}.
+	 *
+	 * @param deadline {@link System#nanoTime()} by which the queue must be drained
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	void close(long deadline) throws InterruptedException {
+		closed = true;
+		try {
+			for (Thread worker : workers) {
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0 || !worker.join(Duration.ofNanos(remaining))) {
+					break;
+				}
+			}
+		} finally {
+			workers.forEach(Thread::interrupt);
+			List<T> dropped = new ArrayList<>();
+			queue.drainTo(dropped);
+			if (!dropped.isEmpty()) {
+				logger.warn("Pipeline stage {} did not drain in time, dropping {} queued items", name, dropped.size());
+			}
+			dropped.forEach(item -> onFailure.accept(item,
+					new CancellationException("Pipeline stage " + name + " closed")));
+			meterRegistry.remove(queueDepth);
+		}
+	}
+
+	/**
+	 * Work done on one item.
+	 */
+	@FunctionalInterface
+	interface Handler<T> {
+		void handle(T item) throws InterruptedException;
+	}
+}
@@ -0,0 +1,65 @@
+package com.openclassrooms.tourguide.tracker;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+
+/**
+ * Hashed timing wheel: a ring of slots, one per tick, each holding the items
+ * due on that tick.
+ *
+ * <p>Scheduling and collecting due items are constant time whatever the number
+ * of scheduled items, unlike a priority queue. Delays are capped at one turn of
+ * the wheel, so an item is never due more than one lap ahead. The wheel is not
+ * thread-safe; the {@link Tracker} only touches it from its own thread.</p>
+ *
+ * @param <T> the scheduled items
+ */
+public class TimingWheel<T> {
+
+	private final ArrayDeque<T>[] slots;
+	private int cursor;
+	private int size;
+
+	/**
+	 * @param maxDelayTicks the longest delay, in ticks, items can be scheduled with
+	 */
+	@SuppressWarnings("unchecked")
+	public TimingWheel(int maxDelayTicks) {
+		this.slots = new ArrayDeque[Math.max(1, maxDelayTicks) + 1];
+		for (int i = 0; i < slots.length; i++) {
+			slots[i] = new ArrayDeque<>();
+		}
+	}
+
+	/**
+	 * Schedules an item a number of ticks after the current one.
+	 *
+	 * @param item       the item to schedule
+	 * @param delayTicks the delay, raised to one tick and capped at the longest delay
+	 */
+	public void schedule(T item, long delayTicks) {
+		long delay = Math.max(1, Math.min(delayTicks, slots.length - 1));
+		slots[(int) ((cursor + delay) % slots.length)].addLast(item);
+		size++;
+	}
+
+	/**
+	 * Moves to the next tick and hands over the items due on it, in the order they were scheduled.
+	 *
+	 * @param due receives the items due on the new tick
+	 */
+	public void advance(Collection<? super T> due) {
+		cursor = (cursor + 1) % slots.length;
+		ArrayDeque<T> slot = slots[cursor];
+		size -= slot.size();
+		due.addAll(slot);
+		slot.clear();
+	}
+
+	/**
+	 * @return the number of items scheduled
+	 */
+	public int size() {
+		return size;
+	}
+}
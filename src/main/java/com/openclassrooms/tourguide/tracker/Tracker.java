@@ -1,100 +1,329 @@
 package com.openclassrooms.tourguide.tracker;
 
+import com.openclassrooms.tourguide.execution.ExecutionStrategy;
 import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.shard.ShardMembership;
+import com.openclassrooms.tourguide.spatial.AttractionIndex;
 import com.openclassrooms.tourguide.user.User;
-import org.apache.commons.lang3.time.StopWatch;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import gpsUtil.location.VisitedLocation;
+
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Background tracker that periodically updates user locations
+ * Background tracker that periodically updates user locations.
+ *
+ * <p>Cycles start at a fixed rate given by {@link TrackerSettings#getInterval()}.
+ * Each cycle splits the users into batches and tracks up to
+ * {@link TrackerSettings#getParallelism()} batches at the same time on the shared
+ * task executor, each through {@link TourGuideService#trackUserLocations(List)}.
+ * Cycles never overlap: when one runs past the next scheduled start, the overrun
+ * is counted and logged, and the next cycle is either skipped
+ * to the following tick or started right away, depending on the
+ * {@link OverrunPolicy}.</p>
+ *
+ * <p>When the {@link PipelineSettings staged pipeline} is enabled, users are
+ * instead fed one by one to {@link TourGuideService#trackUserLocationAsync(User)},
+ * and the cycle ends once every one of them went through the pipeline.</p>
+ *
+ * <p>When several instances share the users, each cycle first refreshes the
+ * {@link ShardMembership} and then only tracks the users this instance owns, so
+ * ownership follows instances joining or leaving from one cycle to the next.</p>
+ *
+ * <p>When {@link AdaptiveSettings adaptive tracking} is enabled, the tracker
+ * instead wakes up every tick and polls only the users the
+ * {@link AdaptiveScheduler} finds due, each at its own cadence and within the
+ * GPS call budget; each tick that polls anyone counts as a cycle. The user set is walked, and
+ * the shard membership refreshed, once per interval to put new users on the
+ * schedule. Ticks never overlap, and a late one simply collects more due users,
+ * so the overrun policy does not apply.</p>
+ *
+ * <p>Cycle durations are timed under {@code tourguide.tracker.cycle} and overruns
+ * counted under {@code tourguide.tracker.overruns}.</p>
  */
-public class Tracker extends Thread {
+public class Tracker {
 
 	private final Logger logger = LoggerFactory.getLogger(Tracker.class);
 
-	/** Interval between tracking cycles (default: 5 minutes). */
-	private static final long trackingPollingInterval = TimeUnit.MINUTES.toSeconds(5);
-
-	/** Executor managing the tracker thread. */
-	private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+	/** Scheduler owning the single tracker thread. */
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
 
 	/** Reference to the main service that handles user tracking and rewards. */
 	private final TourGuideService tourGuideService;
 
-	/** Flag used to signal the thread to stop gracefully. */
-	private boolean stop = false;
+	/** Executor running the batch tasks. */
+	private final Executor executor;
+
+	private final TrackerSettings settings;
+
+	/** Decides which users this instance tracks. */
+	private final ShardMembership shardMembership;
+
+	/** Per-user schedule, or {@code null} when every user is polled every cycle. */
+	private final AdaptiveScheduler adaptiveScheduler;
+
+	/** Time at which the adaptive tracker next walks the user set. */
+	private long nextEnrollment;
+
+	private final AtomicLong completedCycles = new AtomicLong();
+	private final AtomicLong overruns = new AtomicLong();
+	private final Timer cycleTimer;
+
+	/** Flag used to signal the tracker to stop gracefully. */
+	private volatile boolean stop = false;
 
 	/**
-	 * Constructs a new {@code Tracker} and immediately submits it to its executor.
+	 * Constructs a new {@code Tracker} and schedules its first cycle immediately.
 	 *
 	 * @param tourGuideService the {@link TourGuideService} used for tracking user locations
+	 * @param executor         executor running the batch tasks
+	 * @param settings         interval, batch size, parallelism and overrun policy
+	 * @param shardMembership  decides which users this instance tracks
+	 * @param attractionIndex  index used by adaptive tracking to find the attraction closest to a user
+	 * @param meterRegistry    registry receiving the cycle metrics
 	 */
-	public Tracker(TourGuideService tourGuideService) {
+	public Tracker(TourGuideService tourGuideService, Executor executor, TrackerSettings settings,
+			ShardMembership shardMembership, AttractionIndex attractionIndex, MeterRegistry meterRegistry) {
 		this.tourGuideService = tourGuideService;
-		executorService.submit(this);
+		this.executor = executor;
+		this.settings = settings;
+		this.shardMembership = shardMembership;
+		this.cycleTimer = Timer.builder("tourguide.tracker.cycle")
+				.description("Duration of a tracking cycle")
+				.publishPercentileHistogram()
+				.register(meterRegistry);
+		FunctionCounter.builder("tourguide.tracker.overruns", overruns, AtomicLong::get)
+				.description("Tracking cycles that ran past the start of the next one")
+				.register(meterRegistry);
+		AdaptiveSettings adaptive = settings.getAdaptive();
+		if (adaptive.isEnabled()) {
+			this.adaptiveScheduler = new AdaptiveScheduler(new TrackingCadence(attractionIndex, adaptive), adaptive,
+					settings.getInterval(), meterRegistry);
+			this.nextEnrollment = System.nanoTime();
+			scheduler.scheduleWithFixedDelay(this::runTick, 0, adaptive.getTick().toNanos(), TimeUnit.NANOSECONDS);
+		} else {
+			this.adaptiveScheduler = null;
+			scheduler.execute(this::runCycle);
+		}
 	}
 
 	/**
-	 * Stops the tracking process and shuts down the executor service.
+	 * Stops the tracking process and shuts down the scheduler.
 	 * <p>
 	 * Once called, the tracker will no longer run periodic location updates.
 	 * </p>
 	 */
 	public void stopTracking() {
 		stop = true;
-		executorService.shutdownNow();
+		scheduler.shutdownNow();
 	}
 
 	/**
-	 * Main execution loop of the Tracker thread.
-	 *
-	 * <p>
-	 * Continuously retrieves all users from {@link TourGuideService},
-	 * tracks their latest location, and logs performance metrics.
-	 * </p>
-	 *
-	 * <p>
-	 * The thread sleeps for {@code trackingPollingInterval} seconds between cycles.
-	 * It can be interrupted externally or stopped using {@link #stopTracking()}.
-	 * </p>
+	 * @return the number of tracking cycles completed so far
 	 */
-	@Override
-	public void run() {
-		StopWatch stopWatch = new StopWatch();
-
-		while (true) {
-			if (Thread.currentThread().isInterrupted() || stop) {
-				logger.debug("Tracker stopping...");
-				break;
-			}
+	public long getCompletedCycles() {
+		return completedCycles.get();
+	}
 
-			List<User> users = tourGuideService.getAllUsers();
-			logger.debug("Tracker started. Tracking {} users.", users.size());
+	/**
+	 * @return the number of cycles that ran past the start of the next one
+	 */
+	public long getOverruns() {
+		return overruns.get();
+	}
 
-			stopWatch.start();
+	/**
+	 * @return the per-user schedule, or {@code null} unless adaptive tracking is enabled
+	 */
+	public AdaptiveScheduler getAdaptiveScheduler() {
+		return adaptiveScheduler;
+	}
 
-			// Update each user's location by calling TourGuideService
-			users.forEach(tourGuideService::trackUserLocation);
+	/**
+	 * Runs one tracking cycle, then schedules the next one.
+	 */
+	private void runCycle() {
+		if (stop) {
+			return;
+		}
+		long cycleStart = System.nanoTime();
 
-			stopWatch.stop();
-			logger.debug("Tracker elapsed time: {} seconds.",
-					TimeUnit.MILLISECONDS.toSeconds(stopWatch.getTime()));
+		try {
+			shardMembership.refresh();
+			logger.debug("Tracker started.");
+			Iterator<User> users = tourGuideService.streamAllUsers()
+					.filter(user -> shardMembership.owns(user.getUserId())).iterator();
+			int tracked = settings.getPipeline().isEnabled() ? trackThroughPipeline(users) : trackInBatches(users);
+			logger.debug("Tracker submitted {} users.", tracked);
+		} catch (InterruptedException e) {
+			logger.debug("Tracker interrupted during tracking. Stopping...");
+			return;
+		} catch (RuntimeException e) {
+			logger.error("Tracker cycle failed", e);
+		}
+
+		long now = System.nanoTime();
+		completedCycles.incrementAndGet();
+		cycleTimer.record(now - cycleStart, TimeUnit.NANOSECONDS);
+		logger.debug("Tracker elapsed time: {} seconds.", TimeUnit.NANOSECONDS.toSeconds(now - cycleStart));
+
+		if (!stop) {
+			long delay = delayBeforeNextCycle(cycleStart, now);
+			logger.debug("Tracker sleeping for {} seconds...", TimeUnit.NANOSECONDS.toSeconds(delay));
+			scheduler.schedule(this::runCycle, delay, TimeUnit.NANOSECONDS);
+		}
+	}
 
-			stopWatch.reset();
+	/**
+	 * Polls the users due on this tick, then puts them back on the schedule.
+	 */
+	private void runTick() {
+		if (stop) {
+			return;
+		}
+		long tickStart = System.nanoTime();
 
+		try {
+			if (tickStart - nextEnrollment >= 0) {
+				nextEnrollment = tickStart + settings.getInterval().toNanos();
+				shardMembership.refresh();
+				int enrolled = adaptiveScheduler.enroll(tourGuideService.streamAllUsers()
+						.filter(user -> shardMembership.owns(user.getUserId())).iterator());
+				logger.debug("Tracker enrolled {} new users.", enrolled);
+			}
+
+			List<User> owned = new ArrayList<>();
+			List<VisitedLocation> previous = new ArrayList<>();
+			List<Long> previousSequences = new ArrayList<>();
+			for (User user : adaptiveScheduler.due(tickStart)) {
+				if (shardMembership.owns(user.getUserId())) {
+					owned.add(user);
+					previous.add(user.getLastVisitedLocation());
+					previousSequences.add(user.getVisitedLocationSequence());
+				} else {
+					adaptiveScheduler.forget(user);
+				}
+			}
+			if (owned.isEmpty()) {
+				return;
+			}
 			try {
-				logger.debug("Tracker sleeping for {} seconds...", trackingPollingInterval);
-				TimeUnit.SECONDS.sleep(trackingPollingInterval);
-			} catch (InterruptedException e) {
-				logger.debug("Tracker interrupted during sleep. Stopping...");
-				break;
+				if (settings.getPipeline().isEnabled()) {
+					trackThroughPipeline(owned.iterator());
+				} else {
+					trackInBatches(owned.iterator());
+				}
+			} finally {
+				// Put everyone back, tracked or not, so a failed tick never loses users
+				for (int i = 0; i < owned.size(); i++) {
+					adaptiveScheduler.reschedule(owned.get(i), previous.get(i), previousSequences.get(i));
+				}
 			}
+		} catch (InterruptedException e) {
+			logger.debug("Tracker interrupted during tracking. Stopping...");
+			return;
+		} catch (RuntimeException e) {
+			logger.error("Tracker tick failed", e);
+		}
+
+		completedCycles.incrementAndGet();
+		cycleTimer.record(System.nanoTime() - tickStart, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Tracks every user, one batch task per {@code batchSize} users, with at most
+	 * {@code parallelism} batches in flight. Batches are cut while walking the
+	 * users, so the whole user set is never copied.
+	 *
+	 * @return the number of users submitted
+	 */
+	private int trackInBatches(Iterator<User> users) throws InterruptedException {
+		int batchSize = Math.max(1, settings.getBatchSize());
+		Semaphore inFlight = new Semaphore(Math.max(1, settings.getParallelism()));
+		List<CompletableFuture<Void>> batches = new ArrayList<>();
+		int submitted = 0;
+
+		while (users.hasNext()) {
+			List<User> batch = new ArrayList<>(batchSize);
+			while (batch.size() < batchSize && users.hasNext()) {
+				batch.add(users.next());
+			}
+			submitted += batch.size();
+			inFlight.acquire();
+			batches.add(ExecutionStrategy.runAsync(() -> trackBatch(batch), executor)
+					.whenComplete((ignored, e) -> inFlight.release()));
+		}
+
+		try {
+			CompletableFuture.allOf(batches.toArray(new CompletableFuture[0])).get();
+		} catch (ExecutionException e) {
+			logger.error("Tracker batch failed", e.getCause());
+		}
+		return submitted;
+	}
+
+	/**
+	 * Feeds every user to the tracking pipeline, which blocks while its first
+	 * stage is full, then waits for all of them to come out.
+	 *
+	 * @return the number of users submitted
+	 */
+	private int trackThroughPipeline(Iterator<User> users) throws InterruptedException {
+		List<CompletableFuture<?>> tracked = new ArrayList<>();
+		while (users.hasNext() && !stop) {
+			// Failures are logged by the pipeline; the cycle only waits for them
+			tracked.add(tourGuideService.trackUserLocationAsync(users.next()).exceptionally(e -> null));
+		}
+		try {
+			CompletableFuture.allOf(tracked.toArray(new CompletableFuture[0])).get();
+		} catch (ExecutionException e) {
+			logger.error("Tracker pipeline failed", e.getCause());
+		}
+		return tracked.size();
+	}
+
+	private void trackBatch(List<User> batch) {
+		if (stop) {
+			return;
+		}
+		tourGuideService.trackUserLocations(batch);
+	}
+
+	/**
+	 * Computes how long to wait before the next cycle, applying the overrun policy
+	 * when the cycle that just ended ran past the next scheduled start.
+	 */
+	private long delayBeforeNextCycle(long cycleStart, long now) {
+		long interval = settings.getInterval().toNanos();
+		long nextStart = cycleStart + interval;
+		if (now <= nextStart) {
+			return nextStart - now;
+		}
+
+		long missedTicks = (now - cycleStart) / interval;
+		overruns.incrementAndGet();
+		logger.warn("Tracker cycle overran the {} interval by {} ms ({} tick(s) missed), policy: {}",
+				settings.getInterval(), TimeUnit.NANOSECONDS.toMillis(now - nextStart), missedTicks,
+				settings.getOverrunPolicy());
+
+		if (settings.getOverrunPolicy() == OverrunPolicy.MERGE) {
+			return 0;
 		}
+		return cycleStart + (missedTicks + 1) * interval - now;
 	}
 }
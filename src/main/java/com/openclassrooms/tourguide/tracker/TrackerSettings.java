@@ -0,0 +1,67 @@
+package com.openclassrooms.tourguide.tracker;
+
+import java.time.Duration;
+
+/**
+ * Scheduling settings of the {@link Tracker}, bound from {@code tourguide.tracker.*}.
+ */
+public class TrackerSettings {
+
+	/** Time between the starts of two tracking cycles. */
+	private Duration interval = Duration.ofMinutes(5);
+
+	/** Number of users tracked by one batch task. */
+	private int batchSize = 100;
+
+	/** Maximum number of batches tracked at the same time. */
+	private int parallelism = 100;
+
+	/** Behaviour when a cycle runs past the next scheduled start. */
+	private OverrunPolicy overrunPolicy = OverrunPolicy.SKIP;
+
+	/** Staged tracking, used instead of batch tasks when enabled. */
+	private final PipelineSettings pipeline = new PipelineSettings();
+
+	/** Per-user polling cadence, used instead of polling everyone every interval when enabled. */
+	private final AdaptiveSettings adaptive = new AdaptiveSettings();
+
+	public Duration getInterval() {
+		return interval;
+	}
+
+	public void setInterval(Duration interval) {
+		this.interval = interval;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	public OverrunPolicy getOverrunPolicy() {
+		return overrunPolicy;
+	}
+
+	public void setOverrunPolicy(OverrunPolicy overrunPolicy) {
+		this.overrunPolicy = overrunPolicy;
+	}
+
+	public PipelineSettings getPipeline() {
+		return pipeline;
+	}
+
+	public AdaptiveSettings getAdaptive() {
+		return adaptive;
+	}
+}
@@ -0,0 +1,79 @@
+package com.openclassrooms.tourguide.tracker;
+
+import java.time.Duration;
+import java.util.List;
+
+import com.openclassrooms.tourguide.distance.DistanceFormula;
+import com.openclassrooms.tourguide.spatial.AttractionIndex;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Decides how long to wait before polling a user again, from its last two
+ * locations.
+ *
+ * <p>A user close to an attraction, or moving faster than
+ * {@link AdaptiveSettings#getFastMilesPerHour()}, is polled at the minimum
+ * interval. A user who barely moved since the previous poll, or who is far from
+ * every attraction, is polled at the maximum interval. In between, the interval
+ * grows linearly with the distance to the nearest attraction. A user without a
+ * location yet, or whose poll failed, is polled again at the minimum interval.</p>
+ */
+public class TrackingCadence {
+
+	private static final double NANOS_PER_HOUR = Duration.ofHours(1).toNanos();
+
+	private final AttractionIndex attractionIndex;
+	private final AdaptiveSettings settings;
+
+	/**
+	 * @param attractionIndex index used to find the attraction closest to a user
+	 * @param settings        interval bounds and thresholds
+	 */
+	public TrackingCadence(AttractionIndex attractionIndex, AdaptiveSettings settings) {
+		this.attractionIndex = attractionIndex;
+		this.settings = settings;
+	}
+
+	/**
+	 * @param previous the location before the latest poll, or {@code null}
+	 * @param current  the location returned by the latest poll, or {@code null} if it failed
+	 * @return the time to wait before polling the user again
+	 */
+	public Duration nextInterval(VisitedLocation previous, VisitedLocation current) {
+		Duration min = settings.getMinInterval();
+		Duration max = settings.getMaxInterval();
+		if (current == null) {
+			return min;
+		}
+
+		double nearestMiles = nearestAttractionMiles(current);
+		if (nearestMiles <= settings.getNearMiles()) {
+			return min;
+		}
+		if (previous != null) {
+			double movedMiles = DistanceFormula.HAVERSINE.miles(previous.location, current.location);
+			long elapsed = current.timeVisited.getTime() - previous.timeVisited.getTime();
+			double hours = Duration.ofMillis(Math.max(1, elapsed)).toNanos() / NANOS_PER_HOUR;
+			if (movedMiles / hours >= settings.getFastMilesPerHour()) {
+				return min;
+			}
+			if (movedMiles < settings.getStationaryMiles()) {
+				return max;
+			}
+		}
+		if (nearestMiles >= settings.getFarMiles()) {
+			return max;
+		}
+
+		double ratio = (nearestMiles - settings.getNearMiles()) / (settings.getFarMiles() - settings.getNearMiles());
+		return min.plusNanos(Math.round((max.toNanos() - min.toNanos()) * ratio));
+	}
+
+	private double nearestAttractionMiles(VisitedLocation visitedLocation) {
+		List<Attraction> nearest = attractionIndex.nearest(visitedLocation.location, 1);
+		return nearest.isEmpty() ? Double.POSITIVE_INFINITY
+				: DistanceFormula.HAVERSINE.miles(nearest.get(0), visitedLocation.location);
+	}
+}
@@ -0,0 +1,152 @@
+package com.openclassrooms.tourguide.tracker;
+
+import com.openclassrooms.tourguide.execution.Downstream;
+import com.openclassrooms.tourguide.execution.ExecutionMode;
+import com.openclassrooms.tourguide.execution.ExecutionStrategy;
+import com.openclassrooms.tourguide.gateway.GpsGateway;
+import com.openclassrooms.tourguide.service.RewardMatcher;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.user.User;
+import gpsUtil.location.VisitedLocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Tracks users through four stages connected by bounded queues: GPS location
+ * fetch, history append, reward evaluation and reward points lookup.
+ *
+ * <p>Each stage has its own threads, so a slow {@code RewardCentral} only fills
+ * the lookup queue while locations keep being captured; once that queue is full,
+ * the evaluation stage blocks, and backpressure travels up to whoever submits
+ * users. Stage metrics are described in {@link PipelineStage}.</p>
+ *
+ * <p>{@link #close()} stops the stages in pipeline order, each one draining its
+ * queue before the next one is closed, so every user accepted before the close
+ * goes through the remaining stages unless the drain timeout runs out.</p>
+ */
+public class TrackingPipeline implements AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger(TrackingPipeline.class);
+
+	private final GpsGateway gpsGateway;
+	private final RewardsService rewardsService;
+	private final ExecutionStrategy executionStrategy;
+	private final PipelineSettings settings;
+	private final PipelineStage<Job> fetch;
+	private final PipelineStage<Job> append;
+	private final PipelineStage<Job> evaluate;
+	private final PipelineStage<Job> lookup;
+
+	/**
+	 * Constructs a {@code TrackingPipeline} and starts the threads of its stages,
+	 * platform or virtual according to the strategy's mode.
+	 *
+	 * @param gpsGateway        source of user locations
+	 * @param rewardsService    service evaluating and awarding rewards
+	 * @param executionStrategy strategy limiting GPS calls and providing the metrics registry
+	 * @param settings          parallelism and queue capacity of each stage
+	 */
+	public TrackingPipeline(GpsGateway gpsGateway, RewardsService rewardsService,
+			ExecutionStrategy executionStrategy, PipelineSettings settings) {
+		this.gpsGateway = gpsGateway;
+		this.rewardsService = rewardsService;
+		this.executionStrategy = executionStrategy;
+		this.settings = settings;
+
+		ThreadFactory threadFactory = executionStrategy.getMode() == ExecutionMode.VIRTUAL
+				? Thread.ofVirtual().factory()
+				: Thread.ofPlatform().daemon().factory();
+		// Built from the last stage back, since each stage hands its items to the next one
+		this.lookup = stage("lookup", settings.getLookup(), threadFactory, this::lookup);
+		this.evaluate = stage("evaluate", settings.getEvaluate(), threadFactory, this::evaluate);
+		this.append = stage("append", settings.getAppend(), threadFactory, this::append);
+		this.fetch = stage("fetch", settings.getFetch(), threadFactory, this::fetch);
+	}
+
+	private PipelineStage<Job> stage(String name, PipelineSettings.StageSettings stageSettings,
+			ThreadFactory threadFactory, PipelineStage.Handler<Job> handler) {
+		return new PipelineStage<>(name, stageSettings, threadFactory, handler, this::fail,
+				executionStrategy.meterRegistry());
+	}
+
+	/**
+	 * Queues a user for tracking, waiting while the fetch stage is full.
+	 *
+	 * @param user the user to track
+	 * @return a future completed with the new location once the user went through every stage
+	 * @throws InterruptedException if interrupted while waiting for room
+	 */
+	public CompletableFuture<VisitedLocation> submit(User user) throws InterruptedException {
+		Job job = new Job(user);
+		fetch.submit(job);
+		return job.done;
+	}
+
+	private void fetch(Job job) throws InterruptedException {
+		job.visitedLocation = executionStrategy.call(Downstream.GPS,
+				() -> gpsGateway.getUserLocation(job.user.getUserId()));
+		append.submit(job);
+	}
+
+	private void append(Job job) throws InterruptedException {
+		job.user.addToVisitedLocations(job.visitedLocation);
+		evaluate.submit(job);
+	}
+
+	private void evaluate(Job job) throws InterruptedException {
+		job.matches = rewardsService.evaluateRewards(job.user);
+		if (job.matches.isEmpty()) {
+			job.done.complete(job.visitedLocation);
+		} else {
+			lookup.submit(job);
+		}
+	}
+
+	private void lookup(Job job) {
+		rewardsService.awardRewards(job.user, job.matches);
+		job.done.complete(job.visitedLocation);
+	}
+
+	private void fail(Job job, Throwable cause) {
+		logger.error("Error tracking user: {}", job.user.getUserName(), cause);
+		job.done.completeExceptionally(cause);
+	}
+
+	/**
+	 * Stops accepting users and drains the stages in order, within the drain timeout.
+	 */
+	@Override
+	public void close() {
+		long deadline = System.nanoTime() + settings.getDrainTimeout().toNanos();
+		boolean interrupted = false;
+		for (PipelineStage<Job> stage : List.of(fetch, append, evaluate, lookup)) {
+			try {
+				// Once interrupted, stop the remaining stages without waiting
+				stage.close(interrupted ? System.nanoTime() : deadline);
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * A user on its way through the pipeline, with what the stages found so far.
+	 */
+	private static final class Job {
+		final User user;
+		final CompletableFuture<VisitedLocation> done = new CompletableFuture<>();
+		VisitedLocation visitedLocation;
+		List<RewardMatcher.Match> matches;
+
+		Job(User user) {
+			this.user = user;
+		}
+	}
+}
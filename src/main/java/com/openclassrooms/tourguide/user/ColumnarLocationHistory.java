@@ -0,0 +1,117 @@
+package com.openclassrooms.tourguide.user;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+import java.util.AbstractList;
+import java.util.Date;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.UUID;
+
+/**
+ * {@link LocationHistory} keeping each point as three primitives in parallel
+ * columns: latitude, longitude and visit time in epoch milliseconds.
+ *
+ * <p>A point costs 24 bytes instead of the {@code VisitedLocation}, {@code Location}
+ * and {@code Date} objects (plus the array reference) of {@link ObjectLocationHistory}.
+ * Readers still see {@code VisitedLocation}s: views copy the columns they cover and
+ * build each {@code VisitedLocation} when it is read. Every point is attributed to
+ * the owning user's id.</p>
+ */
+public class ColumnarLocationHistory extends LocationHistory {
+
+	private final UUID userId;
+	private double[] latitudes;
+	private double[] longitudes;
+	private long[] times;
+
+	public ColumnarLocationHistory(HistoryRetention retention, UUID userId) {
+		super(retention);
+		this.userId = userId;
+		int capacity = initialCapacity();
+		this.latitudes = new double[capacity];
+		this.longitudes = new double[capacity];
+		this.times = new long[capacity];
+	}
+
+	@Override
+	protected void store(int slot, VisitedLocation visitedLocation) {
+		latitudes[slot] = visitedLocation.location.latitude;
+		longitudes[slot] = visitedLocation.location.longitude;
+		times[slot] = visitedLocation.timeVisited.getTime();
+	}
+
+	@Override
+	protected VisitedLocation load(int slot) {
+		return new VisitedLocation(userId, new Location(latitudes[slot], longitudes[slot]), new Date(times[slot]));
+	}
+
+	@Override
+	protected long timeAt(int slot) {
+		return times[slot];
+	}
+
+	@Override
+	protected void clearSlot(int slot) {
+		// Primitive slots hold no references
+	}
+
+	@Override
+	protected void resize(int newCapacity, int head, int size) {
+		double[] newLatitudes = new double[newCapacity];
+		double[] newLongitudes = new double[newCapacity];
+		long[] newTimes = new long[newCapacity];
+		for (int i = 0; i < size; i++) {
+			int slot = (head + i) % latitudes.length;
+			newLatitudes[i] = latitudes[slot];
+			newLongitudes[i] = longitudes[slot];
+			newTimes[i] = times[slot];
+		}
+		latitudes = newLatitudes;
+		longitudes = newLongitudes;
+		times = newTimes;
+	}
+
+	@Override
+	protected List<VisitedLocation> view(int[] slotNumbers) {
+		int count = slotNumbers.length;
+		double[] viewLatitudes = new double[count];
+		double[] viewLongitudes = new double[count];
+		long[] viewTimes = new long[count];
+		for (int i = 0; i < count; i++) {
+			viewLatitudes[i] = latitudes[slotNumbers[i]];
+			viewLongitudes[i] = longitudes[slotNumbers[i]];
+			viewTimes[i] = times[slotNumbers[i]];
+		}
+		return new ColumnView(userId, viewLatitudes, viewLongitudes, viewTimes);
+	}
+
+	/**
+	 * Immutable list over copied columns, building {@code VisitedLocation}s on access.
+	 */
+	private static final class ColumnView extends AbstractList<VisitedLocation> implements RandomAccess {
+
+		private final UUID userId;
+		private final double[] latitudes;
+		private final double[] longitudes;
+		private final long[] times;
+
+		private ColumnView(UUID userId, double[] latitudes, double[] longitudes, long[] times) {
+			this.userId = userId;
+			this.latitudes = latitudes;
+			this.longitudes = longitudes;
+			this.times = times;
+		}
+
+		@Override
+		public VisitedLocation get(int index) {
+			return new VisitedLocation(userId, new Location(latitudes[index], longitudes[index]), new Date(times[index]));
+		}
+
+		@Override
+		public int size() {
+			return times.length;
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package com.openclassrooms.tourguide.user;
+
+import java.util.Spliterator;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * {@link UserRepository} backed by two {@link ConcurrentHashMap}s, one per lookup key.
+ *
+ * <p>Lookups never lock, and iteration walks the live table rather than a copy;
+ * its spliterator is {@code CONCURRENT} and splits by table range, so parallel
+ * streams divide the users between workers without materializing a list.</p>
+ *
+ * <p>Stored users report their changes to the repository's {@link UserChangeListener}.</p>
+ */
+public class ConcurrentUserRepository implements UserRepository {
+
+	private final ConcurrentMap<String, User> usersByName = new ConcurrentHashMap<>();
+	private final ConcurrentMap<UUID, User> usersById = new ConcurrentHashMap<>();
+	private final UserChangeListener changeListener;
+
+	/**
+	 * Constructs a repository whose changes are not reported anywhere.
+	 */
+	public ConcurrentUserRepository() {
+		this(UserChangeListener.NONE);
+	}
+
+	/**
+	 * Constructs a {@code ConcurrentUserRepository}.
+	 *
+	 * @param changeListener listener told about added users and their new locations and rewards
+	 */
+	public ConcurrentUserRepository(UserChangeListener changeListener) {
+		this.changeListener = changeListener;
+	}
+
+	@Override
+	public User findByUserName(String userName) {
+		return usersByName.get(userName);
+	}
+
+	@Override
+	public User findByUserId(UUID userId) {
+		return usersById.get(userId);
+	}
+
+	@Override
+	public boolean add(User user) {
+		if (!restore(user)) {
+			return false;
+		}
+		changeListener.userAdded(user);
+		return true;
+	}
+
+	@Override
+	public boolean restore(User user) {
+		if (usersByName.putIfAbsent(user.getUserName(), user) != null) {
+			return false;
+		}
+		usersById.put(user.getUserId(), user);
+		user.setChangeListener(changeListener);
+		return true;
+	}
+
+	@Override
+	public int size() {
+		return usersByName.size();
+	}
+
+	@Override
+	public Spliterator<User> spliterator() {
+		return usersByName.values().spliterator();
+	}
+
+	@Override
+	public Stream<User> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+}
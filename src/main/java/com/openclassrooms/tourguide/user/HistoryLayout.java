@@ -0,0 +1,34 @@
+package com.openclassrooms.tourguide.user;
+
+import java.util.UUID;
+
+/**
+ * In-memory layout of a user's {@link LocationHistory}.
+ */
+public enum HistoryLayout {
+
+	/** One {@code VisitedLocation} object per point ({@link ObjectLocationHistory}). */
+	OBJECTS {
+		@Override
+		public LocationHistory create(HistoryRetention retention, UUID userId) {
+			return new ObjectLocationHistory(retention);
+		}
+	},
+
+	/** Primitive latitude, longitude and time columns ({@link ColumnarLocationHistory}). */
+	COLUMNAR {
+		@Override
+		public LocationHistory create(HistoryRetention retention, UUID userId) {
+			return new ColumnarLocationHistory(retention, userId);
+		}
+	};
+
+	/**
+	 * Creates an empty history in this layout.
+	 *
+	 * @param retention how many locations to keep, and for how long
+	 * @param userId    the id of the user owning the history
+	 * @return a new {@code LocationHistory}
+	 */
+	public abstract LocationHistory create(HistoryRetention retention, UUID userId);
+}
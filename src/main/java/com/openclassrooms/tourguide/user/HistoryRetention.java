@@ -0,0 +1,28 @@
+package com.openclassrooms.tourguide.user;
+
+import java.time.Duration;
+
+/**
+ * How much location history a {@link User} keeps.
+ *
+ * @param maxPoints maximum number of locations kept; the oldest are dropped first
+ * @param maxAge    maximum age of a kept location, or {@link Duration#ZERO} for no age limit
+ */
+public record HistoryRetention(int maxPoints, Duration maxAge) {
+
+	/** Retention used when nothing is configured. */
+	public static final HistoryRetention DEFAULT = new HistoryRetention(1000, Duration.ZERO);
+
+	public HistoryRetention {
+		if (maxPoints < 1) {
+			throw new IllegalArgumentException("maxPoints must be at least 1, was " + maxPoints);
+		}
+		if (maxAge.isNegative()) {
+			throw new IllegalArgumentException("maxAge must not be negative, was " + maxAge);
+		}
+	}
+
+	boolean hasMaxAge() {
+		return !maxAge.isZero();
+	}
+}
@@ -0,0 +1,50 @@
+package com.openclassrooms.tourguide.user;
+
+import java.time.Duration;
+
+/**
+ * Retention and layout of each user's location history, bound from
+ * {@code tourguide.location-history.*}.
+ *
+ * <p>They are handed to whatever creates users, the internal user generator,
+ * the journal and the snapshots, rather than set as a process-wide default.</p>
+ */
+public class HistorySettings {
+
+	/** Maximum number of locations kept per user. */
+	private int maxPoints = HistoryRetention.DEFAULT.maxPoints();
+
+	/** Maximum age of a kept location; zero keeps locations regardless of age. */
+	private Duration maxAge = HistoryRetention.DEFAULT.maxAge();
+
+	/** One object per point, or primitive columns (about a quarter of the heap per point). */
+	private HistoryLayout layout = HistoryLayout.OBJECTS;
+
+	public int getMaxPoints() {
+		return maxPoints;
+	}
+
+	public void setMaxPoints(int maxPoints) {
+		this.maxPoints = maxPoints;
+	}
+
+	public Duration getMaxAge() {
+		return maxAge;
+	}
+
+	public void setMaxAge(Duration maxAge) {
+		this.maxAge = maxAge;
+	}
+
+	public HistoryLayout getLayout() {
+		return layout;
+	}
+
+	public void setLayout(HistoryLayout layout) {
+		this.layout = layout;
+	}
+
+	public HistoryRetention toRetention() {
+		return new HistoryRetention(maxPoints, maxAge);
+	}
+}
@@ -0,0 +1,170 @@
+package com.openclassrooms.tourguide.user;
+
+import gpsUtil.location.VisitedLocation;
+
+import java.util.List;
+
+/**
+ * Bounded, thread-safe location history of one user, kept in a ring buffer.
+ *
+ * <p>Every appended location gets a sequence number, starting at 0 and never
+ * reused, so a reader can ask for "everything after sequence n" even after older
+ * entries have been dropped. Entries are dropped when the history exceeds the
+ * {@link HistoryRetention} count, and on each append when they are older than its
+ * maximum age; the newest location is always kept.</p>
+ *
+ * <p>This class owns the ring bookkeeping; subclasses decide how the slots are
+ * stored (see {@link HistoryLayout}). The buffer grows on demand up to the
+ * retention count. {@link #snapshot()} returns an immutable list that is built
+ * once and then shared by every reader until the next change.</p>
+ */
+public abstract class LocationHistory {
+
+	private static final int INITIAL_CAPACITY = 8;
+
+	private final HistoryRetention retention;
+	private int capacity;
+	private int head;
+	private int size;
+	private long endSequence;
+	private volatile List<VisitedLocation> snapshot = List.of();
+
+	protected LocationHistory(HistoryRetention retention) {
+		this.retention = retention;
+		this.capacity = Math.min(INITIAL_CAPACITY, retention.maxPoints());
+	}
+
+	/**
+	 * @return the number of slots to allocate up front
+	 */
+	protected final int initialCapacity() {
+		return capacity;
+	}
+
+	/** Stores a location in a slot. */
+	protected abstract void store(int slot, VisitedLocation visitedLocation);
+
+	/** Reads the location held in a slot. */
+	protected abstract VisitedLocation load(int slot);
+
+	/** Returns the visit time, in epoch milliseconds, of the location held in a slot. */
+	protected abstract long timeAt(int slot);
+
+	/** Releases whatever a slot references. */
+	protected abstract void clearSlot(int slot);
+
+	/**
+	 * Moves the {@code size} entries starting at slot {@code head} (wrapping at the
+	 * current capacity) to slots {@code 0..size-1} of a new storage of {@code newCapacity} slots.
+	 */
+	protected abstract void resize(int newCapacity, int head, int size);
+
+	/**
+	 * Copies the entries of the given slots, in order, into an immutable list.
+	 *
+	 * @param slots slot numbers, oldest entry first
+	 */
+	protected abstract List<VisitedLocation> view(int[] slots);
+
+	/**
+	 * Appends a location, dropping the oldest ones if the retention is exceeded.
+	 *
+	 * @param visitedLocation the location to append
+	 */
+	public synchronized void append(VisitedLocation visitedLocation) {
+		if (size == capacity) {
+			if (capacity < retention.maxPoints()) {
+				int newCapacity = Math.min(capacity * 2, retention.maxPoints());
+				resize(newCapacity, head, size);
+				capacity = newCapacity;
+				head = 0;
+			} else {
+				dropOldest();
+			}
+		}
+		store((head + size) % capacity, visitedLocation);
+		size++;
+		endSequence++;
+		if (retention.hasMaxAge()) {
+			long oldest = System.currentTimeMillis() - retention.maxAge().toMillis();
+			while (size > 1 && timeAt(head) < oldest) {
+				dropOldest();
+			}
+		}
+		snapshot = null;
+	}
+
+	/**
+	 * @return the retained locations, oldest first, as an immutable list
+	 */
+	public List<VisitedLocation> snapshot() {
+		List<VisitedLocation> current = snapshot;
+		if (current != null) {
+			return current;
+		}
+		synchronized (this) {
+			if (snapshot == null) {
+				snapshot = view(slots(0));
+			}
+			return snapshot;
+		}
+	}
+
+	/**
+	 * @return the newest location, or {@code null} if the history is empty
+	 */
+	public synchronized VisitedLocation last() {
+		return size == 0 ? null : load((head + size - 1) % capacity);
+	}
+
+	/**
+	 * @return the number of retained locations
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * @return the sequence number the next appended location will get
+	 */
+	public synchronized long endSequence() {
+		return endSequence;
+	}
+
+	/**
+	 * Returns the retained locations whose sequence number is at least {@code sequence}.
+	 * Locations already dropped are silently skipped.
+	 *
+	 * @param sequence the first sequence number wanted
+	 * @return the matching locations, oldest first
+	 */
+	public synchronized List<VisitedLocation> since(long sequence) {
+		long startSequence = endSequence - size;
+		return view(slots((int) Math.max(0, Math.min(size, sequence - startSequence))));
+	}
+
+	/**
+	 * Removes every location. Sequence numbers keep increasing.
+	 */
+	public synchronized void clear() {
+		while (size > 0) {
+			dropOldest();
+		}
+		head = 0;
+		snapshot = null;
+	}
+
+	private int[] slots(int skip) {
+		int[] slots = new int[size - skip];
+		for (int i = 0; i < slots.length; i++) {
+			slots[i] = (head + skip + i) % capacity;
+		}
+		return slots;
+	}
+
+	private void dropOldest() {
+		clearSlot(head);
+		head = (head + 1) % capacity;
+		size--;
+	}
+}
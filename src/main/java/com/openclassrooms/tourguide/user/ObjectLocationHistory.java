@@ -0,0 +1,58 @@
+package com.openclassrooms.tourguide.user;
+
+import gpsUtil.location.VisitedLocation;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link LocationHistory} keeping the {@link VisitedLocation} objects themselves.
+ */
+public class ObjectLocationHistory extends LocationHistory {
+
+	private VisitedLocation[] slots;
+
+	public ObjectLocationHistory(HistoryRetention retention) {
+		super(retention);
+		this.slots = new VisitedLocation[initialCapacity()];
+	}
+
+	@Override
+	protected void store(int slot, VisitedLocation visitedLocation) {
+		slots[slot] = visitedLocation;
+	}
+
+	@Override
+	protected VisitedLocation load(int slot) {
+		return slots[slot];
+	}
+
+	@Override
+	protected long timeAt(int slot) {
+		return slots[slot].timeVisited.getTime();
+	}
+
+	@Override
+	protected void clearSlot(int slot) {
+		slots[slot] = null;
+	}
+
+	@Override
+	protected void resize(int newCapacity, int head, int size) {
+		VisitedLocation[] resized = new VisitedLocation[newCapacity];
+		for (int i = 0; i < size; i++) {
+			resized[i] = slots[(head + i) % slots.length];
+		}
+		slots = resized;
+	}
+
+	@Override
+	protected List<VisitedLocation> view(int[] slotNumbers) {
+		VisitedLocation[] copy = new VisitedLocation[slotNumbers.length];
+		for (int i = 0; i < copy.length; i++) {
+			copy[i] = slots[slotNumbers[i]];
+		}
+		return Collections.unmodifiableList(Arrays.asList(copy));
+	}
+}
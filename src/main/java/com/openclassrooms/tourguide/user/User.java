@@ -1,42 +1,71 @@
 package com.openclassrooms.tourguide.user;
 
-import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import gpsUtil.location.VisitedLocation;
 import tripPricer.Provider;
 
+/**
+ * A TourGuide user, safe to share between the tracker, reward and request threads.
+ *
+ * <p>Location history is bounded by a {@link HistoryRetention} and stored in a
+ * {@link HistoryLayout}, {@link HistoryRetention#DEFAULT} and
+ * {@link HistoryLayout#OBJECTS} unless given. Rewards are kept at most one per attraction, keyed by
+ * attraction name: attraction ids are regenerated every time {@code GpsUtil}
+ * lists its catalog, so names are the only stable key. Getters of collections return immutable snapshots, built on the
+ * first read after a change and then shared, so repeated reads neither copy nor lock.</p>
+ */
 public class User {
 	private final UUID userId;
 	private final String userName;
-	private String phoneNumber;
-	private String emailAddress;
-	private Date latestLocationTimestamp;
-	private List<VisitedLocation> visitedLocations = new ArrayList<>();
-	private List<UserReward> userRewards = new ArrayList<>();
-	private UserPreferences userPreferences = new UserPreferences();
-	private List<Provider> tripDeals = new ArrayList<>();
+	private volatile String phoneNumber;
+	private volatile String emailAddress;
+	private volatile Date latestLocationTimestamp;
+	private final LocationHistory visitedLocations;
+	private final Map<String, UserReward> userRewardsByAttraction = new LinkedHashMap<>();
+	private volatile List<UserReward> userRewards = List.of();
+	private volatile Set<String> rewardedAttractionNames = Set.of();
+	private volatile int rewardPointsTotal;
+	private volatile UserPreferences userPreferences = new UserPreferences();
+	private volatile List<Provider> tripDeals = List.of();
+	private volatile UserChangeListener changeListener = UserChangeListener.NONE;
+	private long rewardsWatermark;
+	private long rewardsWatermarkEpoch;
+
 	public User(UUID userId, String userName, String phoneNumber, String emailAddress) {
+		this(userId, userName, phoneNumber, emailAddress, HistoryRetention.DEFAULT);
+	}
+
+	public User(UUID userId, String userName, String phoneNumber, String emailAddress, HistoryRetention retention) {
+		this(userId, userName, phoneNumber, emailAddress, retention, HistoryLayout.OBJECTS);
+	}
+
+	public User(UUID userId, String userName, String phoneNumber, String emailAddress, HistoryRetention retention,
+			HistoryLayout layout) {
 		this.userId = userId;
 		this.userName = userName;
 		this.phoneNumber = phoneNumber;
 		this.emailAddress = emailAddress;
+		this.visitedLocations = layout.create(retention, userId);
 	}
-	
+
 	public UUID getUserId() {
 		return userId;
 	}
-	
+
 	public String getUserName() {
 		return userName;
 	}
-	
+
 	public void setPhoneNumber(String phoneNumber) {
 		this.phoneNumber = phoneNumber;
 	}
-	
+
 	public String getPhoneNumber() {
 		return phoneNumber;
 	}
@@ -44,57 +73,175 @@ public class User {
 	public void setEmailAddress(String emailAddress) {
 		this.emailAddress = emailAddress;
 	}
-	
+
 	public String getEmailAddress() {
 		return emailAddress;
 	}
-	
+
 	public void setLatestLocationTimestamp(Date latestLocationTimestamp) {
 		this.latestLocationTimestamp = latestLocationTimestamp;
 	}
-	
+
 	public Date getLatestLocationTimestamp() {
 		return latestLocationTimestamp;
 	}
-	
+
 	public void addToVisitedLocations(VisitedLocation visitedLocation) {
-		visitedLocations.add(visitedLocation);
+		visitedLocations.append(visitedLocation);
+		changeListener.locationAdded(this, visitedLocation);
 	}
-	
+
+	/**
+	 * @return the retained locations, oldest first, as an immutable snapshot
+	 */
 	public List<VisitedLocation> getVisitedLocations() {
-		return visitedLocations;
+		return visitedLocations.snapshot();
+	}
+
+	/**
+	 * @return the number of retained locations, without building a snapshot
+	 */
+	public int getVisitedLocationCount() {
+		return visitedLocations.size();
 	}
-	
-	public void clearVisitedLocations() {
+
+	/**
+	 * @return the sequence number the next location will get; it grows with every
+	 *         location added, even once the history is full or has been cleared
+	 */
+	public long getVisitedLocationSequence() {
+		return visitedLocations.endSequence();
+	}
+
+	public synchronized void clearVisitedLocations() {
 		visitedLocations.clear();
+		rewardsWatermark = 0;
+	}
+
+	/**
+	 * Returns the locations the next reward calculation must evaluate and marks
+	 * them as evaluated, in one atomic step.
+	 *
+	 * <p>Only locations appended since the previous call are returned, unless a full
+	 * recompute is requested or the reward rules changed since then (a different
+	 * {@code epoch}), in which case the whole retained history is.</p>
+	 *
+	 * @param epoch         the current version of the reward rules
+	 * @param fullRecompute {@code true} to ignore the previous evaluation
+	 * @return the locations to evaluate, possibly empty
+	 */
+	public synchronized List<VisitedLocation> claimLocationsForRewards(long epoch, boolean fullRecompute) {
+		long from = (fullRecompute || rewardsWatermarkEpoch != epoch) ? 0 : rewardsWatermark;
+		long end = visitedLocations.endSequence();
+		if (from >= end) {
+			return List.of();
+		}
+		rewardsWatermark = end;
+		rewardsWatermarkEpoch = epoch;
+		return visitedLocations.since(from);
+	}
+
+	/**
+	 * Returns the sequence number of the first location not yet evaluated for rewards.
+	 */
+	public synchronized long getRewardsWatermark() {
+		return rewardsWatermark;
 	}
-	
-	public void addUserReward(UserReward userReward) {
-		if(userRewards.stream().noneMatch(r -> r.attraction.attractionName.equals(userReward.attraction.attractionName))) {
-			userRewards.add(userReward);
+
+	/**
+	 * Forgets which locations were evaluated, so the next reward calculation
+	 * covers the whole retained history.
+	 */
+	public synchronized void resetRewardsWatermark() {
+		rewardsWatermark = 0;
+		rewardsWatermarkEpoch = -1;
+	}
+
+	/**
+	 * Adds a reward unless the user was already rewarded for the same attraction.
+	 *
+	 * @param userReward the reward to add
+	 * @return {@code true} if the reward was added
+	 */
+	public boolean addUserReward(UserReward userReward) {
+		synchronized (this) {
+			if (userRewardsByAttraction.putIfAbsent(userReward.attraction.attractionName, userReward) != null) {
+				return false;
+			}
+			userRewards = null;
+			rewardedAttractionNames = null;
+			rewardPointsTotal += userReward.getRewardPoints();
 		}
+		changeListener.rewardAdded(this, userReward);
+		return true;
 	}
-	
+
+	/**
+	 * @return the rewards earned so far, in the order they were earned, as an immutable snapshot
+	 */
 	public List<UserReward> getUserRewards() {
-		return userRewards;
+		List<UserReward> current = userRewards;
+		if (current != null) {
+			return current;
+		}
+		synchronized (this) {
+			if (userRewards == null) {
+				userRewards = List.copyOf(userRewardsByAttraction.values());
+			}
+			return userRewards;
+		}
+	}
+
+	/**
+	 * @return the sum of the points of every reward, kept up to date as rewards are added
+	 */
+	public int getRewardPointsTotal() {
+		return rewardPointsTotal;
 	}
-	
+
+	/**
+	 * @return the names of the attractions the user was rewarded for, as an immutable snapshot
+	 */
+	public Set<String> getRewardedAttractionNames() {
+		Set<String> current = rewardedAttractionNames;
+		if (current != null) {
+			return current;
+		}
+		synchronized (this) {
+			if (rewardedAttractionNames == null) {
+				rewardedAttractionNames = Set.copyOf(userRewardsByAttraction.keySet());
+			}
+			return rewardedAttractionNames;
+		}
+	}
+
 	public UserPreferences getUserPreferences() {
 		return userPreferences;
 	}
-	
+
 	public void setUserPreferences(UserPreferences userPreferences) {
 		this.userPreferences = userPreferences;
 	}
 
+	/**
+	 * @return the newest visited location, or {@code null} if the user has none
+	 */
 	public VisitedLocation getLastVisitedLocation() {
-		return visitedLocations.get(visitedLocations.size() - 1);
+		return visitedLocations.last();
+	}
+
+	/**
+	 * Sets the listener told about new locations and rewards; called by the
+	 * repository that takes ownership of this user.
+	 */
+	void setChangeListener(UserChangeListener changeListener) {
+		this.changeListener = changeListener;
 	}
-	
+
 	public void setTripDeals(List<Provider> tripDeals) {
-		this.tripDeals = tripDeals;
+		this.tripDeals = List.copyOf(tripDeals);
 	}
-	
+
 	public List<Provider> getTripDeals() {
 		return tripDeals;
 	}
@@ -0,0 +1,87 @@
+package com.openclassrooms.tourguide.user;
+
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Receives the changes made to the users held by a {@link UserRepository}, for
+ * instance to persist them.
+ *
+ * <p>Callbacks run on the thread making the change, right after it is applied,
+ * so implementations must be thread-safe and should return quickly.</p>
+ */
+public interface UserChangeListener {
+
+	/** Listener that ignores every change. */
+	UserChangeListener NONE = new UserChangeListener() {
+		@Override
+		public void userAdded(User user) {
+		}
+
+		@Override
+		public void locationAdded(User user, VisitedLocation visitedLocation) {
+		}
+
+		@Override
+		public void rewardAdded(User user, UserReward userReward) {
+		}
+	};
+
+	/**
+	 * Called when a user is added to the repository, with whatever locations and
+	 * rewards it already holds.
+	 *
+	 * @param user the added user
+	 */
+	void userAdded(User user);
+
+	/**
+	 * Called when a location is appended to a user's history.
+	 *
+	 * @param user            the user
+	 * @param visitedLocation the appended location
+	 */
+	void locationAdded(User user, VisitedLocation visitedLocation);
+
+	/**
+	 * Called when a user earns a reward.
+	 *
+	 * @param user       the user
+	 * @param userReward the new reward
+	 */
+	void rewardAdded(User user, UserReward userReward);
+
+	/**
+	 * Returns a listener telling this listener about every change, then the next one.
+	 *
+	 * @param next the listener told second
+	 * @return the combined listener, or either one alone if the other is {@link #NONE}
+	 */
+	default UserChangeListener andThen(UserChangeListener next) {
+		if (next == NONE) {
+			return this;
+		}
+		if (this == NONE) {
+			return next;
+		}
+		UserChangeListener first = this;
+		return new UserChangeListener() {
+			@Override
+			public void userAdded(User user) {
+				first.userAdded(user);
+				next.userAdded(user);
+			}
+
+			@Override
+			public void locationAdded(User user, VisitedLocation visitedLocation) {
+				first.locationAdded(user, visitedLocation);
+				next.locationAdded(user, visitedLocation);
+			}
+
+			@Override
+			public void rewardAdded(User user, UserReward userReward) {
+				first.rewardAdded(user, userReward);
+				next.rewardAdded(user, userReward);
+			}
+		};
+	}
+}
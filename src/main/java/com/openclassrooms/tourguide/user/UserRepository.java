@@ -0,0 +1,66 @@
+package com.openclassrooms.tourguide.user;
+
+import java.util.Spliterator;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Store of the users known to this instance.
+ */
+public interface UserRepository {
+
+	/**
+	 * @param userName the user name
+	 * @return the user, or {@code null} if unknown
+	 */
+	User findByUserName(String userName);
+
+	/**
+	 * @param userId the user id
+	 * @return the user, or {@code null} if unknown
+	 */
+	User findByUserId(UUID userId);
+
+	/**
+	 * Adds a user unless one with the same user name is already stored.
+	 *
+	 * @param user the user to add
+	 * @return {@code true} if the user was added
+	 */
+	boolean add(User user);
+
+	/**
+	 * Adds a user read back from persistent storage. Unlike {@link #add(User)}, the
+	 * user's current state is not reported as a change, since it is already stored.
+	 *
+	 * @param user the restored user
+	 * @return {@code true} if the user was added
+	 */
+	boolean restore(User user);
+
+	/**
+	 * @return {@code true} while users are still being loaded, when lookups may
+	 *         block until the user looked up is available
+	 */
+	default boolean isLoading() {
+		return false;
+	}
+
+	/**
+	 * @return the number of stored users
+	 */
+	int size();
+
+	/**
+	 * Iterates over the stored users without copying them. Users added or removed
+	 * during the traversal may or may not be seen.
+	 *
+	 * @return a spliterator that can be split for parallel traversal
+	 */
+	Spliterator<User> spliterator();
+
+	/**
+	 * @return a sequential stream over the stored users, backed by {@link #spliterator()}
+	 */
+	Stream<User> stream();
+}
@@ -0,0 +1,162 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.openclassrooms.tourguide.spatial.AttractionIndex;
+import com.openclassrooms.tourguide.tracker.AdaptiveScheduler;
+import com.openclassrooms.tourguide.tracker.AdaptiveSettings;
+import com.openclassrooms.tourguide.tracker.TrackingCadence;
+import com.openclassrooms.tourguide.user.HistoryLayout;
+import com.openclassrooms.tourguide.user.HistoryRetention;
+import com.openclassrooms.tourguide.user.User;
+
+public class TestAdaptiveTracking {
+
+	private static final long SECOND = Duration.ofSeconds(1).toNanos();
+
+	private final AttractionIndex attractionIndex = new AttractionIndex(new GpsUtil().getAttractions());
+
+	@Test
+	public void cadenceFollowsProximityAndMovement() {
+		// Arrange
+		AdaptiveSettings settings = new AdaptiveSettings();
+		TrackingCadence cadence = new TrackingCadence(attractionIndex, settings);
+		Attraction attraction = attractionIndex.getAttractions().get(0);
+		UUID userId = UUID.randomUUID();
+		Date hourAgo = new Date(System.currentTimeMillis() - Duration.ofHours(1).toMillis());
+		Date now = new Date();
+		Location midOcean = new Location(0, -30);
+
+		// Act
+		Duration atAttraction = cadence.nextInterval(null, new VisitedLocation(userId, attraction, now));
+		Duration stationary = cadence.nextInterval(new VisitedLocation(userId, midOcean, hourAgo),
+				new VisitedLocation(userId, midOcean, now));
+		Duration fast = cadence.nextInterval(new VisitedLocation(userId, new Location(1, -30), hourAgo),
+				new VisitedLocation(userId, midOcean, now));
+		Duration firstLocation = cadence.nextInterval(null, new VisitedLocation(userId, midOcean, now));
+
+		// Assert
+		assertEquals(settings.getMinInterval(), atAttraction);
+		assertEquals(settings.getMaxInterval(), stationary);
+		assertEquals(settings.getMinInterval(), fast);
+		assertEquals(settings.getMaxInterval(), firstLocation);
+	}
+
+	@Test
+	public void stationaryUsersFarFromAttractionsArePolledLessOften() {
+		// Arrange: users sitting in the middle of the ocean, uniform tracking polling them every minute
+		AdaptiveSettings settings = new AdaptiveSettings();
+		AdaptiveScheduler scheduler = new AdaptiveScheduler(new TrackingCadence(attractionIndex, settings), settings,
+				Duration.ofMinutes(1), new SimpleMeterRegistry());
+		List<User> users = users(100, new Location(0, -30));
+		scheduler.enroll(users.iterator());
+
+		// Act: one simulated hour, one tick per second
+		for (long second = 0; second <= 3600; second++) {
+			for (User user : scheduler.due(second * SECOND)) {
+				VisitedLocation previous = user.getLastVisitedLocation();
+				long previousSequence = user.getVisitedLocationSequence();
+				user.addToVisitedLocations(new VisitedLocation(user.getUserId(), previous.location, new Date()));
+				scheduler.reschedule(user, previous, previousSequence);
+			}
+		}
+
+		// Assert: polled at start, then every 30 minutes, instead of every minute
+		assertEquals(300, scheduler.getPolls());
+		assertEquals(6000, scheduler.getUniformPolls(), 1.0);
+		assertEquals(5700, scheduler.getSavedPolls(), 1.0);
+	}
+
+	@Test
+	public void failedPollsAreRetriedAtTheMinimumInterval() {
+		// Arrange: a stationary user far from every attraction, due right away
+		AdaptiveSettings settings = new AdaptiveSettings();
+		AdaptiveScheduler scheduler = new AdaptiveScheduler(new TrackingCadence(attractionIndex, settings), settings,
+				Duration.ofMinutes(1), new SimpleMeterRegistry());
+		scheduler.enroll(users(1, new Location(0, -30)).iterator());
+		User user = scheduler.due(0).get(0);
+
+		// Act: the poll adds no location
+		scheduler.reschedule(user, user.getLastVisitedLocation(), user.getVisitedLocationSequence());
+
+		// Assert: due again after the minimum interval, not the maximum one
+		long minInterval = settings.getMinInterval().toNanos();
+		assertEquals(List.of(), scheduler.due(minInterval - SECOND));
+		assertEquals(List.of(user), scheduler.due(minInterval));
+	}
+
+	@Test
+	public void pollsOfFullColumnarHistoriesAreToldApartFromFailedOnes() {
+		// Arrange: two stationary users far from every attraction, keeping their last location only in columns
+		AdaptiveSettings settings = new AdaptiveSettings();
+		AdaptiveScheduler scheduler = new AdaptiveScheduler(new TrackingCadence(attractionIndex, settings), settings,
+				Duration.ofMinutes(1), new SimpleMeterRegistry());
+		Location midOcean = new Location(0, -30);
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			User user = new User(UUID.randomUUID(), "jon" + i, "000", "jon" + i + "@tourGuide.com",
+					new HistoryRetention(1, Duration.ZERO), HistoryLayout.COLUMNAR);
+			user.addToVisitedLocations(new VisitedLocation(user.getUserId(), midOcean, new Date()));
+			users.add(user);
+		}
+		scheduler.enroll(users.iterator());
+		List<User> due = scheduler.due(0);
+
+		// Act: the first poll adds a location, the second one adds none
+		User polled = due.get(0);
+		VisitedLocation previous = polled.getLastVisitedLocation();
+		long previousSequence = polled.getVisitedLocationSequence();
+		polled.addToVisitedLocations(new VisitedLocation(polled.getUserId(), midOcean, new Date()));
+		scheduler.reschedule(polled, previous, previousSequence);
+		User failed = due.get(1);
+		scheduler.reschedule(failed, failed.getLastVisitedLocation(), failed.getVisitedLocationSequence());
+
+		// Assert: only the failed poll is retried at the minimum interval
+		long minInterval = settings.getMinInterval().toNanos();
+		assertEquals(List.of(failed), scheduler.due(minInterval));
+		assertEquals(List.of(polled), scheduler.due(settings.getMaxInterval().toNanos()));
+	}
+
+	@Test
+	public void dueUsersStayWithinTheCallBudget() {
+		// Arrange
+		AdaptiveSettings settings = new AdaptiveSettings();
+		settings.setMaxCallsPerSecond(10);
+		AdaptiveScheduler scheduler = new AdaptiveScheduler(new TrackingCadence(attractionIndex, settings), settings,
+				Duration.ofMinutes(1), new SimpleMeterRegistry());
+		scheduler.enroll(users(100, new Location(0, -30)).iterator());
+
+		// Act
+		int first = scheduler.due(0).size();
+		int halfSecondLater = scheduler.due(SECOND / 2).size();
+		int afterAPause = scheduler.due(10 * SECOND).size();
+
+		// Assert: the budget refills over time but never builds up a burst
+		assertEquals(10, first);
+		assertEquals(5, halfSecondLater);
+		assertEquals(10, afterAPause);
+	}
+
+	private static List<User> users(int count, Location location) {
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			User user = new User(UUID.randomUUID(), "jon" + i, "000", "jon" + i + "@tourGuide.com");
+			user.addToVisitedLocations(new VisitedLocation(user.getUserId(), location, new Date()));
+			users.add(user);
+		}
+		return users;
+	}
+}
@@ -0,0 +1,98 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.spatial.AttractionIndex;
+
+
+public class TestAttractionIndex {
+
+	private final RewardsService rewardsService = new RewardsService(new GpsUtil(), new RewardCentral());
+
+	@Test
+	public void nearestMatchesFullSort() {
+		// Arrange
+		List<Attraction> attractions = randomAttractions(2000, new Random(42));
+		AttractionIndex attractionIndex = new AttractionIndex(attractions);
+		Random random = new Random(7);
+
+		for (int i = 0; i < 200; i++) {
+			Location location = randomLocation(random);
+
+			// Act
+			List<Attraction> nearest = attractionIndex.nearest(location, 5);
+
+			// Assert: same attractions, same order as sorting the whole catalog
+			List<Attraction> expected = attractions.stream()
+					.sorted(Comparator.comparingDouble(a -> rewardsService.getDistance(location, a)))
+					.limit(5)
+					.collect(Collectors.toList());
+			assertEquals(expected, nearest);
+		}
+	}
+
+	@Test
+	public void withinRadiusMatchesFullScan() {
+		// Arrange
+		List<Attraction> attractions = randomAttractions(2000, new Random(42));
+		AttractionIndex attractionIndex = new AttractionIndex(attractions);
+		Random random = new Random(11);
+
+		for (int i = 0; i < 200; i++) {
+			Location location = randomLocation(random);
+			double miles = random.nextDouble() * 2000;
+
+			// Act
+			List<Attraction> within = attractionIndex.withinRadius(location, miles);
+
+			// Assert: same attractions, in catalog order
+			List<Attraction> expected = attractions.stream()
+					.filter(a -> rewardsService.getDistance(location, a) <= miles)
+					.collect(Collectors.toList());
+			assertEquals(expected, within);
+		}
+	}
+
+	@Test
+	public void rebuildReplacesCatalog() {
+		// Arrange
+		GpsUtil gpsUtil = new GpsUtil();
+		AttractionIndex attractionIndex = new AttractionIndex(gpsUtil.getAttractions());
+		Attraction replacement = new Attraction("Replacement", "Nowhere", "NA", 10, 10);
+
+		// Act
+		attractionIndex.rebuild(List.of(replacement));
+
+		// Assert
+		assertEquals(1, attractionIndex.size());
+		assertEquals(List.of(replacement), attractionIndex.nearest(new Location(0, 0), 5));
+		assertTrue(attractionIndex.withinRadius(new Location(-10, -10), 100).isEmpty());
+	}
+
+	static List<Attraction> randomAttractions(int count, Random random) {
+		List<Attraction> attractions = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			Location location = randomLocation(random);
+			attractions.add(new Attraction("Attraction" + i, "City", "ST", location.latitude, location.longitude));
+		}
+		return attractions;
+	}
+
+	static Location randomLocation(Random random) {
+		return new Location(-85 + random.nextDouble() * 170, -180 + random.nextDouble() * 360);
+	}
+}
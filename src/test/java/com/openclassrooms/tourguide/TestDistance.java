@@ -0,0 +1,101 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.location.Location;
+import com.openclassrooms.tourguide.distance.DistanceFormula;
+import com.openclassrooms.tourguide.distance.Distances;
+import com.openclassrooms.tourguide.distance.GeoPoint;
+
+public class TestDistance {
+
+	@Test
+	public void lawOfCosinesMatchesOriginalFormula() {
+		Random random = new Random(42);
+		for (int i = 0; i < 100_000; i++) {
+			Location a = TestAttractionIndex.randomLocation(random);
+			Location b = TestAttractionIndex.randomLocation(random);
+
+			double expected = originalDistance(a, b);
+			double actual = DistanceFormula.SPHERICAL_LAW_OF_COSINES.miles(a, b);
+
+			assertEquals(expected, actual, 1e-9 * Math.max(1, expected));
+		}
+	}
+
+	@Test
+	public void haversineAgreesWithLawOfCosinesAtLongRange() {
+		Random random = new Random(7);
+		for (int i = 0; i < 100_000; i++) {
+			Location a = TestAttractionIndex.randomLocation(random);
+			Location b = TestAttractionIndex.randomLocation(random);
+
+			double lawOfCosines = DistanceFormula.SPHERICAL_LAW_OF_COSINES.miles(a, b);
+			double haversine = DistanceFormula.HAVERSINE.miles(a, b);
+
+			assertEquals(lawOfCosines, haversine, 1e-6 * Math.max(1, lawOfCosines));
+		}
+	}
+
+	@Test
+	public void haversineStaysAccurateAtShortRange() {
+		// About 3.3 feet apart: the law of cosines is off by a large fraction here
+		Location a = new Location(33.817595, -117.922008);
+		Location b = new Location(33.817604, -117.922008);
+		double expectedMiles = Math.toRadians(0.000009) * Distances.MILES_PER_RADIAN;
+
+		double haversine = DistanceFormula.HAVERSINE.miles(a, b);
+		double chord = Distances.milesForChordSquared(GeoPoint.of(a).chordSquaredTo(GeoPoint.of(b)));
+
+		assertEquals(expectedMiles, haversine, expectedMiles * 1e-6);
+		assertEquals(expectedMiles, chord, expectedMiles * 1e-3);
+	}
+
+	@Test
+	public void chordRanksAndThresholdsLikeMiles() {
+		Random random = new Random(11);
+		GeoPoint origin = GeoPoint.of(TestAttractionIndex.randomLocation(random));
+		List<Location> locations = IntStream.range(0, 5_000)
+				.mapToObj(i -> TestAttractionIndex.randomLocation(random))
+				.toList();
+
+		List<Location> byMiles = locations.stream()
+				.sorted(Comparator.comparingDouble(l -> DistanceFormula.HAVERSINE.miles(origin, GeoPoint.of(l))))
+				.collect(Collectors.toList());
+		Comparator<GeoPoint> byChord = Distances.byDistanceFrom(origin);
+		List<Location> byChords = locations.stream()
+				.sorted((l1, l2) -> byChord.compare(GeoPoint.of(l1), GeoPoint.of(l2)))
+				.collect(Collectors.toList());
+
+		assertEquals(byMiles, byChords);
+		for (double miles : new double[] { 0.5, 10, 200, 5_000, 12_000 }) {
+			assertEquals(miles, Distances.milesForChordSquared(Distances.chordSquaredForMiles(miles)), miles * 1e-9);
+		}
+		assertTrue(Distances.chordSquaredForMiles(1e9) == 4.0);
+	}
+
+	/**
+	 * The distance formula RewardsService used before the distance module.
+	 */
+	private static double originalDistance(Location loc1, Location loc2) {
+		double lat1 = Math.toRadians(loc1.latitude);
+		double lon1 = Math.toRadians(loc1.longitude);
+		double lat2 = Math.toRadians(loc2.latitude);
+		double lon2 = Math.toRadians(loc2.longitude);
+
+		double angle = Math.acos(Math.sin(lat1) * Math.sin(lat2)
+				+ Math.cos(lat1) * Math.cos(lat2) * Math.cos(lon1 - lon2));
+
+		double nauticalMiles = 60 * Math.toDegrees(angle);
+		return 1.15077945 * nauticalMiles;
+	}
+}
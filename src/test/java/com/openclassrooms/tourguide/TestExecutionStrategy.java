@@ -0,0 +1,170 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.GpsUtil;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.execution.Downstream;
+import com.openclassrooms.tourguide.execution.ExecutionMode;
+import com.openclassrooms.tourguide.execution.ExecutionStrategy;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+
+
+public class TestExecutionStrategy {
+
+	@Test
+	public void fullQueueRunsTaskOnCaller() throws InterruptedException {
+		// Arrange: one thread, one queue slot, and the thread blocked
+		ExecutionStrategy executionStrategy = new ExecutionStrategy(ExecutionMode.PLATFORM, 1, 1,
+				Duration.ofSeconds(5), Map.of(), new SimpleMeterRegistry());
+		CountDownLatch release = new CountDownLatch(1);
+		executionStrategy.taskExecutor().execute(() -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		executionStrategy.taskExecutor().execute(() -> { });
+
+		// Act: the third task does not fit, so it runs on the submitting thread
+		Thread caller = Thread.currentThread();
+		Thread[] runner = new Thread[1];
+		executionStrategy.taskExecutor().execute(() -> runner[0] = Thread.currentThread());
+
+		release.countDown();
+		executionStrategy.close();
+
+		// Assert
+		assertEquals(caller, runner[0]);
+	}
+
+	@Test
+	public void fullLookupQueueFailsTheLookupInsteadOfRunningItOnCaller() throws InterruptedException {
+		// Arrange: one lookup thread, one queue slot, and the thread blocked
+		ExecutionStrategy executionStrategy = new ExecutionStrategy(ExecutionMode.PLATFORM, 1, 1,
+				Duration.ofSeconds(5), Map.of(), new SimpleMeterRegistry());
+		CountDownLatch release = new CountDownLatch(1);
+		executionStrategy.lookupExecutor().execute(() -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		executionStrategy.lookupExecutor().execute(() -> { });
+
+		// Act
+		AtomicInteger ran = new AtomicInteger();
+		CompletableFuture<Integer> lookup = ExecutionStrategy.supplyAsync(ran::incrementAndGet,
+				executionStrategy.lookupExecutor());
+
+		release.countDown();
+		executionStrategy.close();
+
+		// Assert: the caller got a failed future at once, and the lookup never ran
+		ExecutionException failure = assertThrows(ExecutionException.class, lookup::get);
+		assertInstanceOf(RejectedExecutionException.class, failure.getCause());
+		assertEquals(0, ran.get());
+	}
+
+	@Test
+	public void tasksSubmittedAfterCloseFailInsteadOfBeingDropped() {
+		// Arrange
+		ExecutionStrategy executionStrategy = new ExecutionStrategy(ExecutionMode.PLATFORM, 1, 1,
+				Duration.ofSeconds(5), Map.of(), new SimpleMeterRegistry());
+		executionStrategy.close();
+
+		// Act
+		CompletableFuture<Void> task = ExecutionStrategy.runAsync(() -> { }, executionStrategy.taskExecutor());
+
+		// Assert: the future completes, so nobody waits on it forever
+		assertTrue(task.isCompletedExceptionally());
+		assertThrows(RejectedExecutionException.class, () -> executionStrategy.taskExecutor().execute(() -> { }));
+	}
+
+	@Test
+	public void closeDrainsQueuedTasks() {
+		// Arrange
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		ExecutionStrategy executionStrategy = new ExecutionStrategy(ExecutionMode.PLATFORM, 2, 100,
+				Duration.ofSeconds(10), Map.of(), registry);
+		AtomicInteger completed = new AtomicInteger();
+		for (int i = 0; i < 50; i++) {
+			executionStrategy.taskExecutor().execute(() -> {
+				try {
+					Thread.sleep(10);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				completed.incrementAndGet();
+			});
+		}
+
+		// Act
+		executionStrategy.close();
+
+		// Assert: every queued task ran, and task latency was recorded
+		assertEquals(50, completed.get());
+		assertTrue(executionStrategy.taskExecutor().isTerminated());
+		assertEquals(50, registry.get("executor").tag("name", "tourguide.tasks").timer().count());
+	}
+
+	@Test
+	public void downstreamCallsAreTimedByOutcome() {
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		ExecutionStrategy executionStrategy = new ExecutionStrategy(ExecutionMode.PLATFORM, 1, 1,
+				Duration.ofSeconds(5), Map.of(), meterRegistry);
+
+		executionStrategy.call(Downstream.GPS, () -> 1);
+		executionStrategy.call(Downstream.GPS, () -> 2);
+		assertThrows(IllegalStateException.class, () -> executionStrategy.call(Downstream.GPS, () -> {
+			throw new IllegalStateException("down");
+		}));
+		executionStrategy.close();
+
+		assertEquals(2, meterRegistry.get("tourguide.downstream.calls")
+				.tags("downstream", "gps", "outcome", "success").timer().count());
+		assertEquals(1, meterRegistry.get("tourguide.downstream.calls")
+				.tags("downstream", "gps", "outcome", "error").timer().count());
+		assertEquals(3, meterRegistry.get("tourguide.downstream.permit.wait").tag("downstream", "gps").timer().count());
+		assertEquals(0, meterRegistry.get("tourguide.downstream.active").tag("downstream", "gps").gauge().value());
+	}
+
+	@Test
+	public void servicesBuiltWithoutAStrategyShareOneThatStaysOffTheGlobalRegistry() throws Exception {
+		// Arrange
+		GpsUtil gpsUtil = new GpsUtil();
+		InternalTestHelper.setInternalUserNumber(0);
+		int globalMeters = Metrics.globalRegistry.getMeters().size();
+
+		// Act
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
+		new RewardsService(gpsUtil, new RewardCentral());
+		TourGuideService.builder(gpsUtil, rewardsService).build().tracker.stopTracking();
+		Thread worker = ExecutionStrategy.shared().taskExecutor().submit(Thread::currentThread).get();
+
+		// Assert
+		assertSame(ExecutionStrategy.shared(), ExecutionStrategy.shared());
+		assertTrue(worker.isDaemon());
+		assertEquals(globalMeters, Metrics.globalRegistry.getMeters().size());
+	}
+}
@@ -0,0 +1,161 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.geofence.GeofenceEngine;
+import com.openclassrooms.tourguide.geofence.GeofenceEvent;
+import com.openclassrooms.tourguide.geofence.GeofenceMonitor;
+import com.openclassrooms.tourguide.geofence.GeofenceSettings;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.spatial.AttractionIndex;
+import com.openclassrooms.tourguide.user.ConcurrentUserRepository;
+import com.openclassrooms.tourguide.user.User;
+
+public class TestGeofenceEngine {
+
+	private static final Attraction DISNEYLAND = new Attraction("Disneyland", "Anaheim", "CA", 33.817595,
+			-117.922008);
+	/** Statute miles per degree of latitude, near enough for placing test locations. */
+	private static final double MILES_PER_DEGREE = 69.0;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final GeofenceEngine engine = new GeofenceEngine(new AttractionIndex(List.of(DISNEYLAND)), settings(),
+			meterRegistry);
+	private final BlockingQueue<GeofenceEvent> events = new LinkedBlockingQueue<>();
+	private final User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+
+	@AfterEach
+	public void tearDown() {
+		engine.close();
+	}
+
+	@Test
+	public void enterDwellAndExitAreReportedOnce() throws InterruptedException {
+		// Arrange
+		engine.subscribe(events::add);
+		new ConcurrentUserRepository(engine).add(user);
+
+		// Act: approach, stay 20 minutes, then leave past the exit margin
+		user.addToVisitedLocations(visit(20, 0));
+		user.addToVisitedLocations(visit(5, 0));
+		user.addToVisitedLocations(visit(1, 10));
+		user.addToVisitedLocations(visit(0, 20));
+		user.addToVisitedLocations(visit(0, 25));
+		user.addToVisitedLocations(visit(10.5, 30));
+		user.addToVisitedLocations(visit(12, 35));
+
+		// Assert: inside the margin, 10.5 miles out, the user is still there
+		GeofenceEvent enter = events.poll(5, TimeUnit.SECONDS);
+		GeofenceEvent dwell = events.poll(5, TimeUnit.SECONDS);
+		GeofenceEvent exit = events.poll(5, TimeUnit.SECONDS);
+		assertEquals(GeofenceEvent.Type.ENTER, enter.type());
+		assertEquals("Disneyland", enter.attractionName());
+		assertEquals(user.getUserId(), enter.userId());
+		assertEquals(GeofenceEvent.Type.DWELL, dwell.type());
+		assertEquals(Duration.ofMinutes(20), dwell.dwell());
+		assertEquals(GeofenceEvent.Type.EXIT, exit.type());
+		assertEquals(Duration.ofMinutes(35), exit.dwell());
+		assertNull(events.poll(100, TimeUnit.MILLISECONDS));
+		assertEquals(Set.of(), engine.attractionsAround(user.getUserId()));
+		assertEquals(1.0, meterRegistry.get("tourguide.geofence.events").tag("type", "enter").counter().count());
+	}
+
+	@Test
+	public void historyAlreadyHeldWhenAddedRaisesNothing() throws InterruptedException {
+		// Arrange: a user restored inside the geofence
+		engine.subscribe(events::add);
+		user.addToVisitedLocations(visit(0, 0));
+
+		// Act
+		new ConcurrentUserRepository(engine).add(user);
+		user.addToVisitedLocations(visit(100, 5));
+
+		// Assert
+		assertNull(events.poll(200, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void closedSubscriptionsReceiveNothing() throws InterruptedException {
+		// Arrange
+		GeofenceMonitor.Subscription subscription = engine.subscribe(events::add);
+		new ConcurrentUserRepository(engine).add(user);
+		subscription.close();
+
+		// Act
+		user.addToVisitedLocations(visit(0, 0));
+
+		// Assert: the user is inside all the same
+		assertNull(events.poll(200, TimeUnit.MILLISECONDS));
+		assertTrue(engine.attractionsAround(user.getUserId()).contains("Disneyland"));
+	}
+
+	@Test
+	public void rewardsDoNotWaitForGeofenceEvents() throws InterruptedException {
+		// Arrange: a subscriber that never gets anything, the dispatcher being stopped
+		engine.subscribe(events::add);
+		engine.close();
+		GpsUtil atDisneyland = new GpsUtil() {
+			@Override
+			public VisitedLocation getUserLocation(UUID userId) {
+				return new VisitedLocation(userId, new Location(DISNEYLAND.latitude, DISNEYLAND.longitude), new Date());
+			}
+
+			@Override
+			public List<Attraction> getAttractions() {
+				return List.of(DISNEYLAND);
+			}
+		};
+		InternalTestHelper.setInternalUserNumber(0);
+		TourGuideService tourGuideService = TourGuideService
+				.builder(atDisneyland, new RewardsService(atDisneyland, new RewardCentral()))
+				.geofenceMonitor(engine)
+				.build();
+		tourGuideService.tracker.stopTracking();
+		tourGuideService.addUser(user);
+
+		// Act
+		tourGuideService.trackUserLocation(user);
+
+		// Assert: the user entered the geofence and was rewarded, though no event was delivered
+		assertTrue(engine.attractionsAround(user.getUserId()).contains("Disneyland"));
+		assertNull(events.poll(100, TimeUnit.MILLISECONDS));
+		assertEquals(1, user.getUserRewards().size());
+	}
+
+	private VisitedLocation visit(double milesNorth, int minutes) {
+		return new VisitedLocation(user.getUserId(),
+				new Location(DISNEYLAND.latitude + milesNorth / MILES_PER_DEGREE, DISNEYLAND.longitude),
+				new Date(TimeUnit.MINUTES.toMillis(minutes)));
+	}
+
+	private static GeofenceSettings settings() {
+		GeofenceSettings settings = new GeofenceSettings();
+		settings.setEnabled(true);
+		settings.setRadiusMiles(10);
+		settings.setExitMarginMiles(1);
+		settings.setDwellTime(Duration.ofMinutes(15));
+		return settings;
+	}
+}
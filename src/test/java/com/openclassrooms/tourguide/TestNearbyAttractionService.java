@@ -0,0 +1,132 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.cache.RewardPointsCache;
+import com.openclassrooms.tourguide.dto.NearbyAttractionDTO;
+import com.openclassrooms.tourguide.execution.ExecutionMode;
+import com.openclassrooms.tourguide.execution.ExecutionStrategy;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.NearbyAttractionService;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.spatial.AttractionIndex;
+import com.openclassrooms.tourguide.user.User;
+
+
+public class TestNearbyAttractionService {
+
+	@Test
+	public void lookupsRunConcurrently() {
+		// Arrange: every lookup takes 300 ms
+		long start = System.currentTimeMillis();
+		List<NearbyAttractionDTO> nearbyAttractions = getNearbyAttractions(300, Duration.ofSeconds(5));
+		long elapsed = System.currentTimeMillis() - start;
+
+		// Assert: all five attractions carry their reward points, in less than five serial lookups
+		assertEquals(5, nearbyAttractions.size());
+		nearbyAttractions.forEach(dto -> assertEquals(42, dto.getRewardPoints()));
+		assertTrue(elapsed < 1_500);
+	}
+
+	@Test
+	public void slowLookupsDegradeToUnknownPoints() {
+		// Arrange: lookups take far longer than the deadline
+		long start = System.currentTimeMillis();
+		List<NearbyAttractionDTO> nearbyAttractions = getNearbyAttractions(10_000, Duration.ofMillis(200));
+		long elapsed = System.currentTimeMillis() - start;
+
+		// Assert: the response is still complete, with reward points marked unknown
+		assertEquals(5, nearbyAttractions.size());
+		nearbyAttractions.forEach(dto -> assertNull(dto.getRewardPoints()));
+		assertTrue(elapsed < 5_000);
+	}
+
+	@Test
+	public void locatingAUserDoesNotWaitOnTheLookupPoolFromInsideIt() throws Exception {
+		// Arrange: a single lookup thread, and a user located on an attraction, so
+		// locating it also waits for reward points loaded on the lookup pool
+		GpsUtil gpsUtil = new GpsUtil();
+		Attraction attraction = gpsUtil.getAttractions().get(0);
+		GpsUtil onAttraction = new GpsUtil() {
+			@Override
+			public VisitedLocation getUserLocation(UUID userId) {
+				return new VisitedLocation(userId, attraction, new Date());
+			}
+		};
+		try (ExecutionStrategy executionStrategy = new ExecutionStrategy(ExecutionMode.PLATFORM, 1,
+				ExecutionStrategy.DEFAULT_QUEUE_CAPACITY, Duration.ofSeconds(1), Map.of(), new SimpleMeterRegistry())) {
+			RewardPointsCache rewardPointsCache = new RewardPointsCache(new RewardCentral(), executionStrategy);
+			AttractionIndex attractionIndex = new AttractionIndex(gpsUtil.getAttractions());
+			RewardsService rewardsService = new RewardsService(rewardPointsCache, attractionIndex, executionStrategy);
+			InternalTestHelper.setInternalUserNumber(0);
+			TourGuideService tourGuideService = TourGuideService.builder(onAttraction, rewardsService)
+					.attractionIndex(attractionIndex)
+					.executionStrategy(executionStrategy)
+					.build();
+			NearbyAttractionService nearbyAttractionService = new NearbyAttractionService(tourGuideService,
+					rewardsService, rewardPointsCache, executionStrategy.taskExecutor(), Duration.ofSeconds(5));
+			User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+
+			// Act
+			List<NearbyAttractionDTO> nearbyAttractions = nearbyAttractionService.getNearbyAttractions(user)
+					.get(10, TimeUnit.SECONDS);
+			tourGuideService.tracker.stopTracking();
+
+			// Assert: the user was located and rewarded, and the response is complete
+			assertEquals(5, nearbyAttractions.size());
+			assertEquals(1, user.getUserRewards().size());
+		}
+	}
+
+	private List<NearbyAttractionDTO> getNearbyAttractions(long lookupMillis, Duration deadline) {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardCentral rewardCentral = new RewardCentral() {
+			@Override
+			public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+				try {
+					Thread.sleep(lookupMillis);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return 42;
+			}
+		};
+		ExecutorService executor = Executors.newFixedThreadPool(10);
+		RewardPointsCache rewardPointsCache = new RewardPointsCache(rewardCentral, Duration.ofMinutes(1), 100, executor);
+		RewardsService rewardsService = new RewardsService(gpsUtil, rewardCentral);
+		InternalTestHelper.setInternalUserNumber(0);
+		TourGuideService tourGuideService = TourGuideService.builder(gpsUtil, rewardsService).build();
+		NearbyAttractionService nearbyAttractionService = new NearbyAttractionService(tourGuideService, rewardsService,
+				rewardPointsCache, executor, deadline);
+
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(33.8, -117.9), new Date()));
+
+		// Act
+		List<NearbyAttractionDTO> nearbyAttractions = nearbyAttractionService.getNearbyAttractions(user).join();
+
+		tourGuideService.tracker.stopTracking();
+		executor.shutdownNow();
+		return nearbyAttractions;
+	}
+}
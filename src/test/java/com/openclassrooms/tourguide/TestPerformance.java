@@ -1,10 +1,15 @@
 package com.openclassrooms.tourguide;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.Random;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.time.StopWatch;
@@ -13,11 +18,17 @@ import org.junit.jupiter.api.Test;
 
 import gpsUtil.GpsUtil;
 import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
 import rewardCentral.RewardCentral;
 import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.helper.PopulationGenerator;
+import com.openclassrooms.tourguide.helper.PopulationSettings;
 import com.openclassrooms.tourguide.service.RewardsService;
 import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.spatial.AttractionIndex;
+import com.openclassrooms.tourguide.user.HistoryLayout;
+import com.openclassrooms.tourguide.user.HistoryRetention;
 import com.openclassrooms.tourguide.user.User;
 
 
@@ -36,7 +47,7 @@ public class TestPerformance {
 		// Define number of simulated internal users
 		InternalTestHelper.setInternalUserNumber(100000);
 
-		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService);
+		TourGuideService tourGuideService = TourGuideService.builder(gpsUtil, rewardsService).build();
 
 		List<User> allUsers = new ArrayList<>(tourGuideService.getAllUsers());
 
@@ -69,7 +80,7 @@ public class TestPerformance {
 		InternalTestHelper.setInternalUserNumber(100000);
 		GpsUtil gpsUtil = new GpsUtil();
 		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
-		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService);
+		TourGuideService tourGuideService = TourGuideService.builder(gpsUtil, rewardsService).build();
 
 		List<User> allUsers = tourGuideService.getAllUsers();
 
@@ -102,4 +113,117 @@ public class TestPerformance {
 		// Assert that execution completes within 20 minutes
 		assertTrue(TimeUnit.MINUTES.toSeconds(20) >= TimeUnit.MILLISECONDS.toSeconds(stopWatch.getTime()));
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Tests how fast a synthetic population is built: 100,000 users with the
+	 * default three-location history must take seconds, not minutes. One million
+	 * users, which need a heap sized for them, can be run with
+	 * {@code -Dperformance.population.users=1000000}.
+	 */
+	@Test
+	public void highVolumePopulation() {
+		int users = Integer.getInteger("performance.population.users", 100_000);
+		PopulationGenerator generator = new PopulationGenerator(new PopulationSettings(),
+				new GpsUtil().getAttractions());
+
+		StopWatch stopWatch = new StopWatch();
+		stopWatch.start();
+		List<User> population = generator.generate(users);
+		stopWatch.stop();
+
+		System.out.println("highVolumePopulation: " + population.size() + " users, Time Elapsed: "
+				+ stopWatch.getTime() + " ms.");
+
+		assertEquals(users, population.size());
+		assertTrue(TimeUnit.SECONDS.toMillis(30) >= stopWatch.getTime());
+	}
+
+	/**
+	 * Measures the p99 latency of a five-nearest-attractions query against
+	 * catalogs ranging from the 26 gpsUtil attractions up to 10,000. Larger
+	 * catalogs, up to one million, can be included with
+	 * {@code -Dperformance.nearby.catalog.max=1000000}.
+	 */
+	@Test
+	public void nearbyAttractionsLatency() {
+		int maxCatalogSize = Integer.getInteger("performance.nearby.catalog.max", 10_000);
+		int[] catalogSizes = Arrays.stream(new int[] { 26, 1_000, 10_000, 100_000, 1_000_000 })
+				.filter(catalogSize -> catalogSize <= maxCatalogSize)
+				.toArray();
+		int queries = 10_000;
+		Random random = new Random(42);
+
+		for (int catalogSize : catalogSizes) {
+			AttractionIndex attractionIndex = new AttractionIndex(
+					TestAttractionIndex.randomAttractions(catalogSize, random));
+
+			// Warm up before measuring
+			for (int i = 0; i < queries; i++) {
+				attractionIndex.nearest(TestAttractionIndex.randomLocation(random), 5);
+			}
+
+			long[] latencies = new long[queries];
+			for (int i = 0; i < queries; i++) {
+				Location location = TestAttractionIndex.randomLocation(random);
+				long start = System.nanoTime();
+				attractionIndex.nearest(location, 5);
+				latencies[i] = System.nanoTime() - start;
+			}
+			Arrays.sort(latencies);
+			long p99 = latencies[(int) (queries * 0.99) - 1];
+
+			System.out.println("nearbyAttractionsLatency: catalog size: " + catalogSize
+					+ ", p50: " + TimeUnit.NANOSECONDS.toMicros(latencies[queries / 2]) + " us"
+					+ ", p99: " + TimeUnit.NANOSECONDS.toMicros(p99) + " us");
+
+			// A nearest query must stay well under a millisecond
+			assertTrue(TimeUnit.MILLISECONDS.toNanos(1) >= p99);
+		}
+	}
+
+	/**
+	 * Compares the heap retained by the location history of 1,000 users with
+	 * 100 points each, in the object and columnar layouts. The full-size run,
+	 * 10,000 users with 1,000 points each, is selected with
+	 * {@code -Dperformance.history.users=10000 -Dperformance.history.points=1000};
+	 * 100,000 users need a heap of about 12 GB.
+	 */
+	@Test
+	public void locationHistoryMemory() {
+		int users = Integer.getInteger("performance.history.users", 1_000);
+		int points = Integer.getInteger("performance.history.points", 100);
+		HistoryRetention retention = new HistoryRetention(points, Duration.ZERO);
+
+		long[] retainedBytes = new long[HistoryLayout.values().length];
+		for (HistoryLayout layout : HistoryLayout.values()) {
+			long before = usedHeapAfterGc();
+			List<User> population = new ArrayList<>(users);
+			Random random = new Random(42);
+			for (int u = 0; u < users; u++) {
+				User user = new User(UUID.randomUUID(), "user" + u, "000", "user" + u + "@tourGuide.com", retention, layout);
+				for (int p = 0; p < points; p++) {
+					user.addToVisitedLocations(new VisitedLocation(user.getUserId(),
+							TestAttractionIndex.randomLocation(random), new Date(random.nextLong(1L << 41))));
+				}
+				population.add(user);
+			}
+			long retained = usedHeapAfterGc() - before;
+			retainedBytes[layout.ordinal()] = retained;
+
+			System.out.println("locationHistoryMemory: " + layout + ", " + users + " users x " + points
+					+ " points, retained: " + retained / (1024 * 1024) + " MB, "
+					+ retained / ((long) users * points) + " bytes per point");
+			assertEquals(users, population.size());
+		}
+
+		assertTrue(retainedBytes[HistoryLayout.COLUMNAR.ordinal()] < retainedBytes[HistoryLayout.OBJECTS.ordinal()]);
+	}
+
+	private static long usedHeapAfterGc() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,99 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.helper.PopulationGenerator;
+import com.openclassrooms.tourguide.helper.PopulationSettings;
+import com.openclassrooms.tourguide.spatial.AttractionIndex;
+import com.openclassrooms.tourguide.user.User;
+
+public class TestPopulationGenerator {
+
+	private final List<Attraction> attractions = TestAttractionIndex.randomAttractions(100, new Random(42));
+
+	@Test
+	public void sameSeedGivesTheSamePopulation() {
+		// Arrange
+		PopulationSettings settings = new PopulationSettings();
+		settings.setHistoryLength(5);
+
+		PopulationSettings laterRun = new PopulationSettings();
+		laterRun.setHistoryLength(5);
+
+		// Act: generated in parallel, then one user on its own from settings created separately
+		List<User> population = new PopulationGenerator(settings, attractions).generate(1000);
+		User single = new PopulationGenerator(laterRun, attractions).user(500);
+
+		// Assert
+		User user = population.get(500);
+		assertEquals("internalUser500", user.getUserName());
+		assertEquals(user.getUserId(), single.getUserId());
+		assertEquals(user.getUserPreferences().getTripDuration(), single.getUserPreferences().getTripDuration());
+		assertEquals(5, user.getVisitedLocationCount());
+		for (int i = 0; i < 5; i++) {
+			VisitedLocation expected = user.getVisitedLocations().get(i);
+			VisitedLocation actual = single.getVisitedLocations().get(i);
+			assertEquals(expected.location.latitude, actual.location.latitude);
+			assertEquals(expected.location.longitude, actual.location.longitude);
+			assertEquals(expected.timeVisited, actual.timeVisited);
+		}
+		settings.setSeed(43);
+		assertNotEquals(user.getUserId(), new PopulationGenerator(settings, attractions).user(500).getUserId());
+	}
+
+	@Test
+	public void clusteredLocationsLieNearAnAttraction() {
+		// Arrange
+		PopulationSettings settings = new PopulationSettings();
+		settings.setHistoryLength(20);
+		settings.setClusteredFraction(1);
+		settings.setClusterRadiusMiles(10);
+		AttractionIndex attractionIndex = new AttractionIndex(attractions);
+
+		// Act
+		List<User> population = new PopulationGenerator(settings, attractions).generate(200);
+
+		// Assert: every location within the radius of some attraction, oldest first
+		for (User user : population) {
+			List<VisitedLocation> history = user.getVisitedLocations();
+			for (int i = 0; i < history.size(); i++) {
+				assertFalse(attractionIndex.withinRadius(history.get(i).location, 10.1).isEmpty());
+				if (i > 0) {
+					assertFalse(history.get(i).timeVisited.before(history.get(i - 1).timeVisited));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void preferencesFollowTheConfiguredRanges() {
+		// Arrange
+		PopulationSettings settings = new PopulationSettings();
+		settings.setMaxTripDuration(7);
+		settings.setMaxAdults(2);
+		settings.setChildrenProbability(0);
+
+		// Act
+		List<User> population = new PopulationGenerator(settings, attractions).generate(1000);
+
+		// Assert
+		for (User user : population) {
+			int tripDuration = user.getUserPreferences().getTripDuration();
+			int adults = user.getUserPreferences().getNumberOfAdults();
+			assertTrue(tripDuration >= 1 && tripDuration <= 7);
+			assertTrue(adults >= 1 && adults <= 2);
+			assertEquals(0, user.getUserPreferences().getNumberOfChildren());
+			assertEquals(adults, user.getUserPreferences().getTicketQuantity());
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import rewardCentral.RewardCentral;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import com.openclassrooms.tourguide.cache.RewardPointsCache;
+import com.openclassrooms.tourguide.controller.ReactiveTourGuideController;
+import com.openclassrooms.tourguide.geofence.GeofenceEngine;
+import com.openclassrooms.tourguide.geofence.GeofenceEvent;
+import com.openclassrooms.tourguide.geofence.GeofenceSettings;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.NearbyAttractionService;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.spatial.AttractionIndex;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserReward;
+
+
+public class TestReactiveTourGuideController {
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(10);
+	private final Scheduler blockingScheduler = Schedulers.newBoundedElastic(10, 100, "test-blocking");
+	private TourGuideService tourGuideService;
+	private WebTestClient client;
+
+	@BeforeEach
+	public void setUp() {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardCentral rewardCentral = new RewardCentral();
+		RewardsService rewardsService = new RewardsService(gpsUtil, rewardCentral);
+		InternalTestHelper.setInternalUserNumber(0);
+		tourGuideService = TourGuideService.builder(gpsUtil, rewardsService).build();
+		NearbyAttractionService nearbyAttractionService = new NearbyAttractionService(tourGuideService, rewardsService,
+				new RewardPointsCache(rewardCentral, Duration.ofMinutes(1), 100, executor), executor,
+				Duration.ofSeconds(5));
+		client = WebTestClient.bindToController(
+				new ReactiveTourGuideController(tourGuideService, nearbyAttractionService, blockingScheduler))
+				.build();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		tourGuideService.tracker.stopTracking();
+		blockingScheduler.dispose();
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void userWithoutHistoryIsLocatedOnTheBlockingScheduler() {
+		// Arrange
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		tourGuideService.addUser(user);
+
+		// Act & Assert: the location is tracked and recorded
+		client.get().uri("/getLocation?userName=jon").exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.userId").isEqualTo(user.getUserId().toString());
+		assertEquals(1, user.getVisitedLocationCount());
+	}
+
+	@Test
+	public void rewardsAndNearbyAttractionsAreStreamed() {
+		// Arrange
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		Attraction attraction = new Attraction("Disneyland", "Anaheim", "CA", 33.817595, -117.922008);
+		VisitedLocation visitedLocation = new VisitedLocation(user.getUserId(), attraction, new Date());
+		user.addToVisitedLocations(visitedLocation);
+		user.addUserReward(new UserReward(visitedLocation, attraction, 100));
+		tourGuideService.addUser(user);
+
+		// Act & Assert
+		client.get().uri("/getRewards?userName=jon").exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.length()").isEqualTo(1)
+				.jsonPath("$[0].rewardPoints").isEqualTo(100);
+		client.get().uri("/getNearbyAttractions?userName=jon").exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.length()").isEqualTo(5);
+	}
+
+	@Test
+	public void geofenceEventsAreStreamed() {
+		// Arrange
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		tourGuideService.addUser(user);
+		Attraction attraction = new Attraction("Disneyland", "Anaheim", "CA", 33.817595, -117.922008);
+		GeofenceSettings settings = new GeofenceSettings();
+		settings.setEnabled(true);
+		try (GeofenceEngine geofenceEngine = new GeofenceEngine(new AttractionIndex(List.of(attraction)), settings,
+				new SimpleMeterRegistry())) {
+			WebTestClient geofenceClient = WebTestClient.bindToController(new ReactiveTourGuideController(
+					tourGuideService, null, blockingScheduler, geofenceEngine)).build();
+
+			// Act: the user keeps walking in and out of the geofence while the stream is opened
+			Location farAway = new Location(0, 0);
+			Disposable walk = Flux.interval(Duration.ofMillis(20)).subscribe(i -> geofenceEngine.locationAdded(user,
+					new VisitedLocation(user.getUserId(), i % 2 == 0 ? attraction : farAway, new Date())));
+			GeofenceEvent event;
+			try {
+				event = geofenceClient.get().uri("/geofenceEvents?userName=jon").exchange()
+						.expectStatus().isOk()
+						.returnResult(GeofenceEvent.class)
+						.getResponseBody()
+						.filter(received -> received.type() == GeofenceEvent.Type.ENTER)
+						.blockFirst(Duration.ofSeconds(10));
+			} finally {
+				walk.dispose();
+			}
+
+			// Assert
+			assertEquals("Disneyland", event.attractionName());
+			assertEquals(user.getUserId(), event.userId());
+		}
+	}
+
+	@Test
+	public void unknownUserIsNotFound() {
+		client.get().uri("/getTripDeals?userName=nobody").exchange()
+				.expectStatus().isNotFound();
+	}
+}
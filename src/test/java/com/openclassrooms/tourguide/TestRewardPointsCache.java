@@ -0,0 +1,80 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.cache.RewardPointsCache;
+
+
+public class TestRewardPointsCache {
+
+	@Test
+	public void concurrentLookupsShareOneCall() throws InterruptedException {
+		// Arrange: a RewardCentral that blocks until released and counts its calls
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger calls = new AtomicInteger();
+		RewardCentral rewardCentral = new RewardCentral() {
+			@Override
+			public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+				calls.incrementAndGet();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return 42;
+			}
+		};
+		RewardPointsCache rewardPointsCache = new RewardPointsCache(rewardCentral, Duration.ofMinutes(1), 10,
+				Executors.newFixedThreadPool(4));
+		UUID attractionId = UUID.randomUUID();
+		UUID userId = UUID.randomUUID();
+
+		// Act
+		CompletableFuture<Integer> first = rewardPointsCache.getRewardPointsAsync(attractionId, userId);
+		CompletableFuture<Integer> second = rewardPointsCache.getRewardPointsAsync(attractionId, userId);
+		release.countDown();
+
+		// Assert: both callers got the same in-flight lookup, and later calls hit the cache
+		assertSame(first, second);
+		assertEquals(42, first.join());
+		assertEquals(42, rewardPointsCache.getRewardPoints(attractionId, userId));
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	public void statisticsArePublished() {
+		// Arrange
+		RewardCentral rewardCentral = new RewardCentral() {
+			@Override
+			public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+				return 7;
+			}
+		};
+		RewardPointsCache rewardPointsCache = new RewardPointsCache(rewardCentral, Duration.ofMinutes(1), 10,
+				Executors.newFixedThreadPool(1));
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		rewardPointsCache.bindTo(registry);
+		UUID attractionId = UUID.randomUUID();
+		UUID userId = UUID.randomUUID();
+
+		// Act
+		rewardPointsCache.getRewardPoints(attractionId, userId);
+		rewardPointsCache.getRewardPoints(attractionId, userId);
+
+		// Assert
+		assertEquals(1.0, registry.get("cache.gets").tag("cache", "rewardPoints").tag("result", "hit").functionCounter().count());
+		assertEquals(1.0, registry.get("cache.gets").tag("cache", "rewardPoints").tag("result", "miss").functionCounter().count());
+	}
+}
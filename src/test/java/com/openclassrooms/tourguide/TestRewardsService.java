@@ -3,8 +3,12 @@ package com.openclassrooms.tourguide;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
+import java.util.Set;
 import java.util.UUID;
 
 import org.junit.jupiter.api.Disabled;
@@ -12,11 +16,16 @@ import org.junit.jupiter.api.Test;
 
 import gpsUtil.GpsUtil;
 import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
 import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.cache.RewardPointsCache;
+import com.openclassrooms.tourguide.execution.ExecutionStrategy;
 import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.RewardMatcher;
 import com.openclassrooms.tourguide.service.RewardsService;
 import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.spatial.AttractionIndex;
 import com.openclassrooms.tourguide.user.User;
 import com.openclassrooms.tourguide.user.UserReward;
 
@@ -29,7 +38,7 @@ public class TestRewardsService {
 		GpsUtil gpsUtil = new GpsUtil();
 		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
 		InternalTestHelper.setInternalUserNumber(0);
-		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService);
+		TourGuideService tourGuideService = TourGuideService.builder(gpsUtil, rewardsService).build();
 
 		// Create a user and simulate a visit to an attraction
 		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
@@ -66,7 +75,7 @@ public class TestRewardsService {
 		rewardsService.setProximityBuffer(Integer.MAX_VALUE);
 
 		InternalTestHelper.setInternalUserNumber(1);
-		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService);
+		TourGuideService tourGuideService = TourGuideService.builder(gpsUtil, rewardsService).build();
 
 		// Act
 		rewardsService.calculateRewards(tourGuideService.getAllUsers().get(0));
@@ -76,4 +85,146 @@ public class TestRewardsService {
 		// Assert: user should have a reward for every attraction
 		assertEquals(gpsUtil.getAttractions().size(), userRewards.size());
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void prunedMatchingMatchesFullScan() {
+		// Arrange
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
+		Random random = new Random(3);
+		List<Attraction> attractions = TestAttractionIndex.randomAttractions(500, random);
+		AttractionIndex attractionIndex = new AttractionIndex(attractions);
+		RewardMatcher rewardMatcher = new RewardMatcher(attractionIndex, rewardsService::getDistance);
+		RewardMatcher chordMatcher = new RewardMatcher(attractionIndex);
+
+		UUID userId = UUID.randomUUID();
+		List<VisitedLocation> visitedLocations = new ArrayList<>();
+		for (int i = 0; i < 300; i++) {
+			visitedLocations.add(new VisitedLocation(userId, TestAttractionIndex.randomLocation(random), new Date()));
+		}
+		Set<String> alreadyRewarded = new HashSet<>();
+		for (int i = 0; i < attractions.size(); i += 7) {
+			alreadyRewarded.add(attractions.get(i).attractionName);
+		}
+		double proximityBuffer = 300;
+
+		// Expected: the original nested loop over every location and every attraction
+		List<RewardMatcher.Match> expected = new ArrayList<>();
+		Set<String> rewarded = new HashSet<>(alreadyRewarded);
+		for (VisitedLocation visitedLocation : visitedLocations) {
+			for (Attraction attraction : attractions) {
+				if (!rewarded.contains(attraction.attractionName)
+						&& rewardsService.getDistance(attraction, visitedLocation.location) <= proximityBuffer) {
+					expected.add(new RewardMatcher.Match(visitedLocation, attraction));
+					rewarded.add(attraction.attractionName);
+				}
+			}
+		}
+
+		// Act
+		List<RewardMatcher.Match> matches = rewardMatcher.match(visitedLocations, alreadyRewarded, proximityBuffer);
+		List<RewardMatcher.Match> chordMatches = chordMatcher.match(visitedLocations, alreadyRewarded, proximityBuffer);
+
+		// Assert: same rewards, credited to the same locations, in the same order
+		assertTrue(expected.size() > 0);
+		assertEquals(expected, matches);
+		assertEquals(expected, chordMatches);
+	}
+
+	@Test
+	public void matchingAgreesWithTheDistanceAtTheEdgeOfTheBuffer() {
+		// Arrange: for each attraction, a visit just outside the buffer followed by one just inside it
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
+		Random random = new Random(5);
+		List<Attraction> attractions = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			attractions.add(new Attraction("Attraction" + i, "City", "ST",
+					-60 + random.nextDouble() * 120, -180 + random.nextDouble() * 360));
+		}
+		RewardMatcher rewardMatcher = new RewardMatcher(new AttractionIndex(attractions), rewardsService::getDistance);
+		double proximityBuffer = 10;
+		double epsilon = 1e-9;
+
+		UUID userId = UUID.randomUUID();
+		List<VisitedLocation> visitedLocations = new ArrayList<>();
+		Set<Location> insideLocations = new HashSet<>();
+		for (Attraction attraction : attractions) {
+			double bearing = random.nextDouble() * 2 * Math.PI;
+			double edge = offsetAtDistance(rewardsService, attraction, bearing, proximityBuffer);
+			Location outside = offset(attraction, bearing, edge * (1 + epsilon));
+			Location inside = offset(attraction, bearing, edge * (1 - epsilon));
+			assertTrue(rewardsService.getDistance(attraction, outside) > proximityBuffer);
+			assertTrue(rewardsService.getDistance(attraction, inside) <= proximityBuffer);
+			visitedLocations.add(new VisitedLocation(userId, outside, new Date()));
+			visitedLocations.add(new VisitedLocation(userId, inside, new Date()));
+			insideLocations.add(inside);
+		}
+
+		// Expected: the original nested loop over every location and every attraction
+		List<RewardMatcher.Match> expected = new ArrayList<>();
+		Set<String> rewarded = new HashSet<>();
+		for (VisitedLocation visitedLocation : visitedLocations) {
+			for (Attraction attraction : attractions) {
+				if (!rewarded.contains(attraction.attractionName)
+						&& rewardsService.getDistance(attraction, visitedLocation.location) <= proximityBuffer) {
+					expected.add(new RewardMatcher.Match(visitedLocation, attraction));
+					rewarded.add(attraction.attractionName);
+				}
+			}
+		}
+
+		// Act
+		List<RewardMatcher.Match> matches = rewardMatcher.match(visitedLocations, Set.of(), proximityBuffer);
+
+		// Assert: every attraction is credited to the visit just inside its buffer
+		assertEquals(expected, matches);
+		assertEquals(attractions.size(), matches.size());
+		assertTrue(matches.stream().allMatch(match -> insideLocations.contains(match.visitedLocation().location)));
+	}
+
+	/**
+	 * @return the offset in degrees along {@code bearing} at which a location is
+	 *         {@code miles} away from {@code origin}, found by bisection
+	 */
+	private static double offsetAtDistance(RewardsService rewardsService, Location origin, double bearing,
+			double miles) {
+		double low = 0;
+		double high = 1;
+		for (int i = 0; i < 200; i++) {
+			double middle = (low + high) / 2;
+			if (rewardsService.getDistance(origin, offset(origin, bearing, middle)) <= miles) {
+				low = middle;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	private static Location offset(Location origin, double bearing, double degrees) {
+		return new Location(origin.latitude + degrees * Math.cos(bearing), origin.longitude + degrees * Math.sin(bearing));
+	}
+
+	@Test
+	public void proximityBufferChangeReevaluatesHistory() {
+		// Arrange: a single attraction, and a visit roughly 70 miles away from it
+		Attraction attraction = new Attraction("Lone Attraction", "City", "ST", 40, -100);
+		ExecutionStrategy executionStrategy = ExecutionStrategy.platform();
+		RewardsService rewardsService = new RewardsService(new RewardPointsCache(new RewardCentral(), executionStrategy),
+				new AttractionIndex(List.of(attraction)), executionStrategy);
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(41, -100), new Date()));
+
+		rewardsService.calculateRewards(user);
+		assertEquals(0, user.getUserRewards().size());
+		assertEquals(1, user.getRewardsWatermark());
+
+		// Act: widening the buffer must re-evaluate the already watermarked location
+		rewardsService.setProximityBuffer(100);
+		rewardsService.calculateRewards(user);
+
+		// Assert
+		assertEquals(1, user.getUserRewards().size());
+	}
+}
@@ -0,0 +1,141 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.openclassrooms.tourguide.journal.JournalSettings;
+import com.openclassrooms.tourguide.journal.SegmentedJournal;
+import com.openclassrooms.tourguide.user.ConcurrentUserRepository;
+import com.openclassrooms.tourguide.user.HistoryRetention;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserRepository;
+import com.openclassrooms.tourguide.user.UserReward;
+
+public class TestSegmentedJournal {
+
+	private static final HistoryRetention RETENTION = new HistoryRetention(1000, Duration.ZERO);
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void usersLocationsAndRewardsSurviveARestart() {
+		// Arrange: a user added with some history, then tracked and rewarded
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		user.addToVisitedLocations(visit(user, 0));
+		try (SegmentedJournal journal = new SegmentedJournal(settings(), RETENTION, new SimpleMeterRegistry())) {
+			UserRepository userRepository = new ConcurrentUserRepository(journal);
+			userRepository.add(user);
+			user.addToVisitedLocations(visit(user, 1));
+			Attraction attraction = new Attraction("Disneyland", "Anaheim", "CA", 33.817595, -117.922008);
+			user.addUserReward(new UserReward(visit(user, 2), attraction, 250));
+		}
+
+		// Act
+		List<User> restored;
+		try (SegmentedJournal journal = new SegmentedJournal(settings(), RETENTION, new SimpleMeterRegistry())) {
+			restored = journal.restore();
+		}
+
+		// Assert
+		assertEquals(1, restored.size());
+		User restoredUser = restored.get(0);
+		assertEquals(user.getUserId(), restoredUser.getUserId());
+		assertEquals("jon@tourGuide.com", restoredUser.getEmailAddress());
+		assertEquals(2, restoredUser.getVisitedLocationCount());
+		assertEquals(1.0, restoredUser.getLastVisitedLocation().location.latitude);
+		assertEquals(250, restoredUser.getRewardPointsTotal());
+		assertEquals("Disneyland", restoredUser.getUserRewards().get(0).attraction.attractionName);
+	}
+
+	@Test
+	public void compactionKeepsOnlyRetainedLocations() throws IOException {
+		// Arrange: tiny segments, so 200 locations span many of them
+		JournalSettings settings = settings();
+		settings.setSegmentSize(DataSize.ofBytes(512));
+		settings.setCompactAfterSegments(0);
+		HistoryRetention retention = new HistoryRetention(5, Duration.ZERO);
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		try (SegmentedJournal journal = new SegmentedJournal(settings, retention, new SimpleMeterRegistry())) {
+			new ConcurrentUserRepository(journal).add(user);
+			for (int i = 0; i < 200; i++) {
+				user.addToVisitedLocations(visit(user, i));
+				journal.flush();
+			}
+			long segmentsBefore = countSegments();
+
+			// Act
+			journal.compact();
+
+			// Assert: sealed segments collapsed into one, next to the active one
+			assertTrue(segmentsBefore > 10);
+			assertEquals(2, countSegments());
+		}
+		List<User> restored;
+		try (SegmentedJournal journal = new SegmentedJournal(settings, retention, new SimpleMeterRegistry())) {
+			restored = journal.restore();
+		}
+		assertEquals(5, restored.get(0).getVisitedLocationCount());
+		assertEquals(199.0, restored.get(0).getLastVisitedLocation().location.latitude);
+	}
+
+	@Test
+	public void tornTailIsIgnored() throws IOException {
+		// Arrange: a complete run, then garbage as left by a crash in the middle of a write
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		try (SegmentedJournal journal = new SegmentedJournal(settings(), RETENTION, new SimpleMeterRegistry())) {
+			new ConcurrentUserRepository(journal).add(user);
+			user.addToVisitedLocations(visit(user, 0));
+		}
+		try (Stream<Path> segments = Files.list(directory)) {
+			Path segment = segments.sorted().findFirst().orElseThrow();
+			Files.write(segment, new byte[] { 0, 0, 0, 41, 1, 2, 3 }, StandardOpenOption.APPEND);
+		}
+
+		// Act
+		List<User> restored;
+		try (SegmentedJournal journal = new SegmentedJournal(settings(), RETENTION, new SimpleMeterRegistry())) {
+			restored = journal.restore();
+		}
+
+		// Assert
+		assertEquals(1, restored.size());
+		assertEquals(1, restored.get(0).getVisitedLocationCount());
+	}
+
+	private JournalSettings settings() {
+		JournalSettings settings = new JournalSettings();
+		settings.setEnabled(true);
+		settings.setDirectory(directory);
+		settings.setFsync(false);
+		return settings;
+	}
+
+	private long countSegments() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.count();
+		}
+	}
+
+	private static VisitedLocation visit(User user, int i) {
+		return new VisitedLocation(user.getUserId(), new Location(i, -117.9), new Date());
+	}
+}
@@ -0,0 +1,193 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.execution.ExecutionStrategy;
+import com.openclassrooms.tourguide.gateway.GpsGateway;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.shard.FileShardCoordinator;
+import com.openclassrooms.tourguide.shard.InMemoryShardCoordinator;
+import com.openclassrooms.tourguide.shard.ShardCoordinator;
+import com.openclassrooms.tourguide.shard.ShardMembership;
+import com.openclassrooms.tourguide.spatial.AttractionIndex;
+import com.openclassrooms.tourguide.tracker.TrackerSettings;
+import com.openclassrooms.tourguide.user.User;
+
+public class TestShardMembership {
+
+	@Test
+	public void everyUserHasExactlyOneOwner() {
+		// Arrange
+		ShardCoordinator coordinator = new InMemoryShardCoordinator();
+		List<ShardMembership> instances = join(coordinator, "a", "b", "c");
+		List<UUID> userIds = userIds(30_000);
+
+		// Act
+		Map<String, Integer> owned = new HashMap<>();
+		for (UUID userId : userIds) {
+			List<String> owners = instances.stream().filter(m -> m.owns(userId)).map(ShardMembership::getInstanceId).toList();
+			assertEquals(1, owners.size());
+			owned.merge(owners.get(0), 1, Integer::sum);
+		}
+
+		// Assert: roughly a third each
+		for (ShardMembership instance : instances) {
+			int count = owned.getOrDefault(instance.getInstanceId(), 0);
+			assertTrue(count > 7_000 && count < 13_000, instance.getInstanceId() + " owns " + count);
+		}
+	}
+
+	@Test
+	public void leavingOnlyMovesTheLeaversUsers() {
+		// Arrange
+		ShardCoordinator coordinator = new InMemoryShardCoordinator();
+		List<ShardMembership> instances = join(coordinator, "a", "b", "c");
+		List<UUID> userIds = userIds(10_000);
+		Map<UUID, String> before = owners(instances, userIds);
+
+		// Act
+		instances.get(2).leave();
+		List<ShardMembership> remaining = instances.subList(0, 2);
+		remaining.forEach(ShardMembership::refresh);
+		Map<UUID, String> after = owners(remaining, userIds);
+
+		// Assert
+		for (UUID userId : userIds) {
+			if (!before.get(userId).equals("c")) {
+				assertEquals(before.get(userId), after.get(userId));
+			}
+			assertTrue(after.get(userId) != null);
+		}
+	}
+
+	@Test
+	public void fileCoordinatorSharesAndExpiresMembers(@TempDir Path directory) throws InterruptedException {
+		// Arrange
+		ShardCoordinator first = new FileShardCoordinator(directory, Duration.ofMillis(500));
+		ShardCoordinator second = new FileShardCoordinator(directory, Duration.ofMillis(500));
+
+		// Act
+		first.register("a");
+		second.register("b");
+
+		// Assert
+		assertEquals(Set.of("a", "b"), first.getMembers());
+
+		// Act: "a" keeps registering, "b" goes silent
+		Thread.sleep(600);
+		first.register("a");
+
+		// Assert
+		assertEquals(Set.of("a"), second.getMembers());
+	}
+
+	@Test
+	public void twoInstancesTrackEveryUserExactlyOnce() throws InterruptedException {
+		// Arrange: both instances generate the same seeded users and join before tracking starts
+		List<ShardMembership> memberships = join(new InMemoryShardCoordinator(), "a", "b");
+		GpsUtil gpsUtil = new GpsUtil();
+		List<Attraction> attractions = gpsUtil.getAttractions();
+		Map<UUID, AtomicInteger> lookups = new ConcurrentHashMap<>();
+		GpsGateway countingGateway = new GpsGateway() {
+			@Override
+			public VisitedLocation getUserLocation(UUID userId) {
+				lookups.computeIfAbsent(userId, id -> new AtomicInteger()).incrementAndGet();
+				return new VisitedLocation(userId, new Location(0, -30), new Date());
+			}
+
+			@Override
+			public List<Attraction> getAttractions() {
+				return attractions;
+			}
+		};
+		TrackerSettings settings = new TrackerSettings();
+		settings.setInterval(Duration.ofHours(1));
+		int internalUserNumber = InternalTestHelper.getInternalUserNumber();
+		InternalTestHelper.setInternalUserNumber(200);
+		List<TourGuideService> instances = new ArrayList<>();
+		try {
+			for (ShardMembership membership : memberships) {
+				ExecutionStrategy executionStrategy = ExecutionStrategy.platform();
+				instances.add(TourGuideService.builder(countingGateway, new RewardsService(gpsUtil, new RewardCentral()))
+						.attractionIndex(new AttractionIndex(attractions))
+						.executionStrategy(executionStrategy)
+						.trackerSettings(settings)
+						.shardMembership(membership)
+						.build());
+			}
+		} finally {
+			InternalTestHelper.setInternalUserNumber(internalUserNumber);
+		}
+
+		// Act: wait for the first cycle of both instances
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (instances.stream().anyMatch(instance -> instance.tracker.getCompletedCycles() == 0)
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		instances.forEach(instance -> instance.tracker.stopTracking());
+
+		// Assert: every user was located once, by a single instance
+		Set<UUID> userIds = instances.get(0).streamAllUsers().map(User::getUserId).collect(Collectors.toSet());
+		assertEquals(200, userIds.size());
+		assertEquals(userIds, lookups.keySet());
+		lookups.values().forEach(count -> assertEquals(1, count.get()));
+	}
+
+	@Test
+	public void standaloneOwnsEveryone() {
+		ShardMembership standalone = ShardMembership.standalone();
+
+		assertTrue(userIds(1_000).stream().allMatch(standalone::owns));
+	}
+
+	private static List<ShardMembership> join(ShardCoordinator coordinator, String... instanceIds) {
+		List<ShardMembership> instances = new ArrayList<>();
+		for (String instanceId : instanceIds) {
+			instances.add(new ShardMembership(instanceId, coordinator, 128));
+		}
+		instances.forEach(ShardMembership::refresh);
+		return instances;
+	}
+
+	private static Map<UUID, String> owners(List<ShardMembership> instances, List<UUID> userIds) {
+		Map<UUID, String> owners = new HashMap<>();
+		for (UUID userId : userIds) {
+			instances.stream().filter(m -> m.owns(userId)).findFirst()
+					.ifPresent(m -> owners.put(userId, m.getInstanceId()));
+		}
+		return owners;
+	}
+
+	private static List<UUID> userIds(int count) {
+		List<UUID> userIds = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			userIds.add(UUID.randomUUID());
+		}
+		return userIds;
+	}
+}
@@ -0,0 +1,89 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.gateway.GatewayException;
+import com.openclassrooms.tourguide.gateway.LatencyProfile;
+import com.openclassrooms.tourguide.gateway.SimulatedGpsGateway;
+import com.openclassrooms.tourguide.gateway.SimulatedRewardsGateway;
+
+public class TestSimulatedGateways {
+
+	@Test
+	public void sameSeedGivesSameLocations() {
+		UUID userId = UUID.randomUUID();
+		SimulatedGpsGateway first = new SimulatedGpsGateway(List.of(), LatencyProfile.NONE, 0, 7);
+		SimulatedGpsGateway second = new SimulatedGpsGateway(List.of(), LatencyProfile.NONE, 0, 7);
+
+		for (int i = 0; i < 100; i++) {
+			VisitedLocation a = first.getUserLocation(userId);
+			VisitedLocation b = second.getUserLocation(userId);
+			assertEquals(a.location.latitude, b.location.latitude);
+			assertEquals(a.location.longitude, b.location.longitude);
+		}
+	}
+
+	@Test
+	public void errorRateFailsThatFractionOfCalls() {
+		SimulatedRewardsGateway gateway = new SimulatedRewardsGateway(LatencyProfile.NONE, 0.2, 42);
+
+		long failures = IntStream.range(0, 10_000).filter(i -> {
+			try {
+				int points = gateway.getAttractionRewardPoints(UUID.randomUUID(), UUID.randomUUID());
+				assertTrue(points >= 1 && points <= 1000);
+				return false;
+			} catch (GatewayException e) {
+				return true;
+			}
+		}).count();
+
+		assertEquals(2000, failures, 150);
+	}
+
+	@Test
+	public void latenciesFollowTheirDistribution() {
+		SplittableRandom random = new SplittableRandom(42);
+		Duration min = Duration.ofMillis(10);
+		Duration max = Duration.ofMillis(20);
+		LatencyProfile uniform = LatencyProfile.uniform(min, max);
+		LatencyProfile logNormal = LatencyProfile.logNormal(Duration.ofMillis(50), 0.5);
+		LatencyProfile spiky = LatencyProfile.fixed(min).withSpikes(0.1, Duration.ofSeconds(1));
+
+		long[] logNormalSamples = new long[10_001];
+		int spikes = 0;
+		for (int i = 0; i < logNormalSamples.length; i++) {
+			long sample = uniform.sampleNanos(random);
+			assertTrue(sample >= min.toNanos() && sample <= max.toNanos());
+			logNormalSamples[i] = logNormal.sampleNanos(random);
+			if (spiky.sampleNanos(random) > min.toNanos()) {
+				spikes++;
+			}
+		}
+
+		Arrays.sort(logNormalSamples);
+		assertEquals(Duration.ofMillis(50).toNanos(), logNormalSamples[5000], Duration.ofMillis(2).toNanos());
+		assertEquals(1000, spikes, 100);
+	}
+
+	@Test
+	public void callsWaitForTheirLatency() {
+		SimulatedRewardsGateway gateway = new SimulatedRewardsGateway(
+				LatencyProfile.fixed(Duration.ofMillis(20)), 0, 42);
+
+		long start = System.nanoTime();
+		gateway.getAttractionRewardPoints(UUID.randomUUID(), UUID.randomUUID());
+
+		assertTrue(System.nanoTime() - start >= Duration.ofMillis(20).toNanos());
+	}
+}
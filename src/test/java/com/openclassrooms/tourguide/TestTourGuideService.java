@@ -4,7 +4,11 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
@@ -13,9 +17,18 @@ import gpsUtil.GpsUtil;
 import gpsUtil.location.Attraction;
 import gpsUtil.location.VisitedLocation;
 import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.cache.TripDealsCache;
+import com.openclassrooms.tourguide.execution.ExecutionStrategy;
+import com.openclassrooms.tourguide.gateway.GatewayException;
+import com.openclassrooms.tourguide.gateway.GpsGateway;
+import com.openclassrooms.tourguide.gateway.GpsUtilGateway;
+import com.openclassrooms.tourguide.gateway.LatencyProfile;
+import com.openclassrooms.tourguide.gateway.SimulatedGpsGateway;
+import com.openclassrooms.tourguide.gateway.SimulatedPricingGateway;
 import com.openclassrooms.tourguide.helper.InternalTestHelper;
 import com.openclassrooms.tourguide.service.RewardsService;
 import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.spatial.AttractionIndex;
 import com.openclassrooms.tourguide.user.User;
 import tripPricer.Provider;
 
@@ -28,7 +41,7 @@ public class TestTourGuideService {
 		GpsUtil gpsUtil = new GpsUtil();
 		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
 		InternalTestHelper.setInternalUserNumber(0);
-		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService);
+		TourGuideService tourGuideService = TourGuideService.builder(gpsUtil, rewardsService).build();
 
 		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
 
@@ -47,7 +60,7 @@ public class TestTourGuideService {
 		GpsUtil gpsUtil = new GpsUtil();
 		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
 		InternalTestHelper.setInternalUserNumber(0);
-		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService);
+		TourGuideService tourGuideService = TourGuideService.builder(gpsUtil, rewardsService).build();
 
 		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
 		User user2 = new User(UUID.randomUUID(), "jon2", "000", "jon2@tourGuide.com");
@@ -72,7 +85,7 @@ public class TestTourGuideService {
 		GpsUtil gpsUtil = new GpsUtil();
 		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
 		InternalTestHelper.setInternalUserNumber(0);
-		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService);
+		TourGuideService tourGuideService = TourGuideService.builder(gpsUtil, rewardsService).build();
 
 		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
 		User user2 = new User(UUID.randomUUID(), "jon2", "000", "jon2@tourGuide.com");
@@ -94,7 +107,7 @@ public class TestTourGuideService {
 		GpsUtil gpsUtil = new GpsUtil();
 		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
 		InternalTestHelper.setInternalUserNumber(0);
-		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService);
+		TourGuideService tourGuideService = TourGuideService.builder(gpsUtil, rewardsService).build();
 
 		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
 
@@ -112,7 +125,7 @@ public class TestTourGuideService {
 		GpsUtil gpsUtil = new GpsUtil();
 		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
 		InternalTestHelper.setInternalUserNumber(0);
-		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService);
+		TourGuideService tourGuideService = TourGuideService.builder(gpsUtil, rewardsService).build();
 
 		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
 
@@ -127,11 +140,101 @@ public class TestTourGuideService {
 		assertEquals(5, attractions.size());
 	}
 
+	@Test
+	public void trackAllUsersOnVirtualThreads() throws InterruptedException {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
+		InternalTestHelper.setInternalUserNumber(0);
+		ExecutionStrategy executionStrategy = ExecutionStrategy.virtual();
+		TourGuideService tourGuideService = TourGuideService.builder(gpsUtil, rewardsService)
+				.executionStrategy(executionStrategy)
+				.build();
+
+		List<User> users = IntStream.range(0, 50)
+				.mapToObj(i -> new User(UUID.randomUUID(), "jon" + i, "000", "jon" + i + "@tourGuide.com"))
+				.collect(Collectors.toList());
+
+		// Track everyone twice: the shared executor must survive the first bulk run
+		tourGuideService.calculateAllTrackUserLocationAsync(users);
+		tourGuideService.calculateAllTrackUserLocationAsync(users);
+
+		tourGuideService.tracker.stopTracking();
+		executionStrategy.close();
+
+		users.forEach(user -> assertEquals(2, user.getVisitedLocations().size()));
+	}
+
+	@Test
+	public void trackUsersThroughBatchEndpoint() {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
+		InternalTestHelper.setInternalUserNumber(0);
+		AtomicInteger batchCalls = new AtomicInteger();
+		SimulatedGpsGateway gpsGateway = new SimulatedGpsGateway(gpsUtil.getAttractions(), LatencyProfile.NONE, 0,
+				42, true) {
+			@Override
+			public List<VisitedLocation> getUserLocations(List<UUID> userIds) {
+				batchCalls.incrementAndGet();
+				return super.getUserLocations(userIds);
+			}
+		};
+		TourGuideService tourGuideService = newTourGuideService(gpsGateway, rewardsService, gpsUtil);
+
+		List<User> users = IntStream.range(0, 10)
+				.mapToObj(i -> new User(UUID.randomUUID(), "jon" + i, "000", "jon" + i + "@tourGuide.com"))
+				.collect(Collectors.toList());
+		Map<User, VisitedLocation> tracked = tourGuideService.trackUserLocations(users);
+
+		tourGuideService.tracker.stopTracking();
+
+		assertEquals(1, batchCalls.get());
+		assertEquals(users, List.copyOf(tracked.keySet()));
+		users.forEach(user -> assertEquals(tracked.get(user), user.getLastVisitedLocation()));
+	}
+
+	@Test
+	public void failedLookupDoesNotFailTheBatch() {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
+		InternalTestHelper.setInternalUserNumber(0);
+		User unreachable = new User(UUID.randomUUID(), "unreachable", "000", "unreachable@tourGuide.com");
+		GpsUtilGateway gpsGateway = new GpsUtilGateway(gpsUtil) {
+			@Override
+			public VisitedLocation getUserLocation(UUID userId) {
+				if (userId.equals(unreachable.getUserId())) {
+					throw new GatewayException("GPS unreachable");
+				}
+				return super.getUserLocation(userId);
+			}
+		};
+		TourGuideService tourGuideService = newTourGuideService(gpsGateway, rewardsService, gpsUtil);
+
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		Map<User, VisitedLocation> tracked = tourGuideService.trackUserLocations(List.of(unreachable, user));
+
+		tourGuideService.tracker.stopTracking();
+
+		assertEquals(List.of(user), List.copyOf(tracked.keySet()));
+		assertTrue(unreachable.getVisitedLocations().isEmpty());
+		assertEquals(1, user.getVisitedLocations().size());
+	}
+
+	private TourGuideService newTourGuideService(GpsGateway gpsGateway,
+			RewardsService rewardsService, GpsUtil gpsUtil) {
+		ExecutionStrategy executionStrategy = ExecutionStrategy.platform();
+		return TourGuideService.builder(gpsGateway, rewardsService)
+				.tripDealsCache(new TripDealsCache(new SimulatedPricingGateway(LatencyProfile.NONE, 0, 42),
+						executionStrategy))
+				.attractionIndex(new AttractionIndex(gpsUtil.getAttractions()))
+				.executionStrategy(executionStrategy)
+				.build();
+	}
+
 	public void getTripDeals() {
 		GpsUtil gpsUtil = new GpsUtil();
 		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
 		InternalTestHelper.setInternalUserNumber(0);
-		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService);
+		TourGuideService tourGuideService = TourGuideService.builder(gpsUtil, rewardsService).build();
 
 		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
 
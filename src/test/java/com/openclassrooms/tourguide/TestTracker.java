@@ -0,0 +1,222 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.execution.ExecutionStrategy;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.tracker.AdaptiveScheduler;
+import com.openclassrooms.tourguide.tracker.OverrunPolicy;
+import com.openclassrooms.tourguide.tracker.TrackerSettings;
+import com.openclassrooms.tourguide.user.User;
+
+
+public class TestTracker {
+
+	/** Far from every attraction, so tracking never asks RewardCentral for points. */
+	private static final Location MID_OCEAN = new Location(0, -30);
+	private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+	@Test
+	public void cyclesRunAtFixedRate() throws InterruptedException {
+		// Arrange
+		TrackerSettings settings = new TrackerSettings();
+		settings.setInterval(Duration.ofMillis(300));
+		settings.setBatchSize(2);
+		long start = System.nanoTime();
+		TourGuideService tourGuideService = newTourGuideService(gpsAt(MID_OCEAN, Duration.ZERO), settings);
+		for (int i = 0; i < 5; i++) {
+			tourGuideService.addUser(new User(UUID.randomUUID(), "jon" + i, "000", "jon" + i + "@tourGuide.com"));
+		}
+
+		// Act: the first cycle may start before the users are added, so wait for a fourth one
+		awaitCondition(() -> tourGuideService.tracker.getCompletedCycles() >= 4);
+		tourGuideService.tracker.stopTracking();
+
+		// Assert: cycles were spaced by the interval, and every user was tracked in each of the last three
+		assertTrue(System.nanoTime() - start >= 3 * settings.getInterval().toNanos());
+		tourGuideService.getAllUsers().forEach(user -> assertTrue(user.getVisitedLocations().size() >= 3));
+	}
+
+	@Test
+	public void slowCyclesAreReportedAsOverruns() throws InterruptedException {
+		// Arrange: a GPS that takes longer than the whole tracking interval
+		TrackerSettings settings = new TrackerSettings();
+		settings.setInterval(Duration.ofMillis(100));
+		settings.setOverrunPolicy(OverrunPolicy.MERGE);
+		TourGuideService tourGuideService = newTourGuideService(gpsAt(MID_OCEAN, Duration.ofMillis(250)), settings);
+		tourGuideService.addUser(new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com"));
+
+		// Act
+		awaitCondition(() -> tourGuideService.tracker.getOverruns() >= 2);
+		tourGuideService.tracker.stopTracking();
+
+		// Assert
+		assertTrue(tourGuideService.tracker.getOverruns() >= 2);
+	}
+
+	@Test
+	public void pipelineTracksEveryUserAndDrainsOnShutdown() throws InterruptedException {
+		// Arrange
+		TrackerSettings settings = pipelineSettings();
+		TourGuideService tourGuideService = newTourGuideService(new GpsUtil(), settings);
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			users.add(new User(UUID.randomUUID(), "jon" + i, "000", "jon" + i + "@tourGuide.com"));
+		}
+
+		// Act: submit everyone, then shut down straight away
+		List<CompletableFuture<VisitedLocation>> futures = new ArrayList<>();
+		for (User user : users) {
+			futures.add(tourGuideService.trackUserLocationAsync(user));
+		}
+		tourGuideService.shutdown();
+
+		// Assert: the drain let every accepted user through
+		futures.forEach(future -> assertTrue(future.isDone() && !future.isCompletedExceptionally()));
+		users.forEach(user -> assertEquals(1, user.getVisitedLocations().size()));
+	}
+
+	@Test
+	public void slowRewardLookupsDoNotHoldBackLocationCapture() throws InterruptedException {
+		// Arrange: every user is located on an attraction, and RewardCentral blocks until released
+		GpsUtil gpsUtil = new GpsUtil();
+		Attraction attraction = gpsUtil.getAttractions().get(0);
+		GpsUtil onAttraction = new GpsUtil() {
+			@Override
+			public VisitedLocation getUserLocation(UUID userId) {
+				return new VisitedLocation(userId, attraction, new Date());
+			}
+		};
+		CountDownLatch release = new CountDownLatch(1);
+		RewardCentral blockingRewardCentral = new RewardCentral() {
+			@Override
+			public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return 1;
+			}
+		};
+		TrackerSettings settings = pipelineSettings();
+		settings.getPipeline().getLookup().setParallelism(1);
+		InternalTestHelper.setInternalUserNumber(0);
+		RewardsService rewardsService = new RewardsService(gpsUtil, blockingRewardCentral);
+		TourGuideService tourGuideService = TourGuideService.builder(onAttraction, rewardsService)
+				.executionStrategy(ExecutionStrategy.platform())
+				.trackerSettings(settings)
+				.build();
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			users.add(new User(UUID.randomUUID(), "jon" + i, "000", "jon" + i + "@tourGuide.com"));
+		}
+
+		// Act
+		List<CompletableFuture<VisitedLocation>> futures = new ArrayList<>();
+		for (User user : users) {
+			futures.add(tourGuideService.trackUserLocationAsync(user));
+		}
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (users.stream().anyMatch(user -> user.getVisitedLocations().isEmpty())
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+
+		// Assert: everyone was located while the reward lookups were stuck
+		users.forEach(user -> assertEquals(1, user.getVisitedLocations().size()));
+		futures.forEach(future -> assertFalse(future.isDone()));
+
+		release.countDown();
+		tourGuideService.shutdown();
+		users.forEach(user -> assertEquals(1, user.getUserRewards().size()));
+	}
+
+	@Test
+	public void adaptiveTrackerPollsNewUsersThenWaitsForTheirCadence() throws InterruptedException {
+		// Arrange
+		TrackerSettings settings = new TrackerSettings();
+		settings.setInterval(Duration.ofMillis(200));
+		settings.getAdaptive().setEnabled(true);
+		settings.getAdaptive().setTick(Duration.ofMillis(50));
+		TourGuideService tourGuideService = newTourGuideService(gpsAt(MID_OCEAN, Duration.ZERO), settings);
+		AdaptiveScheduler adaptiveScheduler = tourGuideService.tracker.getAdaptiveScheduler();
+		for (int i = 0; i < 5; i++) {
+			tourGuideService.addUser(new User(UUID.randomUUID(), "jon" + i, "000", "jon" + i + "@tourGuide.com"));
+		}
+
+		// Act: users added after a walk of the user set are enrolled by the next one, an interval later;
+		// then let uniform tracking fall behind by three more polls per user
+		awaitCondition(() -> adaptiveScheduler.getScheduledUsers() == 5
+				&& tourGuideService.getAllUsers().stream().allMatch(user -> user.getVisitedLocationCount() == 1));
+		double uniformPolls = adaptiveScheduler.getUniformPolls();
+		awaitCondition(() -> adaptiveScheduler.getUniformPolls() >= uniformPolls + 15);
+		tourGuideService.tracker.stopTracking();
+
+		// Assert: everyone was polled once, and none is due again within the minimum interval
+		assertEquals(5, adaptiveScheduler.getPolls());
+		tourGuideService.getAllUsers().forEach(user -> assertEquals(1, user.getVisitedLocations().size()));
+	}
+
+	/**
+	 * A GPS that locates every user at the same place, after the same delay.
+	 */
+	private static GpsUtil gpsAt(Location location, Duration delay) {
+		return new GpsUtil() {
+			@Override
+			public VisitedLocation getUserLocation(UUID userId) {
+				try {
+					Thread.sleep(delay.toMillis());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return new VisitedLocation(userId, location, new Date());
+			}
+		};
+	}
+
+	private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TIMEOUT.toNanos();
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.nanoTime() - deadline < 0, "Condition not met within " + TIMEOUT);
+			Thread.sleep(10);
+		}
+	}
+
+	private TrackerSettings pipelineSettings() {
+		TrackerSettings settings = new TrackerSettings();
+		settings.setInterval(Duration.ofHours(1));
+		settings.getPipeline().setEnabled(true);
+		settings.getPipeline().getFetch().setParallelism(4);
+		return settings;
+	}
+
+	private TourGuideService newTourGuideService(GpsUtil gpsUtil, TrackerSettings settings) {
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
+		InternalTestHelper.setInternalUserNumber(0);
+		return TourGuideService.builder(gpsUtil, rewardsService)
+				.executionStrategy(ExecutionStrategy.platform())
+				.trackerSettings(settings)
+				.build();
+	}
+}
@@ -0,0 +1,103 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+import tripPricer.Provider;
+import com.openclassrooms.tourguide.cache.TripDealsCache;
+import com.openclassrooms.tourguide.execution.ExecutionStrategy;
+import com.openclassrooms.tourguide.gateway.PricingGateway;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserPreferences;
+import com.openclassrooms.tourguide.user.UserReward;
+
+
+public class TestTripDealsCache {
+
+	private final AtomicInteger calls = new AtomicInteger();
+
+	/** Prices every trip at the number of calls made so far, so each call is recognizable. */
+	private final PricingGateway countingGateway = (apiKey, attractionId, adults, children, nightsStay,
+			rewardsPoints) -> List.of(new Provider(attractionId, "provider", calls.incrementAndGet()));
+
+	@Test
+	public void samePricingInputsHitTheCache() {
+		TripDealsCache tripDealsCache = new TripDealsCache(countingGateway, ExecutionStrategy.platform());
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+
+		List<Provider> first = tripDealsCache.getTripDeals(user);
+		List<Provider> second = tripDealsCache.getTripDeals(user);
+
+		assertSame(first, second);
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	public void changedPreferencesOrRewardsArePricedAgain() {
+		TripDealsCache tripDealsCache = new TripDealsCache(countingGateway, ExecutionStrategy.platform());
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		tripDealsCache.getTripDeals(user);
+
+		UserPreferences preferences = new UserPreferences();
+		preferences.setNumberOfAdults(2);
+		user.setUserPreferences(preferences);
+		tripDealsCache.getTripDeals(user);
+
+		Attraction attraction = new Attraction("Disneyland", "Anaheim", "CA", 33.817595, -117.922008);
+		user.addUserReward(new UserReward(new VisitedLocation(user.getUserId(), attraction, new Date()),
+				attraction, 100));
+		List<Provider> deals = tripDealsCache.getTripDeals(user);
+
+		assertEquals(100, user.getRewardPointsTotal());
+		assertEquals(3, calls.get());
+		assertEquals(3, deals.get(0).price);
+	}
+
+	@Test
+	public void staleDealsAreServedWhileRefreshing() throws InterruptedException {
+		// Arrange: deals go stale after 50 ms, and the refresh blocks until released
+		CountDownLatch refreshing = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		PricingGateway slowOnRefresh = (apiKey, attractionId, adults, children, nightsStay, rewardsPoints) -> {
+			if (calls.get() > 0) {
+				refreshing.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return List.of(new Provider(attractionId, "provider", calls.incrementAndGet()));
+		};
+		TripDealsCache tripDealsCache = new TripDealsCache(slowOnRefresh, Duration.ofMillis(50),
+				Duration.ofMinutes(1), 10, ExecutionStrategy.platform());
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		List<Provider> original = tripDealsCache.getTripDeals(user);
+		Thread.sleep(100);
+
+		// Act: the stale deals come back at once while the refresh is stuck
+		List<Provider> stale = tripDealsCache.getTripDeals(user);
+		refreshing.await(5, TimeUnit.SECONDS);
+		release.countDown();
+
+		// Assert: the refreshed deals replace them once the reload completes
+		assertSame(original, stale);
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (tripDealsCache.getTripDeals(user).get(0).price != 2 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(2, tripDealsCache.getTripDeals(user).get(0).price);
+	}
+}
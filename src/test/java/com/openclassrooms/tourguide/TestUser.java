@@ -0,0 +1,157 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.user.HistoryLayout;
+import com.openclassrooms.tourguide.user.HistoryRetention;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserReward;
+
+public class TestUser {
+
+	@Test
+	public void historyKeepsNewestLocationsUpToMaxPoints() {
+		// Arrange
+		User user = newUser(new HistoryRetention(5, Duration.ZERO));
+
+		// Act
+		IntStream.range(0, 12).forEach(i -> user.addToVisitedLocations(visit(user, i, new Date())));
+
+		// Assert
+		List<VisitedLocation> history = user.getVisitedLocations();
+		assertEquals(5, history.size());
+		assertEquals(7, history.get(0).location.latitude);
+		assertEquals(11, user.getLastVisitedLocation().location.latitude);
+	}
+
+	@Test
+	public void historyDropsLocationsOlderThanMaxAgeButKeepsNewest() {
+		// Arrange
+		User user = newUser(new HistoryRetention(100, Duration.ofDays(1)));
+		Date old = new Date(System.currentTimeMillis() - Duration.ofDays(2).toMillis());
+
+		// Act
+		user.addToVisitedLocations(visit(user, 0, old));
+		user.addToVisitedLocations(visit(user, 1, old));
+		int afterOldOnly = user.getVisitedLocations().size();
+		user.addToVisitedLocations(visit(user, 2, new Date()));
+
+		// Assert
+		assertEquals(1, afterOldOnly);
+		assertEquals(1, user.getVisitedLocations().size());
+		assertEquals(2, user.getLastVisitedLocation().location.latitude);
+	}
+
+	@Test
+	public void claimReturnsOnlyNewLocationsEvenAfterEviction() {
+		// Arrange
+		User user = newUser(new HistoryRetention(3, Duration.ZERO));
+		IntStream.range(0, 2).forEach(i -> user.addToVisitedLocations(visit(user, i, new Date())));
+		assertEquals(2, user.claimLocationsForRewards(0, false).size());
+
+		// Act: four more locations, one of them pushed out before being claimed
+		IntStream.range(2, 6).forEach(i -> user.addToVisitedLocations(visit(user, i, new Date())));
+		List<VisitedLocation> claimed = user.claimLocationsForRewards(0, false);
+
+		// Assert
+		assertEquals(List.of(3.0, 4.0, 5.0), claimed.stream().map(v -> v.location.latitude).toList());
+		assertTrue(user.claimLocationsForRewards(0, false).isEmpty());
+		assertEquals(3, user.claimLocationsForRewards(1, false).size());
+	}
+
+	@Test
+	public void rewardsAreKeptOncePerAttraction() {
+		// Arrange
+		User user = newUser(HistoryRetention.DEFAULT);
+		Attraction attraction = new Attraction("Disneyland", "Anaheim", "CA", 33.8, -117.9);
+		Attraction sameAttractionNewId = new Attraction("Disneyland", "Anaheim", "CA", 33.8, -117.9);
+		VisitedLocation visitedLocation = visit(user, 0, new Date());
+
+		// Act
+		boolean first = user.addUserReward(new UserReward(visitedLocation, attraction, 10));
+		boolean second = user.addUserReward(new UserReward(visitedLocation, sameAttractionNewId, 20));
+
+		// Assert
+		assertTrue(first);
+		assertFalse(second);
+		assertEquals(1, user.getUserRewards().size());
+		assertEquals(10, user.getUserRewards().get(0).getRewardPoints());
+	}
+
+	@Test
+	public void snapshotsAreImmutableAndSharedUntilNextChange() {
+		// Arrange
+		User user = newUser(HistoryRetention.DEFAULT);
+		assertNull(user.getLastVisitedLocation());
+		user.addToVisitedLocations(visit(user, 0, new Date()));
+
+		// Act
+		List<VisitedLocation> first = user.getVisitedLocations();
+		List<VisitedLocation> second = user.getVisitedLocations();
+		user.addToVisitedLocations(visit(user, 1, new Date()));
+
+		// Assert
+		assertSame(first, second);
+		assertEquals(1, first.size());
+		assertEquals(2, user.getVisitedLocations().size());
+		assertThrows(UnsupportedOperationException.class, () -> first.add(visit(user, 2, new Date())));
+		assertThrows(UnsupportedOperationException.class, () -> user.getUserRewards().add(null));
+	}
+
+	@Test
+	public void columnarHistoryMatchesObjectHistory() {
+		// Arrange
+		HistoryRetention retention = new HistoryRetention(50, Duration.ZERO);
+		UUID userId = UUID.randomUUID();
+		User objects = new User(userId, "jon", "000", "jon@tourGuide.com", retention, HistoryLayout.OBJECTS);
+		User columnar = new User(userId, "jon", "000", "jon@tourGuide.com", retention, HistoryLayout.COLUMNAR);
+		Random random = new Random(42);
+
+		// Act: enough points to grow the buffer and wrap around it
+		for (int i = 0; i < 130; i++) {
+			VisitedLocation visitedLocation = new VisitedLocation(userId, TestAttractionIndex.randomLocation(random),
+					new Date(random.nextLong(1L << 41)));
+			objects.addToVisitedLocations(visitedLocation);
+			columnar.addToVisitedLocations(visitedLocation);
+		}
+
+		// Assert
+		assertEquals(describe(objects.getVisitedLocations()), describe(columnar.getVisitedLocations()));
+		assertEquals(describe(objects.claimLocationsForRewards(0, false)),
+				describe(columnar.claimLocationsForRewards(0, false)));
+		assertEquals(describe(List.of(objects.getLastVisitedLocation())),
+				describe(List.of(columnar.getLastVisitedLocation())));
+		assertEquals(userId, columnar.getLastVisitedLocation().userId);
+	}
+
+	private static List<String> describe(List<VisitedLocation> visitedLocations) {
+		return visitedLocations.stream()
+				.map(v -> v.location.latitude + "," + v.location.longitude + "@" + v.timeVisited.getTime())
+				.toList();
+	}
+
+	private static User newUser(HistoryRetention retention) {
+		return new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com", retention);
+	}
+
+	private static VisitedLocation visit(User user, double latitude, Date timeVisited) {
+		return new VisitedLocation(user.getUserId(), new Location(latitude, 0), timeVisited);
+	}
+}
@@ -0,0 +1,72 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.user.ConcurrentUserRepository;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserRepository;
+
+public class TestUserRepository {
+
+	@Test
+	public void findsUsersByNameAndId() {
+		// Arrange
+		UserRepository userRepository = new ConcurrentUserRepository();
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+
+		// Act
+		boolean added = userRepository.add(user);
+
+		// Assert
+		assertTrue(added);
+		assertSame(user, userRepository.findByUserName("jon"));
+		assertSame(user, userRepository.findByUserId(user.getUserId()));
+		assertNull(userRepository.findByUserName("jon2"));
+	}
+
+	@Test
+	public void keepsFirstUserWithSameName() {
+		// Arrange
+		UserRepository userRepository = new ConcurrentUserRepository();
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		User duplicate = new User(UUID.randomUUID(), "jon", "111", "other@tourGuide.com");
+		userRepository.add(user);
+
+		// Act
+		boolean added = userRepository.add(duplicate);
+
+		// Assert
+		assertFalse(added);
+		assertEquals(1, userRepository.size());
+		assertSame(user, userRepository.findByUserName("jon"));
+		assertNull(userRepository.findByUserId(duplicate.getUserId()));
+	}
+
+	@Test
+	public void concurrentAddsAreAllVisibleToParallelTraversal() {
+		// Arrange
+		UserRepository userRepository = new ConcurrentUserRepository();
+
+		// Act
+		IntStream.range(0, 50_000).parallel()
+				.forEach(i -> userRepository.add(new User(UUID.randomUUID(), "user" + i, "000", "user" + i + "@tourGuide.com")));
+		Set<String> names = userRepository.stream().parallel()
+				.map(User::getUserName)
+				.collect(Collectors.toSet());
+
+		// Assert
+		assertEquals(50_000, userRepository.size());
+		assertEquals(50_000, names.size());
+	}
+}
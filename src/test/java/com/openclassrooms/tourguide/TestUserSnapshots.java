@@ -0,0 +1,230 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.openclassrooms.tourguide.journal.JournalSettings;
+import com.openclassrooms.tourguide.journal.SegmentedJournal;
+import com.openclassrooms.tourguide.journal.SnapshotSettings;
+import com.openclassrooms.tourguide.journal.SnapshotStore;
+import com.openclassrooms.tourguide.journal.UserJournal;
+import com.openclassrooms.tourguide.user.ConcurrentUserRepository;
+import com.openclassrooms.tourguide.user.HistoryRetention;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserPreferences;
+import com.openclassrooms.tourguide.user.UserRepository;
+import com.openclassrooms.tourguide.user.UserReward;
+
+public class TestUserSnapshots {
+
+	private static final HistoryRetention RETENTION = new HistoryRetention(1000, Duration.ZERO);
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void usersAreLoadedBackFromASnapshot() {
+		// Arrange: more users than shards, each with history, preferences and a reward
+		UserRepository userRepository = new ConcurrentUserRepository();
+		for (int i = 0; i < 100; i++) {
+			User user = new User(UUID.randomUUID(), "internalUser" + i, "000", "user" + i + "@tourGuide.com",
+					RETENTION);
+			UserPreferences preferences = new UserPreferences();
+			preferences.setTripDuration(i);
+			user.setUserPreferences(preferences);
+			user.addToVisitedLocations(visit(user, 0));
+			user.addToVisitedLocations(visit(user, i));
+			user.addUserReward(new UserReward(visit(user, i), disneyland(), i));
+			userRepository.add(user);
+		}
+		try (SnapshotStore store = store(UserJournal.NONE)) {
+			store.snapshot(userRepository);
+		}
+
+		// Act
+		UserRepository loaded;
+		try (SnapshotStore store = store(UserJournal.NONE)) {
+			loaded = store.load(new ConcurrentUserRepository()).orElseThrow();
+
+			// Assert: lookups by name wait for their shard, so nothing is missed while loading
+			for (int i = 0; i < 100; i++) {
+				User user = loaded.findByUserName("internalUser" + i);
+				assertNotNull(user);
+				assertEquals("user" + i + "@tourGuide.com", user.getEmailAddress());
+				assertEquals(i, user.getUserPreferences().getTripDuration());
+				assertEquals(2, user.getVisitedLocationCount());
+				assertEquals((double) i, user.getLastVisitedLocation().location.latitude);
+				assertEquals(i, user.getRewardPointsTotal());
+			}
+		}
+		assertEquals(100, loaded.size());
+	}
+
+	@Test
+	public void journalWrittenAfterTheSnapshotIsReplayedOnTopOfIt() {
+		// Arrange: a snapshot, then one more location for an existing user and a new user
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com", RETENTION);
+		User newcomer = new User(UUID.randomUUID(), "jane", "000", "jane@tourGuide.com", RETENTION);
+		try (SegmentedJournal journal = journal(); SnapshotStore store = store(journal)) {
+			UserRepository userRepository = new ConcurrentUserRepository(journal);
+			userRepository.add(user);
+			user.addToVisitedLocations(visit(user, 0));
+			store.snapshot(userRepository);
+			user.addToVisitedLocations(visit(user, 1));
+			userRepository.add(newcomer);
+		}
+
+		// Act
+		UserRepository loaded;
+		try (SegmentedJournal journal = journal(); SnapshotStore store = store(journal)) {
+			loaded = store.load(new ConcurrentUserRepository(journal)).orElseThrow();
+			loaded.findByUserId(user.getUserId());
+		}
+
+		// Assert: the location in the snapshot was not appended a second time
+		assertEquals(2, loaded.size());
+		List<VisitedLocation> locations = loaded.findByUserName("jon").getVisitedLocations();
+		assertEquals(2, locations.size());
+		assertEquals(0.0, locations.get(0).location.latitude);
+		assertEquals(1.0, locations.get(1).location.latitude);
+		assertNotNull(loaded.findByUserName("jane"));
+	}
+
+	@Test
+	public void journalWrittenAfterTheSnapshotReachesTheUsersOfEveryShard() {
+		// Arrange: users spread over every shard, each moving once after the snapshot, and one new user per shard
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			users.add(new User(UUID.randomUUID(), "internalUser" + i, "000", "user" + i + "@tourGuide.com", RETENTION));
+		}
+		try (SegmentedJournal journal = journal(); SnapshotStore store = store(journal)) {
+			UserRepository userRepository = new ConcurrentUserRepository(journal);
+			users.forEach(userRepository::add);
+			store.snapshot(userRepository);
+			users.forEach(user -> user.addToVisitedLocations(visit(user, 1)));
+			for (int i = 0; i < 8; i++) {
+				userRepository.add(new User(UUID.randomUUID(), "newcomer" + i, "000", "new" + i + "@tourGuide.com",
+						RETENTION));
+			}
+		}
+
+		// Act
+		UserRepository loaded;
+		try (SegmentedJournal journal = journal(); SnapshotStore store = store(journal)) {
+			loaded = store.load(new ConcurrentUserRepository(journal)).orElseThrow();
+			loaded.findByUserId(UUID.randomUUID());
+		}
+
+		// Assert
+		assertEquals(48, loaded.size());
+		users.forEach(user -> assertEquals(1, loaded.findByUserId(user.getUserId()).getVisitedLocationCount()));
+	}
+
+	@Test
+	public void compactionAfterASnapshotKeepsTheLocationsWrittenSinceThen() {
+		// Arrange: a snapshot discards the segment holding the user's identity, then
+		// tiny segments spread the following locations over many segments
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com", RETENTION);
+		try (SegmentedJournal journal = journal(DataSize.ofBytes(512)); SnapshotStore store = store(journal)) {
+			UserRepository userRepository = new ConcurrentUserRepository(journal);
+			userRepository.add(user);
+			user.addToVisitedLocations(visit(user, 0));
+			store.snapshot(userRepository);
+			for (int i = 1; i <= 50; i++) {
+				user.addToVisitedLocations(visit(user, i));
+				journal.flush();
+			}
+
+			// Act
+			journal.compact();
+		}
+
+		// Assert
+		UserRepository loaded;
+		try (SegmentedJournal journal = journal(DataSize.ofBytes(512)); SnapshotStore store = store(journal)) {
+			loaded = store.load(new ConcurrentUserRepository(journal)).orElseThrow();
+			loaded.findByUserId(user.getUserId());
+		}
+		List<VisitedLocation> locations = loaded.findByUserName("jon").getVisitedLocations();
+		assertEquals(51, locations.size());
+		assertEquals(50.0, locations.get(50).location.latitude);
+	}
+
+	@Test
+	public void onlyRetainedSnapshotsAreKept() throws IOException {
+		// Arrange: a snapshot left unfinished by a crash
+		UserRepository userRepository = new ConcurrentUserRepository();
+		userRepository.add(new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com", RETENTION));
+		Files.createDirectories(directory.resolve("snapshots").resolve("00000000000000000007.tmp"));
+
+		// Act
+		try (SnapshotStore store = store(UserJournal.NONE)) {
+			for (int i = 0; i < 3; i++) {
+				store.snapshot(userRepository);
+			}
+		}
+
+		// Assert: the unfinished snapshot and the oldest complete one are gone
+		try (Stream<Path> snapshots = Files.list(directory.resolve("snapshots"))) {
+			List<String> names = snapshots.map(path -> path.getFileName().toString()).sorted().toList();
+			assertEquals(List.of("00000000000000000002", "00000000000000000003"), names);
+		}
+		try (SnapshotStore store = store(UserJournal.NONE)) {
+			Optional<UserRepository> loaded = store.load(new ConcurrentUserRepository());
+			assertTrue(loaded.isPresent());
+			assertNotNull(loaded.get().findByUserName("jon"));
+		}
+	}
+
+	private SnapshotStore store(UserJournal journal) {
+		SnapshotSettings settings = new SnapshotSettings();
+		settings.setEnabled(true);
+		settings.setDirectory(directory.resolve("snapshots"));
+		settings.setShards(8);
+		settings.setInterval(Duration.ZERO);
+		settings.setSnapshotOnShutdown(false);
+		return new SnapshotStore(settings, RETENTION, journal, new SimpleMeterRegistry());
+	}
+
+	private SegmentedJournal journal() {
+		return journal(new JournalSettings().getSegmentSize());
+	}
+
+	private SegmentedJournal journal(DataSize segmentSize) {
+		JournalSettings settings = new JournalSettings();
+		settings.setSegmentSize(segmentSize);
+		settings.setCompactAfterSegments(0);
+		settings.setEnabled(true);
+		settings.setDirectory(directory.resolve("journal"));
+		settings.setFsync(false);
+		return new SegmentedJournal(settings, RETENTION, new SimpleMeterRegistry());
+	}
+
+	private static Attraction disneyland() {
+		return new Attraction("Disneyland", "Anaheim", "CA", 33.817595, -117.922008);
+	}
+
+	private static VisitedLocation visit(User user, int i) {
+		return new VisitedLocation(user.getUserId(), new Location(i, -117.9), new Date(i));
+	}
+}